@@ -26,14 +26,25 @@ def handler(event, context):
 
 	logger.debug(f"Testing new function version: {function_to_test}, isCodeDeployRun: {code_deployment_deployment_id != None}, forceError: {force_error}")
 
+	# Warm up first so the JIT has compiled the analysis code before the function takes traffic
+	response = lambda_client.invoke(
+		FunctionName = function_to_test,
+		Payload = '{"action":"warm"}'
+	)
+	if response['StatusCode'] != 200 or 'FunctionError' in response:
+		# Carry on, the test below fails a broken function. A function that only failed to warm up (e.g. timed out) is still tested.
+		logger.warning(f"Warm up failed. Status code: {response['StatusCode']}. Error: {response.get('FunctionError')}")
+	else:
+		logger.info(f"Warm up: {response['Payload'].read().decode('utf-8').strip()}")
+
 	response = lambda_client.invoke(
 		FunctionName = function_to_test,
 		Payload = '{"action":"next","currentPlayer":"r","board":{"numCols":7,"numRows":6,"rows":[["r","r","y",".",".",".","."],["y","y","y",".",".",".","."],["y","y","y",".",".",".","."],["r",".","r",".",".",".","."],[".",".",".",".",".",".","."],[".",".",".",".",".",".","."]]},"column":6}'
 	)
 
 	# Check if the response from the new function is correct
-	if response['StatusCode'] != 200:
-		logger.error(f"New function failed. Status code: {response['StatusCode']}. Error: {response['FunctionError']}")
+	if response['StatusCode'] != 200 or 'FunctionError' in response:
+		logger.error(f"New function failed. Status code: {response['StatusCode']}. Error: {response.get('FunctionError')}")
 	else:
 		payload = response['Payload'].read().decode("utf-8").strip()
 		if payload == '{"gameState":"0","playerBoard":{"numCols":7,"numRows":6,"rows":[["r","r","y",".",".",".","r"],["y","y","y",".",".",".","."],["y","y","y",".",".",".","."],["r",".","r",".",".",".","."],[".",".",".",".",".",".","."],[".",".",".",".",".",".","."]]},"playerRow":0,"aiBoard":{"numCols":7,"numRows":6,"rows":[["r","r","y","y",".",".","r"],["y","y","y",".",".",".","."],["y","y","y",".",".",".","."],["r",".","r",".",".",".","."],[".",".",".",".",".",".","."],[".",".",".",".",".",".","."]]},"aiCol":3,"aiRow":0}':
@@ -0,0 +1,110 @@
+package connect4.benchmark;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.benchmark.BoardCorpus.Position;
+import connect4.trainer.AbstractForceBoardAnalyser;
+import connect4.trainer.BoardAnalyserFactory;
+import connect4.trainer.BoardAnalyserFactory.ForcedAnalysisResult;
+import connect4.trainer.BoardAnalyserHelper;
+import connect4.trainer.ScoringAlgorithm;
+import connect4.trainer.Trainer;
+
+/**
+ * Benchmarks each phase of a recommendation and the whole of it, so a regression shows up in the phase that caused it rather than only in
+ * the total. The <code>Parallel</code> variants run on every processor at once to show how well the phase scales (e.g. memory bandwidth
+ * or allocation bound). Per {@link connect4.trainer.ColumnAnalyserFactory.ColumnAnalyser} numbers are in {@link ColumnAnalyserBenchmark}.
+ */
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+
+	@Param({ AnalysisSuite.TESTS, "EARLY", "MID", "LATE" })
+	public String suite;
+
+	private final ScoringAlgorithm scoringAlgorithm = new ScoringAlgorithm();
+	private final Trainer trainer = new Trainer();
+	private Position[] positions;
+	private BoardAnalysis[] analyses;
+	private int index;
+
+	@Setup
+	public void setup() {
+		this.positions = AnalysisSuite.load(this.suite);
+		this.analyses = new BoardAnalysis[this.positions.length];
+		for (int i = 0; i < this.positions.length; i++) {
+			this.analyses[i] = BoardAnalyserHelper.analyse(this.positions[i].getBoard(), this.positions[i].getCurrentPlayer());
+		}
+	}
+
+	private int next() {
+		if (++this.index == this.positions.length) {
+			this.index = 0;
+		}
+		return this.index;
+	}
+
+	/**
+	 * Every {@link connect4.trainer.ColumnAnalyserFactory.ColumnAnalyser} on every column.
+	 */
+	@Benchmark
+	public BoardAnalysis analyse() {
+		final Position position = this.positions[next()];
+		return BoardAnalyserHelper.analyse(position.getBoard(), position.getCurrentPlayer());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public BoardAnalysis analyseParallel() {
+		return analyse();
+	}
+
+	/**
+	 * The 'forced' analysis of an analysed board. The analysers only add flags the 'forced' analysis doesn't look at so reusing the
+	 * analysis doesn't change the result.
+	 */
+	@Benchmark
+	public int forcedAnalysis() {
+		final int i = next();
+		final Position position = this.positions[i];
+		int results = 0;
+		for (final AbstractForceBoardAnalyser analyser : BoardAnalyserFactory.getForcedAnalysers()) {
+			final List<ForcedAnalysisResult> forcedAnalysisResults = analyser.analyse(this.analyses[i], position.getBoard(),
+					position.getCurrentPlayer());
+			results += forcedAnalysisResults.size();
+		}
+		return results;
+	}
+
+	@Benchmark
+	public int score() {
+		int total = 0;
+		for (final ColumnAnalysis analysis : this.analyses[next()]) {
+			total += this.scoringAlgorithm.score(analysis);
+		}
+		return total;
+	}
+
+	/**
+	 * End to end: analysis, 'forced' analysis, scoring and tie breaking. Boards are forwarded to the sink.
+	 */
+	@Benchmark
+	public int recommend() {
+		final Position position = this.positions[next()];
+		return this.trainer.recommend(position.getBoard(), position.getCurrentPlayer());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int recommendParallel() {
+		return recommend();
+	}
+}
@@ -0,0 +1,89 @@
+package connect4.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.benchmark.BoardCorpus.Phase;
+import connect4.benchmark.BoardCorpus.Position;
+import connect4.loader.BoardLoader;
+import connect4.trainer.Trainer;
+
+/**
+ * The positions the analysis benchmarks run over.
+ */
+public class AnalysisSuite {
+
+	/**
+	 * The boards of the trainer's unit tests, i.e. the positions the analysers were written for. They're copied into the benchmark jar
+	 * (see build.gradle).
+	 */
+	static final String TESTS = "TESTS";
+
+	private static final String[] TEST_BOARDS = { "TodoBoard_1", "TodoBoard_2", "TodoBoard_3", "TrainerTest_1", "TrainerTest_2",
+			"TrainerTest_BlockForceWin_1", "TrainerTest_BottomCenter_1", "TrainerTest_EnableMultiTrapWin_1", "TrainerTest_EnableTrapWin_1",
+			"TrainerTest_EnableTrapWin_2", "TrainerTest_EnableTrapWin_3", "TrainerTest_EnableTrapWin_4", "TrainerTest_ForceError_1",
+			"TrainerTest_ForceWin_1", "TrainerTest_ForceWin_2", "TrainerTest_ForceWin_3", "TrainerTest_ForceWin_4",
+			"TrainerTest_ForceWin_5",
+			"TrainerTest_ForceWin_6", "TrainerTest_ForceWin_7", "TrainerTest_Make3Double_1", "TrainerTest_Make3Double_2",
+			"TrainerTest_Make3_1", "TrainerTest_Make3_2", "TrainerTest_Make3_3", "TrainerTest_Make3_4", "TrainerTest_NoFreeWins1",
+			"TrainerTest_NoFreeWins2", "TrainerTest_NoFreeWins3", "TrainerTest_OppWin_1" };
+
+	private static final int GENERATED_SIZE = 64;
+
+	private AnalysisSuite() {
+	}
+
+	/**
+	 * @param suite {@value #TESTS} or a {@link Phase} of 7x6 {@link BoardCorpus} positions
+	 * @return the positions of the suite. The test boards are played by both players.
+	 */
+	public static Position[] load(final String suite) {
+		if (!TESTS.equals(suite)) {
+			return BoardCorpus.generate("7x6", Phase.valueOf(suite), GENERATED_SIZE).toArray(new Position[0]);
+		}
+		final Trainer trainer = new Trainer();
+		final List<Position> positions = new ArrayList<>();
+		for (final String name : TEST_BOARDS) {
+			final Board board = readBoard(name + ".txt");
+			if (BoardHelper.hasWinner(board) != null || board.isFull()) {
+				continue;
+			}
+			for (final Disc player : Disc.values()) {
+				try {
+					trainer.recommend(board, player);
+				} catch (final RuntimeException e) {
+					continue; // some boards are only meant to be played by one player and trip the forced analysis' assertions
+				}
+				positions.add(new Position(board, player, null, getFreeColumn(board)));
+			}
+		}
+		return positions.toArray(new Position[0]);
+	}
+
+	private static Board readBoard(final String resource) {
+		try (InputStream input = AnalysisSuite.class.getResourceAsStream("/" + resource)) {
+			if (input == null) {
+				throw new IllegalStateException("Missing test board " + resource);
+			}
+			return BoardLoader.readBoard(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static int getFreeColumn(final Board board) {
+		for (int c = 0; c < board.getNumCols(); c++) {
+			if (board.getDisc(c, board.getNumRows() - 1) == null) {
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("The board is full");
+	}
+}
@@ -0,0 +1,106 @@
+package connect4.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * Compares JMH results (JSON) with a baseline, benchmark by benchmark, e.g. before and after a change on the same machine. A benchmark has
+ * regressed if it got worse by more than the threshold and by more than the error of both runs, i.e. it's not just noise. Allocation per
+ * operation (from the GC profiler) is compared the same way.
+ * </p>
+ * <p>
+ * Usage: <code>BaselineComparison &lt;baseline.json&gt; &lt;results.json&gt; [threshold percent, default 5]</code>. Exits with 1 if
+ * anything regressed.
+ * </p>
+ */
+public class BaselineComparison {
+
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+	/** Allocation differences smaller than this (bytes per operation) are rounding, e.g. the profiler's own allocation */
+	private static final double ALLOCATION_NOISE = 16;
+
+	private static class Result {
+		private final boolean higherIsBetter;
+		private final double score;
+		private final double error;
+		private final double allocation;
+
+		private Result(final JsonNode node) {
+			this.higherIsBetter = "thrpt".equals(node.path("mode").asText());
+			final JsonNode primary = node.path("primaryMetric");
+			this.score = primary.path("score").asDouble();
+			final double scoreError = primary.path("scoreError").asDouble(0);
+			this.error = Double.isFinite(scoreError) ? scoreError : 0; // NaN with a single iteration
+			this.allocation = node.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN);
+		}
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BaselineComparison <baseline.json> <results.json> [threshold percent]");
+			System.exit(2);
+		}
+		final double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.05;
+		final Map<String, Result> baseline = read(new File(args[0]));
+		final Map<String, Result> current = read(new File(args[1]));
+
+		int regressions = 0;
+		System.out.println(String.format("%-70s %12s %12s %8s %18s", "Benchmark", "Baseline", "Current", "Change", "B/op"));
+		for (final Entry<String, Result> entry : current.entrySet()) {
+			final Result now = entry.getValue();
+			final Result then = baseline.get(entry.getKey());
+			if (then == null) {
+				System.out.println(String.format("%-70s %12s %12.3f", entry.getKey(), "-", now.score));
+				continue;
+			}
+			final double change = (now.score - then.score) / then.score;
+			final double worse = then.higherIsBetter ? -change : change;
+			final boolean slower = worse > threshold && Math.abs(now.score - then.score) > now.error + then.error;
+			final boolean moreAllocation = now.allocation - then.allocation > Math.max(ALLOCATION_NOISE, then.allocation * threshold);
+			final String verdict = slower ? "SLOWER" : moreAllocation ? "MORE ALLOCATION" : worse < -threshold ? "faster" : "";
+			if (slower || moreAllocation) {
+				regressions++;
+			}
+			System.out.println(String.format("%-70s %12.3f %12.3f %+7.1f%% %8.0f -> %-7.0f %s", entry.getKey(), then.score, now.score,
+					change * 100, then.allocation, now.allocation, verdict));
+		}
+		for (final String key : baseline.keySet()) {
+			if (!current.containsKey(key)) {
+				System.out.println(String.format("%-70s %12.3f %12s", key, baseline.get(key).score, "-"));
+			}
+		}
+		System.out.println(regressions == 0 ? "No regressions" : regressions + " regression(s)");
+		System.exit(regressions == 0 ? 0 : 1);
+	}
+
+	/**
+	 * @return the results keyed by the benchmark name, parameters and thread count
+	 */
+	private static Map<String, Result> read(final File file) throws IOException {
+		final Map<String, Result> results = new LinkedHashMap<>();
+		for (final JsonNode node : new ObjectMapper().readTree(file)) {
+			final String benchmark = node.path("benchmark").asText().replaceFirst("^connect4\\.benchmark\\.", "");
+			final Map<String, String> params = new TreeMap<>();
+			for (final Iterator<Entry<String, JsonNode>> i = node.path("params").fields(); i.hasNext();) {
+				final Entry<String, JsonNode> param = i.next();
+				params.put(param.getKey(), param.getValue().asText());
+			}
+			final StringBuilder key = new StringBuilder(benchmark);
+			params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+			if (node.path("threads").asInt(1) > 1) {
+				key.append(" threads=").append(node.path("threads").asInt());
+			}
+			results.put(key.toString(), new Result(node));
+		}
+		return results;
+	}
+}
@@ -0,0 +1,96 @@
+package connect4.benchmark;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.benchmark.BoardCorpus.Phase;
+import connect4.benchmark.BoardCorpus.Position;
+
+/**
+ * Benchmarks the {@link Board} and {@link BoardHelper} primitives the analysers are built on. Each operation uses the next position of a
+ * {@link BoardCorpus} so branch prediction can't learn a single board.
+ */
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+	/** A power of 2 so the next position is a mask away */
+	private static final int CORPUS_SIZE = 256;
+
+	/** The default board and the tallest one supported */
+	@Param({ "7x6", "7x16" })
+	public String geometry;
+
+	@Param({ "EARLY", "MID", "LATE" })
+	public Phase phase;
+
+	private Position[] positions;
+	private int index;
+
+	@Setup
+	public void setup() {
+		final List<Position> corpus = BoardCorpus.generate(this.geometry, this.phase, CORPUS_SIZE);
+		this.positions = corpus.toArray(new Position[CORPUS_SIZE]);
+	}
+
+	private Position next() {
+		this.index = (this.index + 1) & (CORPUS_SIZE - 1);
+		return this.positions[this.index];
+	}
+
+	/**
+	 * Plays a disc and takes it back so the corpus is unchanged.
+	 */
+	@Benchmark
+	public int putDisc() throws IllegalMoveException {
+		final Position position = next();
+		final int row = position.getBoard().putDisc(position.getFreeColumn(), position.getCurrentPlayer());
+		position.getBoard().removeDisc(position.getFreeColumn());
+		return row;
+	}
+
+	@Benchmark
+	public Board copy() {
+		return new Board(next().getBoard());
+	}
+
+	@Benchmark
+	public Board normalise() {
+		return next().getBoard().normalise();
+	}
+
+	@Benchmark
+	public Board swap() {
+		return next().getBoard().swap();
+	}
+
+	/**
+	 * The whole board check, e.g. when a request arrives.
+	 */
+	@Benchmark
+	public Disc hasWinner() {
+		return BoardHelper.hasWinner(next().getBoard());
+	}
+
+	/**
+	 * The check around the last disc played, e.g. during analysis.
+	 */
+	@Benchmark
+	public Disc hasWinnerLastMove() {
+		final Position position = next();
+		return BoardHelper.hasWinner(position.getBoard(), position.getLastMove());
+	}
+
+	@Benchmark
+	public int[] countDiscs() {
+		return BoardHelper.countDiscs(next().getBoard());
+	}
+}
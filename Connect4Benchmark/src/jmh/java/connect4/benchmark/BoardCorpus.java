@@ -0,0 +1,147 @@
+package connect4.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.api.Move;
+
+/**
+ * A fixed corpus of positions to benchmark against. The positions are random games played with a fixed seed, so every run (and every
+ * machine) measures the same boards. Nobody has won in any of them and there's always a free column.
+ */
+public class BoardCorpus {
+
+	/**
+	 * How far into the game the positions are.
+	 */
+	public enum Phase {
+		/** About 15% of the board is filled */
+		EARLY(0.15),
+		/** About 45% of the board is filled */
+		MID(0.45),
+		/** About 80% of the board is filled */
+		LATE(0.8);
+
+		private final double filled;
+
+		Phase(final double filled) {
+			this.filled = filled;
+		}
+	}
+
+	/**
+	 * A position of the corpus.
+	 */
+	public static class Position {
+
+		private final Board board;
+		private final Disc currentPlayer;
+		private final Move lastMove;
+		private final int freeColumn;
+
+		Position(final Board board, final Disc currentPlayer, final Move lastMove, final int freeColumn) {
+			this.board = board;
+			this.currentPlayer = currentPlayer;
+			this.lastMove = lastMove;
+			this.freeColumn = freeColumn;
+		}
+
+		public Board getBoard() {
+			return this.board;
+		}
+
+		/**
+		 * @return the {@link Disc} of the player to move next
+		 */
+		public Disc getCurrentPlayer() {
+			return this.currentPlayer;
+		}
+
+		/**
+		 * @return the move that made the position or <code>null</code> if it isn't known
+		 */
+		public Move getLastMove() {
+			return this.lastMove;
+		}
+
+		/**
+		 * @return a column (0-based) that isn't full
+		 */
+		public int getFreeColumn() {
+			return this.freeColumn;
+		}
+	}
+
+	private static final long SEED = 4;
+
+	private BoardCorpus() {
+	}
+
+	/**
+	 * Generates the corpus.
+	 * @param geometry the size of the board as "columns x rows", e.g. "7x6"
+	 * @param phase how far into the game the positions are
+	 * @param size the number of positions
+	 * @return the positions, the same every time for the same arguments
+	 */
+	public static List<Position> generate(final String geometry, final Phase phase, final int size) {
+		final String[] dimensions = geometry.split("x");
+		final int nCols = Integer.parseInt(dimensions[0]);
+		final int nRows = Integer.parseInt(dimensions[1]);
+		final int discs = Math.max(1, (int) (nCols * nRows * phase.filled));
+		final Random random = new Random(SEED + 31 * geometry.hashCode() + phase.ordinal());
+		final List<Position> positions = new ArrayList<>(size);
+		while (positions.size() < size) {
+			final Position position = play(random, nCols, nRows, discs);
+			if (position != null) {
+				positions.add(position);
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Plays random moves that don't win.
+	 * @return the position after the moves or <code>null</code> if the game got stuck, i.e. every move would've won
+	 */
+	private static Position play(final Random random, final int nCols, final int nRows, final int discs) {
+		final Board board = new Board(nCols, nRows);
+		Disc player = Disc.YELLOW;
+		Move lastMove = null;
+		for (int i = 0; i < discs; i++) {
+			lastMove = null;
+			final int start = random.nextInt(nCols);
+			for (int c = 0; c < nCols && lastMove == null; c++) {
+				final int col = (start + c) % nCols;
+				final int row;
+				try {
+					row = board.putDisc(col, player);
+				} catch (final IllegalMoveException e) {
+					continue; // full
+				}
+				final Move move = new Move(player, col, row);
+				if (BoardHelper.hasWinner(board, move) == null) {
+					lastMove = move;
+				} else {
+					board.removeDisc(col);
+				}
+			}
+			if (lastMove == null) {
+				return null;
+			}
+			player = Disc.getOpposite(player);
+		}
+		for (int c = 0; c < nCols; c++) {
+			final int col = (lastMove.getCol() + c) % nCols;
+			if (board.getDisc(col, nRows - 1) == null) {
+				return new Position(board, player, lastMove, col);
+			}
+		}
+		return null; // full
+	}
+}
@@ -0,0 +1,252 @@
+package connect4.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+import connect4.benchmark.BoardCorpus.Phase;
+import connect4.benchmark.BoardCorpus.Position;
+import connect4.rest.WebJsonStreamingObjectFactory;
+import connect4.store.dynamodb.BoardItemHelper;
+import connect4.trainer.BoardAnalyserHelper;
+import connect4.web.GameHandler;
+import connect4.web.PlayRequest;
+import connect4.web.PlayResponse;
+import connect4.web.RecommendRequest;
+import connect4.web.RecommendResponse;
+
+/**
+ * <p>
+ * Benchmarks the (de)serialising on every request path: the trainer's requests and responses, the store's requests and the DynamoDB item
+ * attributes (see {@link BoardItemHelper}). The payloads are what the handlers would really see for the corpus positions, e.g. the
+ * responses are made by a {@link GameHandler}.
+ * </p>
+ * <p>
+ * Requests are parsed from bytes, both compact (as JSON.stringify() writes them) and pretty printed (like the examples in the unit tests
+ * and hand written requests). The store request is also (de)serialised with the compact binary encoding of {@link BinaryObjectFactory}
+ * so it can be compared with JSON. Responses are written to an {@link java.io.OutputStream} with a new
+ * generator per operation, like the handlers.
+ * </p>
+ */
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+	@Param({ "EARLY", "LATE" })
+	public String phase;
+
+	private static final int SIZE = 64;
+
+	private final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+	private final BinaryObjectFactory binaryFactory = BinaryObjectFactory.getInstance();
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+
+	private byte[][] recommendRequests;
+	private byte[][] prettyRecommendRequests;
+	private byte[][] playRequests;
+	private byte[][] storeRequests;
+	private byte[][] binaryStoreRequests;
+	private StoreBoardRequest[] storeBoardRequests;
+	private String[] boardItems;
+	private String[] boardAnalysisItems;
+	private RecommendResponse[] recommendResponses;
+	private RecommendResponse[] explainedRecommendResponses;
+	private PlayResponse[] playResponses;
+	private int index;
+
+	@Setup
+	public void setup() throws IOException {
+		final Position[] positions = BoardCorpus.generate("7x6", Phase.valueOf(this.phase), 2 * SIZE).toArray(new Position[0]);
+		this.recommendRequests = new byte[SIZE][];
+		this.prettyRecommendRequests = new byte[SIZE][];
+		this.playRequests = new byte[SIZE][];
+		this.storeRequests = new byte[SIZE][];
+		this.binaryStoreRequests = new byte[SIZE][];
+		this.storeBoardRequests = new StoreBoardRequest[SIZE];
+		this.boardItems = new String[SIZE];
+		this.boardAnalysisItems = new String[SIZE];
+		this.recommendResponses = new RecommendResponse[SIZE];
+		this.explainedRecommendResponses = new RecommendResponse[SIZE];
+		this.playResponses = new PlayResponse[SIZE];
+
+		final GameHandler handler = new GameHandler();
+		int i = 0;
+		for (final Position position : positions) {
+			final Board board = position.getBoard();
+			final Disc player = position.getCurrentPlayer();
+			final RecommendRequest recommendRequest = new RecommendRequest();
+			recommendRequest.setBoard(board);
+			recommendRequest.setCurrentPlayer(player);
+			final PlayRequest playRequest = new PlayRequest();
+			playRequest.setBoard(new Board(board));
+			playRequest.setCurrentPlayer(player);
+			playRequest.setColumn(Integer.valueOf(position.getFreeColumn()));
+			try {
+				this.recommendResponses[i] = handler.recommend(recommendRequest);
+				recommendRequest.setExplain(true);
+				this.explainedRecommendResponses[i] = handler.recommend(recommendRequest);
+				this.playResponses[i] = handler.next(playRequest);
+			} catch (final RuntimeException e) {
+				continue; // some random positions trip the forced analysis' assertions, see AnalysisSuite
+			}
+
+			this.recommendRequests[i] = writeRequest("recommend", position, null, false);
+			this.prettyRecommendRequests[i] = writeRequest("recommend", position, null, true);
+			this.playRequests[i] = writeRequest("next", position, Integer.valueOf(position.getFreeColumn()), false);
+
+			final StoreBoardRequest storeBoardRequest = new StoreBoardRequest();
+			storeBoardRequest.setBoard(board);
+			storeBoardRequest.setCurrentPlayer(player);
+			storeBoardRequest.setBoardAnalysis(BoardAnalyserHelper.analyse(board, player));
+			this.storeBoardRequests[i] = storeBoardRequest;
+			this.storeRequests[i] = serializeStoreRequest(storeBoardRequest);
+			this.binaryStoreRequests[i] = this.binaryFactory.toBytes(storeBoardRequest);
+			this.boardItems[i] = BoardItemHelper.BOARD_CONVERTER.convert(board);
+			this.boardAnalysisItems[i] = BoardItemHelper.BOARD_ANALYSIS_CONVERTER.convert(storeBoardRequest.getBoardAnalysis());
+			if (++i == SIZE) {
+				return;
+			}
+		}
+		throw new IllegalStateException("Not enough positions the trainer can play");
+	}
+
+	private byte[] writeRequest(final String action, final Position position, final Integer column, final boolean pretty)
+			throws IOException {
+		this.output.reset();
+		final JsonGenerator g = this.factory.getGenerator(this.output);
+		if (pretty) {
+			g.useDefaultPrettyPrinter();
+		}
+		g.writeStartObject();
+		g.writeStringField("action", action);
+		g.writeStringField("currentPlayer", "" + position.getCurrentPlayer().getSymbol());
+		this.factory.serialize(g, position.getBoard());
+		if (column != null) {
+			g.writeNumberField("column", column.intValue());
+		}
+		g.writeEndObject();
+		g.flush();
+		return this.output.toByteArray();
+	}
+
+	private int next() {
+		if (++this.index == SIZE) {
+			this.index = 0;
+		}
+		return this.index;
+	}
+
+	@Benchmark
+	public Serializable parseRecommendRequest() throws IOException {
+		return this.factory.deserialiseGenericRequest(this.factory.getParser(new ByteArrayInputStream(this.recommendRequests[next()])));
+	}
+
+	@Benchmark
+	public Serializable parsePrettyRecommendRequest() throws IOException {
+		return this.factory
+				.deserialiseGenericRequest(this.factory.getParser(new ByteArrayInputStream(this.prettyRecommendRequests[next()])));
+	}
+
+	@Benchmark
+	public Serializable parsePlayRequest() throws IOException {
+		return this.factory.deserialiseGenericRequest(this.factory.getParser(new ByteArrayInputStream(this.playRequests[next()])));
+	}
+
+	@Benchmark
+	public int serializeRecommendResponse() throws IOException {
+		this.output.reset();
+		final JsonGenerator g = this.factory.getGenerator(this.output);
+		this.factory.serialize(g, this.recommendResponses[next()]);
+		g.flush();
+		return this.output.size();
+	}
+
+	/**
+	 * A recommendation with the ranked column scores (see {@link RecommendRequest#isExplain()}).
+	 */
+	@Benchmark
+	public int serializeExplainedRecommendResponse() throws IOException {
+		this.output.reset();
+		final JsonGenerator g = this.factory.getGenerator(this.output);
+		this.factory.serialize(g, this.explainedRecommendResponses[next()]);
+		g.flush();
+		return this.output.size();
+	}
+
+	@Benchmark
+	public int serializePlayResponse() throws IOException {
+		this.output.reset();
+		final JsonGenerator g = this.factory.getGenerator(this.output);
+		this.factory.serialize(g, this.playResponses[next()]);
+		g.flush();
+		return this.output.size();
+	}
+
+	@Benchmark
+	public Serializable parseStoreRequest() throws IOException {
+		return this.factory.deserializeAbstractBoardRequest(this.factory.getParser(new ByteArrayInputStream(this.storeRequests[next()])));
+	}
+
+	@Benchmark
+	public int serializeStoreRequest() throws IOException {
+		return serializeStoreRequest(this.storeBoardRequests[next()]).length;
+	}
+
+	private byte[] serializeStoreRequest(final StoreBoardRequest request) throws IOException {
+		this.output.reset();
+		final JsonGenerator g = this.factory.getGenerator(this.output);
+		this.factory.serialize(g, request);
+		g.flush();
+		return this.output.toByteArray();
+	}
+
+	@Benchmark
+	public StoreBoardRequest parseBinaryStoreRequest() throws IOException {
+		return this.binaryFactory.deserializeStoreRequest(ByteBuffer.wrap(this.binaryStoreRequests[next()]));
+	}
+
+	@Benchmark
+	public byte[] serializeBinaryStoreRequest() {
+		return this.binaryFactory.toBytes(this.storeBoardRequests[next()]);
+	}
+
+	/**
+	 * {@link BoardItemHelper#BOARD_CONVERTER}, i.e. the board attribute of a board item.
+	 */
+	@Benchmark
+	public String convertBoard() {
+		return BoardItemHelper.BOARD_CONVERTER.convert(this.storeBoardRequests[next()].getBoard());
+	}
+
+	@Benchmark
+	public Board unconvertBoard() {
+		return BoardItemHelper.BOARD_CONVERTER.unconvert(this.boardItems[next()]);
+	}
+
+	/**
+	 * {@link BoardItemHelper#BOARD_ANALYSIS_CONVERTER}, i.e. the analysis attribute of a board item.
+	 */
+	@Benchmark
+	public String convertBoardAnalysis() {
+		return BoardItemHelper.BOARD_ANALYSIS_CONVERTER.convert(this.storeBoardRequests[next()].getBoardAnalysis());
+	}
+
+	@Benchmark
+	public BoardAnalysis unconvertBoardAnalysis() {
+		return BoardItemHelper.BOARD_ANALYSIS_CONVERTER.unconvert(this.boardAnalysisItems[next()]);
+	}
+}
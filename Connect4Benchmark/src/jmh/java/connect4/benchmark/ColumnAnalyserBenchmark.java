@@ -0,0 +1,56 @@
+package connect4.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.benchmark.BoardCorpus.Position;
+import connect4.trainer.ColumnAnalyserFactory;
+import connect4.trainer.ColumnAnalyserFactory.ColumnAnalyser;
+
+/**
+ * Benchmarks each {@link ColumnAnalyser} on its own. An operation flags every playable column of a position, regardless of whether an
+ * earlier analyser would've stopped the analysis (see {@link connect4.trainer.ScoringAlgorithm#isAnalysisDone(ColumnAnalysis)}), so
+ * the numbers are comparable between analysers but don't add up to {@link AnalysisBenchmark#analyse()}.
+ */
+@State(Scope.Thread)
+public class ColumnAnalyserBenchmark {
+
+	@Param({ "WIN_NOW", "BLOCK_LOSS_1", "ENABLE_OPPONENT_WIN", "TRAP_MORE_THAN_ONE", "BLOCK_TRAP_MORE_THAN_ONE", "MAKE_3_SETUP",
+			"BLOCK_MAKE_3_SETUP", "BOTTOM_CENTER" })
+	public String analyser;
+
+	@Param({ AnalysisSuite.TESTS, "MID" })
+	public String suite;
+
+	private ColumnAnalyser columnAnalyser;
+	private Position[] positions;
+	private int index;
+
+	@Setup
+	public void setup() {
+		this.columnAnalyser = ColumnAnalyserFactory.getAnalyser(this.analyser);
+		this.positions = AnalysisSuite.load(this.suite);
+	}
+
+	@Benchmark
+	public int flag() {
+		if (++this.index == this.positions.length) {
+			this.index = 0;
+		}
+		final Position position = this.positions[this.index];
+		int flags = 0;
+		for (int c = 0; c < position.getBoard().getNumCols(); c++) {
+			if (position.getBoard().getDisc(c, position.getBoard().getNumRows() - 1) != null) {
+				continue; // the analysers after WIN_NOW never see full columns
+			}
+			final ColumnAnalysis analysis = new ColumnAnalysis(c);
+			this.columnAnalyser.flag(position.getBoard(), position.getCurrentPlayer(), c, analysis);
+			flags |= analysis.getFlags();
+		}
+		return flags;
+	}
+}
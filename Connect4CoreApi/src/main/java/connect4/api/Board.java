@@ -126,6 +126,29 @@ public class Board {
 		throw new IllegalMoveException(ErrorCode.COLUMN_FULL, disc, col, "Cannot place disc at column " + col + " because it is full");
 	}
 
+	/**
+	 * Takes back the top disc of a column, undoing {@link #putDisc(int, Disc)}. Cheaper than copying the board to try a move.
+	 *
+	 * @param col
+	 *        the column position (0-based, 0 is left-most column)
+	 * @return the row number from which the disc was removed (0-based, 0 is
+	 *         bottom row)
+	 * @throws IllegalArgumentException
+	 *         if the column is out of bounds or empty
+	 */
+	public int removeDisc(final int col) {
+		if (col < 0 || col >= nCols) {
+			throw new IllegalArgumentException("Column position " + col + " is out of bounds");
+		}
+		final int column = board[col];
+		if (column == 0) {
+			throw new IllegalArgumentException("Cannot remove a disc from column " + col + " because it is empty");
+		}
+		final int row = (Integer.SIZE - 1 - Integer.numberOfLeadingZeros(column)) / 2; // the highest disc
+		board[col] = column & ~(0x3 << row * 2);
+		return row;
+	}
+
 	/**
 	 * @return <code>true</code> if there are no more moves to be played, else
 	 *         <code>false</code>
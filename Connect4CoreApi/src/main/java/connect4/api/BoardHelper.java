@@ -69,8 +69,9 @@ public class BoardHelper {
 		}
 
 		// check horizontal wins
+		// every four in a row covers a column 3, 7, 11... and each check looks 3 columns either side
 		for (int r = 0; r < b.getNumRows(); r++) {
-			for (int c = 3; c < b.getNumCols() - 3; c++) {
+			for (int c = 3; c < b.getNumCols(); c += 4) {
 				if (hasWinnerHorizontal(b, disc, c, r)) {
 					return true;
 				}
@@ -194,7 +195,7 @@ public class BoardHelper {
 	 */
 	private static boolean hasWinnerDiagonalSwNe(final Board b, final Disc disc, final int cMin, final int rMin, final int cMax,
 			final int rMax) {
-		if (rMax - rMin < 3) {
+		if (rMax - rMin < 3 || cMax - cMin < 3) {
 			return false; // can't win, not enough space
 		}
 
@@ -254,7 +255,7 @@ public class BoardHelper {
 	 */
 	private static boolean hasWinnerDiagonalSeNw(final Board b, final Disc disc, final int cMax, final int rMin, final int cMin,
 			final int rMax) {
-		if (rMax - rMin < 3) {
+		if (rMax - rMin < 3 || cMax - cMin < 3) {
 			return false; // can't win, not enough space
 		}
 
@@ -376,6 +377,47 @@ public class BoardHelper {
 		return new int[] { yellowCount, redCount };
 	}
 
+	/**
+	 * Gets the packed value of a column, i.e. two bits per row with the least significant bits being the bottom row (see {@link Board}).
+	 * Intended for compact serialisation.
+	 * @param board the {@link Board}
+	 * @param column the column (0-based)
+	 * @return the packed value of the column
+	 */
+	public static int getPackedColumn(final Board board, final int column) {
+		return board.getDelegateBoard()[column];
+	}
+
+	/**
+	 * Reconstitutes a {@link Board} from packed column values (see {@link #getPackedColumn(Board, int)}). This is the inverse of
+	 * {@link #getPackedColumn(Board, int)} and avoids replaying every disc through {@link Board#putDisc(int, Disc)}.
+	 * @param nCols the number of columns
+	 * @param nRows the number of rows
+	 * @param packedColumns the packed value of each column
+	 * @return the {@link Board}
+	 * @throws IllegalArgumentException if the packed values don't represent a valid board (e.g. discs floating above empty spaces)
+	 */
+	public static Board fromPackedColumns(final int nCols, final int nRows, final int[] packedColumns) throws IllegalArgumentException {
+		if (packedColumns.length != nCols) {
+			throw new IllegalArgumentException("Expected " + nCols + " packed columns but found " + packedColumns.length);
+		}
+		final Board board = new Board(nCols, nRows);
+		for (int c = 0; c < nCols; c++) {
+			final int column = packedColumns[c];
+			boolean empty = false;
+			for (int r = 0; r < 16; r++) {
+				final int disc = column >>> r * 2 & 0x3;
+				if (disc == 0) {
+					empty = true;
+				} else if (empty || disc == 0x3 || r >= nRows) {
+					throw new IllegalArgumentException("The packed value " + column + " for column " + c + " is not a valid column");
+				}
+			}
+			board.board[c] = column;
+		}
+		return board;
+	}
+
 	/**
 	 * Calculates the mask required to find discs at the specified row in a column
 	 * @param columnValue
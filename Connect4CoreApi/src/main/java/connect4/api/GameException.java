@@ -6,7 +6,7 @@ package connect4.api;
 public class GameException extends Throwable {
 
 	public static enum ErrorCode {
-		ALREADY_WON, BOARD_FULL, COLUMN_FULL, OUT_OF_BOUNDS, UNKNOWN;
+		ALREADY_WON, BOARD_FULL, COLUMN_FULL, OUT_OF_BOUNDS, UNKNOWN, NO_SESSION;
 	}
 
 	private static final long serialVersionUID = 1L;
@@ -0,0 +1,318 @@
+package connect4.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Counts every sequence of moves from a position to a depth, like a chess engine's "perft". It plays every move with
+ * {@link Board#putDisc(int, Disc)}, checks it with {@link BoardHelper#hasWinner(Board, Move)} and takes it back with
+ * {@link Board#removeDisc(int)}, so the counts only come out right if all of them (and the full board check) are right. A game stops
+ * when it's won or the board is full. Such moves are counted as wins or draws at their ply and not played on from.
+ * </p>
+ * <p>
+ * Compare the counts with {@link #REFERENCE_7X6} after changing the board representation. Turn on verification to also check every
+ * move's win against a scan of the whole board ({@link BoardHelper#hasWinner(Board)}) and the full board check against
+ * {@link Board#isFull()}. Without verification the nodes per second is a raw speed benchmark of the primitives.
+ * </p>
+ * <p>
+ * Usage: <code>Perft &lt;depth&gt; [columns x rows, default 7x6] [--parallel] [--verify]</code>
+ * </p>
+ */
+public class Perft {
+
+	/**
+	 * The number of positions, wins and draws at each ply (from 1) from an empty 7x6 board, i.e. <code>{positions, wins, draws}</code>.
+	 */
+	public static final long[][] REFERENCE_7X6 = { //
+			{ 7, 0, 0 }, //
+			{ 49, 0, 0 }, //
+			{ 343, 0, 0 }, //
+			{ 2401, 0, 0 }, //
+			{ 16807, 0, 0 }, //
+			{ 117649, 0, 0 }, //
+			{ 823536, 13032, 0 }, //
+			{ 5673234, 44430, 0 }, //
+			{ 39394572, 1086882, 0 }, //
+			{ 268031646, 4261058, 0 }, //
+			{ 1844590828, 67282752, 0 }, //
+	};
+
+	/**
+	 * Below this many plies from the end a fork/join task counts on its own rather than forking, so tasks aren't too small to be
+	 * worth it.
+	 */
+	private static final int SEQUENTIAL_PLIES = 4;
+
+	/**
+	 * The counts at each ply, from 1 to the depth.
+	 */
+	public static class Result {
+
+		private final long[] positions;
+		private final long[] wins;
+		private final long[] draws;
+		private long nanos;
+
+		Result(final int depth) {
+			this.positions = new long[depth];
+			this.wins = new long[depth];
+			this.draws = new long[depth];
+		}
+
+		private void add(final Result result) {
+			for (int i = 0; i < this.positions.length; i++) {
+				this.positions[i] += result.positions[i];
+				this.wins[i] += result.wins[i];
+				this.draws[i] += result.draws[i];
+			}
+		}
+
+		public int getDepth() {
+			return this.positions.length;
+		}
+
+		/**
+		 * @param ply from 1
+		 * @return the number of move sequences of that many moves, including those which win or draw
+		 */
+		public long getPositions(final int ply) {
+			return this.positions[ply - 1];
+		}
+
+		/**
+		 * @param ply from 1
+		 * @return the number of move sequences whose last move won
+		 */
+		public long getWins(final int ply) {
+			return this.wins[ply - 1];
+		}
+
+		/**
+		 * @param ply from 1
+		 * @return the number of move sequences whose last move filled the board without winning
+		 */
+		public long getDraws(final int ply) {
+			return this.draws[ply - 1];
+		}
+
+		/**
+		 * @return the number of moves played, i.e. the positions at every ply
+		 */
+		public long getNodes() {
+			long nodes = 0;
+			for (final long count : this.positions) {
+				nodes += count;
+			}
+			return nodes;
+		}
+
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		public double getNodesPerSecond() {
+			return getNodes() * 1e9 / Math.max(1, this.nanos);
+		}
+	}
+
+	private final boolean verify;
+
+	/**
+	 * @param verify <code>true</code> to check each move with the slower whole board methods as well
+	 */
+	public Perft(final boolean verify) {
+		this.verify = verify;
+	}
+
+	/**
+	 * Counts on this thread.
+	 * @param board the position to start from. It's not changed. It mustn't be won already.
+	 * @param player the player to move first
+	 * @param depth how many moves to play
+	 * @return the counts at each ply
+	 * @throws IllegalStateException if verification found a difference
+	 */
+	public Result count(final Board board, final Disc player, final int depth) {
+		final long start = System.nanoTime();
+		final Result result = new Result(depth);
+		count(new Board(board), player, 1, getFreeSpaces(board), result);
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/**
+	 * Counts with a fork/join task for each position until the last few plies.
+	 * @param board the position to start from. It's not changed. It mustn't be won already.
+	 * @param player the player to move first
+	 * @param depth how many moves to play
+	 * @param pool where to run the tasks
+	 * @return the counts at each ply
+	 * @throws IllegalStateException if verification found a difference
+	 */
+	public Result count(final Board board, final Disc player, final int depth, final ForkJoinPool pool) {
+		final long start = System.nanoTime();
+		final Result result = pool.invoke(new PerftTask(new Board(board), player, 1, depth, getFreeSpaces(board)));
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	private void count(final Board board, final Disc player, final int ply, final int free, final Result result) {
+		final Disc opponent = Disc.getOpposite(player);
+		for (int col = 0; col < board.nCols; col++) {
+			if (board.getDisc(col, board.nRows - 1) != null) {
+				continue; // full
+			}
+			final int row = play(board, col, player);
+			if (isOngoing(board, player, col, row, ply, free, result) && ply < result.getDepth()) {
+				count(board, opponent, ply + 1, free - 1, result);
+			}
+			takeBack(board, col, row);
+		}
+	}
+
+	private class PerftTask extends RecursiveTask<Result> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final Disc player;
+		private final int ply;
+		private final int depth;
+		private final int free;
+
+		PerftTask(final Board board, final Disc player, final int ply, final int depth, final int free) {
+			this.board = board;
+			this.player = player;
+			this.ply = ply;
+			this.depth = depth;
+			this.free = free;
+		}
+
+		@Override
+		protected Result compute() {
+			final Result result = new Result(this.depth);
+			if (this.depth - this.ply < SEQUENTIAL_PLIES) {
+				count(this.board, this.player, this.ply, this.free, result);
+				return result;
+			}
+			final List<PerftTask> tasks = new ArrayList<>(this.board.nCols);
+			for (int col = 0; col < this.board.nCols; col++) {
+				if (this.board.getDisc(col, this.board.nRows - 1) != null) {
+					continue; // full
+				}
+				final int row = play(this.board, col, this.player);
+				if (isOngoing(this.board, this.player, col, row, this.ply, this.free, result)) {
+					tasks.add(new PerftTask(new Board(this.board), Disc.getOpposite(this.player), this.ply + 1, this.depth, this.free - 1));
+				}
+				takeBack(this.board, col, row);
+			}
+			for (final PerftTask task : invokeAll(tasks)) {
+				result.add(task.join());
+			}
+			return result;
+		}
+	}
+
+	private int play(final Board board, final int col, final Disc player) {
+		final int row;
+		try {
+			row = board.putDisc(col, player);
+		} catch (final IllegalMoveException e) {
+			throw new IllegalStateException("Column " + col + " isn't full but the disc couldn't be put:\n" + board, e);
+		}
+		if (this.verify && (board.getDisc(col, row) != player || row > 0 && board.getDisc(col, row - 1) == null)) {
+			throw new IllegalStateException("Disc put in column " + col + " is at row " + row + " which is wrong:\n" + board);
+		}
+		return row;
+	}
+
+	private void takeBack(final Board board, final int col, final int row) {
+		final int removedRow = board.removeDisc(col);
+		if (this.verify && (removedRow != row || board.getDisc(col, row) != null)) {
+			throw new IllegalStateException("Removed disc in column " + col + " from row " + removedRow + " not " + row + ":\n" + board);
+		}
+	}
+
+	/**
+	 * Counts the move which was just played.
+	 * @param free the number of empty spaces before the move
+	 * @return <code>true</code> if the game carries on after the move
+	 */
+	private boolean isOngoing(final Board board, final Disc player, final int col, final int row, final int ply, final int free,
+			final Result result) {
+		result.positions[ply - 1]++;
+		final Disc winner = BoardHelper.hasWinner(board, new Move(player, col, row));
+		if (this.verify) {
+			if (winner != null && winner != player) {
+				throw new IllegalStateException("The last move was by " + player + " but " + winner + " won:\n" + board);
+			}
+			if (winner != BoardHelper.hasWinner(board)) {
+				throw new IllegalStateException("The last move (column " + col + ") " + (winner == null ? "didn't win" : "won")
+						+ " but the whole board scan found " + BoardHelper.hasWinner(board) + ":\n" + board);
+			}
+			if (board.isFull() != (free == 1)) {
+				throw new IllegalStateException("The board should " + (free == 1 ? "" : "not ") + "be full:\n" + board);
+			}
+		}
+		if (winner != null) {
+			result.wins[ply - 1]++;
+			return false;
+		} else if (free == 1) {
+			result.draws[ply - 1]++;
+			return false;
+		}
+		return true;
+	}
+
+	private static int getFreeSpaces(final Board board) {
+		final int[] discs = BoardHelper.countDiscs(board);
+		return board.nCols * board.nRows - discs[0] - discs[1];
+	}
+
+	public static void main(final String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: Perft <depth> [columns x rows, default 7x6] [--parallel] [--verify]");
+			System.exit(1);
+		}
+		final int depth = Integer.parseInt(args[0]);
+		String geometry = "7x6";
+		boolean parallel = false;
+		boolean verify = false;
+		for (int i = 1; i < args.length; i++) {
+			if ("--parallel".equals(args[i])) {
+				parallel = true;
+			} else if ("--verify".equals(args[i])) {
+				verify = true;
+			} else {
+				geometry = args[i];
+			}
+		}
+		final String[] dimensions = geometry.split("x");
+		final Board board = new Board(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+		final Perft perft = new Perft(verify);
+		final Result result = parallel ? perft.count(board, Disc.RED, depth, ForkJoinPool.commonPool())
+				: perft.count(board, Disc.RED, depth);
+
+		final boolean reference = "7x6".equals(geometry);
+		boolean matches = true;
+		System.out.println(String.format("%4s %16s %14s %10s", "Ply", "Positions", "Wins", "Draws"));
+		for (int ply = 1; ply <= depth; ply++) {
+			String check = "";
+			if (reference && ply <= REFERENCE_7X6.length) {
+				final long[] expected = REFERENCE_7X6[ply - 1];
+				final boolean match = expected[0] == result.getPositions(ply) && expected[1] == result.getWins(ply)
+						&& expected[2] == result.getDraws(ply);
+				check = match ? " ok" : String.format(" MISMATCH, expected %d %d %d", expected[0], expected[1], expected[2]);
+				matches &= match;
+			}
+			System.out.println(String.format("%4d %16d %14d %10d%s", ply, result.getPositions(ply), result.getWins(ply),
+					result.getDraws(ply), check));
+		}
+		System.out.println(String.format("%d nodes in %d ms, %.0f nodes/s%s", result.getNodes(), result.getNanos() / 1_000_000,
+				result.getNodesPerSecond(), parallel ? " on " + ForkJoinPool.commonPool().getParallelism() + " threads" : ""));
+		System.exit(matches ? 0 : 2);
+	}
+}
@@ -1,35 +1,67 @@
 package connect4.api.aws.xray;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.amazonaws.xray.entities.Subsegment;
-
 /**
+ * <p>
  * Shim for {@link com.amazonaws.xray.AWSXRay} so that we can disable it in environments where X-Ray is disabled.
+ * </p>
+ * <p>
+ * When X-Ray is disabled the function is just called with {@link TraceSegment#NO_OP}: there's no recorder and the X-Ray SDK is never
+ * loaded. When enabled ({@value #ENV_XRAY_ENABLED} is <code>Active</code>) only a fraction of requests are traced, set by
+ * {@value #ENV_SAMPLE_RATE} (0 to 1, default 1). The outermost subsegment decides and the subsegments nested in it follow, so a request
+ * is either traced completely or not at all.
+ * </p>
  */
 public class AWSXRay {
 
+	public static final String ENV_XRAY_ENABLED = "XRAY_ENABLED";
+	public static final String ENV_SAMPLE_RATE = "XRAY_SAMPLE_RATE";
+
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+
+	/**
+	 * <code>null</code> when X-Ray is disabled. Relies on a environment variable being set by CloudFormation which in turn controls
+	 * whether X-Ray is enabled (i.e. this code doesn't actually inspect the Lambda function to see if it's enabled).
+	 */
+	private static Tracer tracer;
+	private static double sampleRate;
+
+	static {
+		if ("Active".equals(System.getenv(ENV_XRAY_ENABLED))) {
+			setTracer(XRayTracer.create(), NumberUtils.toDouble(System.getenv(ENV_SAMPLE_RATE), 1));
+		}
+		LOGGER.debug("Is X-Ray enabled = " + isXRayEnabled() + ", sample rate = " + sampleRate);
+	}
 
 	/**
-	 * Creates an X-Ray subsegment if X-Ray is enabled, otherwise just invokes the function.
+	 * Creates an X-Ray subsegment if X-Ray is enabled and the request is sampled, otherwise just invokes the function.
 	 * @param <R> object to return
 	 * @param name name of the segment
 	 * @param function the {@link Function} to instrument
 	 * @return the returned object of type R from the function
 	 */
-	public static <R> R createSubsegment(final String name, final Function<Subsegment, R> function) {
-		if (isXRayEnabled()) {
-			return com.amazonaws.xray.AWSXRay.createSubsegment(name, function);
-		} else {
-			if (com.amazonaws.xray.AWSXRay.getCurrentSegmentOptional().isEmpty()) {
-				com.amazonaws.xray.AWSXRay.getGlobalRecorder().beginNoOpSegment();
-			}
-			return function.apply(Subsegment.noOp(com.amazonaws.xray.AWSXRay.getGlobalRecorder(), false));
+	public static <R> R createSubsegment(final String name, final Function<TraceSegment, R> function) {
+		if (tracer == null) {
+			return function.apply(TraceSegment.NO_OP);
+		}
+		final Boolean sampled = SAMPLED.get();
+		if (sampled != null) {
+			return sampled ? tracer.trace(name, function) : function.apply(TraceSegment.NO_OP);
+		}
+		final boolean sample = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+		SAMPLED.set(sample);
+		try {
+			return sample ? tracer.trace(name, function) : function.apply(TraceSegment.NO_OP);
+		} finally {
+			SAMPLED.remove();
 		}
 	}
 
@@ -38,36 +70,30 @@ public class AWSXRay {
 	 * @param name
 	 * @param consumer
 	 */
-	public static void createSubsegment(final String name, final Consumer<Subsegment> consumer) {
-		if (isXRayEnabled()) {
-			com.amazonaws.xray.AWSXRay.createSubsegment(name, consumer);
-		} else {
-			if (com.amazonaws.xray.AWSXRay.getCurrentSegmentOptional().isEmpty()) {
-				com.amazonaws.xray.AWSXRay.getGlobalRecorder().beginNoOpSegment();
-			}
-			consumer.accept(Subsegment.noOp(com.amazonaws.xray.AWSXRay.getGlobalRecorder(), false));
+	public static void createSubsegment(final String name, final Consumer<TraceSegment> consumer) {
+		if (tracer == null) {
+			consumer.accept(TraceSegment.NO_OP);
+			return;
 		}
+		createSubsegment(name, (segment) -> {
+			consumer.accept(segment);
+			return null;
+		});
 	}
 
-	private static Boolean isXRayEnabled = null;
-
 	/**
-	 * Best effort to determine whether X-Ray is enabled or not. Is lazy and will cache the result until next invocation.
 	 * @return <code>true</code> if enabled, else <code>false</code>
 	 */
 	public static boolean isXRayEnabled() {
-		// Perhaps this should be "synchronized" but data corruption won't occur if multiple threads call this simultaneously
-		if (AWSXRay.isXRayEnabled != null) {
-			return AWSXRay.isXRayEnabled;
-		}
-
-		/*
-		 * Note this relies on a environment variable being set by CloudFormation which in turn controls whether X-Ray is enabled (i.e. this
-		 * code doesn't actually inspect the Lambda function to see if it's enabled).
-		 */
-		AWSXRay.isXRayEnabled = "Active".equals(System.getenv("XRAY_ENABLED"));
+		return tracer != null;
+	}
 
-		LOGGER.debug("Is X-Ray enabled = " + AWSXRay.isXRayEnabled);
-		return AWSXRay.isXRayEnabled;
+	/**
+	 * @param tracer the {@link Tracer} to use or <code>null</code> to disable tracing
+	 * @param sampleRate the fraction of requests to trace
+	 */
+	static void setTracer(final Tracer tracer, final double sampleRate) {
+		AWSXRay.tracer = tracer;
+		AWSXRay.sampleRate = Math.max(0, Math.min(1, sampleRate));
 	}
 }
@@ -0,0 +1,21 @@
+package connect4.api.aws.xray;
+
+import java.util.function.Function;
+
+/**
+ * What code run by {@link AWSXRay#createSubsegment(String, Function)} can record on its subsegment. Callers only see this interface so
+ * the X-Ray SDK needn't be loaded when tracing is off.
+ */
+public interface TraceSegment {
+
+	/**
+	 * Records nothing. Passed when tracing is off or the request isn't sampled.
+	 */
+	TraceSegment NO_OP = exception -> {
+	};
+
+	/**
+	 * @param exception the {@link Throwable} to record against the subsegment
+	 */
+	void addException(Throwable exception);
+}
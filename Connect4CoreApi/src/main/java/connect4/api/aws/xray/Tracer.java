@@ -0,0 +1,18 @@
+package connect4.api.aws.xray;
+
+import java.util.function.Function;
+
+/**
+ * Creates subsegments for {@link AWSXRay} when tracing is on.
+ */
+interface Tracer {
+
+	/**
+	 * Runs the function inside a new subsegment.
+	 * @param <R> object to return
+	 * @param name name of the subsegment
+	 * @param function the {@link Function} to instrument
+	 * @return the returned object of type R from the function
+	 */
+	<R> R trace(String name, Function<TraceSegment, R> function);
+}
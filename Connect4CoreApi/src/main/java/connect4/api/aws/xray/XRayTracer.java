@@ -0,0 +1,42 @@
+package connect4.api.aws.xray;
+
+import java.util.function.Function;
+
+import com.amazonaws.xray.entities.Subsegment;
+
+/**
+ * The only class which uses the X-Ray SDK, so the SDK is loaded when this class is and not before.
+ */
+final class XRayTracer implements Tracer {
+
+	private XRayTracer() {
+	}
+
+	/**
+	 * @return a {@link Tracer} which records subsegments with the global X-Ray recorder
+	 */
+	static Tracer create() {
+		return new XRayTracer();
+	}
+
+	@Override
+	public <R> R trace(final String name, final Function<TraceSegment, R> function) {
+		return com.amazonaws.xray.AWSXRay.createSubsegment(name, (subsegment) -> {
+			return function.apply(new XRaySegment(subsegment));
+		});
+	}
+
+	private static class XRaySegment implements TraceSegment {
+
+		private final Subsegment subsegment;
+
+		private XRaySegment(final Subsegment subsegment) {
+			this.subsegment = subsegment;
+		}
+
+		@Override
+		public void addException(final Throwable exception) {
+			this.subsegment.addException(exception);
+		}
+	}
+}
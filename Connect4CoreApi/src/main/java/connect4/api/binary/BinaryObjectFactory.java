@@ -0,0 +1,165 @@
+package connect4.api.binary;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Compact binary alternative to {@link connect4.api.json.JsonStreamingObjectFactory} for places where JSON is too bulky, e.g. local storage
+ * and bulk export. A 7x6 board with analysis is typically ~40 bytes rather than ~300 bytes of JSON.
+ * </p>
+ * <p>
+ * Format (all numbers are big-endian):
+ * </p>
+ * <ul>
+ * <li>board: <code>byte nCols, byte nRows, int[nCols] packed columns</code> (see {@link BoardHelper#getPackedColumn(Board, int)})
+ * <li>disc: <code>byte</code> of {@link Disc#getValue()} or 0 for <code>null</code>
+ * <li>board analysis: <code>byte count</code> followed by <code>count</code> entries of <code>byte column, int flags</code>. Like the JSON
+ * format, only columns with an opinion are written
+ * </ul>
+ */
+public class BinaryObjectFactory {
+
+	private static final BinaryObjectFactory INSTANCE = new BinaryObjectFactory();
+
+	private BinaryObjectFactory() {
+	}
+
+	/**
+	 * @param board the {@link Board}
+	 * @return the number of bytes {@link #serialize(ByteBuffer, Board)} will write
+	 */
+	public int getSerializedSize(final Board board) {
+		return 2 + board.getNumCols() * 4;
+	}
+
+	public void serialize(final ByteBuffer buffer, final Board board) {
+		buffer.put((byte) board.getNumCols());
+		buffer.put((byte) board.getNumRows());
+		for (int c = 0; c < board.getNumCols(); c++) {
+			buffer.putInt(BoardHelper.getPackedColumn(board, c));
+		}
+	}
+
+	public Board deserializeBoard(final ByteBuffer buffer) throws IOException {
+		try {
+			final int numCols = buffer.get();
+			final int numRows = buffer.get();
+			final int[] packedColumns = new int[numCols];
+			for (int c = 0; c < numCols; c++) {
+				packedColumns[c] = buffer.getInt();
+			}
+			return BoardHelper.fromPackedColumns(numCols, numRows, packedColumns);
+		} catch (final BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+			throw new IOException("Could not deserialise board. It appears to be truncated or corrupt.", e);
+		}
+	}
+
+	/**
+	 * @param boardAnalysis the {@link BoardAnalysis}
+	 * @return the number of bytes {@link #serialize(ByteBuffer, BoardAnalysis)} will write
+	 */
+	public int getSerializedSize(final BoardAnalysis boardAnalysis) {
+		int size = 1;
+		for (final ColumnAnalysis columnAnalysis : boardAnalysis) {
+			if (columnAnalysis.getFlags() != ColumnAnalysis.FLAG_NO_OPINION) {
+				size += 5;
+			}
+		}
+		return size;
+	}
+
+	public void serialize(final ByteBuffer buffer, final BoardAnalysis boardAnalysis) {
+		final int countPosition = buffer.position();
+		buffer.put((byte) 0);
+		byte count = 0;
+		for (final ColumnAnalysis columnAnalysis : boardAnalysis) {
+			if (columnAnalysis.getFlags() != ColumnAnalysis.FLAG_NO_OPINION) {
+				buffer.put((byte) columnAnalysis.getColumn());
+				buffer.putInt(columnAnalysis.getFlags());
+				count++;
+			}
+		}
+		buffer.put(countPosition, count);
+	}
+
+	/**
+	 * Deserialise a {@link BoardAnalysis}.
+	 * @param buffer the {@link ByteBuffer} to read from
+	 * @param maxColumns the number of columns of the board the analysis is for. Columns without an opinion are filled in.
+	 * @return the {@link BoardAnalysis} with one {@link ColumnAnalysis} per column
+	 * @throws IOException if the analysis could not be read
+	 */
+	public BoardAnalysis deserializeBoardAnalysis(final ByteBuffer buffer, final int maxColumns) throws IOException {
+		try {
+			final int[] flags = new int[maxColumns];
+			final int count = buffer.get();
+			for (int i = 0; i < count; i++) {
+				final int column = buffer.get();
+				final int columnFlags = buffer.getInt();
+				if (column < 0 || column >= maxColumns) {
+					throw new IOException("Could not deserialise board analysis. Column " + column + " is out of bounds.");
+				}
+				flags[column] = columnFlags;
+			}
+			final BoardAnalysis boardAnalysis = new BoardAnalysis();
+			for (int c = 0; c < maxColumns; c++) {
+				final ColumnAnalysis columnAnalysis = new ColumnAnalysis(c);
+				columnAnalysis.setFlags(flags[c]);
+				boardAnalysis.add(columnAnalysis);
+			}
+			return boardAnalysis;
+		} catch (final BufferUnderflowException e) {
+			throw new IOException("Could not deserialise board analysis. It appears to be truncated.", e);
+		}
+	}
+
+	/**
+	 * @param request the {@link StoreBoardRequest}
+	 * @return the number of bytes {@link #serialize(ByteBuffer, StoreBoardRequest)} will write
+	 */
+	public int getSerializedSize(final StoreBoardRequest request) {
+		return getSerializedSize(request.getBoard()) + 1 + getSerializedSize(request.getBoardAnalysis());
+	}
+
+	public void serialize(final ByteBuffer buffer, final StoreBoardRequest request) {
+		serialize(buffer, request.getBoard());
+		buffer.put(request.getCurrentPlayer() == null ? 0 : request.getCurrentPlayer().getValue());
+		serialize(buffer, request.getBoardAnalysis());
+	}
+
+	public StoreBoardRequest deserializeStoreRequest(final ByteBuffer buffer) throws IOException {
+		final StoreBoardRequest result = new StoreBoardRequest();
+		result.setBoard(deserializeBoard(buffer));
+		try {
+			result.setCurrentPlayer(Disc.getDisc(buffer.get()));
+		} catch (final BufferUnderflowException e) {
+			throw new IOException("Could not deserialise StoreRequest. It appears to be truncated.", e);
+		}
+		result.setBoardAnalysis(deserializeBoardAnalysis(buffer, result.getBoard().getNumCols()));
+		return result;
+	}
+
+	/**
+	 * Convenience method to serialise a {@link StoreBoardRequest} to a new byte array.
+	 * @param request the {@link StoreBoardRequest}
+	 * @return the bytes
+	 */
+	public byte[] toBytes(final StoreBoardRequest request) {
+		final ByteBuffer buffer = ByteBuffer.allocate(getSerializedSize(request));
+		serialize(buffer, request);
+		return buffer.array();
+	}
+
+	public static BinaryObjectFactory getInstance() {
+		return INSTANCE;
+	}
+}
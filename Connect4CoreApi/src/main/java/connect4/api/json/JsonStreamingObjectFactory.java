@@ -8,6 +8,7 @@ import java.io.Writer;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -192,7 +193,10 @@ public class JsonStreamingObjectFactory {
 		g.writeStringField("action", "store"); // usually we don't write the action but this is serialising a request
 		serialize(g, request.getCurrentPlayer());
 		serialize(g, request.getBoard());
-		serialize(g, request.getBoardAnalysis());
+		if (request.getSeenCount() > 1) {
+			g.writeNumberField("seen", request.getSeenCount());
+		}
+		serialize(g, request.getBoardAnalysis()); // must be last, see deserializeBoardAnalysis()
 		g.writeEndObject();
 	}
 
@@ -213,12 +217,35 @@ public class JsonStreamingObjectFactory {
 		}
 		serialize(g, request.getCurrentPlayer());
 		serialize(g, request.getBoard());
-		serialize(g, request.getBoardAnalysis());
+		if (request.getSeenCount() > 1) {
+			g.writeNumberField("seen", request.getSeenCount());
+		}
+		serialize(g, request.getBoardAnalysis()); // must be last, see deserializeBoardAnalysis()
 		if (action != null) {
 			g.writeEndObject();
 		}
 	}
 
+	/**
+	 * Serialises the batch of store board requests with the "action" field "batch". Each board is written as an element of the "boards"
+	 * array.
+	 * @param g the {@link JsonGenerator} representing the output
+	 * @param request the {@link StoreBoardBatchRequest}
+	 * @throws IOException if the batch cannot be serialised
+	 */
+	public void serialize(final JsonGenerator g, final StoreBoardBatchRequest request) throws IOException {
+		g.writeStartObject();
+		g.writeStringField("action", "batch");
+		g.writeArrayFieldStart("boards");
+		for (final StoreBoardRequest board : request.getBoards()) {
+			g.writeStartObject();
+			serialize(g, board, null);
+			g.writeEndObject();
+		}
+		g.writeEndArray();
+		g.writeEndObject();
+	}
+
 	/**
 	 * Serialise board analysis using the default field name "boardAnalysis". Note this doesn't write start and end object tokens (so the
 	 * board can be embedded).
@@ -260,16 +287,47 @@ public class JsonStreamingObjectFactory {
 					throw new IOException("Could not parse StoreRequest. The 'board' must be defined before 'boardAnalysis'.");
 				}
 				result.setBoardAnalysis(deserializeBoardAnalysis(jp, result.getBoard().getNumCols()));
+			} else if ("seen".equals(fieldName)) {
+				result.setSeenCount(jp.getValueAsInt());
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Streams the "boards" of a batch request to the consumer one at a time so the whole batch doesn't need to be held in memory. The
+	 * current token should be the value of the "action" field.
+	 * @param jp the {@link JsonParser}
+	 * @param consumer receives each {@link StoreBoardRequest} as it's parsed
+	 * @throws IOException if the batch cannot be parsed
+	 */
+	public void deserializeStoreBoardRequests(final JsonParser jp, final Consumer<StoreBoardRequest> consumer) throws IOException {
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = jp.getCurrentName();
+			final JsonToken token = jp.nextToken();
+			if ("boards".equals(fieldName) && JsonToken.START_ARRAY.equals(token)) {
+				JsonToken next = jp.nextToken();
+				while (JsonToken.START_OBJECT.equals(next)) {
+					consumer.accept(doDeserializeStoreBoardRequest(jp));
+					// Deserialising the board analysis consumes the end of the board's object so we could already be on the next board
+					next = JsonToken.END_OBJECT.equals(jp.currentToken()) ? jp.nextToken() : jp.currentToken();
+				}
+				if (!JsonToken.END_ARRAY.equals(next)) {
+					throw new IOException("Could not parse batch. Expected a board or the end of 'boards' but was " + next + " at "
+							+ jp.getTokenLocation().toString());
+				}
+			} else {
+				jp.skipChildren();
+			}
+		}
+	}
+
 	public BoardAnalysis deserializeBoardAnalysis(final JsonParser jp, final int maxColumns) throws IOException {
 		final BoardAnalysis boardAnalysis = new BoardAnalysis();
 		while (jp.nextToken() != JsonToken.END_OBJECT) {
 			final TreeMap<Integer, Integer> columnToFlags = new TreeMap<>();
-			while (jp.nextToken() != JsonToken.END_ARRAY) {
+			// Check the current token first in case the array is empty
+			while (!JsonToken.END_ARRAY.equals(jp.currentToken()) && jp.nextToken() != JsonToken.END_ARRAY) {
 				int column = -1;
 				int flags = -1;
 				while (jp.nextToken() != JsonToken.END_OBJECT) {
@@ -295,6 +353,20 @@ public class JsonStreamingObjectFactory {
 	}
 
 	public Serializable deserializeAbstractBoardRequest(final JsonParser jp) throws IOException {
+		return deserializeAbstractBoardRequest(jp, null);
+	}
+
+	/**
+	 * Deserialises any of the requests the store understands.
+	 * @param jp the {@link JsonParser}
+	 * @param batchConsumer if not <code>null</code>, the boards of a {@link StoreBoardBatchRequest} are streamed to it (see
+	 *        {@link #deserializeStoreBoardRequests(JsonParser, Consumer)}) and the returned batch is empty. If <code>null</code> the boards
+	 *        are collected in the returned batch.
+	 * @return the request
+	 * @throws IOException if the request cannot be parsed
+	 */
+	public Serializable deserializeAbstractBoardRequest(final JsonParser jp, final Consumer<StoreBoardRequest> batchConsumer)
+			throws IOException {
 		if (!JsonToken.START_OBJECT.equals(jp.nextToken())) {
 			throw new IOException("Could not parse request. Does not appear to be JSON.");
 		}
@@ -305,6 +377,10 @@ public class JsonStreamingObjectFactory {
 				final String action = jp.getValueAsString();
 				if ("store".equals(action)) {
 					return doDeserializeStoreBoardRequest(jp);
+				} else if ("batch".equals(action)) {
+					final StoreBoardBatchRequest batch = new StoreBoardBatchRequest();
+					deserializeStoreBoardRequests(jp, batchConsumer == null ? batch.getBoards()::add : batchConsumer);
+					return batch;
 				} else if ("getrandom".equals(action)) {
 					return new GetRandomBoardRequest();
 				} else if ("warm".equals(action)) {
@@ -0,0 +1,28 @@
+package connect4.api.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a request to store many boards at once (action "batch") to amortise the cost of sending them.
+ */
+public class StoreBoardBatchRequest extends AbstractBoardRequest {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<StoreBoardRequest> boards = new ArrayList<>();
+
+	public StoreBoardBatchRequest() {
+	}
+
+	/**
+	 * @param boards the {@link StoreBoardRequest}s to add
+	 */
+	public StoreBoardBatchRequest(final List<StoreBoardRequest> boards) {
+		this.boards.addAll(boards);
+	}
+
+	public List<StoreBoardRequest> getBoards() {
+		return this.boards;
+	}
+}
@@ -14,6 +14,7 @@ public class StoreBoardRequest extends AbstractBoardRequest {
 	private Disc currentPlayer;
 	private Board board;
 	private BoardAnalysis boardAnalysis;
+	private int seenCount = 1;
 
 	public Disc getCurrentPlayer() {
 		return this.currentPlayer;
@@ -38,4 +39,29 @@ public class StoreBoardRequest extends AbstractBoardRequest {
 	public void setBoardAnalysis(final BoardAnalysis boardAnalysis) {
 		this.boardAnalysis = boardAnalysis;
 	}
+
+	/**
+	 * @return how many times the board was seen by the sender since it was last sent, usually 1
+	 */
+	public int getSeenCount() {
+		return this.seenCount;
+	}
+
+	public void setSeenCount(final int seenCount) {
+		this.seenCount = seenCount;
+	}
+
+	/**
+	 * Normalises the request in place so the current player is {@link Disc#YELLOW} and most discs are on the left (see
+	 * {@link Board#reverseToLeft()}). The board analysis is reversed to match. This is the form boards are stored in.
+	 */
+	public void normalise() {
+		if (!Disc.YELLOW.equals(this.currentPlayer)) {
+			this.currentPlayer = Disc.YELLOW;
+			this.board = this.board.swap();
+		}
+		if (this.board.reverseToLeft()) {
+			this.boardAnalysis.reverse();
+		}
+	}
 }
@@ -0,0 +1,74 @@
+package connect4.store;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import connect4.api.Board;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * Non-blocking version of {@link BoardStore}. Operations return immediately so callers can keep many requests in flight rather than
+ * waiting on each network round trip.
+ */
+public interface AsyncBoardStore {
+
+	/**
+	 * Stores the board and analysis, see {@link BoardStore#createOrUpdate(StoreBoardRequest)}.
+	 * @param request the {@link StoreBoardRequest} to store
+	 * @return completes when the board has been stored
+	 */
+	CompletableFuture<Void> createOrUpdate(StoreBoardRequest request);
+
+	/**
+	 * Stores many boards, see {@link BoardStore#createOrUpdateAll(Collection)}. By default every board is written concurrently.
+	 * @param requests the {@link StoreBoardRequest}s to store. Each board should appear at most once.
+	 * @return completes with the failures keyed by board hash code (empty if every board was stored) once every write has finished. Never
+	 *         completes exceptionally.
+	 */
+	default CompletableFuture<Map<Integer, Throwable>> createOrUpdateAll(final Collection<StoreBoardRequest> requests) {
+		final Map<Integer, Throwable> failures = new ConcurrentHashMap<>();
+		final CompletableFuture<?>[] writes = new CompletableFuture<?>[requests.size()];
+		int i = 0;
+		for (final StoreBoardRequest request : requests) {
+			final int boardHashCode = request.getBoard().hashCode();
+			CompletableFuture<Void> write;
+			try {
+				write = createOrUpdate(request);
+			} catch (final RuntimeException e) {
+				write = CompletableFuture.failedFuture(e);
+			}
+			writes[i++] = write.whenComplete((result, throwable) -> {
+				if (throwable != null) {
+					failures.put(boardHashCode, throwable);
+				}
+			});
+		}
+		return CompletableFuture.allOf(writes).handle((result, throwable) -> failures);
+	}
+
+	/**
+	 * Retrieve a board.
+	 * @param boardHashCode the hash code of the board
+	 * @return completes with a {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis}. Could be
+	 *         <code>null</code> if doesn't exist.
+	 */
+	CompletableFuture<StoreBoardRequest> get(int boardHashCode);
+
+	/**
+	 * Retrieve a random board.
+	 * @return completes with a {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis} or <code>null</code> if
+	 *         the store is empty
+	 */
+	CompletableFuture<StoreBoardRequest> getRandom();
+
+	/**
+	 * Writes anything the implementation has buffered, see {@link BoardStore#flush()}.
+	 * @return completes when everything buffered has been written
+	 */
+	default CompletableFuture<Void> flush() {
+		return CompletableFuture.completedFuture(null);
+	}
+}
@@ -0,0 +1,98 @@
+package connect4.store;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Collects the boards of a batch as they're parsed. Each board is normalised (see {@link StoreBoardRequest#normalise()}) and boards
+ * which appear more than once are merged so each is only written once: the "seen" counts are added together and the latest analysis
+ * wins.
+ * </p>
+ * <p>
+ * Remembers what happened to every board in the order they were added so a status can be reported for each one, see
+ * {@link #getStatuses(Collection)}.
+ * </p>
+ */
+public class BoardBatch implements Consumer<StoreBoardRequest> {
+
+	public static final String STATUS_STORED = "stored";
+	public static final String STATUS_MERGED = "merged";
+	public static final String STATUS_INVALID = "invalid";
+	public static final String STATUS_FAILED = "failed";
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private final Map<Integer, StoreBoardRequest> boards = new LinkedHashMap<>();
+	/** Board hash code of every board added or <code>null</code> if it was invalid */
+	private final List<Integer> items = new ArrayList<>();
+	/** Indexes in {@link #items} of the boards which were merged into an earlier board */
+	private final BitSet merged = new BitSet();
+
+	@Override
+	public void accept(final StoreBoardRequest request) {
+		if (request.getBoard() == null || request.getCurrentPlayer() == null || request.getBoardAnalysis() == null) {
+			LOGGER.debug("Ignoring board number " + (this.items.size() + 1) + " in batch. It's missing the board, disc or analysis.");
+			this.items.add(null);
+			return;
+		}
+		request.normalise();
+		final int boardHashCode = request.getBoard().hashCode();
+		final StoreBoardRequest existing = this.boards.get(boardHashCode);
+		if (existing == null) {
+			this.boards.put(boardHashCode, request);
+		} else {
+			existing.setSeenCount(Math.max(1, existing.getSeenCount()) + Math.max(1, request.getSeenCount()));
+			existing.setBoardAnalysis(request.getBoardAnalysis());
+			this.merged.set(this.items.size());
+		}
+		this.items.add(boardHashCode);
+	}
+
+	/**
+	 * @return the distinct normalised boards to store
+	 */
+	public Collection<StoreBoardRequest> getBoards() {
+		return this.boards.values();
+	}
+
+	/**
+	 * @return the number of boards added, including duplicates and invalid boards
+	 */
+	public int size() {
+		return this.items.size();
+	}
+
+	/**
+	 * Works out the status of each board added.
+	 * @param failed hash codes of the boards which could not be stored
+	 * @return the status of each board in the order they were added: {@value #STATUS_STORED}, {@value #STATUS_MERGED} (a duplicate of an
+	 *         earlier board in the batch which was stored), {@value #STATUS_INVALID} or {@value #STATUS_FAILED}
+	 */
+	public List<String> getStatuses(final Collection<Integer> failed) {
+		final List<String> statuses = new ArrayList<>(this.items.size());
+		for (int i = 0; i < this.items.size(); i++) {
+			final Integer boardHashCode = this.items.get(i);
+			if (boardHashCode == null) {
+				statuses.add(STATUS_INVALID);
+			} else if (failed.contains(boardHashCode)) {
+				statuses.add(STATUS_FAILED);
+			} else if (this.merged.get(i)) {
+				statuses.add(STATUS_MERGED);
+			} else {
+				statuses.add(STATUS_STORED);
+			}
+		}
+		return statuses;
+	}
+}
@@ -0,0 +1,76 @@
+package connect4.store;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * Storage for interesting boards. Boards are keyed by {@link Board#hashCode()}. Like the DynamoDB implementation, this is dumb storage:
+ * there is no board normalisation and it's assumed the current player is {@link Disc#YELLOW}.
+ */
+public interface BoardStore {
+
+	/**
+	 * Stores the board and analysis, creating it if it doesn't exist or updating it (and adding {@link StoreBoardRequest#getSeenCount()} to
+	 * how many times it's been seen) if it does.
+	 * @param request the {@link StoreBoardRequest} to store
+	 */
+	void createOrUpdate(StoreBoardRequest request);
+
+	/**
+	 * Stores many boards, see {@link #createOrUpdate(StoreBoardRequest)}. A failure to store one board doesn't stop the others being
+	 * stored. By default the boards are stored one at a time.
+	 * @param requests the {@link StoreBoardRequest}s to store. Each board should appear at most once.
+	 * @return the failures keyed by board hash code, empty if every board was stored
+	 */
+	default Map<Integer, RuntimeException> createOrUpdateAll(final Collection<StoreBoardRequest> requests) {
+		final Map<Integer, RuntimeException> failures = new HashMap<>();
+		for (final StoreBoardRequest request : requests) {
+			try {
+				createOrUpdate(request);
+			} catch (final RuntimeException e) {
+				failures.put(request.getBoard().hashCode(), e);
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Retrieve a board.
+	 * @param boardHashCode the hash code of the board
+	 * @return {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis}. Could be <code>null</code> if doesn't
+	 *         exist.
+	 */
+	StoreBoardRequest get(int boardHashCode);
+
+	/**
+	 * Gets how many times the board has been stored.
+	 * @param boardHashCode the hash code of the board
+	 * @return the number of times the board has been seen or 0 if the board isn't in the store
+	 */
+	int getSeenCount(int boardHashCode);
+
+	/**
+	 * Retrieve a random board.
+	 * @return {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis} or <code>null</code> if the store is empty
+	 */
+	StoreBoardRequest getRandom();
+
+	/**
+	 * Visits every board in the store. Boards are streamed to the consumer so implementations should not hold the whole store in memory.
+	 * @param consumer receives each board
+	 */
+	void scan(Consumer<StoreBoardRequest> consumer);
+
+	/**
+	 * Writes anything the implementation has buffered, e.g. aggregated "seen" counters. Implementations which don't buffer do nothing.
+	 */
+	default void flush() {
+	}
+}
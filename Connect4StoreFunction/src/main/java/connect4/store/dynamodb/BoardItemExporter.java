@@ -0,0 +1,139 @@
+package connect4.store.dynamodb;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Streams every board in the {@value BoardItemHelper#TABLE} table to a file using a parallel segmented scan. Memory usage is bounded by
+ * one scan page per segment regardless of the size of the table. Records are written in the order they're scanned.
+ * </p>
+ * <p>
+ * Only board items are exported (not the striped "seen" counters).
+ * </p>
+ */
+public class BoardItemExporter {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_SEGMENTS = 4;
+
+	private final AmazonDynamoDB client;
+	private final int totalSegments;
+
+	/**
+	 * @param client the DynamoDB client
+	 * @param totalSegments how many segments to scan in parallel
+	 */
+	public BoardItemExporter(final AmazonDynamoDB client, final int totalSegments) {
+		if (totalSegments < 1) {
+			throw new IllegalArgumentException("The number of segments must be at least 1 but was " + totalSegments);
+		}
+		this.client = client;
+		this.totalSegments = totalSegments;
+	}
+
+	/**
+	 * Exports all boards.
+	 * @param output where to write the boards. This is not closed.
+	 * @param format the {@link BoardItemFormat} to write
+	 * @return the number of boards exported
+	 * @throws IOException if the boards could not be written
+	 */
+	public long export(final OutputStream output, final BoardItemFormat format) throws IOException {
+		final OutputStream out = new BufferedOutputStream(output);
+		final AtomicLong count = new AtomicLong();
+		final ExecutorService executor = Executors.newFixedThreadPool(this.totalSegments);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int segment = 0; segment < this.totalSegments; segment++) {
+				final int s = segment;
+				futures.add(executor.submit(() -> {
+					scanSegment(s, out, format, count);
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException("Could not export boards", e.getCause());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while exporting boards", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		out.flush();
+		return count.get();
+	}
+
+	private void scanSegment(final int segment, final OutputStream out, final BoardItemFormat format, final AtomicLong count)
+			throws IOException {
+		Map<String, AttributeValue> exclusiveStartKey = null;
+		do {
+			final ScanRequest request = new ScanRequest().withTableName(BoardItemHelper.TABLE).withSegment(segment)
+					.withTotalSegments(this.totalSegments).withFilterExpression("#h = :h")
+					.addExpressionAttributeNamesEntry("#h", BoardItemHelper.KEY_HASH)
+					.addExpressionAttributeValuesEntry(":h", new AttributeValue().withN(BoardItemHelper.KEY_HASH_VALUE.toString()))
+					.withExclusiveStartKey(exclusiveStartKey);
+			final ScanResult result = this.client.scan(request);
+			for (final Map<String, AttributeValue> item : result.getItems()) {
+				final StoreBoardRequest board = BoardItemHelper.toStoreBoardRequest(ItemUtils.toItem(item));
+				final byte[] record = format.encode(board); // encode outside the lock
+				synchronized (out) {
+					out.write(record);
+				}
+				count.incrementAndGet();
+			}
+			exclusiveStartKey = result.getLastEvaluatedKey();
+		} while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Finished scanning segment " + segment + " of " + this.totalSegments);
+		}
+	}
+
+	/**
+	 * Usage: <code>BoardItemExporter &lt;file&gt; [ndjson|binary] [segments]</code>
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BoardItemExporter <file> [ndjson|binary] [segments]");
+			System.exit(1);
+		}
+		final BoardItemFormat format = args.length > 1 ? BoardItemFormat.valueOf(args[1].toUpperCase()) : BoardItemFormat.NDJSON;
+		final int segments = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SEGMENTS;
+		final AmazonDynamoDB client = DynamoDbStore.configure(AmazonDynamoDBClientBuilder.standard()).build();
+		final long start = System.currentTimeMillis();
+		try (OutputStream out = new FileOutputStream(args[0])) {
+			final long count = new BoardItemExporter(client, segments).export(out, format);
+			System.out.println("Exported " + count + " boards to '" + args[0] + "' in " + (System.currentTimeMillis() - start) + " ms");
+		} finally {
+			client.shutdown();
+		}
+	}
+}
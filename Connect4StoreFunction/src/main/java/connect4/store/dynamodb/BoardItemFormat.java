@@ -0,0 +1,108 @@
+package connect4.store.dynamodb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.JsonStreamingObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * File formats for bulk exporting and importing boards (see {@link BoardItemExporter} and {@link BoardItemImporter}). Both formats are
+ * streamed a record at a time.
+ */
+public enum BoardItemFormat {
+
+	/**
+	 * One {@link StoreBoardRequest} JSON object (with action "store") per line. Each line can be sent to the store function as is.
+	 */
+	NDJSON {
+		@Override
+		public byte[] encode(final StoreBoardRequest request) throws IOException {
+			final JsonStreamingObjectFactory factory = JsonStreamingObjectFactory.getInstance();
+			final StringWriter writer = new StringWriter();
+			final JsonGenerator g = factory.getGenerator(writer);
+			factory.serialize(g, request);
+			g.close();
+			writer.write('\n');
+			return writer.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public StoreBoardRequest read(final InputStream input) throws IOException {
+			final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+			while (true) {
+				final int b = input.read();
+				if (b == -1 || b == '\n') {
+					final String text = line.toString(StandardCharsets.UTF_8.name()).trim();
+					if (!text.isEmpty()) {
+						final JsonStreamingObjectFactory factory = JsonStreamingObjectFactory.getInstance();
+						return factory.deserializeStoreRequest(factory.getParser(text));
+					} else if (b == -1) {
+						return null;
+					}
+					line.reset(); // skip blank lines
+				} else {
+					line.write(b);
+				}
+			}
+		}
+	},
+
+	/**
+	 * <code>int length</code> followed by the {@link StoreBoardRequest} encoded by {@link BinaryObjectFactory}.
+	 */
+	BINARY {
+		@Override
+		public byte[] encode(final StoreBoardRequest request) {
+			final BinaryObjectFactory factory = BinaryObjectFactory.getInstance();
+			final int length = factory.getSerializedSize(request);
+			final ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+			buffer.putInt(length);
+			factory.serialize(buffer, request);
+			return buffer.array();
+		}
+
+		@Override
+		public StoreBoardRequest read(final InputStream input) throws IOException {
+			final byte[] lengthBytes = new byte[4];
+			final int read = input.readNBytes(lengthBytes, 0, 4);
+			if (read == 0) {
+				return null;
+			} else if (read < 4) {
+				throw new EOFException("Could not read board. The file appears to be truncated.");
+			}
+			final int length = ByteBuffer.wrap(lengthBytes).getInt();
+			if (length <= 0) {
+				throw new IOException("Could not read board. Record length " + length + " is invalid.");
+			}
+			final byte[] payload = input.readNBytes(length);
+			if (payload.length < length) {
+				throw new EOFException("Could not read board. The file appears to be truncated.");
+			}
+			return BinaryObjectFactory.getInstance().deserializeStoreRequest(ByteBuffer.wrap(payload));
+		}
+	};
+
+	/**
+	 * @param request the {@link StoreBoardRequest} to encode
+	 * @return the complete record including any framing
+	 * @throws IOException if the request can't be encoded
+	 */
+	public abstract byte[] encode(StoreBoardRequest request) throws IOException;
+
+	/**
+	 * Reads the next record.
+	 * @param input the {@link InputStream} to read from. Should be buffered.
+	 * @return the next {@link StoreBoardRequest} or <code>null</code> at the end of the stream
+	 * @throws IOException if the record can't be read
+	 */
+	public abstract StoreBoardRequest read(InputStream input) throws IOException;
+}
@@ -3,6 +3,7 @@ package connect4.store.dynamodb;
 import java.io.IOException;
 import java.io.StringWriter;
 
+import com.amazonaws.services.dynamodbv2.document.Item;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 
@@ -10,6 +11,7 @@ import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.json.JsonStreamingObjectFactory;
+import connect4.api.json.StoreBoardRequest;
 
 /**
  * <p>
@@ -19,6 +21,9 @@ import connect4.api.json.JsonStreamingObjectFactory;
  * Note this model uses a fixed partition/hash key which is essentially a hack to allow selection of random rows by running a query where
  * the range key (hash of the board) is <= (or >=) to a random number. This does create a limitation where we are restricted to one
  * partition (10GB size, 3000 RCU and 1000 WCU).
+ * <p>
+ * The "seen" count of a board is the sum of the {@link #ATTR_SEEN_COUNT} attribute on the board item, which counts the sightings that
+ * wrote it, and the same attribute on each counter item (see {@link #KEY_HASH_COUNTER_OFFSET}) which counts the rest.
  */
 public class BoardItemHelper {
 
@@ -29,6 +34,12 @@ public class BoardItemHelper {
 	public static final String ATTR_BOARD = "board";
 	public static final String ATTR_BOARD_ANALYSIS = "analysis";
 	public static final String ATTR_SEEN_COUNT = "seen";
+	/**
+	 * "seen" counters are striped over separate items (one per stripe) so a popular board doesn't become a hot key. Counter items share the
+	 * board's range key but use a hash key of this offset plus the stripe number, keeping them out of the random board query on
+	 * {@link #KEY_HASH_VALUE}.
+	 */
+	public static final int KEY_HASH_COUNTER_OFFSET = 1;
 
 	private static final int DEFAULT_NUM_COLUMNS = 7;
 
@@ -93,6 +104,10 @@ public class BoardItemHelper {
 
 		@Override
 		BoardAnalysis deserialise(final JsonStreamingObjectFactory factory, final JsonParser parser) throws IOException {
+			// Start at the array like a store request does, otherwise an empty array (no column has an opinion) runs off the end
+			parser.nextToken(); // {
+			parser.nextToken(); // "boardAnalysis"
+			parser.nextToken(); // [
 			return factory.deserializeBoardAnalysis(parser, DEFAULT_NUM_COLUMNS);
 		}
 	};
@@ -124,6 +139,19 @@ public class BoardItemHelper {
 		}
 	};
 
+	/**
+	 * Converts a board item to a {@link StoreBoardRequest}. Board items are always stored with {@link Disc#YELLOW} as the current player.
+	 * @param item the board item
+	 * @return the {@link StoreBoardRequest}
+	 */
+	public static StoreBoardRequest toStoreBoardRequest(final Item item) {
+		final StoreBoardRequest response = new StoreBoardRequest();
+		response.setBoard(BOARD_CONVERTER.unconvert(item.getString(ATTR_BOARD)));
+		response.setBoardAnalysis(BOARD_ANALYSIS_CONVERTER.unconvert(item.getString(ATTR_BOARD_ANALYSIS)));
+		response.setCurrentPlayer(Disc.YELLOW);
+		return response;
+	}
+
 	public static String convertDisc(final Disc disc) {
 		return "" + disc.getSymbol();
 	}
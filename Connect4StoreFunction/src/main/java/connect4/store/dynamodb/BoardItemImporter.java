@@ -0,0 +1,137 @@
+package connect4.store.dynamodb;
+
+import static connect4.store.dynamodb.BoardItemHelper.BOARD_ANALYSIS_CONVERTER;
+import static connect4.store.dynamodb.BoardItemHelper.BOARD_CONVERTER;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import connect4.api.Disc;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Streams boards from a file written by {@link BoardItemExporter} (or anything else producing a {@link BoardItemFormat}) into the
+ * {@value BoardItemHelper#TABLE} table using batched writes. Only one batch is held in memory at a time.
+ * </p>
+ * <p>
+ * Board items are replaced so any legacy "seen" count on them is lost. Striped counters are left alone.
+ * </p>
+ */
+public class BoardItemImporter {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int BATCH_SIZE = 25; // DynamoDB's limit for BatchWriteItem
+	private static final int MAX_ATTEMPTS = 10;
+
+	private final AmazonDynamoDB client;
+
+	/**
+	 * @param client the DynamoDB client
+	 */
+	public BoardItemImporter(final AmazonDynamoDB client) {
+		this.client = client;
+	}
+
+	/**
+	 * Imports all boards.
+	 * @param input where to read the boards from. This is not closed.
+	 * @param format the {@link BoardItemFormat} to read
+	 * @return the number of boards imported (including duplicates)
+	 * @throws IOException if the boards could not be read
+	 */
+	public long importBoards(final InputStream input, final BoardItemFormat format) throws IOException {
+		final InputStream in = new BufferedInputStream(input);
+		// Keyed by board hash code since a batch can't contain the same key twice. Later boards win.
+		Map<Integer, WriteRequest> batch = new LinkedHashMap<>();
+		long count = 0;
+		StoreBoardRequest request;
+		while ((request = format.read(in)) != null) {
+			if (!Disc.YELLOW.equals(request.getCurrentPlayer())) {
+				throw new IllegalArgumentException("The current player is expected to be YELLOW but was " + request.getCurrentPlayer()
+						+ " for board number " + (count + 1));
+			}
+			batch.put(request.getBoard().hashCode(), toWriteRequest(request));
+			count++;
+			if (batch.size() == BATCH_SIZE) {
+				write(new ArrayList<>(batch.values()));
+				batch = new LinkedHashMap<>();
+			}
+		}
+		if (!batch.isEmpty()) {
+			write(new ArrayList<>(batch.values()));
+		}
+		return count;
+	}
+
+	private WriteRequest toWriteRequest(final StoreBoardRequest request) {
+		final Map<String, AttributeValue> item = new HashMap<>();
+		item.put(BoardItemHelper.KEY_HASH, new AttributeValue().withN(BoardItemHelper.KEY_HASH_VALUE.toString()));
+		item.put(BoardItemHelper.KEY_RANGE, new AttributeValue().withN(Integer.toString(request.getBoard().hashCode())));
+		item.put(BoardItemHelper.ATTR_BOARD, new AttributeValue(BOARD_CONVERTER.convert(request.getBoard())));
+		item.put(BoardItemHelper.ATTR_BOARD_ANALYSIS, new AttributeValue(BOARD_ANALYSIS_CONVERTER.convert(request.getBoardAnalysis())));
+		return new WriteRequest(new PutRequest(item));
+	}
+
+	/**
+	 * Writes the batch, retrying unprocessed items (i.e. throttling) with exponential back off.
+	 */
+	private void write(final List<WriteRequest> batch) {
+		Map<String, List<WriteRequest>> items = Collections.singletonMap(BoardItemHelper.TABLE, batch);
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			if (attempt > 0) {
+				try {
+					Thread.sleep(50L << Math.min(attempt, 6));
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while importing boards", e);
+				}
+			}
+			items = this.client.batchWriteItem(new BatchWriteItemRequest(items)).getUnprocessedItems();
+			if (items == null || items.isEmpty()) {
+				return;
+			}
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Retrying " + items.get(BoardItemHelper.TABLE).size() + " unprocessed boards");
+			}
+		}
+		throw new RuntimeException("Could not import boards. Items were still unprocessed after " + MAX_ATTEMPTS + " attempts.");
+	}
+
+	/**
+	 * Usage: <code>BoardItemImporter &lt;file&gt; [ndjson|binary]</code>
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BoardItemImporter <file> [ndjson|binary]");
+			System.exit(1);
+		}
+		final BoardItemFormat format = args.length > 1 ? BoardItemFormat.valueOf(args[1].toUpperCase()) : BoardItemFormat.NDJSON;
+		final AmazonDynamoDB client = DynamoDbStore.configure(AmazonDynamoDBClientBuilder.standard()).build();
+		final long start = System.currentTimeMillis();
+		try (InputStream in = new FileInputStream(args[0])) {
+			final long count = new BoardItemImporter(client).importBoards(in, format);
+			System.out.println("Imported " + count + " boards from '" + args[0] + "' in " + (System.currentTimeMillis() - start) + " ms");
+		} finally {
+			client.shutdown();
+		}
+	}
+}
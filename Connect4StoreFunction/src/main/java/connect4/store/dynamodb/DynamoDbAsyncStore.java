@@ -0,0 +1,207 @@
+package connect4.store.dynamodb;
+
+import static connect4.store.dynamodb.BoardItemHelper.BOARD_ANALYSIS_CONVERTER;
+import static connect4.store.dynamodb.BoardItemHelper.BOARD_CONVERTER;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClientBuilder;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+import connect4.api.Disc;
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.AsyncBoardStore;
+
+/**
+ * Non-blocking equivalent of {@link DynamoDbStore} built on the async DynamoDB client. Uses the same table layout, environment variables
+ * and "seen" counter striping. Futures complete on the client's callback threads.
+ */
+public class DynamoDbAsyncStore implements AsyncBoardStore {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Random RANDOM = new Random();
+	private static DynamoDbAsyncStore INSTANCE;
+
+	private final AmazonDynamoDBAsync client;
+	private final int seenStripes;
+	private final SeenCounterAggregator seenCounterAggregator;
+
+	/**
+	 * @param client the async DynamoDB client to use
+	 */
+	public DynamoDbAsyncStore(final AmazonDynamoDBAsync client) {
+		this.client = client;
+		this.seenStripes = DynamoDbStore.getSeenStripes();
+		this.seenCounterAggregator = DynamoDbStore.createSeenCounterAggregator();
+	}
+
+	@Override
+	public CompletableFuture<Void> createOrUpdate(final StoreBoardRequest request) {
+		if (!Disc.YELLOW.equals(request.getCurrentPlayer())) {
+			throw new IllegalArgumentException("The current player is expected to be YELLOW but was " + request.getCurrentPlayer());
+		}
+
+		final int boardHashCode = request.getBoard().hashCode();
+		final int seenCount = Math.max(1, request.getSeenCount());
+		CompletableFuture<Void> result;
+		if (this.seenCounterAggregator.increment(boardHashCode, seenCount, System.currentTimeMillis())) {
+			final UpdateItemRequest updateRequest = new UpdateItemRequest().withTableName(BoardItemHelper.TABLE)
+					.withKey(key(BoardItemHelper.KEY_HASH_VALUE, boardHashCode))
+					.withUpdateExpression("set #bo = :val1, #an = :val2 add #sc :val3")
+					.addExpressionAttributeNamesEntry("#bo", BoardItemHelper.ATTR_BOARD)
+					.addExpressionAttributeNamesEntry("#an", BoardItemHelper.ATTR_BOARD_ANALYSIS)
+					.addExpressionAttributeNamesEntry("#sc", BoardItemHelper.ATTR_SEEN_COUNT)
+					.addExpressionAttributeValuesEntry(":val1", new AttributeValue(BOARD_CONVERTER.convert(request.getBoard())))
+					.addExpressionAttributeValuesEntry(":val2",
+							new AttributeValue(BOARD_ANALYSIS_CONVERTER.convert(request.getBoardAnalysis())))
+					.addExpressionAttributeValuesEntry(":val3", new AttributeValue().withN(Integer.toString(seenCount)));
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Create or updating board with hashcode " + boardHashCode);
+			}
+			result = updateItem(updateRequest).thenAccept(updateResult -> {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Completed creating or updating board with hashcode " + boardHashCode + " with request ID "
+							+ updateResult.getSdkResponseMetadata().getRequestId());
+				}
+			});
+		} else {
+			result = CompletableFuture.completedFuture(null);
+		}
+		if (this.seenCounterAggregator.isFlushDue(System.currentTimeMillis())) {
+			result = CompletableFuture.allOf(result, flush());
+		}
+		return result;
+	}
+
+	/**
+	 * Writes pending "seen" counter increments, each to a random stripe. The writes are issued concurrently.
+	 */
+	@Override
+	public CompletableFuture<Void> flush() {
+		final Map<Integer, Integer> increments = this.seenCounterAggregator.drain();
+		final CompletableFuture<?>[] updates = new CompletableFuture<?>[increments.size()];
+		int i = 0;
+		for (final Entry<Integer, Integer> entry : increments.entrySet()) {
+			final UpdateItemRequest updateRequest = new UpdateItemRequest().withTableName(BoardItemHelper.TABLE)
+					.withKey(key(BoardItemHelper.KEY_HASH_COUNTER_OFFSET + RANDOM.nextInt(this.seenStripes), entry.getKey()))
+					.withUpdateExpression("add #sc :val").addExpressionAttributeNamesEntry("#sc", BoardItemHelper.ATTR_SEEN_COUNT)
+					.addExpressionAttributeValuesEntry(":val", new AttributeValue().withN(entry.getValue().toString()));
+			updates[i++] = updateItem(updateRequest);
+		}
+		return CompletableFuture.allOf(updates);
+	}
+
+	@Override
+	public CompletableFuture<StoreBoardRequest> get(final int boardHashCode) {
+		final GetItemRequest getRequest = new GetItemRequest().withTableName(BoardItemHelper.TABLE)
+				.withKey(key(BoardItemHelper.KEY_HASH_VALUE, boardHashCode));
+		return getItem(getRequest).thenApply(getResult -> {
+			if (getResult.getItem() == null) {
+				return null;
+			}
+			return BoardItemHelper.toStoreBoardRequest(ItemUtils.toItem(getResult.getItem()));
+		});
+	}
+
+	/**
+	 * Same approach as {@link DynamoDbStore#getRandom()}: look for the board with a hash code >= a random number and if there isn't one,
+	 * try <=. The second query is only issued if the first one comes back empty.
+	 */
+	@Override
+	public CompletableFuture<StoreBoardRequest> getRandom() {
+		final int randomHashCode = RANDOM.nextInt();
+		LOGGER.debug("Getting random board with hashcode >= " + randomHashCode);
+		return query(buildQuery(randomHashCode, false)).thenCompose(queryResult -> {
+			if (queryResult.getCount() == 0) {
+				LOGGER.debug("Hmm >= didn't work. Trying with hashcode <= " + randomHashCode);
+				return query(buildQuery(randomHashCode, true));
+			}
+			return CompletableFuture.completedFuture(queryResult);
+		}).thenApply(queryResult -> {
+			if (queryResult.getCount() == 1) {
+				return BoardItemHelper.toStoreBoardRequest(ItemUtils.toItem(queryResult.getItems().get(0)));
+			} else if (queryResult.getCount() == 0) {
+				LOGGER.debug("No boards found, table must be empty");
+				return null;
+			} else {
+				throw new RuntimeException("Query for random board returned more than one row. This shouldn't be possible.");
+			}
+		});
+	}
+
+	private QueryRequest buildQuery(final int randomHashCode, final boolean useLessThan) {
+		return new QueryRequest().withTableName(BoardItemHelper.TABLE)
+				.withKeyConditionExpression("#h = :h and #r " + (useLessThan ? "<=" : ">=") + " :r")
+				.addExpressionAttributeNamesEntry("#h", BoardItemHelper.KEY_HASH)
+				.addExpressionAttributeNamesEntry("#r", BoardItemHelper.KEY_RANGE)
+				.addExpressionAttributeValuesEntry(":h", new AttributeValue().withN(BoardItemHelper.KEY_HASH_VALUE.toString()))
+				.addExpressionAttributeValuesEntry(":r", new AttributeValue().withN(Integer.toString(randomHashCode))).withLimit(1);
+	}
+
+	private static Map<String, AttributeValue> key(final int hashValue, final int boardHashCode) {
+		final Map<String, AttributeValue> key = new HashMap<>();
+		key.put(BoardItemHelper.KEY_HASH, new AttributeValue().withN(Integer.toString(hashValue)));
+		key.put(BoardItemHelper.KEY_RANGE, new AttributeValue().withN(Integer.toString(boardHashCode)));
+		return key;
+	}
+
+	private CompletableFuture<UpdateItemResult> updateItem(final UpdateItemRequest request) {
+		final CompletableFuture<UpdateItemResult> future = new CompletableFuture<>();
+		this.client.updateItemAsync(request, complete(future));
+		return future;
+	}
+
+	private CompletableFuture<GetItemResult> getItem(final GetItemRequest request) {
+		final CompletableFuture<GetItemResult> future = new CompletableFuture<>();
+		this.client.getItemAsync(request, complete(future));
+		return future;
+	}
+
+	private CompletableFuture<QueryResult> query(final QueryRequest request) {
+		final CompletableFuture<QueryResult> future = new CompletableFuture<>();
+		this.client.queryAsync(request, complete(future));
+		return future;
+	}
+
+	/**
+	 * Bridges the SDK's {@link AsyncHandler} callback style to a {@link CompletableFuture}.
+	 */
+	private static <REQ extends AmazonWebServiceRequest, RES> AsyncHandler<REQ, RES> complete(final CompletableFuture<RES> future) {
+		return new AsyncHandler<REQ, RES>() {
+
+			@Override
+			public void onError(final Exception exception) {
+				future.completeExceptionally(exception);
+			}
+
+			@Override
+			public void onSuccess(final REQ request, final RES result) {
+				future.complete(result);
+			}
+		};
+	}
+
+	public static synchronized DynamoDbAsyncStore getInstance() {
+		if (INSTANCE == null) {
+			INSTANCE = new DynamoDbAsyncStore(DynamoDbStore.configure(AmazonDynamoDBAsyncClientBuilder.standard()).build());
+		}
+		return INSTANCE;
+	}
+}
@@ -4,86 +4,209 @@ import static connect4.store.dynamodb.BoardItemHelper.BOARD_ANALYSIS_CONVERTER;
 import static connect4.store.dynamodb.BoardItemHelper.BOARD_CONVERTER;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.document.BatchGetItemOutcome;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.ItemCollection;
 import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
+import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.TableKeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.document.UpdateItemOutcome;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.amazonaws.services.dynamodbv2.document.utils.NameMap;
+import com.amazonaws.services.dynamodbv2.document.utils.ValueMap;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 
 import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.json.StoreBoardRequest;
+import connect4.store.BoardStore;
 
 /**
+ * <p>
  * Application-level class for accessing Connect 4 DynamoDB. Uses the environment variable {@value #ENV_REGION} to be set the
- * region code where DynamoDB lives (or if not set, uses the default region).
+ * region code where DynamoDB lives (or if not set, uses the default region). {@value #ENV_ENDPOINT} overrides the endpoint, e.g. to use
+ * DynamoDB Local for testing.
+ * </p>
+ * <p>
+ * "seen" counters are pre-aggregated locally (see {@link SeenCounterAggregator}) and flushed to one of {@value #DEFAULT_SEEN_STRIPES}
+ * (override with {@value #ENV_SEEN_STRIPES}) striped counter items picked at random. Increments are flushed after
+ * {@value #DEFAULT_SEEN_FLUSH_MS} ms (override with {@value #ENV_SEEN_FLUSH_MS}) or on {@link #flush()}. The counter items are written
+ * concurrently by {@value #FLUSH_THREADS} background threads, so a request which makes a flush due doesn't wait for it.
+ * </p>
  */
-public class DynamoDbStore {
+public class DynamoDbStore implements BoardStore {
 
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final Random RANDOM = new Random();
 	private static final String ENV_REGION = "DYNAMODB_REGION";
+	private static final String ENV_ENDPOINT = "DYNAMODB_ENDPOINT";
+	private static final String DEFAULT_LOCAL_REGION = "us-east-1";
+	static final String ENV_SEEN_STRIPES = "SEEN_COUNTER_STRIPES";
+	static final String ENV_SEEN_FLUSH_MS = "SEEN_COUNTER_FLUSH_MS";
+	static final int DEFAULT_SEEN_STRIPES = 8;
+	static final int DEFAULT_SEEN_FLUSH_MS = 5000;
+	static final int FLUSH_THREADS = 8;
+	private static final int MAX_PENDING_BOARDS = 1000;
 	private static DynamoDbStore INSTANCE;
 
 	private final DynamoDB dynamoDb;
+	private final Table table;
+	private final int seenStripes;
+	private final SeenCounterAggregator seenCounterAggregator;
+	private final ExecutorService flushExecutor;
+	private final Set<CompletableFuture<Void>> flushing = ConcurrentHashMap.newKeySet();
 
 	private DynamoDbStore() {
-		final String region = System.getenv(ENV_REGION);
-		final AmazonDynamoDB dynamoDbClient;
-		if (StringUtils.isBlank(region)) {
-			LOGGER.debug("Initialising using default region");
-			dynamoDbClient = AmazonDynamoDBClientBuilder.defaultClient();
-		} else {
-			dynamoDbClient = AmazonDynamoDBClientBuilder.standard().withRegion(region).build();
-		}
+		final AmazonDynamoDB dynamoDbClient = configure(AmazonDynamoDBClientBuilder.standard()).build();
 		this.dynamoDb = new DynamoDB(dynamoDbClient);
+		this.table = this.dynamoDb.getTable(BoardItemHelper.TABLE);
+		this.seenStripes = getSeenStripes();
+		this.seenCounterAggregator = createSeenCounterAggregator();
+		final AtomicInteger count = new AtomicInteger();
+		this.flushExecutor = Executors.newFixedThreadPool(FLUSH_THREADS, runnable -> {
+			final Thread thread = new Thread(runnable, "seen-flush-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	/**
 	 * Stores a {@link StoreBoardRequest} in DynamoDB. This is dumb storage. There is no board normalisation and it's assumed the current
-	 * player is {@link Disc#YELLOW}
+	 * player is {@link Disc#YELLOW}. The board item is only written, and its "seen" counter bumped, on the first sighting in the flush
+	 * interval. Later sightings just bump the locally aggregated "seen" counter.
 	 * @param request
 	 */
+	@Override
 	public void createOrUpdate(final StoreBoardRequest request) {
 		if (!Disc.YELLOW.equals(request.getCurrentPlayer())) {
 			throw new IllegalArgumentException("The current player is expected to be YELLOW but was " + request.getCurrentPlayer());
 		}
 
-		final Map<String, String> expressionAttributeNames = new HashMap<>();
-		expressionAttributeNames.put("#bo", BoardItemHelper.ATTR_BOARD);
-		expressionAttributeNames.put("#an", BoardItemHelper.ATTR_BOARD_ANALYSIS);
-		expressionAttributeNames.put("#sc", BoardItemHelper.ATTR_SEEN_COUNT);
+		final int boardHashCode = request.getBoard().hashCode();
+		final int seenCount = Math.max(1, request.getSeenCount());
+		if (this.seenCounterAggregator.increment(boardHashCode, seenCount, System.currentTimeMillis())) {
+			final Map<String, String> expressionAttributeNames = new HashMap<>();
+			expressionAttributeNames.put("#bo", BoardItemHelper.ATTR_BOARD);
+			expressionAttributeNames.put("#an", BoardItemHelper.ATTR_BOARD_ANALYSIS);
+			expressionAttributeNames.put("#sc", BoardItemHelper.ATTR_SEEN_COUNT);
+
+			final Map<String, Object> expressionAttributeValues = new HashMap<>();
+			expressionAttributeValues.put(":val1", BOARD_CONVERTER.convert(request.getBoard()));
+			expressionAttributeValues.put(":val2", BOARD_ANALYSIS_CONVERTER.convert(request.getBoardAnalysis()));
+			expressionAttributeValues.put(":val3", seenCount);
+
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Create or updating board with hashcode " + boardHashCode);
+			}
+			final UpdateItemOutcome updateItemOutcome = this.table.updateItem(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_VALUE,
+					BoardItemHelper.KEY_RANGE, boardHashCode, "set #bo = :val1, #an = :val2 add #sc :val3", expressionAttributeNames,
+					expressionAttributeValues);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Completed creating or updating board with hashcode " + boardHashCode + " with request ID "
+						+ updateItemOutcome.getUpdateItemResult().getSdkResponseMetadata().getRequestId());
+			}
+		}
+		if (this.seenCounterAggregator.isFlushDue(System.currentTimeMillis())) {
+			writeSeenCounters(); // in the background
+		}
+	}
+
+	/**
+	 * Writes pending "seen" counter increments, each to a random stripe, and waits for them and any writes already in the background.
+	 */
+	@Override
+	public void flush() {
+		writeSeenCounters();
+		CompletableFuture.allOf(this.flushing.toArray(new CompletableFuture<?>[0])).join();
+	}
 
-		final Map<String, Object> expressionAttributeValues = new HashMap<>();
-		expressionAttributeValues.put(":val1", BOARD_CONVERTER.convert(request.getBoard()));
-		expressionAttributeValues.put(":val2", BOARD_ANALYSIS_CONVERTER.convert(request.getBoardAnalysis()));
-		expressionAttributeValues.put(":val3", 1);
-		expressionAttributeValues.put(":zero", 0);
+	/**
+	 * Starts writing the pending "seen" counter increments concurrently. A failed write is logged and its increment lost.
+	 */
+	private void writeSeenCounters() {
+		final Map<Integer, Integer> increments = this.seenCounterAggregator.drain();
+		if (increments.isEmpty()) {
+			return;
+		}
+		final CompletableFuture<?>[] updates = new CompletableFuture<?>[increments.size()];
+		int i = 0;
+		for (final Entry<Integer, Integer> entry : increments.entrySet()) {
+			updates[i++] = CompletableFuture.runAsync(() -> addSeenCount(entry.getKey(), entry.getValue()), this.flushExecutor);
+		}
+		final CompletableFuture<Void> written = CompletableFuture.allOf(updates);
+		this.flushing.add(written);
+		written.whenComplete((result, exception) -> {
+			this.flushing.remove(written);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Flushed seen counters for " + increments.size() + " boards");
+			}
+		});
+	}
+
+	private void addSeenCount(final int boardHashCode, final int count) {
+		try {
+			this.table.updateItem(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_COUNTER_OFFSET + RANDOM.nextInt(this.seenStripes),
+					BoardItemHelper.KEY_RANGE, boardHashCode, "add #sc :val", new NameMap().with("#sc", BoardItemHelper.ATTR_SEEN_COUNT),
+					new ValueMap().withInt(":val", count));
+		} catch (final RuntimeException e) {
+			LOGGER.warn("Could not add " + count + " to the seen counter of board with hashcode " + boardHashCode, e);
+		}
+	}
 
-		final Table table = this.dynamoDb.getTable(BoardItemHelper.TABLE);
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Create or updating board with hashcode " + request.getBoard().hashCode());
+	/**
+	 * Sums the board item's counter, every stripe and any increments not yet flushed.
+	 */
+	@Override
+	public int getSeenCount(final int boardHashCode) {
+		final TableKeysAndAttributes keys = new TableKeysAndAttributes(BoardItemHelper.TABLE)
+				.withAttributeNames(BoardItemHelper.ATTR_SEEN_COUNT);
+		keys.addHashAndRangePrimaryKey(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_VALUE, BoardItemHelper.KEY_RANGE, boardHashCode);
+		for (int stripe = 0; stripe < this.seenStripes; stripe++) {
+			keys.addHashAndRangePrimaryKey(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_COUNTER_OFFSET + stripe,
+					BoardItemHelper.KEY_RANGE, boardHashCode);
 		}
-		final UpdateItemOutcome updateItemOutcome = table.updateItem(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_VALUE,
-				BoardItemHelper.KEY_RANGE, request.getBoard().hashCode(),
-				"set #bo = :val1, #an = :val2, #sc = if_not_exists(#sc, :zero) + :val3", expressionAttributeNames,
-				expressionAttributeValues);
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Completed creating or updating board with hashcode " + request.getBoard().hashCode() + " with request ID "
-					+ updateItemOutcome.getUpdateItemResult().getSdkResponseMetadata().getRequestId());
+		int seenCount = this.seenCounterAggregator.getPending(boardHashCode);
+		BatchGetItemOutcome outcome = this.dynamoDb.batchGetItem(keys);
+		while (true) {
+			final List<Item> items = outcome.getTableItems().get(BoardItemHelper.TABLE);
+			if (items != null) {
+				for (final Item item : items) {
+					if (item.isPresent(BoardItemHelper.ATTR_SEEN_COUNT)) {
+						seenCount += item.getInt(BoardItemHelper.ATTR_SEEN_COUNT);
+					}
+				}
+			}
+			final Map<String, KeysAndAttributes> unprocessedKeys = outcome.getUnprocessedKeys();
+			if (unprocessedKeys == null || unprocessedKeys.isEmpty()) {
+				return seenCount;
+			}
+			outcome = this.dynamoDb.batchGetItemUnprocessed(unprocessedKeys);
 		}
 	}
 
@@ -93,17 +216,14 @@ public class DynamoDbStore {
 	 * @return {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis}. Could be <code>null</code> if doesn't
 	 *         exist.
 	 */
+	@Override
 	public StoreBoardRequest get(final int boardHashCode) {
-		final Table table = this.dynamoDb.getTable(BoardItemHelper.TABLE);
-		final Item item = table.getItem(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_VALUE, BoardItemHelper.KEY_RANGE, boardHashCode);
+		final Item item = this.table.getItem(BoardItemHelper.KEY_HASH, BoardItemHelper.KEY_HASH_VALUE, BoardItemHelper.KEY_RANGE,
+				boardHashCode);
 		if (item == null) {
 			return null;
 		}
-		final StoreBoardRequest response = new StoreBoardRequest();
-		response.setBoard(BOARD_CONVERTER.unconvert(item.getString(BoardItemHelper.ATTR_BOARD)));
-		response.setBoardAnalysis(BOARD_ANALYSIS_CONVERTER.unconvert(item.getString(BoardItemHelper.ATTR_BOARD_ANALYSIS)));
-		response.setCurrentPlayer(Disc.YELLOW);
-		return response;
+		return BoardItemHelper.toStoreBoardRequest(item);
 	}
 
 	/**
@@ -111,12 +231,12 @@ public class DynamoDbStore {
 	 * @return {@link StoreBoardRequest} containing the {@link Board} and {@link BoardAnalysis} or <code>null</code> if no board could be
 	 *         found
 	 */
+	@Override
 	public StoreBoardRequest getRandom() {
 		final int randomHashCode = RANDOM.nextInt();
-		final Table table = this.dynamoDb.getTable(BoardItemHelper.TABLE);
 		LOGGER.debug("Getting random board with hashcode <= " + randomHashCode);
 		QuerySpec query = buildQuery(randomHashCode, false);
-		ItemCollection<QueryOutcome> queryOutcomes = table.query(query);
+		ItemCollection<QueryOutcome> queryOutcomes = this.table.query(query);
 		QueryOutcome queryOutcome = queryOutcomes.firstPage().getLowLevelResult(); // This line actually fires the query
 		if (queryOutcomes.getAccumulatedItemCount() == 0) {
 			// Didn't find anything, this could be edge case where the random hash code is smaller than all of the board hash codes in
@@ -126,16 +246,12 @@ public class DynamoDbStore {
 						+ ". Trying with hashcode >= " + randomHashCode);
 			}
 			query = buildQuery(randomHashCode, true);
-			queryOutcomes = table.query(query);
+			queryOutcomes = this.table.query(query);
 			queryOutcome = queryOutcomes.firstPage().getLowLevelResult();
 		}
 
 		if (queryOutcomes.getAccumulatedItemCount() == 1) {
-			final StoreBoardRequest response = new StoreBoardRequest();
-			final Item item = queryOutcome.getItems().get(0);
-			response.setBoard(BOARD_CONVERTER.unconvert(item.getString(BoardItemHelper.ATTR_BOARD)));
-			response.setBoardAnalysis(BOARD_ANALYSIS_CONVERTER.unconvert(item.getString(BoardItemHelper.ATTR_BOARD_ANALYSIS)));
-			response.setCurrentPlayer(Disc.YELLOW);
+			final StoreBoardRequest response = BoardItemHelper.toStoreBoardRequest(queryOutcome.getItems().get(0));
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("Returning board with hashcode " + response.getBoard().hashCode() + " from request ID "
 						+ queryOutcomes.getLastLowLevelResult().getQueryResult().getSdkResponseMetadata().getRequestId());
@@ -149,6 +265,20 @@ public class DynamoDbStore {
 		}
 	}
 
+	/**
+	 * Scans the whole table, skipping counter items. Items are fetched a page at a time as the consumer iterates so memory usage is bounded
+	 * by the page size.
+	 */
+	@Override
+	public void scan(final Consumer<StoreBoardRequest> consumer) {
+		final ItemCollection<ScanOutcome> items = this.table.scan(new ScanSpec().withFilterExpression("#h = :h")
+				.withNameMap(new NameMap().with("#h", BoardItemHelper.KEY_HASH))
+				.withValueMap(new ValueMap().withInt(":h", BoardItemHelper.KEY_HASH_VALUE)));
+		for (final Item item : items) {
+			consumer.accept(BoardItemHelper.toStoreBoardRequest(item));
+		}
+	}
+
 	private QuerySpec buildQuery(final int randomHashCode, final boolean useLessThan) {
 		final RangeKeyCondition rangeKeyCondition = new RangeKeyCondition(BoardItemHelper.KEY_RANGE);
 		if (useLessThan) {
@@ -161,6 +291,40 @@ public class DynamoDbStore {
 				.withMaxPageSize(5);// .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL); // we could return consumed capacity here
 	}
 
+	/**
+	 * Applies the environment's configuration (see {@value #ENV_REGION} and {@value #ENV_ENDPOINT}) to a DynamoDB client builder.
+	 * @param builder the sync or async client builder
+	 * @return the builder
+	 */
+	static <T extends AwsClientBuilder<T, ?>> T configure(final T builder) {
+		final String region = System.getenv(ENV_REGION);
+		final String endpoint = System.getenv(ENV_ENDPOINT);
+		if (StringUtils.isNotBlank(endpoint)) {
+			LOGGER.debug("Initialising using endpoint " + endpoint);
+			builder.setEndpointConfiguration(
+					new EndpointConfiguration(endpoint, StringUtils.isBlank(region) ? DEFAULT_LOCAL_REGION : region));
+		} else if (StringUtils.isBlank(region)) {
+			LOGGER.debug("Initialising using default region");
+		} else {
+			builder.setRegion(region);
+		}
+		return builder;
+	}
+
+	/**
+	 * @return the number of "seen" counter stripes from {@value #ENV_SEEN_STRIPES}
+	 */
+	static int getSeenStripes() {
+		return Math.max(1, NumberUtils.toInt(System.getenv(ENV_SEEN_STRIPES), DEFAULT_SEEN_STRIPES));
+	}
+
+	/**
+	 * @return a {@link SeenCounterAggregator} configured from {@value #ENV_SEEN_FLUSH_MS}
+	 */
+	static SeenCounterAggregator createSeenCounterAggregator() {
+		return new SeenCounterAggregator(MAX_PENDING_BOARDS, NumberUtils.toInt(System.getenv(ENV_SEEN_FLUSH_MS), DEFAULT_SEEN_FLUSH_MS));
+	}
+
 	public static synchronized DynamoDbStore getInstance() {
 		if (INSTANCE == null) {
 			INSTANCE = new DynamoDbStore();
@@ -0,0 +1,92 @@
+package connect4.store.dynamodb;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Pre-aggregates "seen" counter increments in memory so popular boards (e.g. openings and common traps) cost one DynamoDB write per flush
+ * rather than one write per sighting.
+ * </p>
+ * <p>
+ * The first sighting of a board in each flush interval is counted by the write of the board item itself, so a board seen once costs one
+ * write. Only later sightings in the interval are held, to be flushed to the striped counter items.
+ * </p>
+ * <p>
+ * Increments are held until they're older than the flush interval or there are too many distinct boards pending. Pending increments are
+ * lost if the process dies before flushing so the counters are best effort, which is fine since they're only used as a popularity
+ * statistic.
+ * </p>
+ */
+public class SeenCounterAggregator {
+
+	private final int maxPending;
+	private final long flushIntervalMillis;
+	private Map<Integer, Integer> pending = new HashMap<>();
+	private long oldestPendingMillis;
+	private final Set<Integer> written = new HashSet<>();
+	private long writtenSinceMillis;
+
+	/**
+	 * @param maxPending the number of distinct boards to hold before a flush is due
+	 * @param flushIntervalMillis how long increments can be held before a flush is due and how often a board item is written. 0 means a
+	 *        flush is always due.
+	 */
+	public SeenCounterAggregator(final int maxPending, final long flushIntervalMillis) {
+		this.maxPending = maxPending;
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	/**
+	 * Records sightings of the board.
+	 * @param boardHashCode the hash code of the board
+	 * @param count the number of sightings
+	 * @param now the current time in milliseconds
+	 * @return <code>true</code> if these are the first sightings in the flush interval, i.e. the board itself should be written with
+	 *         <code>count</code> added to its counter. They aren't held.
+	 */
+	public synchronized boolean increment(final int boardHashCode, final int count, final long now) {
+		if (now - this.writtenSinceMillis >= this.flushIntervalMillis
+				|| (this.written.size() >= this.maxPending && !this.written.contains(boardHashCode))) {
+			this.written.clear();
+			this.writtenSinceMillis = now;
+		}
+		if (this.written.add(boardHashCode)) {
+			return true;
+		}
+		if (this.pending.isEmpty()) {
+			this.oldestPendingMillis = now;
+		}
+		this.pending.merge(boardHashCode, count, Integer::sum);
+		return false;
+	}
+
+	/**
+	 * @param now the current time in milliseconds
+	 * @return <code>true</code> if the pending increments should be flushed
+	 */
+	public synchronized boolean isFlushDue(final long now) {
+		return !this.pending.isEmpty()
+				&& (this.pending.size() >= this.maxPending || now - this.oldestPendingMillis >= this.flushIntervalMillis);
+	}
+
+	/**
+	 * Removes and returns all pending increments. Boards written in this flush interval aren't written again when next seen.
+	 * @return map of board hash code to the number of sightings since the last flush. Could be empty.
+	 */
+	public synchronized Map<Integer, Integer> drain() {
+		final Map<Integer, Integer> result = this.pending;
+		this.pending = new HashMap<>();
+		return result;
+	}
+
+	/**
+	 * @param boardHashCode the hash code of the board
+	 * @return the number of sightings not yet flushed
+	 */
+	public synchronized int getPending(final int boardHashCode) {
+		return this.pending.getOrDefault(boardHashCode, 0);
+	}
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Level;
@@ -19,23 +21,58 @@ import com.fasterxml.jackson.core.JsonParser;
 import connect4.api.aws.xray.AWSXRay;
 import connect4.api.json.GetRandomBoardRequest;
 import connect4.api.json.JsonStreamingObjectFactory;
+import connect4.api.json.StoreBoardBatchRequest;
 import connect4.api.json.StoreBoardRequest;
 import connect4.api.json.WarmRequest;
+import connect4.store.AsyncBoardStore;
+import connect4.store.BoardBatch;
+import connect4.store.BoardStore;
+import connect4.store.dynamodb.DynamoDbAsyncStore;
 import connect4.store.dynamodb.DynamoDbStore;
 
 /**
- * Receives {@link StoreBoardRequest} (JSON) and saves them to DynamoDB.
+ * <p>
+ * Receives {@link StoreBoardRequest} (JSON) and saves them to a {@link BoardStore} (DynamoDB by default).
+ * </p>
+ * <p>
+ * A {@link StoreBoardBatchRequest} is streamed into a {@link BoardBatch} which normalises and merges duplicate boards, then the distinct
+ * boards are written together. By default batches are written concurrently through {@link DynamoDbAsyncStore}. The response has a
+ * "results" array with the status of each board in the order they were sent.
+ * </p>
  */
 public class AwsLambdaStoreHandler implements RequestStreamHandler {
 
 	private static final String ENV_DEBUG_ENABLED = "DEBUG_ENABLED";
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	private final BoardStore store;
+	private final AsyncBoardStore asyncStore;
+
 	public AwsLambdaStoreHandler() {
+		this(null);
+	}
+
+	/**
+	 * @param store the {@link BoardStore} to use or <code>null</code> to lazily use {@link DynamoDbStore} (and
+	 *        {@link DynamoDbAsyncStore} for batches)
+	 */
+	public AwsLambdaStoreHandler(final BoardStore store) {
+		this(store, null);
+	}
+
+	/**
+	 * @param store the {@link BoardStore} to use or <code>null</code> to lazily use {@link DynamoDbStore}
+	 * @param asyncStore the {@link AsyncBoardStore} to write batches with. If <code>null</code>, batches are written with
+	 *        {@link BoardStore#createOrUpdateAll(Collection)} unless <code>store</code> is also <code>null</code> in which case
+	 *        {@link DynamoDbAsyncStore} is lazily used.
+	 */
+	public AwsLambdaStoreHandler(final BoardStore store, final AsyncBoardStore asyncStore) {
 		final boolean isDebugEnabled = Boolean.valueOf(System.getenv(ENV_DEBUG_ENABLED));
 		if (isDebugEnabled) {
 			Configurator.setRootLevel(Level.DEBUG);
 		}
+		this.store = store;
+		this.asyncStore = asyncStore;
 	}
 
 	@Override
@@ -43,7 +80,8 @@ public class AwsLambdaStoreHandler implements RequestStreamHandler {
 		final JsonStreamingObjectFactory factory = JsonStreamingObjectFactory.getInstance();
 		final JsonGenerator g = factory.getGenerator(output);
 		final JsonParser jp = factory.getParser(input);
-		final Serializable request = factory.deserializeAbstractBoardRequest(jp);
+		final BoardBatch batch = new BoardBatch();
+		final Serializable request = factory.deserializeAbstractBoardRequest(jp, batch);
 		g.writeStartObject();
 		if (request instanceof StoreBoardRequest) {
 			final StoreBoardRequest boardRequest = (StoreBoardRequest) request;
@@ -54,7 +92,20 @@ public class AwsLambdaStoreHandler implements RequestStreamHandler {
 						boardRequest.getBoard(), boardAnalysisString, boardRequest.getCurrentPlayer()));
 			}
 			handle(boardRequest);
+			getStore().flush();
+			g.writeStringField("status", "received");
+		} else if (request instanceof StoreBoardBatchRequest) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Handling batch store request of " + batch.size() + " boards, " + batch.getBoards().size() + " distinct");
+			}
+			final List<String> statuses = handle(batch);
+			flushBatch();
 			g.writeStringField("status", "received");
+			g.writeArrayFieldStart("results");
+			for (final String status : statuses) {
+				g.writeString(status);
+			}
+			g.writeEndArray();
 		} else if (request instanceof GetRandomBoardRequest) {
 			LOGGER.debug("Handling get random board request");
 			final StoreBoardRequest randomBoard = getRandomBoard();
@@ -63,6 +114,11 @@ public class AwsLambdaStoreHandler implements RequestStreamHandler {
 		} else if (request instanceof WarmRequest) {
 			final long start = System.currentTimeMillis();
 			getRandomBoard();
+			getStore().flush();
+			final AsyncBoardStore batchStore = getAsyncStore();
+			if (batchStore != null) {
+				batchStore.flush().join();
+			}
 			LOGGER.debug("Warm up completed in " + (System.currentTimeMillis() - start) + " ms.");
 		}
 		g.writeEndObject();
@@ -73,13 +129,61 @@ public class AwsLambdaStoreHandler implements RequestStreamHandler {
 
 	public void handle(final StoreBoardRequest request) {
 		AWSXRay.createSubsegment("store", (subsegment) -> {
-			DynamoDbStore.getInstance().createOrUpdate(request);
+			getStore().createOrUpdate(request);
 		});
 	}
 
+	/**
+	 * Stores the distinct boards of the batch.
+	 * @param batch the {@link BoardBatch}
+	 * @return the status of each board in the batch, see {@link BoardBatch#getStatuses(Collection)}
+	 */
+	public List<String> handle(final BoardBatch batch) {
+		return AWSXRay.createSubsegment("storebatch", (subsegment) -> {
+			final AsyncBoardStore batchStore = getAsyncStore();
+			final Collection<Integer> failed;
+			if (batchStore == null) {
+				failed = getStore().createOrUpdateAll(batch.getBoards()).keySet();
+			} else {
+				failed = batchStore.createOrUpdateAll(batch.getBoards()).join().keySet();
+			}
+			if (!failed.isEmpty()) {
+				LOGGER.warn("Could not store " + failed.size() + " of the " + batch.getBoards().size() + " boards in the batch");
+			}
+			return batch.getStatuses(failed);
+		});
+	}
+
+	/**
+	 * Writes the counters aggregated by the store that writes batches. Stores are flushed at the end of each invocation since a quiet
+	 * container can be shut down before its next one, losing anything still pending.
+	 */
+	private void flushBatch() {
+		final AsyncBoardStore batchStore = getAsyncStore();
+		if (batchStore == null) {
+			getStore().flush();
+		} else {
+			batchStore.flush().join();
+		}
+	}
+
 	public StoreBoardRequest getRandomBoard() {
 		return AWSXRay.createSubsegment("getrandom", (subsegment) -> {
-			return DynamoDbStore.getInstance().getRandom();
+			return getStore().getRandom();
 		});
 	}
+
+	private BoardStore getStore() {
+		return this.store == null ? DynamoDbStore.getInstance() : this.store;
+	}
+
+	/**
+	 * @return the store to write batches with or <code>null</code> to use {@link #getStore()}
+	 */
+	private AsyncBoardStore getAsyncStore() {
+		if (this.asyncStore == null && this.store == null) {
+			return DynamoDbAsyncStore.getInstance();
+		}
+		return this.asyncStore;
+	}
 }
@@ -0,0 +1,226 @@
+package connect4.store.local;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import connect4.api.Disc;
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.BoardStore;
+
+/**
+ * <p>
+ * Embedded {@link BoardStore} which keeps boards in a memory-mapped, append-only log file on local disk. This is intended for local
+ * testing and benchmarking where DynamoDB would throttle (or isn't available).
+ * </p>
+ * <p>
+ * Implementation details:
+ * <ul>
+ * <li>each record is <code>int payloadLength, int boardHash, int seenCount</code> followed by the {@link StoreBoardRequest} encoded by
+ * {@link BinaryObjectFactory}. A zero payload length marks the end of the log
+ * <li>updates append a new record rather than overwriting, so the latest record for a board wins
+ * <li>the index (board hash code to offset of the latest record) is held in memory and rebuilt by replaying the log on open
+ * </ul>
+ * </p>
+ * <p>
+ * Limitations:
+ * <ul>
+ * <li>the log is a single mapping so is limited to 2GB
+ * <li>superseded records are never compacted
+ * </ul>
+ * </p>
+ */
+public class LocalBoardStore implements BoardStore, Closeable {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int RECORD_HEADER_SIZE = 12;
+	private static final int INITIAL_SIZE = 1 << 20;
+
+	private final BinaryObjectFactory factory = BinaryObjectFactory.getInstance();
+	private final Random random = new Random();
+	private final FileChannel channel;
+	private final Map<Integer, Integer> index = new HashMap<>();
+	private final List<Integer> boardHashCodes = new ArrayList<>();
+	private MappedByteBuffer buffer;
+	private int writePosition;
+
+	/**
+	 * Opens (or creates) the store.
+	 * @param file the log file
+	 * @throws IOException if the file can't be opened or mapped
+	 */
+	public LocalBoardStore(final File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		map(Math.max(INITIAL_SIZE, this.channel.size()));
+		replay();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Opened local board store '" + file.getAbsolutePath() + "' containing " + this.boardHashCodes.size() + " boards");
+		}
+	}
+
+	private void map(final long size) throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("The local board store is full. It's limited to " + Integer.MAX_VALUE + " bytes.");
+		}
+		this.buffer = this.channel.map(MapMode.READ_WRITE, 0, size);
+	}
+
+	private void replay() {
+		int position = 0;
+		while (position + RECORD_HEADER_SIZE <= this.buffer.capacity()) {
+			final int length = this.buffer.getInt(position);
+			if (length == 0) {
+				break;
+			}
+			if (length < 0 || position + RECORD_HEADER_SIZE + length > this.buffer.capacity()) {
+				LOGGER.warn("Local board store is truncated at offset " + position + ". Ignoring the rest of the log.");
+				break;
+			}
+			index(this.buffer.getInt(position + 4), position);
+			position += RECORD_HEADER_SIZE + length;
+		}
+		this.writePosition = position;
+	}
+
+	private void index(final int boardHashCode, final int position) {
+		if (this.index.put(boardHashCode, position) == null) {
+			this.boardHashCodes.add(boardHashCode);
+		}
+	}
+
+	@Override
+	public void createOrUpdate(final StoreBoardRequest request) {
+		if (!Disc.YELLOW.equals(request.getCurrentPlayer())) {
+			throw new IllegalArgumentException("The current player is expected to be YELLOW but was " + request.getCurrentPlayer());
+		}
+		final int boardHashCode = request.getBoard().hashCode();
+		final int length = this.factory.getSerializedSize(request);
+		synchronized (this) {
+			ensureCapacity(RECORD_HEADER_SIZE + length);
+			final Integer previous = this.index.get(boardHashCode);
+			final int seenCount = (previous == null ? 0 : this.buffer.getInt(previous + 8)) + Math.max(1, request.getSeenCount());
+
+			final ByteBuffer record = this.buffer.duplicate();
+			record.position(this.writePosition + 4);
+			record.putInt(boardHashCode);
+			record.putInt(seenCount);
+			this.factory.serialize(record, request);
+			this.buffer.putInt(this.writePosition, length); // write the length last so a torn record looks like the end of the log
+
+			index(boardHashCode, this.writePosition);
+			this.writePosition += RECORD_HEADER_SIZE + length;
+		}
+	}
+
+	private void ensureCapacity(final int length) {
+		// Keep room for the zero length marking the end of the log
+		final long required = (long) this.writePosition + length + 4;
+		if (required <= this.buffer.capacity()) {
+			return;
+		}
+		long newSize = this.buffer.capacity();
+		while (newSize < required) {
+			newSize *= 2;
+		}
+		try {
+			map(Math.min(newSize, Integer.MAX_VALUE));
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not grow the local board store", e);
+		}
+		if (required > this.buffer.capacity()) {
+			throw new RuntimeException("The local board store is full");
+		}
+	}
+
+	@Override
+	public StoreBoardRequest get(final int boardHashCode) {
+		final ByteBuffer record;
+		synchronized (this) {
+			final Integer position = this.index.get(boardHashCode);
+			if (position == null) {
+				return null;
+			}
+			record = this.buffer.duplicate();
+			record.position(position);
+		}
+		return read(record);
+	}
+
+	@Override
+	public synchronized int getSeenCount(final int boardHashCode) {
+		final Integer position = this.index.get(boardHashCode);
+		return position == null ? 0 : this.buffer.getInt(position + 8);
+	}
+
+	@Override
+	public StoreBoardRequest getRandom() {
+		final int boardHashCode;
+		synchronized (this) {
+			if (this.boardHashCodes.isEmpty()) {
+				LOGGER.debug("No boards found, store must be empty");
+				return null;
+			}
+			boardHashCode = this.boardHashCodes.get(this.random.nextInt(this.boardHashCodes.size()));
+		}
+		return get(boardHashCode);
+	}
+
+	/**
+	 * Visits the latest record of every board. Older mappings stay valid as the file only grows so decoding happens without holding the
+	 * lock.
+	 */
+	@Override
+	public void scan(final Consumer<StoreBoardRequest> consumer) {
+		final ByteBuffer record;
+		final int[] positions;
+		synchronized (this) {
+			record = this.buffer.duplicate();
+			positions = new int[this.boardHashCodes.size()];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = this.index.get(this.boardHashCodes.get(i));
+			}
+		}
+		for (final int position : positions) {
+			record.position(position);
+			consumer.accept(read(record));
+		}
+	}
+
+	private StoreBoardRequest read(final ByteBuffer record) {
+		final int position = record.position();
+		record.position(position + RECORD_HEADER_SIZE);
+		try {
+			return this.factory.deserializeStoreRequest(record);
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not deserialise board at offset " + position + " of the local board store", e);
+		}
+	}
+
+	/**
+	 * @return the number of distinct boards in the store
+	 */
+	public synchronized int size() {
+		return this.boardHashCodes.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.buffer.force();
+		this.channel.close();
+	}
+}
@@ -0,0 +1,193 @@
+package connect4.store.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.BoardBatch;
+import connect4.store.BoardStore;
+import connect4.store.dynamodb.DynamoDbStore;
+import connect4.store.local.LocalBoardStore;
+
+/**
+ * <p>
+ * Reads the segments written by {@link BoardLogWriter} and bulk-loads them into a {@link BoardStore}. Boards are merged in batches (see
+ * {@link BoardBatch}) so a popular board is written once per batch with its combined "seen" count rather than once per sighting.
+ * </p>
+ * <p>
+ * Reading a segment stops at the first record which fails its CRC check. That's expected at the end of the last segment after a crash.
+ * Only replay segments which are no longer being written, i.e. the writer has been closed.
+ * </p>
+ */
+public class BoardLogReplayer {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_BATCH_SIZE = 100;
+
+	private final BinaryObjectFactory factory = BinaryObjectFactory.getInstance();
+	private final File directory;
+
+	/**
+	 * @param directory the directory holding the segments
+	 */
+	public BoardLogReplayer(final File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Streams every record of every segment to the consumer in the order they were written.
+	 * @param consumer receives each {@link StoreBoardRequest}
+	 * @return the number of records read
+	 * @throws IOException if a segment can't be read
+	 */
+	public long read(final Consumer<StoreBoardRequest> consumer) throws IOException {
+		long count = 0;
+		for (final File segment : BoardLogWriter.listSegments(this.directory)) {
+			count += readSegment(segment, consumer);
+		}
+		return count;
+	}
+
+	/**
+	 * Loads every record into the store.
+	 * @param store the {@link BoardStore} to load the boards into
+	 * @param batchSize how many records to merge before writing to the store
+	 * @param deleteReplayed <code>true</code> to delete each segment once it's been loaded
+	 * @return the number of records loaded (including duplicates)
+	 * @throws IOException if a segment can't be read
+	 */
+	public long replay(final BoardStore store, final int batchSize, final boolean deleteReplayed) throws IOException {
+		long count = 0;
+		long failed = 0;
+		for (final File segment : BoardLogWriter.listSegments(this.directory)) {
+			final Loader loader = new Loader(store, batchSize);
+			count += readSegment(segment, loader);
+			final long segmentFailed = loader.finish();
+			failed += segmentFailed;
+			if (segmentFailed > 0) {
+				LOGGER.warn("Could not store " + segmentFailed + " boards from '" + segment.getName() + "'. Keeping the segment.");
+			} else if (deleteReplayed && !segment.delete()) {
+				LOGGER.warn("Could not delete replayed segment '" + segment.getAbsolutePath() + "'");
+			}
+		}
+		if (failed > 0) {
+			throw new IOException("Could not store " + failed + " boards. Segments containing them were kept.");
+		}
+		return count;
+	}
+
+	/**
+	 * Merges records into batches and writes each batch to the store when it's full.
+	 */
+	private static class Loader implements Consumer<StoreBoardRequest> {
+
+		private final BoardStore store;
+		private final int batchSize;
+		private BoardBatch batch = new BoardBatch();
+		private long failed;
+
+		private Loader(final BoardStore store, final int batchSize) {
+			this.store = store;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public void accept(final StoreBoardRequest request) {
+			this.batch.accept(request);
+			if (this.batch.size() >= this.batchSize) {
+				write();
+			}
+		}
+
+		private void write() {
+			this.failed += this.store.createOrUpdateAll(this.batch.getBoards()).size();
+			this.batch = new BoardBatch();
+		}
+
+		/**
+		 * Writes the last batch and anything the store has buffered.
+		 * @return the number of distinct boards which could not be stored
+		 */
+		private long finish() {
+			write();
+			this.store.flush();
+			return this.failed;
+		}
+	}
+
+	private long readSegment(final File segment, final Consumer<StoreBoardRequest> consumer) throws IOException {
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size()); // the mapping stays valid after the channel is closed
+		}
+		final CRC32 crc = new CRC32();
+		long count = 0;
+		int position = 0;
+		while (position + BoardLogWriter.RECORD_HEADER_SIZE <= buffer.capacity()) {
+			final int bodyLength = buffer.getInt(position);
+			if (bodyLength == 0) {
+				break;
+			}
+			final int bodyPosition = position + BoardLogWriter.RECORD_HEADER_SIZE;
+			if (bodyLength < 4 || bodyPosition + bodyLength > buffer.capacity()) {
+				LOGGER.warn("Board log segment '" + segment.getName() + "' is truncated at offset " + position + ". Ignoring the rest.");
+				break;
+			}
+			final ByteBuffer body = buffer.duplicate();
+			body.limit(bodyPosition + bodyLength).position(bodyPosition);
+			crc.reset();
+			crc.update(body);
+			if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+				LOGGER.warn("Board log segment '" + segment.getName() + "' has a corrupt record at offset " + position
+						+ ". Ignoring the rest.");
+				break;
+			}
+			body.position(bodyPosition);
+			final int seenCount = body.getInt();
+			final StoreBoardRequest request = this.factory.deserializeStoreRequest(body);
+			request.setSeenCount(seenCount);
+			consumer.accept(request);
+			count++;
+			position = bodyPosition + bodyLength;
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Read " + count + " boards from board log segment '" + segment.getName() + "'");
+		}
+		return count;
+	}
+
+	/**
+	 * Usage: <code>BoardLogReplayer &lt;directory&gt; [local store file] [--delete]</code>. Without a local store file the boards are
+	 * loaded into DynamoDB.
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BoardLogReplayer <directory> [local store file] [--delete]");
+			System.exit(1);
+		}
+		final boolean delete = "--delete".equals(args[args.length - 1]);
+		final int argCount = delete ? args.length - 1 : args.length;
+		final BoardLogReplayer replayer = new BoardLogReplayer(new File(args[0]));
+		final long start = System.currentTimeMillis();
+		final long count;
+		if (argCount > 1) {
+			try (LocalBoardStore store = new LocalBoardStore(new File(args[1]))) {
+				count = replayer.replay(store, DEFAULT_BATCH_SIZE, delete);
+			}
+		} else {
+			count = replayer.replay(DynamoDbStore.getInstance(), DEFAULT_BATCH_SIZE, delete);
+		}
+		System.out.println("Replayed " + count + " boards from '" + args[0] + "' in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
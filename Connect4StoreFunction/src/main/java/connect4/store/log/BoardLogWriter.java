@@ -0,0 +1,195 @@
+package connect4.store.log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Appends boards to a durable log on local disk so they can be loaded into a store later by {@link BoardLogReplayer}. Appending is a
+ * memory copy, nothing waits on the network.
+ * </p>
+ * <p>
+ * Implementation details:
+ * <ul>
+ * <li>the log is a directory of segment files named <code>boards-&lt;sequence&gt;.log</code>. Each segment is memory-mapped at its full
+ * size ({@value #DEFAULT_SEGMENT_SIZE} bytes by default) and a new segment is started when a record doesn't fit. Opening a writer always
+ * starts a new segment so existing segments are never written to again
+ * <li>each record is <code>int bodyLength, int crc32</code> followed by the body: <code>int seenCount</code> and the
+ * {@link StoreBoardRequest} encoded by {@link BinaryObjectFactory}. The CRC covers the body. A zero length marks the end of a segment
+ * <li>the mapping is forced to disk every {@value #DEFAULT_SYNC_RECORDS} records (override with {@value #ENV_SYNC_RECORDS}), when the
+ * last sync was more than {@value #DEFAULT_SYNC_MS} ms ago (override with {@value #ENV_SYNC_MS}), on {@link #sync()} and when a segment
+ * is finished. A crash can lose the records since the last sync and leave a torn record which the replayer detects with the CRC
+ * </ul>
+ * </p>
+ */
+public class BoardLogWriter implements Closeable {
+
+	public static final String ENV_SEGMENT_SIZE = "BOARD_LOG_SEGMENT_SIZE";
+	public static final String ENV_SYNC_RECORDS = "BOARD_LOG_SYNC_RECORDS";
+	public static final String ENV_SYNC_MS = "BOARD_LOG_SYNC_MS";
+
+	static final int RECORD_HEADER_SIZE = 8;
+	static final String SEGMENT_PREFIX = "boards-";
+	static final String SEGMENT_SUFFIX = ".log";
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+	private static final int DEFAULT_SYNC_RECORDS = 1000;
+	private static final int DEFAULT_SYNC_MS = 1000;
+
+	private final BinaryObjectFactory factory = BinaryObjectFactory.getInstance();
+	private final CRC32 crc = new CRC32();
+	private final File directory;
+	private final int segmentSize;
+	private final int syncRecords;
+	private final long syncMillis;
+	private long sequence;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private int unsyncedRecords;
+	private long lastSyncMillis;
+
+	/**
+	 * Opens a writer configured from the environment.
+	 * @param directory the directory holding the segments. Created if it doesn't exist.
+	 * @throws IOException if the first segment can't be created
+	 */
+	public BoardLogWriter(final File directory) throws IOException {
+		this(directory, NumberUtils.toInt(System.getenv(ENV_SEGMENT_SIZE), DEFAULT_SEGMENT_SIZE),
+				NumberUtils.toInt(System.getenv(ENV_SYNC_RECORDS), DEFAULT_SYNC_RECORDS),
+				NumberUtils.toInt(System.getenv(ENV_SYNC_MS), DEFAULT_SYNC_MS));
+	}
+
+	/**
+	 * @param directory the directory holding the segments. Created if it doesn't exist.
+	 * @param segmentSize the size of each segment file in bytes
+	 * @param syncRecords force the log to disk after this many records
+	 * @param syncMillis force the log to disk when a record is appended this long after the last sync
+	 * @throws IOException if the first segment can't be created
+	 */
+	public BoardLogWriter(final File directory, final int segmentSize, final int syncRecords, final long syncMillis) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create board log directory '" + directory.getAbsolutePath() + "'");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.syncRecords = Math.max(1, syncRecords);
+		this.syncMillis = syncMillis;
+		final File[] existing = listSegments(directory);
+		this.sequence = existing.length == 0 ? 0 : getSequence(existing[existing.length - 1]) + 1;
+		openSegment();
+	}
+
+	/**
+	 * Appends a normalised board.
+	 * @param request the {@link StoreBoardRequest} to append
+	 */
+	public synchronized void append(final StoreBoardRequest request) {
+		final int bodyLength = 4 + this.factory.getSerializedSize(request);
+		// Keep room for the zero length marking the end of the segment
+		if (RECORD_HEADER_SIZE + bodyLength + 4 > this.segmentSize) {
+			throw new IllegalArgumentException(
+					"Board of " + bodyLength + " bytes is too big for a segment of " + this.segmentSize + " bytes");
+		}
+		if (this.segment.position() + RECORD_HEADER_SIZE + bodyLength + 4 > this.segmentSize) {
+			rollSegment();
+		}
+		final int position = this.segment.position();
+		final ByteBuffer body = this.segment.duplicate();
+		body.position(position + RECORD_HEADER_SIZE);
+		body.putInt(Math.max(1, request.getSeenCount()));
+		this.factory.serialize(body, request);
+
+		body.flip();
+		body.position(position + RECORD_HEADER_SIZE);
+		this.crc.reset();
+		this.crc.update(body);
+		this.segment.putInt(position + 4, (int) this.crc.getValue());
+		this.segment.putInt(position, bodyLength); // write the length last so a torn record looks like the end of the segment
+		this.segment.position(position + RECORD_HEADER_SIZE + bodyLength);
+
+		this.unsyncedRecords++;
+		final long now = System.currentTimeMillis();
+		if (this.unsyncedRecords >= this.syncRecords || now - this.lastSyncMillis >= this.syncMillis) {
+			sync();
+		}
+	}
+
+	/**
+	 * Forces everything appended to disk.
+	 */
+	public synchronized void sync() {
+		if (this.unsyncedRecords > 0) {
+			this.segment.force();
+			this.unsyncedRecords = 0;
+		}
+		this.lastSyncMillis = System.currentTimeMillis();
+	}
+
+	private void rollSegment() {
+		try {
+			closeSegment();
+			openSegment();
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not start a new board log segment in '" + this.directory.getAbsolutePath() + "'", e);
+		}
+	}
+
+	private void openSegment() throws IOException {
+		final File file = new File(this.directory, String.format("%s%020d%s", SEGMENT_PREFIX, this.sequence++, SEGMENT_SUFFIX));
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.segment = this.channel.map(MapMode.READ_WRITE, 0, this.segmentSize);
+		this.lastSyncMillis = System.currentTimeMillis();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Started board log segment '" + file.getAbsolutePath() + "'");
+		}
+	}
+
+	private void closeSegment() throws IOException {
+		this.unsyncedRecords++; // always force when finishing a segment
+		sync();
+		this.channel.close();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		closeSegment();
+	}
+
+	/**
+	 * @param directory the log directory
+	 * @return the segment files in the order they were written
+	 */
+	static File[] listSegments(final File directory) {
+		final File[] segments = directory
+				.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && getSequence(name) >= 0);
+		if (segments == null) {
+			return new File[0];
+		}
+		Arrays.sort(segments, (a, b) -> Long.compare(getSequence(a), getSequence(b)));
+		return segments;
+	}
+
+	private static long getSequence(final File segment) {
+		return getSequence(segment.getName());
+	}
+
+	private static long getSequence(final String name) {
+		return NumberUtils.toLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), -1);
+	}
+}
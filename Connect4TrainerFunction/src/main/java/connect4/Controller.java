@@ -8,7 +8,8 @@ import connect4.api.Move;
 import connect4.player.Player;
 
 /**
- * Controls players, rules, and game state for playing via the command-line.
+ * Controls players, rules, and game state for playing via the command-line. See {@link Tournament} to play engines against each other
+ * without a console.
  */
 public class Controller {
 
@@ -0,0 +1,729 @@
+package connect4;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.Histogram;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.api.Move;
+import connect4.player.Player;
+import connect4.player.RandomComputerPlayer;
+import connect4.player.TrainedComputerPlayer;
+import connect4.rest.WebJsonStreamingObjectFactory;
+import connect4.trainer.Recommender;
+import connect4.trainer.Trainer;
+
+/**
+ * <p>
+ * Plays engines against each other without a console (unlike {@link Controller}), to check an engine change for strength and speed at
+ * the same time. Usage: <code>Tournament &lt;entrant&gt; &lt;entrant&gt;... [--standings &lt;file&gt;] [--games &lt;file&gt;]</code>
+ * where an entrant is <code>trainer</code> ({@link Trainer}), <code>random</code> ({@link RandomComputerPlayer}) or the class name of a
+ * {@link Recommender} (with a no argument constructor) or a {@link Player} (with a name and disc constructor).
+ * </p>
+ * <p>
+ * Every pair of entrants plays {@value #ENV_TOURNAMENT_GAMES} games (default: 100, rounded up to even) on a 7x6 board. They're played
+ * in pairs which start from the same random opening of {@value #ENV_TOURNAMENT_OPENING_MOVES} moves (default: 4) with the colours
+ * swapped, so neither the opening nor going first favours an entrant. The openings come from {@value #ENV_TOURNAMENT_SEED} (default:
+ * random) so a tournament can be replayed with the same openings. Games are played at once on {@value #ENV_TOURNAMENT_THREADS} threads
+ * (default: the number of processors), each with new players so engines needn't be thread safe.
+ * </p>
+ * <p>
+ * A player loses if it plays an illegal move or throws an exception. The standings have each entrant's wins, draws, losses, Elo and how
+ * long it took to move. They and every game can be written to a file, as JSON if its name ends with <code>.json</code>, otherwise CSV.
+ * </p>
+ */
+public class Tournament {
+
+	public static final String ENV_TOURNAMENT_GAMES = "TOURNAMENT_GAMES";
+	public static final String ENV_TOURNAMENT_OPENING_MOVES = "TOURNAMENT_OPENING_MOVES";
+	public static final String ENV_TOURNAMENT_THREADS = "TOURNAMENT_THREADS";
+	public static final String ENV_TOURNAMENT_SEED = "TOURNAMENT_SEED";
+
+	private static final int DEFAULT_GAMES = 100;
+	private static final int DEFAULT_OPENING_MOVES = 4;
+	private static final int HISTOGRAM_DIGITS = 3;
+
+	/**
+	 * The average rating. Ratings only mean something relative to the other entrants in the same tournament.
+	 */
+	static final double MEAN_ELO = 1500;
+	private static final int ELO_ITERATIONS = 1000;
+
+	/**
+	 * Makes the players of an {@link Entrant}, a new one for each game.
+	 */
+	public interface PlayerFactory {
+
+		Player create(String name, Disc disc);
+	}
+
+	/**
+	 * An engine in the tournament.
+	 */
+	public static class Entrant {
+
+		private final String name;
+		private final PlayerFactory factory;
+
+		public Entrant(final String name, final PlayerFactory factory) {
+			this.name = name;
+			this.factory = factory;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		Player createPlayer(final Disc disc) {
+			return this.factory.create(this.name, disc);
+		}
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
+	}
+
+	/**
+	 * How a game ended.
+	 */
+	public enum Ending {
+		FOUR_IN_A_ROW, FULL_BOARD, ILLEGAL_MOVE, EXCEPTION
+	}
+
+	/**
+	 * A game which has been played.
+	 */
+	public static class Game {
+
+		private final int number;
+		private final Entrant red;
+		private final Entrant yellow;
+		private final int[] opening;
+		private final Histogram redLatency = new Histogram(HISTOGRAM_DIGITS);
+		private final Histogram yellowLatency = new Histogram(HISTOGRAM_DIGITS);
+		private Disc winner;
+		private Ending ending;
+		private String error;
+
+		Game(final int number, final Entrant red, final Entrant yellow, final int[] opening) {
+			this.number = number;
+			this.red = red;
+			this.yellow = yellow;
+			this.opening = opening;
+		}
+
+		private Game end(final Disc winner, final Ending ending, final String error) {
+			this.winner = winner;
+			this.ending = ending;
+			this.error = error;
+			return this;
+		}
+
+		public int getNumber() {
+			return this.number;
+		}
+
+		public Entrant getEntrant(final Disc disc) {
+			return disc == Disc.RED ? this.red : this.yellow;
+		}
+
+		/**
+		 * @return the columns (0-based) of the random moves the game started with
+		 */
+		public int[] getOpening() {
+			return this.opening;
+		}
+
+		/**
+		 * @return the winner or <code>null</code> if it's a draw
+		 */
+		public Disc getWinner() {
+			return this.winner;
+		}
+
+		public Ending getEnding() {
+			return this.ending;
+		}
+
+		/**
+		 * @return the illegal move or exception which lost the game, otherwise <code>null</code>
+		 */
+		public String getError() {
+			return this.error;
+		}
+
+		/**
+		 * @param disc the player
+		 * @return how long in microseconds each of the player's moves took
+		 */
+		public Histogram getLatency(final Disc disc) {
+			return disc == Disc.RED ? this.redLatency : this.yellowLatency;
+		}
+
+		/**
+		 * @return the number of moves the players made, not counting the opening
+		 */
+		public long getMoves() {
+			return this.redLatency.getTotalCount() + this.yellowLatency.getTotalCount();
+		}
+	}
+
+	/**
+	 * An entrant's results.
+	 */
+	public static class Standing {
+
+		private final Entrant entrant;
+		private final Histogram latency = new Histogram(HISTOGRAM_DIGITS);
+		private int wins;
+		private int draws;
+		private int losses;
+		private int illegalMoves;
+		private int exceptions;
+		private double elo = MEAN_ELO;
+
+		Standing(final Entrant entrant) {
+			this.entrant = entrant;
+		}
+
+		private void add(final Game game, final Disc disc) {
+			this.latency.add(game.getLatency(disc));
+			if (game.getWinner() == null) {
+				this.draws++;
+			} else if (game.getWinner() == disc) {
+				this.wins++;
+			} else {
+				this.losses++;
+				if (game.getEnding() == Ending.ILLEGAL_MOVE) {
+					this.illegalMoves++;
+				} else if (game.getEnding() == Ending.EXCEPTION) {
+					this.exceptions++;
+				}
+			}
+		}
+
+		public Entrant getEntrant() {
+			return this.entrant;
+		}
+
+		public int getGames() {
+			return this.wins + this.draws + this.losses;
+		}
+
+		public int getWins() {
+			return this.wins;
+		}
+
+		public int getDraws() {
+			return this.draws;
+		}
+
+		/**
+		 * @return the games lost, including those lost by an illegal move or exception
+		 */
+		public int getLosses() {
+			return this.losses;
+		}
+
+		public int getIllegalMoves() {
+			return this.illegalMoves;
+		}
+
+		public int getExceptions() {
+			return this.exceptions;
+		}
+
+		/**
+		 * @return the points per game, one for a win and a half for a draw
+		 */
+		public double getScore() {
+			return getGames() == 0 ? 0 : (this.wins + this.draws / 2.0) / getGames();
+		}
+
+		public double getElo() {
+			return this.elo;
+		}
+
+		/**
+		 * @return how long in microseconds each of the entrant's moves took
+		 */
+		public Histogram getLatency() {
+			return this.latency;
+		}
+	}
+
+	/**
+	 * The games and standings.
+	 */
+	public static class Report {
+
+		private final List<Game> games;
+		private final List<Standing> standings;
+		private final long elapsedNanos;
+
+		Report(final List<Entrant> entrants, final List<Game> games, final long elapsedNanos) {
+			this.games = games;
+			this.elapsedNanos = elapsedNanos;
+			final Map<Entrant, Integer> indexes = new HashMap<>();
+			final List<Standing> standings = new ArrayList<>(entrants.size());
+			for (final Entrant entrant : entrants) {
+				indexes.put(entrant, Integer.valueOf(standings.size()));
+				standings.add(new Standing(entrant));
+			}
+			final double[][] points = new double[entrants.size()][entrants.size()];
+			final int[][] played = new int[entrants.size()][entrants.size()];
+			for (final Game game : games) {
+				final int red = indexes.get(game.getEntrant(Disc.RED)).intValue();
+				final int yellow = indexes.get(game.getEntrant(Disc.YELLOW)).intValue();
+				standings.get(red).add(game, Disc.RED);
+				standings.get(yellow).add(game, Disc.YELLOW);
+				points[red][yellow] += game.getWinner() == null ? 0.5 : game.getWinner() == Disc.RED ? 1 : 0;
+				points[yellow][red] += game.getWinner() == null ? 0.5 : game.getWinner() == Disc.YELLOW ? 1 : 0;
+				played[red][yellow]++;
+				played[yellow][red]++;
+			}
+			final double[] elos = fitElo(points, played);
+			for (int i = 0; i < elos.length; i++) {
+				standings.get(i).elo = elos[i];
+			}
+			standings.sort(Comparator.comparingDouble(Standing::getElo).reversed());
+			this.standings = Collections.unmodifiableList(standings);
+		}
+
+		public List<Game> getGames() {
+			return this.games;
+		}
+
+		/**
+		 * @return the entrants' results, the highest rated first
+		 */
+		public List<Standing> getStandings() {
+			return this.standings;
+		}
+
+		public double getGamesPerSecond() {
+			return this.games.size() * 1e9 / this.elapsedNanos;
+		}
+
+		public double getMovesPerSecond() {
+			return this.games.stream().mapToLong(Game::getMoves).sum() * 1e9 / this.elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder(String.format("%-20s %7s %6s %6s %6s %6s %7s %6s %6s %9s %9s %9s %9s%n", "Entrant",
+					"Elo", "Games", "Wins", "Draws", "Losses", "Illegal", "Errors", "Score", "Moves", "p50 ms", "p99 ms", "max ms"));
+			for (final Standing standing : this.standings) {
+				final Histogram latency = standing.getLatency();
+				sb.append(String.format("%-20s %7.0f %6d %6d %6d %6d %7d %6d %6.3f %9d %9.3f %9.3f %9.3f%n", standing.getEntrant(),
+						standing.getElo(), standing.getGames(), standing.getWins(), standing.getDraws(), standing.getLosses(),
+						standing.getIllegalMoves(), standing.getExceptions(), standing.getScore(), latency.getTotalCount(),
+						latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+						latency.getMaxValue() / 1000.0));
+			}
+			sb.append(String.format("%d games in %.1f s, %.1f games/s, %.0f moves/s%n", this.games.size(), this.elapsedNanos / 1e9,
+					getGamesPerSecond(), getMovesPerSecond()));
+			return sb.toString();
+		}
+
+		/**
+		 * Writes the standings, with the games and moves per second when it's JSON.
+		 * @param writer where to write them. It's not closed.
+		 * @param json <code>true</code> for JSON, <code>false</code> for CSV with a header row
+		 * @throws IOException if they couldn't be written
+		 */
+		public void writeStandings(final Writer writer, final boolean json) throws IOException {
+			if (!json) {
+				writer.write("entrant,elo,games,wins,draws,losses,illegal_moves,exceptions,score,moves,mean_us,p50_us,p99_us,max_us\n");
+				for (final Standing standing : this.standings) {
+					final Histogram latency = standing.getLatency();
+					writer.write(String.join(",", csv(standing.getEntrant().getName()), String.format("%.1f", standing.getElo()),
+							"" + standing.getGames(), "" + standing.getWins(), "" + standing.getDraws(), "" + standing.getLosses(),
+							"" + standing.getIllegalMoves(), "" + standing.getExceptions(), String.format("%.4f", standing.getScore()),
+							"" + latency.getTotalCount(), String.format("%.1f", latency.getMean()), "" + latency.getValueAtPercentile(50),
+							"" + latency.getValueAtPercentile(99), "" + latency.getMaxValue()));
+					writer.write('\n');
+				}
+				return;
+			}
+			final JsonGenerator g = WebJsonStreamingObjectFactory.getInstance().getGenerator(writer);
+			g.writeStartObject();
+			g.writeNumberField("games", this.games.size());
+			g.writeNumberField("elapsedMs", TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos));
+			g.writeNumberField("gamesPerSecond", getGamesPerSecond());
+			g.writeNumberField("movesPerSecond", getMovesPerSecond());
+			g.writeArrayFieldStart("standings");
+			for (final Standing standing : this.standings) {
+				final Histogram latency = standing.getLatency();
+				g.writeStartObject();
+				g.writeStringField("entrant", standing.getEntrant().getName());
+				g.writeNumberField("elo", standing.getElo());
+				g.writeNumberField("games", standing.getGames());
+				g.writeNumberField("wins", standing.getWins());
+				g.writeNumberField("draws", standing.getDraws());
+				g.writeNumberField("losses", standing.getLosses());
+				g.writeNumberField("illegalMoves", standing.getIllegalMoves());
+				g.writeNumberField("exceptions", standing.getExceptions());
+				g.writeNumberField("score", standing.getScore());
+				g.writeNumberField("moves", latency.getTotalCount());
+				g.writeNumberField("meanUs", latency.getMean());
+				g.writeNumberField("p50Us", latency.getValueAtPercentile(50));
+				g.writeNumberField("p99Us", latency.getValueAtPercentile(99));
+				g.writeNumberField("maxUs", latency.getMaxValue());
+				g.writeEndObject();
+			}
+			g.writeEndArray();
+			g.writeEndObject();
+			g.flush();
+		}
+
+		/**
+		 * Writes every game.
+		 * @param writer where to write them. It's not closed.
+		 * @param json <code>true</code> for a JSON array, <code>false</code> for CSV with a header row
+		 * @throws IOException if they couldn't be written
+		 */
+		public void writeGames(final Writer writer, final boolean json) throws IOException {
+			if (!json) {
+				writer.write("game,red,yellow,opening,winner,ending,moves,red_mean_us,yellow_mean_us,error\n");
+				for (final Game game : this.games) {
+					writer.write(String.join(",", "" + game.getNumber(), csv(game.getEntrant(Disc.RED).getName()),
+							csv(game.getEntrant(Disc.YELLOW).getName()),
+							Arrays.stream(game.getOpening()).mapToObj(Integer::toString).collect(Collectors.joining(" ")),
+							game.getWinner() == null ? "" : game.getWinner().name(), game.getEnding().name(), "" + game.getMoves(),
+							String.format("%.1f", game.getLatency(Disc.RED).getMean()),
+							String.format("%.1f", game.getLatency(Disc.YELLOW).getMean()), csv(game.getError())));
+					writer.write('\n');
+				}
+				return;
+			}
+			final JsonGenerator g = WebJsonStreamingObjectFactory.getInstance().getGenerator(writer);
+			g.writeStartArray();
+			for (final Game game : this.games) {
+				g.writeStartObject();
+				g.writeNumberField("game", game.getNumber());
+				g.writeStringField("red", game.getEntrant(Disc.RED).getName());
+				g.writeStringField("yellow", game.getEntrant(Disc.YELLOW).getName());
+				g.writeFieldName("opening");
+				g.writeArray(game.getOpening(), 0, game.getOpening().length);
+				if (game.getWinner() == null) {
+					g.writeNullField("winner");
+				} else {
+					g.writeStringField("winner", game.getWinner().name());
+				}
+				g.writeStringField("ending", game.getEnding().name());
+				g.writeNumberField("moves", game.getMoves());
+				g.writeNumberField("redMeanUs", game.getLatency(Disc.RED).getMean());
+				g.writeNumberField("yellowMeanUs", game.getLatency(Disc.YELLOW).getMean());
+				if (game.getError() != null) {
+					g.writeStringField("error", game.getError());
+				}
+				g.writeEndObject();
+			}
+			g.writeEndArray();
+			g.flush();
+		}
+
+		private static String csv(final String value) {
+			if (value == null) {
+				return "";
+			}
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+				return value;
+			}
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+	}
+
+	private final List<Entrant> entrants;
+	private final int gamesPerPairing;
+	private final int openingMoves;
+	private final long seed;
+
+	/**
+	 * @param entrants the engines, at least two
+	 * @param gamesPerPairing how many games each pair of entrants plays, rounded up to even
+	 * @param openingMoves how many random moves each game starts with
+	 * @param seed picks the openings
+	 */
+	public Tournament(final List<Entrant> entrants, final int gamesPerPairing, final int openingMoves, final long seed) {
+		if (entrants.size() < 2) {
+			throw new IllegalArgumentException("A tournament needs at least two entrants");
+		}
+		if (openingMoves < 0 || openingMoves > Main.DEFAULT_COLS * (Main.DEFAULT_ROWS - 1)) {
+			throw new IllegalArgumentException(
+					"The opening must be between 0 and " + Main.DEFAULT_COLS * (Main.DEFAULT_ROWS - 1) + " moves");
+		}
+		this.entrants = entrants;
+		this.gamesPerPairing = gamesPerPairing + gamesPerPairing % 2;
+		this.openingMoves = openingMoves;
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays every game.
+	 * @param threads how many games to play at once
+	 * @return the games, in the order they were scheduled, and the standings
+	 */
+	public Report run(final int threads) {
+		final Random random = new Random(this.seed);
+		final List<Callable<Game>> tasks = new ArrayList<>();
+		for (int i = 0; i < this.entrants.size(); i++) {
+			for (int j = i + 1; j < this.entrants.size(); j++) {
+				final Entrant first = this.entrants.get(i);
+				final Entrant second = this.entrants.get(j);
+				for (int g = 0; g < this.gamesPerPairing; g += 2) {
+					final int[] opening = randomOpening(random, this.openingMoves);
+					final int number = tasks.size() + 1;
+					tasks.add(() -> play(number, first, second, opening));
+					tasks.add(() -> play(number + 1, second, first, opening));
+				}
+			}
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		final long start = System.nanoTime();
+		try {
+			final List<Game> games = new ArrayList<>(tasks.size());
+			for (final Future<Game> future : executor.invokeAll(tasks)) {
+				games.add(future.get());
+			}
+			return new Report(this.entrants, games, System.nanoTime() - start);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while playing the tournament", e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("Couldn't play a game", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Picks random moves which don't end the game.
+	 * @param random picks the columns
+	 * @param moves how many moves
+	 * @return the columns (0-based) to play, starting with red
+	 */
+	static int[] randomOpening(final Random random, final int moves) {
+		while (true) {
+			final Board board = new Board(Main.DEFAULT_COLS, Main.DEFAULT_ROWS);
+			final int[] opening = new int[moves];
+			Disc disc = Disc.RED;
+			boolean over = false;
+			for (int i = 0; i < moves && !over; i++) {
+				final int col = new RandomComputerPlayer("opening", disc, random).nextMove(board);
+				final int row = put(board, col, disc);
+				opening[i] = col;
+				over = BoardHelper.hasWinner(board, new Move(disc, col, row)) != null || board.isFull();
+				disc = Disc.getOpposite(disc);
+			}
+			if (!over) {
+				return opening;
+			}
+		}
+	}
+
+	/**
+	 * Plays a game to the end.
+	 * @param number the game's number
+	 * @param red plays red, which moves first
+	 * @param yellow plays yellow
+	 * @param opening the columns to play before the entrants move
+	 * @return how it went
+	 */
+	static Game play(final int number, final Entrant red, final Entrant yellow, final int[] opening) {
+		final Board board = new Board(Main.DEFAULT_COLS, Main.DEFAULT_ROWS);
+		Disc disc = Disc.RED;
+		for (final int col : opening) {
+			put(board, col, disc);
+			disc = Disc.getOpposite(disc);
+		}
+		final Player redPlayer = red.createPlayer(Disc.RED);
+		final Player yellowPlayer = yellow.createPlayer(Disc.YELLOW);
+		final Game game = new Game(number, red, yellow, opening);
+		while (true) {
+			final Player player = disc == Disc.RED ? redPlayer : yellowPlayer;
+			final Board copy = new Board(board); // so the player can't change the game
+			final int col;
+			final long start = System.nanoTime();
+			try {
+				col = player.nextMove(copy);
+			} catch (final RuntimeException e) {
+				return game.end(Disc.getOpposite(disc), Ending.EXCEPTION, e.toString());
+			}
+			game.getLatency(disc).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+			final int row;
+			try {
+				row = board.putDisc(col, disc);
+			} catch (final IllegalMoveException e) {
+				return game.end(Disc.getOpposite(disc), Ending.ILLEGAL_MOVE, e.getMessage());
+			}
+			if (BoardHelper.hasWinner(board, new Move(disc, col, row)) != null) {
+				return game.end(disc, Ending.FOUR_IN_A_ROW, null);
+			}
+			if (board.isFull()) {
+				return game.end(null, Ending.FULL_BOARD, null);
+			}
+			disc = Disc.getOpposite(disc);
+		}
+	}
+
+	private static int put(final Board board, final int col, final Disc disc) {
+		try {
+			return board.putDisc(col, disc);
+		} catch (final IllegalMoveException e) {
+			throw new IllegalArgumentException("The opening has an illegal move: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Finds the ratings which best explain the results (the Bradley-Terry model, fitted by minorisation-maximisation). Every pair which
+	 * played is given an extra draw so that winning every game doesn't need an infinite rating.
+	 * @param points the points each entrant scored against each other entrant
+	 * @param games the games each pair of entrants played
+	 * @return the Elo of each entrant, averaging {@link #MEAN_ELO}
+	 */
+	static double[] fitElo(final double[][] points, final int[][] games) {
+		final int n = points.length;
+		final double[] strengths = new double[n];
+		Arrays.fill(strengths, 1);
+		for (int iteration = 0; iteration < ELO_ITERATIONS; iteration++) {
+			for (int i = 0; i < n; i++) {
+				double scored = 0;
+				double expected = 0;
+				for (int j = 0; j < n; j++) {
+					if (j != i && games[i][j] > 0) {
+						scored += points[i][j] + 0.5;
+						expected += (games[i][j] + 1) / (strengths[i] + strengths[j]);
+					}
+				}
+				if (expected > 0) {
+					strengths[i] = scored / expected;
+				}
+			}
+			final double meanLog = Arrays.stream(strengths).map(Math::log).average().orElse(0);
+			for (int i = 0; i < n; i++) {
+				strengths[i] /= Math.exp(meanLog);
+			}
+		}
+		final double[] elos = new double[n];
+		for (int i = 0; i < n; i++) {
+			elos[i] = MEAN_ELO + 400 * Math.log10(strengths[i]);
+		}
+		return elos;
+	}
+
+	/**
+	 * @param spec <code>trainer</code>, <code>random</code> or the class name of a {@link Recommender} or {@link Player}
+	 * @return the entrant, named after the spec or the class' simple name
+	 * @throws IllegalArgumentException if the spec isn't an engine
+	 */
+	static Entrant parseEntrant(final String spec) {
+		if ("trainer".equals(spec)) {
+			return new Entrant(spec, TrainedComputerPlayer::new);
+		} else if ("random".equals(spec)) {
+			return new Entrant(spec, RandomComputerPlayer::new);
+		}
+		final Class<?> type;
+		try {
+			type = Class.forName(spec);
+		} catch (final ClassNotFoundException e) {
+			throw new IllegalArgumentException(
+					"Unknown entrant " + spec + ", expected trainer, random or a Recommender or Player class", e);
+		}
+		try {
+			if (Recommender.class.isAssignableFrom(type)) {
+				final Constructor<?> constructor = type.getConstructor();
+				return new Entrant(type.getSimpleName(),
+						(name, disc) -> new TrainedComputerPlayer(name, disc, (Recommender) newInstance(constructor)));
+			} else if (Player.class.isAssignableFrom(type)) {
+				final Constructor<?> constructor = type.getConstructor(String.class, Disc.class);
+				return new Entrant(type.getSimpleName(), (name, disc) -> (Player) newInstance(constructor, name, disc));
+			}
+		} catch (final NoSuchMethodException e) {
+			throw new IllegalArgumentException("Entrant " + spec + " doesn't have the constructor it needs", e);
+		}
+		throw new IllegalArgumentException("Entrant " + spec + " isn't a Recommender or Player");
+	}
+
+	private static Object newInstance(final Constructor<?> constructor, final Object... args) {
+		try {
+			return constructor.newInstance(args);
+		} catch (final ReflectiveOperationException e) {
+			throw new IllegalStateException("Couldn't create " + constructor.getDeclaringClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Usage: <code>Tournament &lt;entrant&gt; &lt;entrant&gt;... [--standings &lt;file&gt;] [--games &lt;file&gt;]</code>
+	 */
+	public static void main(final String[] args) throws IOException {
+		final List<Entrant> entrants = new ArrayList<>();
+		final Map<String, Integer> names = new HashMap<>();
+		File standingsFile = null;
+		File gamesFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if ("--standings".equals(args[i]) && i + 1 < args.length) {
+				standingsFile = new File(args[++i]);
+			} else if ("--games".equals(args[i]) && i + 1 < args.length) {
+				gamesFile = new File(args[++i]);
+			} else {
+				final Entrant entrant = parseEntrant(args[i]);
+				final int count = names.merge(entrant.getName(), Integer.valueOf(1), Integer::sum).intValue();
+				entrants.add(count == 1 ? entrant : new Entrant(entrant.getName() + " " + count, entrant.factory));
+			}
+		}
+		if (entrants.size() < 2) {
+			System.err.println("Usage: Tournament <entrant> <entrant>... [--standings <file>] [--games <file>]");
+			System.err.println("An entrant is trainer, random or the class name of a Recommender or Player");
+			System.exit(1);
+		}
+
+		final int games = NumberUtils.toInt(System.getenv(ENV_TOURNAMENT_GAMES), DEFAULT_GAMES);
+		final int openingMoves = NumberUtils.toInt(System.getenv(ENV_TOURNAMENT_OPENING_MOVES), DEFAULT_OPENING_MOVES);
+		final int threads = NumberUtils.toInt(System.getenv(ENV_TOURNAMENT_THREADS), Runtime.getRuntime().availableProcessors());
+		final long seed = NumberUtils.toLong(System.getenv(ENV_TOURNAMENT_SEED), new Random().nextLong());
+		System.out.println(String.format("Playing %d games between each pair of %s from %d move openings on %d threads (seed %d)", games,
+				entrants, openingMoves, threads, seed));
+		final Report report = new Tournament(entrants, games, openingMoves, seed).run(threads);
+		System.out.print(report);
+		if (standingsFile != null) {
+			try (Writer writer = new FileWriter(standingsFile)) {
+				report.writeStandings(writer, standingsFile.getName().endsWith(".json"));
+			}
+		}
+		if (gamesFile != null) {
+			try (Writer writer = new FileWriter(gamesFile)) {
+				report.writeGames(writer, gamesFile.getName().endsWith(".json"));
+			}
+		}
+	}
+}
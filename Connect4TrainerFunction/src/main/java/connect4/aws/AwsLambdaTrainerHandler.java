@@ -4,11 +4,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Iterator;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.config.Configurator;
+import org.crac.Core;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
@@ -17,20 +19,31 @@ import com.fasterxml.jackson.core.JsonParser;
 
 import connect4.api.json.WarmRequest;
 import connect4.rest.WebJsonStreamingObjectFactory;
+import connect4.web.GameAnalysisRequest;
 import connect4.web.GameHandler;
 import connect4.web.PlayRequest;
 import connect4.web.PlayResponse;
+import connect4.web.RecommendBatch;
+import connect4.web.RecommendBatchRequest;
 import connect4.web.RecommendRequest;
 import connect4.web.RecommendResponse;
 
 /**
- * Lambda handler for processing JSON REST requests sent by web UI.
+ * Lambda handler for processing JSON REST requests sent by web UI. Registers a {@link TrainerPrimer} so SnapStart snapshots are taken
+ * warm.
  */
 public class AwsLambdaTrainerHandler implements RequestStreamHandler {
 
 	private static final String ENV_DEBUG_ENABLED = "DEBUG_ENABLED";
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final TrainerPrimer PRIMER = new TrainerPrimer(); // CRaC only keeps weak references to resources
 	private static GameHandler gameHandler;
+	private static RecommendBatch batch;
+	private static LambdaBoardForwarder forwarder;
+
+	static {
+		Core.getGlobalContext().register(PRIMER);
+	}
 
 	public AwsLambdaTrainerHandler() {
 		final boolean isDebugEnabled = Boolean.valueOf(System.getenv(ENV_DEBUG_ENABLED));
@@ -43,31 +56,58 @@ public class AwsLambdaTrainerHandler implements RequestStreamHandler {
 	public void handleRequest(final InputStream input, final OutputStream output, final Context context) throws IOException {
 		final long start = System.currentTimeMillis();
 		final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
-		final JsonParser parser = factory.getParser(input);
-		final Serializable request = factory.deserialiseGenericRequest(parser);
-		parser.close();
+		try {
+			final JsonParser parser = factory.getParser(input);
+			final Serializable request = factory.deserialiseGenericRequest(parser);
+			parser.close();
 
-		final JsonGenerator g = factory.getGenerator(output);
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Parsed request in " + (System.currentTimeMillis() - start) + " ms.");
+			final JsonGenerator g = factory.getGenerator(output);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Parsed request in " + (System.currentTimeMillis() - start) + " ms.");
+			}
+			if (request instanceof GameAnalysisRequest) { // before RecommendRequest, it's a subclass
+				factory.serialize(g, getHandler().analyseGame((GameAnalysisRequest) request));
+			} else if (request instanceof PlayRequest) {
+				final PlayResponse response = getHandler().next((PlayRequest) request);
+				factory.serialize(g, response);
+			} else if (request instanceof RecommendRequest) {
+				final RecommendResponse response = getHandler().recommend((RecommendRequest) request);
+				factory.serialize(g, response);
+			} else if (request instanceof RecommendBatchRequest) {
+				// Newline delimited responses like the REST server's batch endpoint
+				final Iterator<RecommendRequest> requests = ((RecommendBatchRequest) request).getRequests().iterator();
+				g.setRootValueSeparator(null);
+				getBatch().recommend(() -> requests.hasNext() ? requests.next() : null, response -> factory.serializeLine(g, response));
+			} else if (request instanceof WarmRequest) {
+				// Half the time left, the pre-traffic hook calling this has the same timeout and still has to test the function
+				factory.serialize(g, getHandler().warmUp(context.getRemainingTimeInMillis() / 2));
+			}
+			g.close();
+			output.flush();
+		} finally {
+			// The sender thread is frozen between invocations so send due boards now, even if the request failed. The rest wait for a
+			// later invocation, so most invocations don't send anything.
+			getForwarder().flushDue();
 		}
-		if (request instanceof PlayRequest) {
-			final PlayResponse response = getHandler().next((PlayRequest) request);
-			factory.serialize(g, response);
-		} else if (request instanceof RecommendRequest) {
-			final RecommendResponse response = getHandler().recommend((RecommendRequest) request);
-			factory.serialize(g, response);
-		} else if (request instanceof WarmRequest) {
-			getHandler().warmUp();
-		}
-		g.close();
-		output.flush();
 	}
 
-	private static GameHandler getHandler() {
+	static synchronized GameHandler getHandler() {
 		if (gameHandler == null) {
-			gameHandler = new GameHandler(new LambdaBoardForwarder());
+			forwarder = new LambdaBoardForwarder();
+			gameHandler = new GameHandler(forwarder);
 		}
 		return gameHandler;
 	}
+
+	static synchronized RecommendBatch getBatch() {
+		if (batch == null) {
+			batch = new RecommendBatch(getHandler(), null); // one invocation at a time, the batch has the whole container
+		}
+		return batch;
+	}
+
+	static synchronized LambdaBoardForwarder getForwarder() {
+		getHandler();
+		return forwarder;
+	}
 }
@@ -2,28 +2,29 @@ package connect4.aws;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.lambda.AWSLambdaAsync;
 import com.amazonaws.services.lambda.AWSLambdaAsyncClientBuilder;
 import com.amazonaws.services.lambda.model.InvocationType;
 import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
 import com.fasterxml.jackson.core.JsonGenerator;
 
-import connect4.api.Board;
-import connect4.api.Disc;
-import connect4.api.analysis.BoardAnalysis;
 import connect4.api.json.JsonStreamingObjectFactory;
+import connect4.api.json.StoreBoardBatchRequest;
 import connect4.api.json.StoreBoardRequest;
-import connect4.forwarder.AbstractBoardForwarder;
+import connect4.forwarder.AbstractBatchingBoardForwarder;
 
 /**
- * Forwards boards to a Lambda function asynchronously.
+ * Forwards batches of boards to a Lambda function asynchronously.
  */
-public class LambdaBoardForwarder extends AbstractBoardForwarder {
+public class LambdaBoardForwarder extends AbstractBatchingBoardForwarder {
 
 	public static final String ENV_LAMBDA_REGION = "STORE_LAMBDA_REGION";
 	public static final String ENV_LAMBDA_FUNCTION = "STORE_LAMBDA_FUNCTION";
@@ -52,28 +53,52 @@ public class LambdaBoardForwarder extends AbstractBoardForwarder {
 	}
 
 	@Override
-	protected void forward(final Disc currentPlayer, final Board board, final BoardAnalysis boardAnalysis) {
-		final StoreBoardRequest boardRequest = new StoreBoardRequest();
-		boardRequest.setBoard(board);
-		boardRequest.setBoardAnalysis(boardAnalysis);
-		boardRequest.setCurrentPlayer(currentPlayer);
+	protected void forwardBatch(final List<StoreBoardRequest> batch) {
+		// invokeAsync so the sender thread doesn't wait on the network
+		getLambdaClient(this.lambdaRegion).invokeAsync(createRequest(batch), new AsyncHandler<InvokeRequest, InvokeResult>() {
 
+			@Override
+			public void onError(final Exception exception) {
+				LOGGER.warn("Could not send batch of " + batch.size() + " boards to Lambda function", exception);
+			}
+
+			@Override
+			public void onSuccess(final InvokeRequest request, final InvokeResult result) {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Sent batch of " + batch.size() + " boards to Lambda function asynchronously");
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sends the batch on the calling thread. The SDK's async executor is frozen with the rest of the invocation as soon as the handler
+	 * returns, so a flush at the end of an invocation mustn't leave the batch to it.
+	 */
+	@Override
+	protected void forwardBatchNow(final List<StoreBoardRequest> batch) {
+		getLambdaClient(this.lambdaRegion).invoke(createRequest(batch));
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Sent batch of " + batch.size() + " boards to Lambda function");
+		}
+	}
+
+	private InvokeRequest createRequest(final List<StoreBoardRequest> batch) {
 		final JsonStreamingObjectFactory factory = JsonStreamingObjectFactory.getInstance();
 		final StringWriter writer = new StringWriter();
 		try {
 			final JsonGenerator g = factory.getGenerator(writer);
-			factory.serialize(g, boardRequest);
+			factory.serialize(g, new StoreBoardBatchRequest(batch));
 			g.close();
 		} catch (final IOException e) {
-			throw new RuntimeException("Couldn't serailase StoreBoardRequest to JSON for sending to Lambda", e);
+			throw new RuntimeException("Couldn't serailase StoreBoardBatchRequest to JSON for sending to Lambda", e);
 		}
 
 		final InvokeRequest request = new InvokeRequest();
 		request.setFunctionName(this.lambdaFunction);
 		request.setInvocationType(InvocationType.Event); // Event means aysnc
 		request.setPayload(writer.toString());
-		getLambdaClient(this.lambdaRegion).invoke(request);
-		LOGGER.debug("Sent board to Lambda function asynchronously");
+		return request;
 	}
 
 	private static synchronized AWSLambdaAsync getLambdaClient(final String region) {
@@ -87,6 +112,24 @@ public class LambdaBoardForwarder extends AbstractBoardForwarder {
 		return lambda;
 	}
 
+	/**
+	 * Creates the Lambda client now rather than on the first board.
+	 */
+	public void connect() {
+		getLambdaClient(this.lambdaRegion);
+	}
+
+	/**
+	 * Shuts down the Lambda client. The next board creates a new one. Used before a SnapStart snapshot is taken so no pooled connections
+	 * are captured (they would be stale when restored).
+	 */
+	public static synchronized void disconnect() {
+		if (lambda != null) {
+			lambda.shutdown();
+			lambda = null;
+		}
+	}
+
 	@Override
 	public void warmUp() {
 		LOGGER.debug("Warming up Lambda async client");
@@ -0,0 +1,257 @@
+package connect4.aws;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import connect4.rest.WebJsonStreamingObjectFactory;
+
+/**
+ * <p>
+ * Bootstrap for running {@link AwsLambdaTrainerHandler} on a Lambda custom runtime (<code>provided.al2</code>), which is how the GraalVM
+ * native image is deployed. Implements the Lambda Runtime API: fetch the next invocation, pass it to the handler then post the response,
+ * or the error if the handler threw. The managed <code>java17</code> runtime does this itself so this class isn't used by the JVM build.
+ * </p>
+ * <p>
+ * The API's address comes from {@value #ENV_RUNTIME_API} which Lambda sets. The X-Ray trace header of each invocation is passed to the
+ * X-Ray SDK via the {@value #TRACE_HEADER_PROPERTY} system property, like the managed runtime does.
+ * </p>
+ */
+public class LambdaRuntime {
+
+	static final String ENV_RUNTIME_API = "AWS_LAMBDA_RUNTIME_API";
+	static final String TRACE_HEADER_PROPERTY = "com.amazonaws.xray.traceHeader";
+
+	private static final String LOG4J_CONFIGURATION_PROPERTY = "log4j.configurationFile";
+	private static final String API_PATH = "/2018-06-01/runtime/";
+
+	private final Logger logger = LogManager.getLogger(); // not static so main() can configure log4j first
+	private final String baseUrl;
+
+	/**
+	 * @param runtimeApi the host and port of the Lambda Runtime API
+	 */
+	LambdaRuntime(final String runtimeApi) {
+		this.baseUrl = "http://" + runtimeApi + API_PATH;
+	}
+
+	/**
+	 * Handles invocations until the process is killed, which is how Lambda ends a custom runtime.
+	 * @param handler the handler to pass each invocation to
+	 */
+	void run(final RequestStreamHandler handler) {
+		while (true) {
+			try {
+				handleNext(handler);
+			} catch (final IOException e) {
+				// The Runtime API is local so this shouldn't happen. Lambda times the invocation out if it did.
+				this.logger.error("Could not communicate with the Lambda Runtime API", e);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the next invocation and handles it.
+	 * @param handler the handler to pass the invocation to
+	 * @throws IOException if the Runtime API can't be reached
+	 */
+	void handleNext(final RequestStreamHandler handler) throws IOException {
+		final HttpURLConnection next = open("invocation/next", "GET");
+		final byte[] event;
+		try (InputStream input = next.getInputStream()) {
+			event = IOUtils.toByteArray(input);
+		}
+		final InvocationContext context = new InvocationContext(next);
+		final String traceHeader = next.getHeaderField("Lambda-Runtime-Trace-Id");
+		if (traceHeader == null) {
+			System.clearProperty(TRACE_HEADER_PROPERTY);
+		} else {
+			System.setProperty(TRACE_HEADER_PROPERTY, traceHeader);
+		}
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			handler.handleRequest(new ByteArrayInputStream(event), output, context);
+		} catch (final Exception | Error e) { // anything escaping the handler is reported to Lambda as a failed invocation
+			this.logger.error("Invocation " + context.getAwsRequestId() + " failed", e);
+			postError("invocation/" + context.getAwsRequestId() + "/error", e);
+			return;
+		}
+		post("invocation/" + context.getAwsRequestId() + "/response", output.toByteArray(), null);
+	}
+
+	/**
+	 * Reports that the function couldn't be initialised. Lambda then ends the runtime.
+	 * @param e what went wrong
+	 * @throws IOException if the Runtime API can't be reached
+	 */
+	void initError(final Throwable e) throws IOException {
+		postError("init/error", e);
+	}
+
+	private void postError(final String path, final Throwable e) throws IOException {
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		final JsonGenerator g = WebJsonStreamingObjectFactory.getInstance().getGenerator(body);
+		g.writeStartObject();
+		g.writeStringField("errorMessage", String.valueOf(e.getMessage()));
+		g.writeStringField("errorType", e.getClass().getName());
+		g.writeArrayFieldStart("stackTrace");
+		for (final StackTraceElement element : e.getStackTrace()) {
+			g.writeString(element.toString());
+		}
+		g.writeEndArray();
+		g.writeEndObject();
+		g.close();
+		post(path, body.toByteArray(), "Unhandled");
+	}
+
+	private void post(final String path, final byte[] body, final String errorType) throws IOException {
+		final HttpURLConnection connection = open(path, "POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(body.length);
+		if (errorType != null) {
+			connection.setRequestProperty("Lambda-Runtime-Function-Error-Type", errorType);
+		}
+		try (OutputStream output = connection.getOutputStream()) {
+			output.write(body);
+		}
+		final int status = connection.getResponseCode();
+		if (status != HttpURLConnection.HTTP_ACCEPTED) {
+			this.logger.error("Lambda Runtime API rejected " + path + " with HTTP " + status);
+		}
+		connection.getInputStream().close();
+	}
+
+	private HttpURLConnection open(final String path, final String method) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setReadTimeout(0); // waiting for the next invocation can take any amount of time
+		return connection;
+	}
+
+	/**
+	 * The {@link Context} of one invocation, taken from the headers of the "next" response and the environment.
+	 */
+	private static class InvocationContext implements Context {
+
+		private static final LambdaLogger LAMBDA_LOGGER = new LambdaLogger() {
+
+			@Override
+			public void log(final String message) {
+				System.out.print(message);
+			}
+
+			@Override
+			public void log(final byte[] message) {
+				System.out.write(message, 0, message.length);
+			}
+		};
+
+		private final String awsRequestId;
+		private final String invokedFunctionArn;
+		private final long deadlineMillis;
+
+		private InvocationContext(final HttpURLConnection next) {
+			this.awsRequestId = next.getHeaderField("Lambda-Runtime-Aws-Request-Id");
+			this.invokedFunctionArn = next.getHeaderField("Lambda-Runtime-Invoked-Function-Arn");
+			this.deadlineMillis = NumberUtils.toLong(next.getHeaderField("Lambda-Runtime-Deadline-Ms"), Long.MAX_VALUE);
+		}
+
+		@Override
+		public String getAwsRequestId() {
+			return this.awsRequestId;
+		}
+
+		@Override
+		public String getLogGroupName() {
+			return System.getenv("AWS_LAMBDA_LOG_GROUP_NAME");
+		}
+
+		@Override
+		public String getLogStreamName() {
+			return System.getenv("AWS_LAMBDA_LOG_STREAM_NAME");
+		}
+
+		@Override
+		public String getFunctionName() {
+			return System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+		}
+
+		@Override
+		public String getFunctionVersion() {
+			return System.getenv("AWS_LAMBDA_FUNCTION_VERSION");
+		}
+
+		@Override
+		public String getInvokedFunctionArn() {
+			return this.invokedFunctionArn;
+		}
+
+		@Override
+		public CognitoIdentity getIdentity() {
+			return null;
+		}
+
+		@Override
+		public ClientContext getClientContext() {
+			return null;
+		}
+
+		@Override
+		public int getRemainingTimeInMillis() {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0, this.deadlineMillis - System.currentTimeMillis()));
+		}
+
+		@Override
+		public int getMemoryLimitInMB() {
+			return NumberUtils.toInt(System.getenv("AWS_LAMBDA_FUNCTION_MEMORY_SIZE"));
+		}
+
+		@Override
+		public LambdaLogger getLogger() {
+			return LAMBDA_LOGGER;
+		}
+	}
+
+	/**
+	 * Entry point of the native image (Lambda runs it as <code>bootstrap</code>).
+	 */
+	public static void main(final String[] args) throws IOException {
+		final String runtimeApi = System.getenv(ENV_RUNTIME_API);
+		if (runtimeApi == null) {
+			System.err.println("Not running in Lambda: " + ENV_RUNTIME_API + " is not set");
+			System.exit(1);
+		}
+		// The JVM zip renames this file to log4j.xml, the native image has it under its own name
+		if (System.getProperty(LOG4J_CONFIGURATION_PROPERTY) == null) {
+			System.setProperty(LOG4J_CONFIGURATION_PROPERTY, "log4j_lambda.xml");
+		}
+		final LambdaRuntime runtime = new LambdaRuntime(runtimeApi);
+		final RequestStreamHandler handler;
+		try {
+			handler = new AwsLambdaTrainerHandler();
+		} catch (final Exception | Error e) {
+			runtime.logger.error("Could not create the handler", e);
+			runtime.initError(e);
+			System.exit(1);
+			return;
+		}
+		runtime.run(handler);
+	}
+}
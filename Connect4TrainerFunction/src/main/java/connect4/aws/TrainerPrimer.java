@@ -0,0 +1,51 @@
+package connect4.aws;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Context;
+import org.crac.Resource;
+
+import connect4.web.GameHandler;
+import connect4.web.WarmUp;
+
+/**
+ * <p>
+ * Checkpoint/restore hooks for Lambda SnapStart. Before the snapshot is taken the handler is created and {@value #DEFAULT_PRIME_GAMES}
+ * games (override with {@value #ENV_PRIME_GAMES}) are played through {@link WarmUp} so the snapshot contains loaded classes and compiled
+ * hot paths rather than leaving that to the first user's request. The Lambda client is created to load the AWS SDK then shut down so no
+ * connections are captured.
+ * </p>
+ * <p>
+ * After restore the Lambda client is re-created and random number generators are reseeded. Without SnapStart the hooks are never
+ * called.
+ * </p>
+ */
+class TrainerPrimer implements Resource {
+
+	static final String ENV_PRIME_GAMES = "PRIME_GAMES";
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_PRIME_GAMES = 20;
+
+	@Override
+	public void beforeCheckpoint(final Context<? extends Resource> context) {
+		final long start = System.currentTimeMillis();
+		AwsLambdaTrainerHandler.getHandler();
+		// Interesting boards found while priming mustn't be forwarded (or remembered by the dedup filter) so use a separate handler
+		final int requests = new WarmUp(new GameHandler()).play(NumberUtils.toInt(System.getenv(ENV_PRIME_GAMES), DEFAULT_PRIME_GAMES));
+		AwsLambdaTrainerHandler.getForwarder().connect();
+		LambdaBoardForwarder.disconnect();
+		LOGGER.info("Primed for snapshot with " + requests + " requests in " + (System.currentTimeMillis() - start) + " ms.");
+	}
+
+	@Override
+	public void afterRestore(final Context<? extends Resource> context) {
+		final long start = System.currentTimeMillis();
+		AwsLambdaTrainerHandler.getHandler().reseed();
+		AwsLambdaTrainerHandler.getForwarder().connect();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Restored from snapshot in " + (System.currentTimeMillis() - start) + " ms.");
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package connect4.forwarder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import connect4.api.json.StoreBoardRequest;
+
+/**
+ * <p>
+ * Queues boards and forwards them in batches so the caller (i.e. the recommend path) never waits on forwarding. A background thread sends a
+ * batch when there are {@value #ENV_BATCH_SIZE} boards queued or the oldest board has been waiting {@value #ENV_BATCH_DELAY_MS} ms.
+ * {@link #flushDue()} sends the batches that are due on the calling thread, and has sent them by the time it returns, which should be done
+ * at the end of each Lambda invocation since the background thread is frozen between invocations. The other boards stay queued for a
+ * later invocation, so are lost if the container is shut down first. {@link #flush()} sends everything queued.
+ * </p>
+ * <p>
+ * The queue holds at most {@value #ENV_QUEUE_SIZE} boards. When it's full the oldest board is dropped, boards are only statistics after
+ * all.
+ * </p>
+ */
+public abstract class AbstractBatchingBoardForwarder extends AbstractBoardForwarder {
+
+	public static final String ENV_BATCH_SIZE = "FORWARDER_BATCH_SIZE";
+	public static final String ENV_BATCH_DELAY_MS = "FORWARDER_BATCH_DELAY_MS";
+	public static final String ENV_QUEUE_SIZE = "FORWARDER_QUEUE_SIZE";
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_BATCH_SIZE = 50;
+	private static final int DEFAULT_BATCH_DELAY_MS = 1000;
+	private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	private final int maxBatchSize;
+	private final long maxDelayMillis;
+	private final int maxQueueSize;
+	private final ArrayDeque<StoreBoardRequest> queue = new ArrayDeque<>();
+	private long oldestQueuedMillis;
+	private long dropped;
+	private Thread sender;
+
+	protected AbstractBatchingBoardForwarder() {
+		this.maxBatchSize = Math.max(1, NumberUtils.toInt(System.getenv(ENV_BATCH_SIZE), DEFAULT_BATCH_SIZE));
+		this.maxDelayMillis = Math.max(1, NumberUtils.toInt(System.getenv(ENV_BATCH_DELAY_MS), DEFAULT_BATCH_DELAY_MS));
+		this.maxQueueSize = Math.max(this.maxBatchSize, NumberUtils.toInt(System.getenv(ENV_QUEUE_SIZE), DEFAULT_QUEUE_SIZE));
+	}
+
+	/**
+	 * @param dedupFilter the {@link BoardDedupFilter} to use or <code>null</code> to forward every interesting board
+	 * @param maxBatchSize the most boards to send in one batch
+	 * @param maxDelayMillis the longest a board waits before the background thread sends it
+	 * @param maxQueueSize the most boards to queue before dropping the oldest
+	 */
+	protected AbstractBatchingBoardForwarder(final BoardDedupFilter dedupFilter, final int maxBatchSize, final long maxDelayMillis,
+			final int maxQueueSize) {
+		super(dedupFilter);
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayMillis = maxDelayMillis;
+		this.maxQueueSize = maxQueueSize;
+	}
+
+	/**
+	 * Queues the board. Never blocks on sending.
+	 */
+	@Override
+	protected final void forward(final StoreBoardRequest request) {
+		synchronized (this.queue) {
+			if (this.queue.size() >= this.maxQueueSize) {
+				this.queue.pollFirst();
+				this.dropped++;
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Forwarding queue is full, dropped oldest board. Dropped " + this.dropped + " boards so far.");
+				}
+			}
+			if (this.queue.isEmpty()) {
+				this.oldestQueuedMillis = System.currentTimeMillis();
+			}
+			this.queue.addLast(request);
+			if (this.sender == null) {
+				this.sender = new Thread(this::sendLoop, getClass().getSimpleName() + "-sender");
+				this.sender.setDaemon(true);
+				this.sender.start();
+			} else if (this.queue.size() >= this.maxBatchSize) {
+				this.queue.notifyAll();
+			}
+		}
+	}
+
+	private void sendLoop() {
+		while (true) {
+			final List<StoreBoardRequest> batch;
+			synchronized (this.queue) {
+				try {
+					long wait;
+					while ((wait = getWaitMillis(System.currentTimeMillis())) > 0) {
+						this.queue.wait(wait);
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				batch = drain();
+			}
+			send(batch, false);
+		}
+	}
+
+	/**
+	 * @return how long to wait for the next batch to be due or 0 if it's due now. Must hold the lock on the queue.
+	 */
+	private long getWaitMillis(final long now) {
+		if (this.queue.isEmpty()) {
+			return this.maxDelayMillis;
+		} else if (this.queue.size() >= this.maxBatchSize) {
+			return 0;
+		}
+		return Math.max(0, this.oldestQueuedMillis + this.maxDelayMillis - now);
+	}
+
+	/**
+	 * Removes up to a batch of boards. Must hold the lock on the queue.
+	 */
+	private List<StoreBoardRequest> drain() {
+		final List<StoreBoardRequest> batch = new ArrayList<>(Math.min(this.queue.size(), this.maxBatchSize));
+		while (!this.queue.isEmpty() && batch.size() < this.maxBatchSize) {
+			batch.add(this.queue.pollFirst());
+		}
+		// The remaining boards were queued later but we don't know when, so treat them as new
+		this.oldestQueuedMillis = System.currentTimeMillis();
+		return batch;
+	}
+
+	private void send(final List<StoreBoardRequest> batch, final boolean now) {
+		try {
+			if (now) {
+				forwardBatchNow(batch);
+			} else {
+				forwardBatch(batch);
+			}
+		} catch (final RuntimeException e) {
+			LOGGER.warn("Could not forward batch of " + batch.size() + " boards. Dropping them.", e);
+		}
+	}
+
+	/**
+	 * Sends everything queued on the calling thread with {@link #forwardBatchNow(List)}.
+	 */
+	@Override
+	public void flush() {
+		while (true) {
+			final List<StoreBoardRequest> batch;
+			synchronized (this.queue) {
+				if (this.queue.isEmpty()) {
+					return;
+				}
+				batch = drain();
+			}
+			send(batch, true);
+		}
+	}
+
+	/**
+	 * Sends the batches that are due on the calling thread with {@link #forwardBatchNow(List)}: full batches, and the boards queued if the
+	 * oldest has been waiting {@value #ENV_BATCH_DELAY_MS} ms. Anything else stays queued.
+	 */
+	public void flushDue() {
+		while (true) {
+			final List<StoreBoardRequest> batch;
+			synchronized (this.queue) {
+				if (this.queue.isEmpty() || getWaitMillis(System.currentTimeMillis()) > 0) {
+					return;
+				}
+				batch = drain();
+			}
+			send(batch, true);
+		}
+	}
+
+	/**
+	 * @return the number of boards dropped because the queue was full
+	 */
+	public long getDropped() {
+		synchronized (this.queue) {
+			return this.dropped;
+		}
+	}
+
+	/**
+	 * Forward a batch of normalised boards to the destination.
+	 * @param batch the boards, never empty
+	 */
+	protected abstract void forwardBatch(List<StoreBoardRequest> batch);
+
+	/**
+	 * Forward a batch of normalised boards from {@link #flush()} or {@link #flushDue()}. It must have been sent by the time this returns
+	 * because the caller (e.g. a Lambda invocation) may be frozen straight after. By default the same as {@link #forwardBatch(List)}.
+	 * @param batch the boards, never empty
+	 */
+	protected void forwardBatchNow(final List<StoreBoardRequest> batch) {
+		forwardBatch(batch);
+	}
+}
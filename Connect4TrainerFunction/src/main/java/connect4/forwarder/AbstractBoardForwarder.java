@@ -2,6 +2,7 @@ package connect4.forwarder;
 
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -9,23 +10,53 @@ import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
 
 /**
- * Forwards interesting boards to a topic for future storage/analysis.
+ * Forwards interesting boards to a topic for future storage/analysis. Boards recently forwarded by this instance are suppressed (see
+ * {@link BoardDedupFilter}) which is configured by the environment variables {@value #ENV_DEDUP_SIZE} (0 disables) and
+ * {@value #ENV_DEDUP_RESEND_SECONDS}.
  */
 public abstract class AbstractBoardForwarder {
 
+	public static final String ENV_DEDUP_SIZE = "FORWARDER_DEDUP_SIZE";
+	public static final String ENV_DEDUP_RESEND_SECONDS = "FORWARDER_DEDUP_RESEND_SECONDS";
+
 	static final int INTERESTING_FLAGS = ColumnAnalysis.FLAG_TRAP_MORE_THAN_ONE | ColumnAnalysis.FLAG_BLOCK_TRAP_MORE_THAN_ONE
 			| ColumnAnalysis.FLAG_FORCED_WIN | ColumnAnalysis.FLAG_BLOCK_FORCED_WIN;
 
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int DEFAULT_DEDUP_SIZE = 10000;
+	private static final int DEFAULT_DEDUP_RESEND_SECONDS = 600;
+
+	private final BoardDedupFilter dedupFilter;
+
+	protected AbstractBoardForwarder() {
+		this(createDedupFilter());
+	}
+
+	/**
+	 * @param dedupFilter the {@link BoardDedupFilter} to use or <code>null</code> to forward every interesting board
+	 */
+	protected AbstractBoardForwarder(final BoardDedupFilter dedupFilter) {
+		this.dedupFilter = dedupFilter;
+	}
+
+	private static BoardDedupFilter createDedupFilter() {
+		final int size = NumberUtils.toInt(System.getenv(ENV_DEDUP_SIZE), DEFAULT_DEDUP_SIZE);
+		if (size <= 0) {
+			return null;
+		}
+		return new BoardDedupFilter(size, NumberUtils.toInt(System.getenv(ENV_DEDUP_RESEND_SECONDS), DEFAULT_DEDUP_RESEND_SECONDS) * 1000L);
+	}
 
 	/**
 	 * Receive a board and consider forwarding it.
 	 * @param board the board
 	 * @param currentPlayer whose turn it is
 	 * @param boardAnalysis analysis for the current player
-	 * @return <code>true</code> if the board is received (not necessarily forwarded) or <code>false</code> if the board is dropped
+	 * @return <code>true</code> if the board is received (not necessarily forwarded, e.g. if it was forwarded recently) or
+	 *         <code>false</code> if the board is dropped
 	 */
 	public boolean receive(final Board board, final Disc currentPlayer, final BoardAnalysis boardAnalysis) {
 		if (!isInteresting(boardAnalysis)) {
@@ -37,7 +68,18 @@ public abstract class AbstractBoardForwarder {
 			return false;
 		}
 		final Object[] normaliseResult = normalise(currentPlayer, board, boardAnalysis);
-		forward((Disc) normaliseResult[0], (Board) normaliseResult[1], (BoardAnalysis) normaliseResult[2]);
+		final Board normalisedBoard = (Board) normaliseResult[1];
+		final int seenCount = this.dedupFilter == null ? 1 : this.dedupFilter.offer(normalisedBoard.hashCode(), System.currentTimeMillis());
+		if (seenCount == 0) {
+			LOGGER.debug("Board was forwarded recently, suppressing");
+			return true;
+		}
+		final StoreBoardRequest request = new StoreBoardRequest();
+		request.setCurrentPlayer((Disc) normaliseResult[0]);
+		request.setBoard(normalisedBoard);
+		request.setBoardAnalysis((BoardAnalysis) normaliseResult[2]);
+		request.setSeenCount(seenCount);
+		forward(request);
 		return true;
 	}
 
@@ -75,13 +117,20 @@ public abstract class AbstractBoardForwarder {
 	}
 
 	/**
-	 * Forward the board to the destination.
+	 * Forward the normalised board to the destination.
+	 * @param request the board, analysis and current player along with how many times the board has been seen since it was last forwarded
 	 */
-	protected abstract void forward(final Disc currentPlayer, final Board board, final BoardAnalysis boardAnalysis);
+	protected abstract void forward(final StoreBoardRequest request);
 
 	/**
 	 * Warm up this forwarder to help with cold starts.
 	 */
 	public void warmUp() {
 	}
+
+	/**
+	 * Sends any boards this forwarder has buffered. Should be called at the end of each Lambda invocation.
+	 */
+	public void flush() {
+	}
 }
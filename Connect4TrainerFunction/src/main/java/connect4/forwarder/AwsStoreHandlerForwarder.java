@@ -1,25 +1,30 @@
 package connect4.forwarder;
 
-import connect4.api.Board;
-import connect4.api.Disc;
-import connect4.api.analysis.BoardAnalysis;
 import connect4.api.json.StoreBoardRequest;
+import connect4.store.BoardStore;
 import connect4.store.lambda.AwsLambdaStoreHandler;
 
 /**
  * Forwards to {@link AwsStoreHandlerForwarder} directly (i.e. not via Lambda). This is intended for local testing only but will actually
- * store in DynamoDb.
+ * store in DynamoDb (or the given {@link BoardStore}).
  */
 public class AwsStoreHandlerForwarder extends AbstractBoardForwarder {
 
-	private final AwsLambdaStoreHandler handler = new AwsLambdaStoreHandler();
+	private final AwsLambdaStoreHandler handler;
+
+	public AwsStoreHandlerForwarder() {
+		this.handler = new AwsLambdaStoreHandler();
+	}
+
+	/**
+	 * @param store the {@link BoardStore} to store boards in instead of DynamoDB, e.g. a local store for load testing
+	 */
+	public AwsStoreHandlerForwarder(final BoardStore store) {
+		this.handler = new AwsLambdaStoreHandler(store);
+	}
 
 	@Override
-	protected void forward(final Disc currentPlayer, final Board board, final BoardAnalysis boardAnalysis) {
-		final StoreBoardRequest request = new StoreBoardRequest();
-		request.setBoard(board);
-		request.setBoardAnalysis(boardAnalysis);
-		request.setCurrentPlayer(currentPlayer);
+	protected void forward(final StoreBoardRequest request) {
 		this.handler.handle(request);
 	}
 }
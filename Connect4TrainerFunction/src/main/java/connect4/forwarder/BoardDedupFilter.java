@@ -0,0 +1,68 @@
+package connect4.forwarder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Remembers recently forwarded boards so popular boards (e.g. common traps) aren't forwarded every time they're seen. A board is let
+ * through again once the resend interval has passed, carrying the number of times it was seen in the meantime so the store's "seen"
+ * counter stays (roughly) accurate.
+ * </p>
+ * <p>
+ * Bounded by a least recently used cache of board keys. Sightings of boards which are evicted or never seen again after the resend
+ * interval are not counted.
+ * </p>
+ */
+public class BoardDedupFilter {
+
+	private static class Entry {
+		private long lastForwardedMillis;
+		private int suppressed;
+	}
+
+	private final long resendIntervalMillis;
+	private final Map<Integer, Entry> recent;
+
+	/**
+	 * @param maxBoards how many boards to remember
+	 * @param resendIntervalMillis how long to suppress a board for after it's forwarded
+	 */
+	public BoardDedupFilter(final int maxBoards, final long resendIntervalMillis) {
+		this.resendIntervalMillis = resendIntervalMillis;
+		this.recent = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Integer, Entry> eldest) {
+				return size() > maxBoards;
+			}
+		};
+	}
+
+	/**
+	 * Decides whether a board should be forwarded.
+	 * @param boardKey key of the normalised board, i.e. its hash code
+	 * @param now the current time in milliseconds
+	 * @return the number of times the board has been seen since it was last forwarded (including this time) if it should be forwarded or
+	 *         0 if it should be suppressed
+	 */
+	public synchronized int offer(final int boardKey, final long now) {
+		Entry entry = this.recent.get(boardKey);
+		if (entry == null) {
+			entry = new Entry();
+			entry.lastForwardedMillis = now;
+			this.recent.put(boardKey, entry);
+			return 1;
+		}
+		if (now - entry.lastForwardedMillis < this.resendIntervalMillis) {
+			entry.suppressed++;
+			return 0;
+		}
+		final int seenCount = entry.suppressed + 1;
+		entry.lastForwardedMillis = now;
+		entry.suppressed = 0;
+		return seenCount;
+	}
+}
@@ -0,0 +1,51 @@
+package connect4.forwarder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.log.BoardLogReplayer;
+import connect4.store.log.BoardLogWriter;
+
+/**
+ * Appends interesting boards to a local {@link BoardLogWriter log} rather than storing them, so serving games never waits on storage. Load
+ * the log into a store later with {@link BoardLogReplayer}. Intended for load tests and offline data generation.
+ */
+public class BoardLogForwarder extends AbstractBoardForwarder implements Closeable {
+
+	private final BoardLogWriter writer;
+
+	/**
+	 * @param directory the log directory, see {@link BoardLogWriter#BoardLogWriter(File)}
+	 * @throws IOException if the log can't be opened
+	 */
+	public BoardLogForwarder(final File directory) throws IOException {
+		this(new BoardLogWriter(directory));
+	}
+
+	/**
+	 * @param writer the {@link BoardLogWriter} to append to
+	 */
+	public BoardLogForwarder(final BoardLogWriter writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	protected void forward(final StoreBoardRequest request) {
+		this.writer.append(request);
+	}
+
+	/**
+	 * Forces the log to disk.
+	 */
+	@Override
+	public void flush() {
+		this.writer.sync();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.writer.close();
+	}
+}
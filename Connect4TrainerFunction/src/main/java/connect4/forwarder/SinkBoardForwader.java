@@ -3,6 +3,7 @@ package connect4.forwarder;
 import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
+import connect4.api.json.StoreBoardRequest;
 
 /**
  * Just sinks boards.
@@ -12,6 +13,7 @@ public class SinkBoardForwader extends AbstractBoardForwarder {
 	public static final SinkBoardForwader INSTANCE = new SinkBoardForwader();
 
 	private SinkBoardForwader() {
+		super(null);
 		// Private constructor so no one can instantiate
 	}
 
@@ -21,6 +23,6 @@ public class SinkBoardForwader extends AbstractBoardForwarder {
 	}
 
 	@Override
-	protected void forward(final Disc currentPlayer, final Board board, final BoardAnalysis boardAnalysis) {
+	protected void forward(final StoreBoardRequest request) {
 	}
 }
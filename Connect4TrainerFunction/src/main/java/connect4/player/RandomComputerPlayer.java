@@ -15,8 +15,17 @@ public class RandomComputerPlayer extends Player {
 	private final Random random;
 
 	public RandomComputerPlayer(final String name, final Disc disc) {
+		this(name, disc, new Random());
+	}
+
+	/**
+	 * @param name the player's name
+	 * @param disc the disc the player drops
+	 * @param random picks the columns, e.g. seeded to replay the same moves
+	 */
+	public RandomComputerPlayer(final String name, final Disc disc, final Random random) {
 		super(name, disc);
-		random = new Random();
+		this.random = random;
 	}
 
 	@Override
@@ -27,8 +36,7 @@ public class RandomComputerPlayer extends Player {
 				freeColumns.add(c);
 			}
 		}
-		final int move = random.nextInt(freeColumns.size());
-		return move - 1;
+		return freeColumns.get(random.nextInt(freeColumns.size()));
 	}
 
 }
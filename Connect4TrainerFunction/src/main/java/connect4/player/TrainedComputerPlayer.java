@@ -6,15 +6,24 @@ import connect4.trainer.Recommender;
 import connect4.trainer.Trainer;
 
 /**
- * A computer player that uses a trainer.
+ * A computer player that plays where a {@link Recommender} (a {@link Trainer} by default) recommends.
  */
 public class TrainedComputerPlayer extends Player {
 
 	private final Recommender recommender;
 
 	public TrainedComputerPlayer(final String name, final Disc disc) {
+		this(name, disc, new Trainer());
+	}
+
+	/**
+	 * @param name the player's name
+	 * @param disc the disc the player drops
+	 * @param recommender where to play. It's only used by this player.
+	 */
+	public TrainedComputerPlayer(final String name, final Disc disc, final Recommender recommender) {
 		super(name, disc);
-		this.recommender = new Trainer();
+		this.recommender = recommender;
 	}
 
 	@Override
@@ -0,0 +1,123 @@
+package connect4.rest;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * <p>
+ * Admission control for CPU bound requests. At most {@value #ENV_ANALYSIS_THREADS} (default: the number of processors) analyses run at
+ * once, more would only slow each other down. Up to {@value #ENV_ANALYSIS_QUEUE} (default: 4 per processor) more wait their turn and
+ * anything beyond that is turned away so the server answers quickly when it's overloaded rather than timing everyone out.
+ * </p>
+ * <p>
+ * Usage:
+ * </p>
+ *
+ * <pre>
+ * if (!limiter.acquire()) {
+ * 	// answer 503
+ * }
+ * try {
+ * 	// analyse
+ * } finally {
+ * 	limiter.release();
+ * }
+ * </pre>
+ */
+public class AnalysisLimiter {
+
+	public static final String ENV_ANALYSIS_THREADS = "ANALYSIS_THREADS";
+	public static final String ENV_ANALYSIS_QUEUE = "ANALYSIS_QUEUE";
+
+	private final Semaphore running;
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final int maxWaiting;
+
+	/**
+	 * Creates a limiter configured from the environment.
+	 */
+	public AnalysisLimiter() {
+		this(NumberUtils.toInt(System.getenv(ENV_ANALYSIS_THREADS), Runtime.getRuntime().availableProcessors()),
+				NumberUtils.toInt(System.getenv(ENV_ANALYSIS_QUEUE), 4 * Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * @param maxRunning the maximum number of analyses to run at once
+	 * @param maxWaiting the maximum number of analyses waiting to run
+	 */
+	public AnalysisLimiter(final int maxRunning, final int maxWaiting) {
+		this.running = new Semaphore(Math.max(1, maxRunning), true);
+		this.maxWaiting = maxWaiting;
+	}
+
+	/**
+	 * Waits for a turn to analyse. Call {@link #release()} when done if this returns <code>true</code>.
+	 * @return <code>false</code> if too many are waiting already
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean acquire() throws InterruptedException {
+		if (this.running.tryAcquire(0, TimeUnit.SECONDS)) { // unlike tryAcquire() this doesn't jump the queue
+			return true;
+		}
+		if (this.waiting.incrementAndGet() > this.maxWaiting) {
+			this.waiting.decrementAndGet();
+			return false;
+		}
+		try {
+			this.running.acquire();
+		} finally {
+			this.waiting.decrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * Takes a turn to analyse only if one is free and nobody is waiting for it. Call {@link #release()} when done if this returns
+	 * <code>true</code>.
+	 * @return <code>false</code> if every turn is taken
+	 */
+	public boolean tryAcquire() {
+		try {
+			return this.running.tryAcquire(0, TimeUnit.SECONDS); // unlike tryAcquire() this doesn't jump the queue
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Wraps an {@link Executor} for work done in spare time, e.g. pondering. Each task takes a turn when it starts if one is free and is
+	 * dropped otherwise, so it never delays or adds to the analyses of requests.
+	 * @param executor runs the tasks
+	 * @return the wrapped {@link Executor}
+	 */
+	public Executor whenIdle(final Executor executor) {
+		return runnable -> executor.execute(() -> {
+			if (!tryAcquire()) {
+				return;
+			}
+			try {
+				runnable.run();
+			} finally {
+				release();
+			}
+		});
+	}
+
+	/**
+	 * Waits for a turn to analyse however many are waiting, for work which has already been let in, e.g. the positions of a batch. Call
+	 * {@link #release()} when done.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void waitForTurn() throws InterruptedException {
+		this.running.acquire();
+	}
+
+	public void release() {
+		this.running.release();
+	}
+}
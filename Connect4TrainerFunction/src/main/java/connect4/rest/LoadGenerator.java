@@ -0,0 +1,566 @@
+package connect4.rest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.api.Move;
+import connect4.forwarder.AbstractBoardForwarder;
+import connect4.forwarder.AwsStoreHandlerForwarder;
+import connect4.forwarder.SinkBoardForwader;
+import connect4.store.local.LocalBoardStore;
+import connect4.web.GameHandler;
+import connect4.web.PlayRequest;
+import connect4.web.RecommendRequest;
+import connect4.web.WarmUp;
+import spark.Spark;
+
+/**
+ * <p>
+ * Load tests the trainer to find how many requests a host can handle and the latency at that load. Each game is a thread which sends
+ * its next request as soon as the last one is answered. Usage:
+ * <code>LoadGenerator [in-process|http|&lt;url&gt;] [self-play|warm-up|&lt;corpus file&gt;]</code>
+ * </p>
+ * <p>
+ * Where the requests go:
+ * </p>
+ * <ul>
+ * <li><code>in-process</code> (default): a {@link GameHandler} set up like {@link RestServer}'s. Requests are parsed and responses
+ * serialised the same way, without Jetty and the {@link AnalysisLimiter}.</li>
+ * <li><code>http</code>: starts the {@link RestServer} in this JVM and sends requests to it over HTTP.</li>
+ * <li>a URL, e.g. <code>http://localhost:4567</code>: a server that's already running.</li>
+ * </ul>
+ * <p>
+ * In this JVM interesting boards are dropped ({@link SinkBoardForwader}) unless {@value RestServer#ENV_LOCAL_STORE_FILE} is set, then
+ * they're kept in that {@link LocalBoardStore}. They're never sent to DynamoDB.
+ * </p>
+ * <p>
+ * What's sent:
+ * </p>
+ * <ul>
+ * <li><code>self-play</code> (default): games start on an empty board with a random disc for the "human", who plays random columns. The
+ * AI's reply to each move comes from <code>/game/next</code>, <code>/game/play</code> or <code>/board/recommend</code>, picked at random
+ * with the weights in {@value #ENV_LOAD_MIX}, e.g. <code>next=2,play=1,recommend=1</code> (default: equal). Every request moves the game
+ * on by the human's and the AI's move.</li>
+ * <li><code>warm-up</code>: the positions of the {@link WarmUp} corpus, which between them raise every analysis flag.</li>
+ * <li>a file of recorded requests, one JSON <code>"recommend"</code> or <code>"next"</code> request per line.</li>
+ * </ul>
+ * <p>
+ * Corpus positions are picked at random and sent to an endpoint picked with the same weights. Recommendations are for the position's
+ * player. Moves play the request's column or, if it doesn't have one, a random free column.
+ * </p>
+ * <p>
+ * {@value #ENV_LOAD_GAMES} games are played at once (default: twice the number of processors) for {@value #ENV_LOAD_SECONDS} seconds
+ * (default: 30) after {@value #ENV_LOAD_WARM_UP_SECONDS} seconds of warm up (default: 10) which aren't measured. The latency of each
+ * endpoint is recorded in an HdrHistogram. The load is a closed loop: a slow response holds up its game's next request, so once the
+ * server is saturated the percentiles understate what independent users would see. Run it with the number of games you expect.
+ * </p>
+ */
+public class LoadGenerator {
+
+	public static final String ENV_LOAD_GAMES = "LOAD_GAMES";
+	public static final String ENV_LOAD_SECONDS = "LOAD_SECONDS";
+	public static final String ENV_LOAD_WARM_UP_SECONDS = "LOAD_WARM_UP_SECONDS";
+	public static final String ENV_LOAD_MIX = "LOAD_MIX";
+
+	private static final int DEFAULT_SECONDS = 30;
+	private static final int DEFAULT_WARM_UP_SECONDS = 10;
+	private static final int HISTOGRAM_DIGITS = 3;
+
+	/**
+	 * The endpoints which are load tested.
+	 */
+	public enum Endpoint {
+		PLAY("/game/play"), NEXT("/game/next"), RECOMMEND("/board/recommend");
+
+		private final String path;
+
+		Endpoint(final String path) {
+			this.path = path;
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+	}
+
+	/**
+	 * Where requests are sent.
+	 */
+	public interface Target {
+
+		/**
+		 * @param endpoint where to send the request
+		 * @param request the JSON request
+		 * @return the JSON response
+		 * @throws IOException if the request failed, including HTTP errors
+		 */
+		byte[] send(Endpoint endpoint, byte[] request) throws IOException;
+	}
+
+	/**
+	 * Handles requests with a {@link GameHandler} the same way as the {@link RestServer}'s routes.
+	 */
+	public static class InProcessTarget implements Target {
+
+		private final GameHandler handler;
+		private final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+
+		public InProcessTarget(final GameHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public byte[] send(final Endpoint endpoint, final byte[] request) throws IOException {
+			final JsonParser parser = this.factory.getParser(new ByteArrayInputStream(request));
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			final JsonGenerator g = this.factory.getGenerator(output);
+			switch (endpoint) {
+			case RECOMMEND:
+				this.factory.serialize(g, this.handler.recommend(this.factory.deserializeRecommendRequest(parser)));
+				break;
+			case NEXT:
+				this.factory.serialize(g, this.handler.next(this.factory.deserializePlayRequest(parser)));
+				break;
+			default:
+				final Serializable genericRequest = this.factory.deserialiseGenericRequest(parser);
+				if (genericRequest instanceof PlayRequest) {
+					this.factory.serialize(g, this.handler.next((PlayRequest) genericRequest));
+				} else {
+					this.factory.serialize(g, this.handler.recommend((RecommendRequest) genericRequest));
+				}
+			}
+			parser.close();
+			g.close();
+			return output.toByteArray();
+		}
+	}
+
+	/**
+	 * Sends requests to a server over HTTP.
+	 */
+	public static class HttpTarget implements Target {
+
+		private final String url;
+		private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10)).build();
+
+		/**
+		 * @param url the server's URL without a trailing slash, e.g. <code>http://localhost:4567</code>
+		 */
+		public HttpTarget(final String url) {
+			this.url = url;
+		}
+
+		@Override
+		public byte[] send(final Endpoint endpoint, final byte[] request) throws IOException {
+			final HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(this.url + endpoint.getPath()))
+					.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofByteArray(request)).build();
+			final HttpResponse<byte[]> response;
+			try {
+				response = this.client.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for " + endpoint.getPath(), e);
+			}
+			if (response.statusCode() != 200) {
+				throw new IOException(endpoint.getPath() + " returned HTTP " + response.statusCode());
+			}
+			return response.body();
+		}
+	}
+
+	/**
+	 * The requests, errors and latency of each {@link Endpoint} after the warm up.
+	 */
+	public static class Report {
+
+		private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+		private final long[] errors = new long[Endpoint.values().length];
+		private long elapsedNanos;
+
+		private Report() {
+			for (final Endpoint endpoint : Endpoint.values()) {
+				this.latencies.put(endpoint, new Histogram(HISTOGRAM_DIGITS));
+			}
+		}
+
+		private synchronized void add(final Report report) {
+			for (final Endpoint endpoint : Endpoint.values()) {
+				this.latencies.get(endpoint).add(report.latencies.get(endpoint));
+				this.errors[endpoint.ordinal()] += report.errors[endpoint.ordinal()];
+			}
+		}
+
+		/**
+		 * @param endpoint the {@link Endpoint}
+		 * @return the latency in microseconds of each successful request to the endpoint
+		 */
+		public Histogram getLatency(final Endpoint endpoint) {
+			return this.latencies.get(endpoint);
+		}
+
+		/**
+		 * @return the latency in microseconds of every successful request
+		 */
+		public Histogram getLatency() {
+			final Histogram total = new Histogram(HISTOGRAM_DIGITS);
+			this.latencies.values().forEach(total::add);
+			return total;
+		}
+
+		public long getErrors(final Endpoint endpoint) {
+			return this.errors[endpoint.ordinal()];
+		}
+
+		/**
+		 * @return successful requests per second
+		 */
+		public double getThroughput() {
+			return getLatency().getTotalCount() * 1e9 / this.elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder(String.format("%-18s %10s %8s %10s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests",
+					"Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+			long totalErrors = 0;
+			for (final Endpoint endpoint : Endpoint.values()) {
+				append(sb, endpoint.getPath(), getLatency(endpoint), getErrors(endpoint));
+				totalErrors += getErrors(endpoint);
+			}
+			append(sb, "all", getLatency(), totalErrors);
+			return sb.toString();
+		}
+
+		private void append(final StringBuilder sb, final String name, final Histogram histogram, final long errors) {
+			sb.append(String.format("%-18s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), errors,
+					histogram.getTotalCount() * 1e9 / this.elapsedNanos, millis(histogram, 50), millis(histogram, 90),
+					millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+		}
+
+		private static double millis(final Histogram histogram, final double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1000.0;
+		}
+	}
+
+	private final Target target;
+	private final Endpoint[] mix;
+	private final List<RecommendRequest> corpus;
+	private final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+
+	/**
+	 * @param target where to send requests
+	 * @param mix the weight of each {@link Endpoint}
+	 * @param corpus the positions to send or <code>null</code> to play games
+	 */
+	public LoadGenerator(final Target target, final Map<Endpoint, Integer> mix, final List<RecommendRequest> corpus) {
+		this.target = target;
+		final List<Endpoint> endpoints = new ArrayList<>();
+		mix.forEach((endpoint, weight) -> endpoints.addAll(Collections.nCopies(weight, endpoint)));
+		if (endpoints.isEmpty()) {
+			throw new IllegalArgumentException("The mix doesn't include any endpoint");
+		}
+		this.mix = endpoints.toArray(new Endpoint[0]);
+		this.corpus = corpus;
+	}
+
+	/**
+	 * Plays the games until the warm up and measured time are over.
+	 * @param games the number of games played at once, each on its own thread
+	 * @param warmUpMillis how long to run before measuring
+	 * @param millis how long to measure for
+	 * @return what was measured
+	 */
+	public Report run(final int games, final long warmUpMillis, final long millis) {
+		final Report report = new Report();
+		final long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmUpMillis);
+		final long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(millis);
+		final Thread[] threads = new Thread[games];
+		for (int i = 0; i < games; i++) {
+			final long seed = i;
+			threads[i] = new Thread(() -> report.add(play(new Random(seed), measureFrom, end)), "load-" + (i + 1));
+			threads[i].start();
+		}
+		for (final Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the games to finish", e);
+			}
+		}
+		report.elapsedNanos = Math.max(1, System.nanoTime() - measureFrom);
+		return report;
+	}
+
+	/**
+	 * One game's requests, one after another, starting a new game when one ends.
+	 */
+	private Report play(final Random random, final long measureFrom, final long end) {
+		final Report report = new Report();
+		Board board = null;
+		Disc human = null;
+		Integer recordedColumn = null;
+		long now;
+		while ((now = System.nanoTime()) < end) {
+			if (board == null) {
+				if (this.corpus == null) {
+					board = new Board(7, 6);
+					human = random.nextBoolean() ? Disc.YELLOW : Disc.RED;
+				} else {
+					final RecommendRequest position = this.corpus.get(random.nextInt(this.corpus.size()));
+					board = new Board(position.getBoard());
+					human = position.getCurrentPlayer();
+					recordedColumn = position instanceof PlayRequest ? ((PlayRequest) position).getColumn() : null;
+				}
+			}
+			final Endpoint endpoint = this.mix[random.nextInt(this.mix.length)];
+			final int column;
+			if (recordedColumn == null) {
+				final List<Integer> freeColumns = WarmUp.getFreeColumns(board);
+				column = freeColumns.get(random.nextInt(freeColumns.size()));
+			} else {
+				column = recordedColumn;
+			}
+			try {
+				if (send(endpoint, board, human, column, now >= measureFrom ? report : null) || this.corpus != null) {
+					board = null;
+				}
+			} catch (final IOException | RuntimeException e) {
+				if (now >= measureFrom) {
+					report.errors[endpoint.ordinal()]++;
+				}
+				board = null;
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Sends the human's move and plays the AI's reply on the board.
+	 * @param report where to record the latency or <code>null</code> during the warm up
+	 * @return <code>true</code> if the game is over
+	 */
+	private boolean send(final Endpoint endpoint, final Board board, final Disc human, final int column, final Report report)
+			throws IOException {
+		final Disc ai = Disc.getOpposite(human);
+		if (endpoint == Endpoint.RECOMMEND && this.corpus == null) {
+			// The human's move is played here and the AI's is recommended
+			if (play(board, column, human)) {
+				return true;
+			}
+			final Integer aiColumn = time(endpoint, toRequestJson("recommend", board, ai, null), "recommendColumn", report);
+			return aiColumn == null || play(board, aiColumn, ai);
+		}
+		if (endpoint == Endpoint.RECOMMEND) {
+			time(endpoint, toRequestJson("recommend", board, human, null), "recommendColumn", report);
+			return true;
+		}
+		final Integer aiColumn = time(endpoint, toRequestJson("next", board, human, column), "aiCol", report);
+		return play(board, column, human) || aiColumn == null || play(board, aiColumn, ai);
+	}
+
+	/**
+	 * @return <code>true</code> if the move ends the game
+	 */
+	private static boolean play(final Board board, final int column, final Disc disc) {
+		final int row;
+		try {
+			row = board.putDisc(column, disc);
+		} catch (final IllegalMoveException e) {
+			throw new IllegalStateException("The server played a full column " + column, e);
+		}
+		return BoardHelper.hasWinner(board, new Move(disc, column, row)) != null || board.isFull();
+	}
+
+	/**
+	 * Sends the request, recording how long it took.
+	 * @param columnField the field of the response with the AI's column
+	 * @return the AI's column or <code>null</code> if it didn't move
+	 * @throws IOException if the request failed or the response has an exception
+	 */
+	private Integer time(final Endpoint endpoint, final byte[] request, final String columnField, final Report report)
+			throws IOException {
+		final long start = System.nanoTime();
+		final byte[] response = this.target.send(endpoint, request);
+		if (report != null) {
+			report.latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		}
+		Integer column = null;
+		final JsonParser parser = this.factory.getParser(new ByteArrayInputStream(response));
+		parser.nextToken();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = parser.getCurrentName();
+			final JsonToken token = parser.nextToken();
+			if ("exception".equals(fieldName) && token == JsonToken.START_OBJECT) {
+				throw new IOException(
+						endpoint.getPath() + " answered with an exception: " + new String(response, StandardCharsets.UTF_8));
+			} else if (columnField.equals(fieldName) && token == JsonToken.VALUE_NUMBER_INT) {
+				column = parser.getIntValue();
+			}
+			parser.skipChildren();
+		}
+		parser.close();
+		return column != null && column >= 0 ? column : null;
+	}
+
+	private byte[] toRequestJson(final String action, final Board board, final Disc currentPlayer, final Integer column)
+			throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final JsonGenerator g = this.factory.getGenerator(output);
+		g.writeStartObject();
+		g.writeStringField("action", action);
+		g.writeStringField("currentPlayer", "" + currentPlayer.getSymbol());
+		this.factory.serialize(g, board);
+		if (column != null) {
+			g.writeNumberField("column", column);
+		}
+		g.writeEndObject();
+		g.close();
+		return output.toByteArray();
+	}
+
+	/**
+	 * @param mix e.g. <code>next=2,play=1,recommend=1</code>. Endpoints which aren't mentioned aren't used.
+	 * @return the weight of each {@link Endpoint}, equal if the mix is blank
+	 */
+	static Map<Endpoint, Integer> parseMix(final String mix) {
+		final Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+		if (StringUtils.isBlank(mix)) {
+			for (final Endpoint endpoint : Endpoint.values()) {
+				weights.put(endpoint, 1);
+			}
+			return weights;
+		}
+		for (final String entry : mix.split(",")) {
+			final String[] nameAndWeight = entry.split("=");
+			if (nameAndWeight.length != 2 || !NumberUtils.isDigits(nameAndWeight[1].trim())) {
+				throw new IllegalArgumentException("Expected endpoint=weight in the mix but was '" + entry + "'");
+			}
+			weights.put(Endpoint.valueOf(nameAndWeight[0].trim().toUpperCase()), Integer.parseInt(nameAndWeight[1].trim()));
+		}
+		return weights;
+	}
+
+	/**
+	 * @param file one JSON "recommend" or "next" request per line
+	 * @return the positions which aren't won or full
+	 */
+	static List<RecommendRequest> loadCorpus(final File file) throws IOException {
+		final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+		final List<RecommendRequest> corpus = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				final Serializable request = factory.deserialiseGenericRequest(factory.getParser(line));
+				if (!(request instanceof RecommendRequest)) {
+					throw new IOException("Expected a \"recommend\" or \"next\" request but was: " + line);
+				}
+				corpus.add((RecommendRequest) request);
+			}
+		}
+		return playable(corpus);
+	}
+
+	private static List<RecommendRequest> playable(final List<RecommendRequest> positions) {
+		final List<RecommendRequest> playable = new ArrayList<>();
+		for (final RecommendRequest position : positions) {
+			if (BoardHelper.hasWinner(position.getBoard()) == null && !position.getBoard().isFull()) {
+				playable.add(position);
+			}
+		}
+		if (playable.isEmpty()) {
+			throw new IllegalArgumentException("The corpus doesn't have any positions which can be played");
+		}
+		return playable;
+	}
+
+	/**
+	 * Usage: <code>LoadGenerator [in-process|http|&lt;url&gt;] [self-play|warm-up|&lt;corpus file&gt;]</code>
+	 */
+	public static void main(final String[] args) throws IOException {
+		final String targetName = args.length > 0 ? args[0] : "in-process";
+		final String source = args.length > 1 ? args[1] : "self-play";
+		final List<RecommendRequest> corpus;
+		if ("self-play".equals(source)) {
+			corpus = null;
+		} else if ("warm-up".equals(source)) {
+			corpus = playable(WarmUp.loadCorpus());
+		} else {
+			corpus = loadCorpus(new File(source));
+		}
+
+		LocalBoardStore store = null;
+		final Target target;
+		if ("in-process".equals(targetName) || "http".equals(targetName)) {
+			final String localStoreFile = System.getenv(RestServer.ENV_LOCAL_STORE_FILE);
+			AbstractBoardForwarder forwarder = SinkBoardForwader.INSTANCE;
+			if (StringUtils.isNotBlank(localStoreFile)) {
+				store = new LocalBoardStore(new File(localStoreFile));
+				forwarder = new AwsStoreHandlerForwarder(store);
+			}
+			final AnalysisLimiter limiter = new AnalysisLimiter();
+			final GameHandler handler = RestServer.createGameHandler(forwarder, limiter);
+			if ("http".equals(targetName)) {
+				RestServer.start(handler, limiter);
+				Spark.awaitInitialization();
+				target = new HttpTarget("http://localhost:" + Spark.port());
+			} else {
+				target = new InProcessTarget(handler);
+			}
+		} else if (targetName.startsWith("http://") || targetName.startsWith("https://")) {
+			target = new HttpTarget(StringUtils.removeEnd(targetName, "/"));
+		} else {
+			System.err.println("Usage: LoadGenerator [in-process|http|<url>] [self-play|warm-up|<corpus file>]");
+			System.exit(1);
+			return;
+		}
+
+		final int games = NumberUtils.toInt(System.getenv(ENV_LOAD_GAMES), 2 * Runtime.getRuntime().availableProcessors());
+		final int seconds = NumberUtils.toInt(System.getenv(ENV_LOAD_SECONDS), DEFAULT_SECONDS);
+		final int warmUpSeconds = NumberUtils.toInt(System.getenv(ENV_LOAD_WARM_UP_SECONDS), DEFAULT_WARM_UP_SECONDS);
+		final Map<Endpoint, Integer> mix = parseMix(System.getenv(ENV_LOAD_MIX));
+		System.out.println(String.format("Playing %d games at once against %s (%s, mix %s) for %d s after a %d s warm up", games,
+				targetName, source, mix, seconds, warmUpSeconds));
+		final Report report = new LoadGenerator(target, mix, corpus).run(games, TimeUnit.SECONDS.toMillis(warmUpSeconds),
+				TimeUnit.SECONDS.toMillis(seconds));
+		System.out.print(report);
+		if (store != null) {
+			store.close();
+		}
+		System.exit(0); // Jetty and the ponder threads would keep running
+	}
+}
@@ -3,12 +3,20 @@ package connect4.rest;
 import static spark.Spark.exception;
 import static spark.Spark.externalStaticFileLocation;
 import static spark.Spark.post;
+import static spark.Spark.threadPool;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringWriter;
-import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.http.HttpStatus;
@@ -16,10 +24,18 @@ import org.eclipse.jetty.http.HttpStatus;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 
+import connect4.forwarder.AbstractBoardForwarder;
 import connect4.forwarder.AwsStoreHandlerForwarder;
+import connect4.forwarder.BoardLogForwarder;
+import connect4.store.local.LocalBoardStore;
+import connect4.web.GameAnalysisRequest;
+import connect4.web.GameAnalysisResponse;
 import connect4.web.GameHandler;
+import connect4.web.GameSessionStore;
 import connect4.web.PlayRequest;
 import connect4.web.PlayResponse;
+import connect4.web.RecommendBatch;
+import connect4.web.RecommendCoalescer;
 import connect4.web.RecommendRequest;
 import connect4.web.RecommendResponse;
 import spark.ExceptionHandler;
@@ -28,19 +44,66 @@ import spark.Response;
 import spark.Route;
 
 /**
- * Services REST requests encoded in JSON. Only used when run from Eclipse. See Lambda handlers for invocations into AWS.
+ * Services REST requests encoded in JSON. Only used when run from Eclipse. See Lambda handlers for invocations into AWS. Set the
+ * {@value #ENV_LOCAL_STORE_FILE} environment variable to store interesting boards in a {@link LocalBoardStore} instead of DynamoDB, or
+ * {@value #ENV_BOARD_LOG_DIR} to append them to a {@link BoardLogForwarder board log} for loading later.
+ * <p>
+ * While a human thinks about their move the AI's reply to each move they could make is worked out on {@value #ENV_PONDER_THREADS}
+ * threads (default: one less than the number of processors, 0 turns it off) so the reply is ready when the move arrives. Pondering only
+ * takes turns of the {@link AnalysisLimiter} which are free, and is dropped when they aren't.
+ * </p>
+ * <p>
+ * Clients can keep their game on the server: <code>/game/session</code> starts one and returns its <code>sessionId</code>, after which
+ * <code>/game/next</code> only needs <code>{"sessionId": ..., "column": ...}</code> and answers with the moves but not the boards.
+ * </p>
+ * <p>
+ * Jetty serves up to {@value #ENV_SERVER_THREADS} requests at once (default: Spark's). Requests which analyse boards also go through an
+ * {@link AnalysisLimiter} so they're capped at the number of cores and turned away with a 503 when too many are waiting. Responses are
+ * streamed to the client.
+ * </p>
  */
 public class RestServer {
 
+	public static final String ENV_LOCAL_STORE_FILE = "LOCAL_STORE_FILE";
+	public static final String ENV_BOARD_LOG_DIR = "BOARD_LOG_DIR";
+	public static final String ENV_PONDER_THREADS = "PONDER_THREADS";
+	public static final String ENV_SERVER_THREADS = "SERVER_THREADS";
+
 	private static final Logger LOGGER = LogManager.getLogger();
+	private static final int PONDER_QUEUE_SIZE = 256;
 
 	public static void main(final String[] args) {
-		final GameHandler gameHandler = new GameHandler(new AwsStoreHandlerForwarder());
+		final AnalysisLimiter limiter = new AnalysisLimiter();
+		start(createGameHandler(createForwarder(), limiter), limiter);
+	}
+
+	/**
+	 * @param forwarder receives interesting boards
+	 * @param limiter the {@link AnalysisLimiter} the requests will use, pondering only uses its free turns
+	 * @return a {@link GameHandler} set up the way the server uses it
+	 */
+	static GameHandler createGameHandler(final AbstractBoardForwarder forwarder, final AnalysisLimiter limiter) {
+		return new GameHandler(forwarder, new RecommendCoalescer(), createPonderExecutor(limiter), new GameSessionStore());
+	}
+
+	/**
+	 * Maps the routes and starts Jetty on Spark's port (4567 unless it's been changed). Returns straight away, see
+	 * {@link spark.Spark#awaitInitialization()}.
+	 * @param gameHandler handles the requests
+	 * @param limiter caps the analysing requests
+	 */
+	static void start(final GameHandler gameHandler, final AnalysisLimiter limiter) {
 		final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+		final RecommendBatch batch = new RecommendBatch(gameHandler, limiter);
+
+		final int serverThreads = NumberUtils.toInt(System.getenv(ENV_SERVER_THREADS));
+		if (serverThreads > 0) {
+			threadPool(serverThreads);
+		}
 
 		externalStaticFileLocation("src/main/webapp");
 
-		post("/board/recommend", new Route() {
+		post("/board/recommend", limit(limiter, new Route() {
 			@Override
 			public Object handle(final Request req, final Response res) throws IOException {
 				final JsonParser parser = factory.getParser(req.raw().getInputStream());
@@ -49,18 +112,72 @@ public class RestServer {
 
 				final RecommendResponse response = gameHandler.recommend(request);
 
-				final Writer writer = new StringWriter();
-				final JsonGenerator g = factory.getGenerator(writer);
+				final JsonGenerator g = startResponse(res);
+				factory.serialize(g, response);
+				g.close();
+				return "";
+			}
+		}));
+
+		/**
+		 * Recommends moves for a stream of requests, one JSON object per line, answering with a line for each in the same order. The batch
+		 * isn't turned away, each position waits its turn with the {@link AnalysisLimiter} instead.
+		 */
+		post("/board/recommend/batch", new Route() {
+			@Override
+			public Object handle(final Request req, final Response res) throws IOException {
+				final JsonParser parser = factory.getParser(req.raw().getInputStream());
+				res.type("application/x-ndjson");
+				final JsonGenerator g = factory.getLineGenerator(res.raw().getOutputStream());
+				batch.recommend(() -> factory.deserializeNextRecommendRequest(parser), response -> factory.serializeLine(g, response));
+				parser.close();
+				g.close();
+				return "";
+			}
+		});
+
+		/**
+		 * Reviews every move of a game: <code>{"currentPlayer": first player, "moves": [columns], "board": optional start}</code>.
+		 */
+		post("/game/analyse", limit(limiter, new Route() {
+			@Override
+			public Object handle(final Request req, final Response res) throws IOException {
+				final JsonParser parser = factory.getParser(req.raw().getInputStream());
+				final GameAnalysisRequest request = factory.deserializeGameAnalysisRequest(parser);
+				parser.close();
+
+				final GameAnalysisResponse response = gameHandler.analyseGame(request);
+
+				final JsonGenerator g = startResponse(res);
 				factory.serialize(g, response);
 				g.close();
-				return writer.toString();
+				return "";
+			}
+		}));
+
+		/**
+		 * Starts a game kept on the server. Takes the human's disc as <code>currentPlayer</code> and optionally the board to start from.
+		 */
+		post("/game/session", new Route() {
+			@Override
+			public Object handle(final Request req, final Response res) throws IOException {
+				final JsonParser parser = factory.getParser(req.raw().getInputStream());
+				final RecommendRequest request = factory.deserializeRecommendRequest(parser);
+				parser.close();
+
+				final PlayResponse response = gameHandler.startSession(request);
+
+				final JsonGenerator g = startResponse(res);
+				factory.serialize(g, response);
+				g.close();
+				return "";
 			}
 		});
 
 		/**
 		 * Processes the players move returning the new board and also the AI's move and the resulting board.
 		 */
-		post("/game/next", new Route() {
+		post("/game/next", limit(limiter, new Route() {
 			@Override
 			public Object handle(final Request req, final Response res) throws IOException {
 				final JsonParser parser = factory.getParser(req.raw().getInputStream());
@@ -70,15 +187,14 @@ public class RestServer {
 				final PlayResponse response;
 				response = gameHandler.next(request);
 
-				final Writer writer = new StringWriter();
-				final JsonGenerator g = factory.getGenerator(writer);
+				final JsonGenerator g = startResponse(res);
 				factory.serialize(g, response);
 				g.close();
-				return writer.toString();
+				return "";
 			}
-		});
+		}));
 
-		post("/game/play", new Route() {
+		post("/game/play", limit(limiter, new Route() {
 			@Override
 			public Object handle(final Request req, final Response res) throws Exception {
 
@@ -86,10 +202,10 @@ public class RestServer {
 				final Serializable genericRequest = factory.deserialiseGenericRequest(parser);
 				parser.close();
 
-				final Writer writer = new StringWriter();
-				final JsonGenerator g = factory.getGenerator(writer);
-
-				if (genericRequest instanceof PlayRequest) {
+				final JsonGenerator g = startResponse(res);
+				if (genericRequest instanceof GameAnalysisRequest) {
+					factory.serialize(g, gameHandler.analyseGame((GameAnalysisRequest) genericRequest));
+				} else if (genericRequest instanceof PlayRequest) {
 					final PlayResponse response = gameHandler.next((PlayRequest) genericRequest);
 					factory.serialize(g, response);
 				} else if (genericRequest instanceof RecommendRequest) {
@@ -97,9 +213,9 @@ public class RestServer {
 					factory.serialize(g, response);
 				}
 				g.close();
-				return writer.toString();
+				return "";
 			}
-		});
+		}));
 
 		// Generic exception handler
 		exception(Exception.class, new ExceptionHandler<>() {
@@ -131,4 +247,87 @@ public class RestServer {
 			}
 		});
 	}
+
+	/**
+	 * Starts a JSON response which is written straight to the client rather than built up in memory first. Close the generator then
+	 * return <code>""</code> from the {@link Route}, Spark doesn't write anything once the response has been committed.
+	 */
+	private static JsonGenerator startResponse(final Response res) throws IOException {
+		res.type("application/json");
+		return WebJsonStreamingObjectFactory.getInstance().getGenerator(res.raw().getOutputStream());
+	}
+
+	/**
+	 * Wraps a CPU bound {@link Route} so it waits its turn with the {@link AnalysisLimiter}, or answers 503 if too many are waiting.
+	 */
+	private static Route limit(final AnalysisLimiter limiter, final Route route) {
+		return (req, res) -> {
+			if (!limiter.acquire()) {
+				res.status(HttpStatus.SERVICE_UNAVAILABLE_503);
+				res.header("Retry-After", "1");
+				final JsonGenerator g = startResponse(res);
+				g.writeStartObject();
+				g.writeStringField("message", "Too many requests are waiting to be analysed, try again later");
+				g.writeEndObject();
+				g.close();
+				return "";
+			}
+			try {
+				return route.handle(req, res);
+			} finally {
+				limiter.release();
+			}
+		};
+	}
+
+	/**
+	 * @param limiter pondering only runs when it has a turn free
+	 * @return an {@link Executor} which drops the oldest work when it's busy, newer games are more likely to need it. <code>null</code>
+	 *         if pondering is turned off.
+	 */
+	private static Executor createPonderExecutor(final AnalysisLimiter limiter) {
+		final int threads = NumberUtils.toInt(System.getenv(ENV_PONDER_THREADS), Runtime.getRuntime().availableProcessors() - 1);
+		if (threads <= 0) {
+			return null;
+		}
+		final AtomicInteger count = new AtomicInteger();
+		// Thread priorities are ignored on Linux so requests come first by pondering only with turns nobody wants
+		return limiter.whenIdle(new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(PONDER_QUEUE_SIZE), runnable -> {
+					final Thread thread = new Thread(runnable, "ponder-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.DiscardOldestPolicy()));
+	}
+
+	private static AbstractBoardForwarder createForwarder() {
+		final String boardLogDir = System.getenv(ENV_BOARD_LOG_DIR);
+		if (StringUtils.isNotBlank(boardLogDir)) {
+			try {
+				final BoardLogForwarder forwarder = new BoardLogForwarder(new File(boardLogDir));
+				LOGGER.info("Appending interesting boards to board log '" + boardLogDir + "'");
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						forwarder.close();
+					} catch (final IOException e) {
+						LOGGER.warn("Could not close board log '" + boardLogDir + "'", e);
+					}
+				}));
+				return forwarder;
+			} catch (final IOException e) {
+				throw new RuntimeException("Could not open board log '" + boardLogDir + "'", e);
+			}
+		}
+		final String localStoreFile = System.getenv(ENV_LOCAL_STORE_FILE);
+		if (StringUtils.isBlank(localStoreFile)) {
+			return new AwsStoreHandlerForwarder();
+		}
+		try {
+			final LocalBoardStore store = new LocalBoardStore(new File(localStoreFile));
+			LOGGER.info("Storing interesting boards in local store '" + localStoreFile + "' which has " + store.size() + " boards");
+			return new AwsStoreHandlerForwarder(store);
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not open local board store '" + localStoreFile + "'", e);
+		}
+	}
 }
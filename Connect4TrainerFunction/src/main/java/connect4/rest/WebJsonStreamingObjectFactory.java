@@ -1,6 +1,7 @@
 package connect4.rest;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -9,11 +10,17 @@ import com.fasterxml.jackson.core.JsonToken;
 
 import connect4.api.json.JsonStreamingObjectFactory;
 import connect4.api.json.WarmRequest;
+import connect4.trainer.MoveReview;
+import connect4.trainer.Recommendation;
+import connect4.web.GameAnalysisRequest;
+import connect4.web.GameAnalysisResponse;
 import connect4.web.GameState;
 import connect4.web.PlayRequest;
 import connect4.web.PlayResponse;
+import connect4.web.RecommendBatchRequest;
 import connect4.web.RecommendRequest;
 import connect4.web.RecommendResponse;
+import connect4.web.WarmUp;
 
 /**
  * Extends {@link JsonStreamingObjectFactory} to handle JSON (de)serialising for web REST requests.
@@ -33,11 +40,29 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 			serialize(g, recommendResponse.getState());
 			g.writeNumberField("recommendColumn", recommendResponse.getRecommendColumn());
 			g.writeNumberField("recommendRow", recommendResponse.getRecommendRow());
+			if (recommendResponse.getRecommendation() != null) {
+				serialize(g, recommendResponse.getRecommendation());
+			}
 		}
 		serialize(g, recommendResponse.getBoard());
 		g.writeEndObject();
 	}
 
+	/**
+	 * Serialises the explanation compactly as arrays in rank order: the columns, their scores and flags, then the forced line.
+	 */
+	private void serialize(final JsonGenerator g, final Recommendation recommendation) throws IOException {
+		writeArrayField(g, "columns", recommendation.getColumns());
+		writeArrayField(g, "scores", recommendation.getScores());
+		writeArrayField(g, "flags", recommendation.getFlags());
+		writeArrayField(g, "forcedLine", recommendation.getForcedLine());
+	}
+
+	private static void writeArrayField(final JsonGenerator g, final String fieldName, final int[] values) throws IOException {
+		g.writeFieldName(fieldName);
+		g.writeArray(values, 0, values.length);
+	}
+
 	public RecommendRequest deserializeRecommendRequest(final JsonParser jp) throws IOException {
 		if (!JsonToken.START_OBJECT.equals(jp.nextToken())) {
 			throw new IOException("Could not parse RecommendRequest. Does not appear to be JSON.");
@@ -45,6 +70,23 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 		return doDeserializeRecommendRequest(jp);
 	}
 
+	/**
+	 * Reads the next of a stream of requests, e.g. newline delimited JSON (one request per line).
+	 * @param jp the {@link JsonParser} positioned before the request
+	 * @return the request or <code>null</code> at the end of the stream
+	 * @throws IOException if the next value isn't a request
+	 */
+	public RecommendRequest deserializeNextRecommendRequest(final JsonParser jp) throws IOException {
+		final JsonToken token = jp.nextToken();
+		if (token == null) {
+			return null;
+		} else if (!JsonToken.START_OBJECT.equals(token)) {
+			throw new IOException("Could not parse RecommendRequest. Expected an object but was " + token + " at "
+					+ jp.getTokenLocation().toString());
+		}
+		return doDeserializeRecommendRequest(jp);
+	}
+
 	private RecommendRequest doDeserializeRecommendRequest(final JsonParser jp) throws IOException {
 		final RecommendRequest result = new RecommendRequest();
 		while (jp.nextToken() == JsonToken.FIELD_NAME) {
@@ -54,24 +96,55 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 				result.setCurrentPlayer(deserializeDisc(jp));
 			} else if ("board".equals(fieldName)) {
 				result.setBoard(deserializeBoard(jp));
+			} else if ("explain".equals(fieldName)) {
+				result.setExplain(jp.getBooleanValue());
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * @param outputStream where to write
+	 * @return a {@link JsonGenerator} for newline delimited JSON, see {@link #serializeLine(JsonGenerator, RecommendResponse)}
+	 * @throws IOException if the generator can't be created
+	 */
+	public JsonGenerator getLineGenerator(final OutputStream outputStream) throws IOException {
+		final JsonGenerator g = getGenerator(outputStream);
+		g.setRootValueSeparator(null); // each value ends with a new line instead
+		return g;
+	}
+
+	/**
+	 * Writes the response as one line of newline delimited JSON and flushes it so the client gets it straight away.
+	 * @param g a {@link JsonGenerator} from {@link #getLineGenerator(OutputStream)}
+	 * @param recommendResponse the response to write
+	 * @throws IOException if the response can't be written
+	 */
+	public void serializeLine(final JsonGenerator g, final RecommendResponse recommendResponse) throws IOException {
+		serialize(g, recommendResponse);
+		g.writeRaw('\n');
+		g.flush();
+	}
+
 	public void serialize(final JsonGenerator g, final PlayResponse playResponse) throws IOException {
 		g.writeStartObject();
 		if (playResponse.getException() != null) {
 			serialize(g, playResponse.getException());
 		}
 		serialize(g, playResponse.getState());
-		serialize(g, playResponse.getPlayerBoard(), "playerBoard");
+		if (playResponse.getSessionId() == null) {
+			serialize(g, playResponse.getPlayerBoard(), "playerBoard");
+		} else {
+			g.writeStringField("sessionId", playResponse.getSessionId()); // the client has the boards, it only needs the moves
+		}
 		if (playResponse.getPlayerRow() == null) {
 			g.writeNullField("playerRow");
 		} else {
 			g.writeNumberField("playerRow", playResponse.getPlayerRow());
 		}
-		serialize(g, playResponse.getAiBoard(), "aiBoard");
+		if (playResponse.getSessionId() == null) {
+			serialize(g, playResponse.getAiBoard(), "aiBoard");
+		}
 		if (playResponse.getAiCol() == null) {
 			g.writeNullField("aiCol");
 		} else {
@@ -85,6 +158,70 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 		g.writeEndObject();
 	}
 
+	public GameAnalysisRequest deserializeGameAnalysisRequest(final JsonParser jp) throws IOException {
+		if (!JsonToken.START_OBJECT.equals(jp.nextToken())) {
+			throw new IOException("Could not parse GameAnalysisRequest. Does not appear to be JSON.");
+		}
+		return doDeserializeGameAnalysisRequest(jp);
+	}
+
+	private GameAnalysisRequest doDeserializeGameAnalysisRequest(final JsonParser jp) throws IOException {
+		final GameAnalysisRequest result = new GameAnalysisRequest();
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = jp.getCurrentName();
+			jp.nextToken();
+			if ("currentPlayer".equals(fieldName)) {
+				result.setCurrentPlayer(deserializeDisc(jp));
+			} else if ("board".equals(fieldName)) {
+				result.setBoard(deserializeBoard(jp));
+			} else if ("moves".equals(fieldName)) {
+				while (jp.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+					result.getMoves().add(jp.getIntValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Serialises the review of each move compactly: the disc, column played, its flags, the best columns, their flags and whether it was a
+	 * blunder.
+	 */
+	public void serialize(final JsonGenerator g, final GameAnalysisResponse gameAnalysisResponse) throws IOException {
+		g.writeStartObject();
+		if (gameAnalysisResponse.getException() != null) {
+			serialize(g, gameAnalysisResponse.getException());
+		}
+		serialize(g, gameAnalysisResponse.getState());
+		g.writeArrayFieldStart("moves");
+		for (final MoveReview review : gameAnalysisResponse.getMoves()) {
+			g.writeStartObject();
+			serialize(g, review.getPlayer());
+			g.writeNumberField("col", review.getColumn());
+			g.writeNumberField("flags", review.getFlags());
+			writeArrayField(g, "best", review.getBestColumns());
+			g.writeNumberField("bestFlags", review.getBestFlags());
+			g.writeBooleanField("blunder", review.isBlunder());
+			g.writeEndObject();
+		}
+		g.writeEndArray();
+		g.writeEndObject();
+	}
+
+	public void serialize(final JsonGenerator g, final WarmUp.Report report) throws IOException {
+		g.writeStartObject();
+		g.writeStringField("status", "warm");
+		g.writeNumberField("iterations", report.getIterations());
+		g.writeNumberField("requests", report.getRequests());
+		g.writeNumberField("elapsedMs", report.getElapsedMillis());
+		g.writeObjectFieldStart("phaseMs");
+		for (final WarmUp.Phase phase : WarmUp.Phase.values()) {
+			g.writeNumberField(phase.name().toLowerCase(), report.getMillis(phase));
+		}
+		g.writeEndObject();
+		g.writeEndObject();
+	}
+
 	private void serialize(final JsonGenerator g, final GameState state) throws IOException {
 		g.writeStringField("gameState", "" + state.ordinal());
 	}
@@ -107,6 +244,8 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 				result.setBoard(deserializeBoard(jp));
 			} else if ("column".equals(fieldName)) {
 				result.setColumn(jp.getIntValue());
+			} else if ("sessionId".equals(fieldName)) {
+				result.setSessionId(jp.getValueAsString());
 			}
 		}
 		return result;
@@ -127,6 +266,10 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 					return doDeserializeRecommendRequest(jp);
 				} else if ("warm".equals(action)) {
 					return new WarmRequest();
+				} else if ("analyseGame".equals(action)) {
+					return doDeserializeGameAnalysisRequest(jp);
+				} else if ("recommendBatch".equals(action)) {
+					return doDeserializeRecommendBatchRequest(jp);
 				}
 			}
 		}
@@ -134,6 +277,25 @@ public class WebJsonStreamingObjectFactory extends JsonStreamingObjectFactory {
 				+ jp.getTokenLocation().toString());
 	}
 
+	/**
+	 * Reads the "requests" array of a batch, the current token should be the field after the action.
+	 */
+	private RecommendBatchRequest doDeserializeRecommendBatchRequest(final JsonParser jp) throws IOException {
+		final RecommendBatchRequest result = new RecommendBatchRequest();
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			final String fieldName = jp.getCurrentName();
+			jp.nextToken();
+			if ("requests".equals(fieldName)) {
+				while (jp.nextToken() == JsonToken.START_OBJECT) {
+					result.getRequests().add(doDeserializeRecommendRequest(jp));
+				}
+			} else {
+				jp.skipChildren();
+			}
+		}
+		return result;
+	}
+
 	public static WebJsonStreamingObjectFactory getInstance() {
 		return INSTANCE;
 	}
@@ -18,6 +18,19 @@ public class ColumnAnalyserFactory {
 
 	public static abstract class ColumnAnalyser {
 
+		private final String name;
+
+		/**
+		 * @param name identifies the analyser, e.g. in benchmarks
+		 */
+		ColumnAnalyser(final String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
 		/**
 		 * Flags the given column position with various facts (flags). For example, will playing in the column win the game? Or will playing
 		 * in the column let opponent play ontop of my disc and win? The flags have no meaning, they're scored by the
@@ -35,7 +48,7 @@ public class ColumnAnalyserFactory {
 	}
 
 	/** Unplayable or win now */
-	private static final ColumnAnalyser WIN_NOW = new ColumnAnalyser() {
+	private static final ColumnAnalyser WIN_NOW = new ColumnAnalyser("WIN_NOW") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			int row = -1;
@@ -57,7 +70,7 @@ public class ColumnAnalyserFactory {
 	};
 
 	/** Playing here blocks opponent from winning in their next move */
-	private static final ColumnAnalyser BLOCK_LOSS_1 = new ColumnAnalyser() {
+	private static final ColumnAnalyser BLOCK_LOSS_1 = new ColumnAnalyser("BLOCK_LOSS_1") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			final Disc opponentDisc = Disc.getOpposite(currentPlayer);
@@ -71,7 +84,7 @@ public class ColumnAnalyserFactory {
 	};
 
 	/** Playing here allows the opponent to win by playing above us */
-	private static final ColumnAnalyser ENABLE_OPPONENT_WIN = new ColumnAnalyser() {
+	private static final ColumnAnalyser ENABLE_OPPONENT_WIN = new ColumnAnalyser("ENABLE_OPPONENT_WIN") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			final Board newBoard = new Board(board);
@@ -99,7 +112,7 @@ public class ColumnAnalyserFactory {
 	};
 
 	/** Playing here gives us more than one different column to win (i.e. execute a trap) */
-	private static final ColumnAnalyser TRAP_MORE_THAN_ONE = new ColumnAnalyser() {
+	private static final ColumnAnalyser TRAP_MORE_THAN_ONE = new ColumnAnalyser("TRAP_MORE_THAN_ONE") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			final Board newBoard = new Board(board);
@@ -114,17 +127,17 @@ public class ColumnAnalyserFactory {
 			final int startColumn = BoardHelper.getMinColumnSpan(board, column);
 			final int endColumn = BoardHelper.getMaxColumnSpan(board, column);
 			for (int i = startColumn; i <= endColumn; i++) {
-				// A board two moves ahead
-				final Board newBoard2Ahead = new Board(newBoard);
+				// Two moves ahead, taken back again afterwards
 				int row;
 				try {
-					row = newBoard2Ahead.putDisc(i, currentPlayer);
+					row = newBoard.putDisc(i, currentPlayer);
 				} catch (final IllegalMoveException e) {
 					continue;
 				}
-				if (currentPlayer.equals(BoardHelper.hasWinner(newBoard2Ahead, new Move(currentPlayer, i, row)))) {
+				if (currentPlayer.equals(BoardHelper.hasWinner(newBoard, new Move(currentPlayer, i, row)))) {
 					winCounter++;
 				}
+				newBoard.removeDisc(i);
 			}
 
 			if (winCounter > 1) {
@@ -138,7 +151,7 @@ public class ColumnAnalyserFactory {
 	/**
 	 * Playing here blocks the opponent gaining more than one different column to win (i.e. execute a trap)
 	 */
-	private static final ColumnAnalyser BLOCK_TRAP_MORE_THAN_ONE = new ColumnAnalyser() {
+	private static final ColumnAnalyser BLOCK_TRAP_MORE_THAN_ONE = new ColumnAnalyser("BLOCK_TRAP_MORE_THAN_ONE") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			final Disc opponentDisc = Disc.getOpposite(currentPlayer);
@@ -156,7 +169,7 @@ public class ColumnAnalyserFactory {
 	 * 4-in-a-row. I.e. someone has to play below that spot first. This could set up a win later or at least shut down the column. Also
 	 * flags double 3-in-a-row setups where playing in the column creates one 3-in-a-row setup ontop of another.
 	 */
-	private static final ColumnAnalyser MAKE_3_SETUP = new ColumnAnalyser() {
+	private static final ColumnAnalyser MAKE_3_SETUP = new ColumnAnalyser("MAKE_3_SETUP") {
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
 			int row;
@@ -256,7 +269,7 @@ public class ColumnAnalyserFactory {
 	/**
 	 * Blocks the opponent from setting up a 3-in-a-row.
 	 */
-	private static final ColumnAnalyser BLOCK_MAKE_3_SETUP = new ColumnAnalyser() {
+	private static final ColumnAnalyser BLOCK_MAKE_3_SETUP = new ColumnAnalyser("BLOCK_MAKE_3_SETUP") {
 
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
@@ -275,7 +288,7 @@ public class ColumnAnalyserFactory {
 	/**
 	 * Check if the bottom center column if free
 	 */
-	private static final ColumnAnalyser BOTTOM_CENTER = new ColumnAnalyser() {
+	private static final ColumnAnalyser BOTTOM_CENTER = new ColumnAnalyser("BOTTOM_CENTER") {
 
 		@Override
 		public boolean flag(final Board board, final Disc currentPlayer, final int column, final ColumnAnalysis currentAnalysis) {
@@ -304,4 +317,18 @@ public class ColumnAnalyserFactory {
 	public static List<ColumnAnalyser> getAnalysers() {
 		return ANALYSERS;
 	}
+
+	/**
+	 * @param name the name of the analyser, see {@link ColumnAnalyser#getName()}
+	 * @return the {@link ColumnAnalyser}
+	 * @throws IllegalArgumentException if there's no such analyser
+	 */
+	public static ColumnAnalyser getAnalyser(final String name) {
+		for (final ColumnAnalyser analyser : ANALYSERS) {
+			if (analyser.getName().equals(name)) {
+				return analyser;
+			}
+		}
+		throw new IllegalArgumentException("No such analyser: " + name);
+	}
 }
@@ -0,0 +1,75 @@
+package connect4.trainer;
+
+import java.io.Serializable;
+
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+
+/**
+ * How a move that was played compares with what the {@link Trainer} would have played, see
+ * {@link Trainer#review(connect4.api.Board, Disc, int)}.
+ */
+public class MoveReview implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Disc player;
+	private final int column;
+	private final int flags;
+	private final int[] bestColumns;
+	private final int bestFlags;
+	private final boolean blunder;
+
+	MoveReview(final Disc player, final ColumnAnalysis played, final BoardAnalysis best, final boolean blunder) {
+		this.player = player;
+		this.column = played.getColumn();
+		this.flags = played.getFlags();
+		this.bestColumns = best.stream().mapToInt(ColumnAnalysis::getColumn).toArray();
+		this.bestFlags = best.get(0).getFlags();
+		this.blunder = blunder;
+	}
+
+	/**
+	 * @return the {@link Disc} of the player who made the move
+	 */
+	public Disc getPlayer() {
+		return this.player;
+	}
+
+	/**
+	 * @return the column played (0-based)
+	 */
+	public int getColumn() {
+		return this.column;
+	}
+
+	/**
+	 * @return the {@link ColumnAnalysis} flags of the column played
+	 */
+	public int getFlags() {
+		return this.flags;
+	}
+
+	/**
+	 * @return the columns the {@link Trainer} scores best (0-based). Any of them would have been recommended.
+	 */
+	public int[] getBestColumns() {
+		return this.bestColumns;
+	}
+
+	/**
+	 * @return the {@link ColumnAnalysis} flags of the first best column
+	 */
+	public int getBestFlags() {
+		return this.bestFlags;
+	}
+
+	/**
+	 * @return <code>true</code> if the move threw away a win, missed a block or let the opponent win (see
+	 *         {@link ScoringAlgorithm#isBlunder(int, int)})
+	 */
+	public boolean isBlunder() {
+		return this.blunder;
+	}
+}
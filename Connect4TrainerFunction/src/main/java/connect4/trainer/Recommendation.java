@@ -0,0 +1,122 @@
+package connect4.trainer;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+
+/**
+ * A recommended column and why: every column ranked by score with its flags, and the forced line when the {@link Trainer} found one. See
+ * {@link Trainer#explain(connect4.api.Board, connect4.api.Disc)}.
+ */
+public class Recommendation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final int[] NONE = new int[0];
+
+	private final int column;
+	private final int[] columns;
+	private final int[] scores;
+	private final int[] flags;
+	private final int[] forcedLine;
+
+	/**
+	 * A recommendation without an explanation.
+	 * @param column the recommended column (0-based)
+	 */
+	public Recommendation(final int column) {
+		this(column, NONE, NONE, NONE, NONE);
+	}
+
+	Recommendation(final int column, final int[] columns, final int[] scores, final int[] flags, final int[] forcedLine) {
+		this.column = column;
+		this.columns = columns;
+		this.scores = scores;
+		this.flags = flags;
+		this.forcedLine = forcedLine;
+	}
+
+	/**
+	 * @return the recommended column (0-based)
+	 */
+	public int getColumn() {
+		return this.column;
+	}
+
+	/**
+	 * @return every column (0-based), best first. Columns that score the same are in column order.
+	 */
+	public int[] getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return the {@link ScoringAlgorithm} score of each of {@link #getColumns()}
+	 */
+	public int[] getScores() {
+		return this.scores;
+	}
+
+	/**
+	 * @return the {@link connect4.api.analysis.ColumnAnalysis} flags of each of {@link #getColumns()}
+	 */
+	public int[] getFlags() {
+		return this.flags;
+	}
+
+	/**
+	 * @return the moves of the forced win starting with the recommended column: ours and the opponent's in turn, ending with the column
+	 *         that wins (or sets the trap that does). Empty if there's no forced win.
+	 */
+	public int[] getForcedLine() {
+		return this.forcedLine;
+	}
+
+	/**
+	 * The best columns the same as the {@link Trainer} found them, e.g. to forward the board when the recommendation is reused.
+	 * @return a new {@link BoardAnalysis} of the columns with the top score in column order. Empty if there's no explanation.
+	 */
+	public BoardAnalysis getBestBoardAnalysis() {
+		final BoardAnalysis best = new BoardAnalysis();
+		for (int i = 0; i < this.columns.length && this.scores[i] == this.scores[0]; i++) {
+			final ColumnAnalysis analysis = new ColumnAnalysis(this.columns[i]);
+			analysis.setFlags(this.flags[i]);
+			best.add(analysis);
+		}
+		return best;
+	}
+
+	/**
+	 * @param numCols the number of columns of the board
+	 * @return this recommendation for the mirror image of the board
+	 */
+	public Recommendation mirror(final int numCols) {
+		final int[] mirroredColumns = mirror(numCols, this.columns);
+		final int[] mirroredFlags = this.flags.clone();
+		// Mirroring reverses the columns that score the same, put them back in column order
+		int start = 0;
+		for (int i = 1; i <= this.scores.length; i++) {
+			if (i == this.scores.length || this.scores[i] != this.scores[start]) {
+				ArrayUtils.reverse(mirroredColumns, start, i);
+				ArrayUtils.reverse(mirroredFlags, start, i);
+				start = i;
+			}
+		}
+		return new Recommendation(mirror(numCols, this.column), mirroredColumns, this.scores, mirroredFlags,
+				mirror(numCols, this.forcedLine));
+	}
+
+	private static int mirror(final int numCols, final int column) {
+		return column >= 0 ? numCols - 1 - column : column;
+	}
+
+	private static int[] mirror(final int numCols, final int[] columns) {
+		final int[] result = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			result[i] = mirror(numCols, columns[i]);
+		}
+		return result;
+	}
+}
@@ -1,5 +1,6 @@
 package connect4.trainer;
 
+import java.security.SecureRandom;
 import java.util.Random;
 
 import connect4.api.Board;
@@ -30,6 +31,14 @@ public abstract class Recommender {
 	 */
 	public abstract int recommend(final Board board, final Disc currentPlayer);
 
+	/**
+	 * Reseeds the tie breaking random number generator. Needed after a SnapStart restore, otherwise every container restored from the same
+	 * snapshot would break ties in exactly the same way.
+	 */
+	public void reseed() {
+		this.random.setSeed(new SecureRandom().nextLong());
+	}
+
 	/**
 	 * Reset the last analysis.
 	 */
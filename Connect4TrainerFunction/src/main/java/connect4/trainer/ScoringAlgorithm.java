@@ -20,6 +20,8 @@ import connect4.api.analysis.ColumnAnalysis;
 public class ScoringAlgorithm {
 
 	private static final Integer[] FLAGS_WINS = new Integer[] { ColumnAnalysis.FLAG_WIN_1, ColumnAnalysis.FLAG_TRAP_MORE_THAN_ONE };
+	/** Scores at least this good decide the game: win, block a loss, trap or force a win */
+	private static final int DECISIVE_SCORE = Integer.MAX_VALUE - 5;
 	private static final Integer[] FLAGS_FORCED = new Integer[] { ColumnAnalysis.FLAG_BLOCK_LOSS_1,
 			ColumnAnalysis.FLAG_BLOCK_TRAP_MORE_THAN_ONE };
 
@@ -69,6 +71,20 @@ public class ScoringAlgorithm {
 		return 0; // No opinion
 	}
 
+	/**
+	 * Checks whether a move was a blunder rather than just not the best: a decisive move (see {@link #score(ColumnAnalysis)}) was missed
+	 * or the move lets the opponent win.
+	 * @param playedScore the score of the column played
+	 * @param bestScore the score of the best column
+	 * @return <code>true</code> if it's a blunder, else <code>false</code>
+	 */
+	public boolean isBlunder(final int playedScore, final int bestScore) {
+		if (playedScore >= bestScore) {
+			return false;
+		}
+		return bestScore >= DECISIVE_SCORE || playedScore <= Integer.MIN_VALUE + 1;
+	}
+
 	/**
 	 * Checks whether there's any point doing any more analysis. Analysis stops early because:
 	 * <ol>
@@ -1,6 +1,7 @@
 package connect4.trainer;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import connect4.api.Board;
@@ -42,24 +43,138 @@ public class Trainer extends Recommender {
 		});
 	}
 
+	/**
+	 * Analyses the board and recommends where to play, like {@link #recommend(Board, Disc)}, and explains why from the same analysis.
+	 * @param board the {@link Board} to analyse.
+	 * @param currentPlayer the {@link Disc} of the current player
+	 * @return the recommended column, every column ranked with its score and flags, and the forced line if there is one
+	 */
+	public Recommendation explain(final Board board, final Disc currentPlayer) {
+		return AWSXRay.createSubsegment("trainer-explain", (subsegment) -> {
+			return doExplain(board, currentPlayer);
+		});
+	}
+
+	/**
+	 * Analyses the position before a move was played and compares the move with the best. The analysis is the same as
+	 * {@link #recommend(Board, Disc)}'s, interesting boards are forwarded too.
+	 * @param board the {@link Board} before the move. It isn't changed.
+	 * @param currentPlayer the {@link Disc} of the player who made the move
+	 * @param column the column played (0-based), must be playable
+	 * @return the {@link MoveReview}
+	 */
+	public MoveReview review(final Board board, final Disc currentPlayer, final int column) {
+		// Not getLastBoardAnalysis(), another thread could be using this trainer
+		final ScoredAnalysis analysis = analyse(board, currentPlayer, new ArrayList<>());
+		final ColumnAnalysis played = analysis.boardAnalysis.getAnalysisAtColumn(column);
+		final boolean blunder = this.scoringAlgorithm.isBlunder(analysis.scores[column], analysis.bestScore);
+		return new MoveReview(currentPlayer, played, analysis.bestBoardAnalysis, blunder);
+	}
+
 	private int doRecommend(final Board board, final Disc currentPlayer) {
+		return pick(analyse(board, currentPlayer, new ArrayList<>()).bestBoardAnalysis);
+	}
+
+	private Recommendation doExplain(final Board board, final Disc currentPlayer) {
+		final List<ForcedAnalysisResult> forcedAnalysisResults = new ArrayList<>();
+		final ScoredAnalysis analysis = analyse(board, currentPlayer, forcedAnalysisResults);
+		final int column = pick(analysis.bestBoardAnalysis);
+
+		// Rank every column, best first
+		final int[] scores = analysis.scores;
+		final List<ColumnAnalysis> ranked = new ArrayList<>(analysis.boardAnalysis);
+		ranked.sort((a, b) -> Integer.compare(scores[b.getColumn()], scores[a.getColumn()])); // stable, ties stay in column order
+		final int[] columns = new int[ranked.size()];
+		final int[] rankedScores = new int[ranked.size()];
+		final int[] flags = new int[ranked.size()];
+		for (int i = 0; i < ranked.size(); i++) {
+			columns[i] = ranked.get(i).getColumn();
+			rankedScores[i] = scores[columns[i]];
+			flags[i] = ranked.get(i).getFlags();
+		}
+		return new Recommendation(column, columns, rankedScores, flags, getForcedLine(forcedAnalysisResults, column));
+	}
+
+	/**
+	 * Tie breaking phase.
+	 * @return one of the best columns
+	 */
+	private int pick(final BoardAnalysis bestBoardAnalysis) {
+		if (bestBoardAnalysis.size() == 1) {
+			return bestBoardAnalysis.get(0).getColumn();
+		} else {
+			final int randomInt = this.random.nextInt(bestBoardAnalysis.size());
+			return bestBoardAnalysis.get(randomInt).getColumn();
+		}
+	}
+
+	/**
+	 * @return the moves of the first forced win starting at the column, ours and the opponent's in turn, ending with the winning column.
+	 *         Empty if there's none.
+	 */
+	private static int[] getForcedLine(final List<ForcedAnalysisResult> forcedAnalysisResults, final int column) {
+		for (final ForcedAnalysisResult result : forcedAnalysisResults) {
+			final Integer earliestMove = result.getEarliestMove();
+			if (result.isLoss() || result.getBoardAnalysis().isEmpty()
+					|| (earliestMove == null ? result.getBoardAnalysis().getAnalysisAtColumn(column) == null : earliestMove != column)) {
+				continue;
+			}
+			// The moves were pushed as the recursion unwound, the earliest is last
+			final int[] line = new int[result.getMoves().size() * 2 + 1];
+			int i = 0;
+			final Iterator<Integer> opponentMoves = result.getOpponentMoves().descendingIterator();
+			for (final Iterator<Integer> moves = result.getMoves().descendingIterator(); moves.hasNext();) {
+				line[i++] = moves.next();
+				line[i++] = opponentMoves.next();
+			}
+			line[i] = earliestMove == null ? column : result.getBoardAnalysis().get(0).getColumn();
+			return line;
+		}
+		return new int[0];
+	}
+
+	/**
+	 * The analysis of every column with the scores, so that each column is only scored once per request.
+	 */
+	private static class ScoredAnalysis {
+
+		private final BoardAnalysis boardAnalysis;
+		private final int[] scores;
+		private final BoardAnalysis bestBoardAnalysis;
+		private final int bestScore;
+
+		ScoredAnalysis(final BoardAnalysis boardAnalysis, final int[] scores, final BoardAnalysis bestBoardAnalysis, final int bestScore) {
+			this.boardAnalysis = boardAnalysis;
+			this.scores = scores;
+			this.bestBoardAnalysis = bestBoardAnalysis;
+			this.bestScore = bestScore;
+		}
+	}
+
+	/**
+	 * Analyses and scores every column and forwards the board with the best columns.
+	 * @param forcedAnalysisResults receives the results of the 'forced' analysis
+	 * @return the {@link ScoredAnalysis} of every column
+	 */
+	private ScoredAnalysis analyse(final Board board, final Disc currentPlayer, final List<ForcedAnalysisResult> forcedAnalysisResults) {
 		resetLast();
 
 		// Analysis phase
 		final BoardAnalysis boardAnalysis = BoardAnalyserHelper.analyse(board, currentPlayer);
 
 		// Check 'forced'
-		final List<ForcedAnalysisResult> forcedAnalysisResults = new ArrayList<>();
 		final List<AbstractForceBoardAnalyser> analysers = BoardAnalyserFactory.getForcedAnalysers();
 		for (final AbstractForceBoardAnalyser forcedBoardAnalyser : analysers) {
 			forcedAnalysisResults.addAll(forcedBoardAnalyser.analyse(boardAnalysis, board, currentPlayer));
 		}
 
 		// Scoring phase
+		final int[] scores = new int[board.getNumCols()];
 		final BoardAnalysis bestBoardAnalysis = new BoardAnalysis();
 		int bestScore = Integer.MIN_VALUE;
 		for (final ColumnAnalysis analysis : boardAnalysis) {
 			final int score = this.scoringAlgorithm.score(analysis);
+			scores[analysis.getColumn()] = score;
 			if (score > bestScore) {
 				bestScore = score;
 				bestBoardAnalysis.clear();
@@ -69,18 +184,14 @@ public class Trainer extends Recommender {
 			}
 		}
 
-		this.boardForwarder.receive(board, currentPlayer, bestBoardAnalysis);
+		// Copies, the forwarder normalises the board and analysis in place
+		final BoardAnalysis forwardedBoardAnalysis = new BoardAnalysis();
+		forwardedBoardAnalysis.addAll(bestBoardAnalysis);
+		this.boardForwarder.receive(new Board(board), currentPlayer, forwardedBoardAnalysis);
 		setLastAnalysis(bestBoardAnalysis, boardAnalysis);
 		// TODO this could be a sequence of how we lose if it's for the opponent
 		this.lastForcedAnalysisResults = forcedAnalysisResults;
-
-		// Tie breaking phase
-		if (bestBoardAnalysis.size() == 1) {
-			return bestBoardAnalysis.get(0).getColumn();
-		} else {
-			final int randomInt = this.random.nextInt(bestBoardAnalysis.size());
-			return bestBoardAnalysis.get(randomInt).getColumn();
-		}
+		return new ScoredAnalysis(boardAnalysis, scores, bestBoardAnalysis, bestScore);
 	}
 
 	@Override
@@ -96,4 +207,11 @@ public class Trainer extends Recommender {
 	public void warmUp() {
 		this.boardForwarder.warmUp();
 	}
+
+	/**
+	 * Sends any boards the forwarder has buffered.
+	 */
+	public void flush() {
+		this.boardForwarder.flush();
+	}
 }
@@ -0,0 +1,22 @@
+package connect4.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A finished (or abandoned) game to review. The current player is the one who made the first move and the board, if there is one, is the
+ * position the game started from.
+ */
+public class GameAnalysisRequest extends RecommendRequest {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Integer> moves = new ArrayList<>();
+
+	/**
+	 * @return the columns played (0-based), players taking turns
+	 */
+	public List<Integer> getMoves() {
+		return moves;
+	}
+}
@@ -0,0 +1,43 @@
+package connect4.web;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import connect4.api.GameException;
+import connect4.trainer.MoveReview;
+
+public class GameAnalysisResponse implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<MoveReview> moves = new ArrayList<>();
+	private GameState state;
+	private GameException exception;
+
+	/**
+	 * @return a {@link MoveReview} for each move, up to the one that failed if there's an exception
+	 */
+	public List<MoveReview> getMoves() {
+		return moves;
+	}
+
+	/**
+	 * @return the {@link GameState} after the last move reviewed
+	 */
+	public GameState getState() {
+		return state;
+	}
+
+	public void setState(final GameState state) {
+		this.state = state;
+	}
+
+	public GameException getException() {
+		return exception;
+	}
+
+	public void setException(final GameException exception) {
+		this.exception = exception;
+	}
+}
@@ -1,5 +1,8 @@
 package connect4.web;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -12,6 +15,8 @@ import connect4.api.IllegalMoveException;
 import connect4.api.Move;
 import connect4.api.aws.xray.AWSXRay;
 import connect4.forwarder.AbstractBoardForwarder;
+import connect4.forwarder.SinkBoardForwader;
+import connect4.trainer.Recommendation;
 import connect4.trainer.Trainer;
 
 /**
@@ -21,14 +26,69 @@ public class GameHandler {
 
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	private final AbstractBoardForwarder forwarder;
 	private final Trainer trainer;
+	private final Trainer coalescedTrainer;
+	private final RecommendCoalescer coalescer;
+	private final Executor ponderExecutor;
+	private final GameSessionStore sessions;
 
+	/**
+	 * Creates a handler which doesn't forward boards or coalesce recommendations, so every request is analysed. Used for warm ups and
+	 * tests.
+	 */
 	public GameHandler() {
+		this.forwarder = SinkBoardForwader.INSTANCE;
 		this.trainer = new Trainer();
+		this.coalescedTrainer = this.trainer;
+		this.coalescer = null;
+		this.ponderExecutor = null;
+		this.sessions = null;
 	}
 
+	/**
+	 * Creates a handler which coalesces concurrent recommendations for the same position (see {@link RecommendCoalescer}).
+	 * @param forwarder receives interesting boards
+	 */
 	public GameHandler(final AbstractBoardForwarder forwarder) {
+		this(forwarder, new RecommendCoalescer());
+	}
+
+	/**
+	 * @param forwarder receives interesting boards
+	 * @param coalescer shares recommendations between requests or <code>null</code> to analyse every request
+	 */
+	public GameHandler(final AbstractBoardForwarder forwarder, final RecommendCoalescer coalescer) {
+		this(forwarder, coalescer, null);
+	}
+
+	/**
+	 * @param forwarder receives interesting boards
+	 * @param coalescer shares recommendations between requests or <code>null</code> to analyse every request
+	 * @param ponderExecutor if not <code>null</code> (and there's a coalescer) the AI's reply to every move the human could make next is
+	 *        worked out on this while the human thinks. Should be bounded, e.g. drop the oldest work when it's busy.
+	 */
+	public GameHandler(final AbstractBoardForwarder forwarder, final RecommendCoalescer coalescer, final Executor ponderExecutor) {
+		this(forwarder, coalescer, ponderExecutor, null);
+	}
+
+	/**
+	 * @param forwarder receives interesting boards. A shared recommendation's board is forwarded for each request that uses it, so the
+	 *        store sees the same boards as it would without the coalescer.
+	 * @param coalescer shares recommendations between requests or <code>null</code> to analyse every request
+	 * @param ponderExecutor works out the AI's replies while the human thinks or <code>null</code>
+	 * @param sessions keeps games on the server so clients only send their column (see {@link #startSession(RecommendRequest)}) or
+	 *        <code>null</code> to turn sessions off
+	 */
+	public GameHandler(final AbstractBoardForwarder forwarder, final RecommendCoalescer coalescer, final Executor ponderExecutor,
+			final GameSessionStore sessions) {
+		this.forwarder = forwarder;
 		this.trainer = new Trainer(forwarder);
+		// Shared analyses don't forward, explain(Board, Disc) forwards whenever one is used
+		this.coalescedTrainer = coalescer == null ? this.trainer : new Trainer();
+		this.coalescer = coalescer;
+		this.ponderExecutor = ponderExecutor;
+		this.sessions = sessions;
 	}
 
 	/**
@@ -46,7 +106,10 @@ public class GameHandler {
 		});
 	}
 
-	private RecommendResponse doRecommend(final RecommendRequest request) {
+	/**
+	 * {@link #recommend(RecommendRequest)} without the X-Ray subsegment, for {@link RecommendBatch} whose threads aren't part of a trace.
+	 */
+	RecommendResponse doRecommend(final RecommendRequest request) {
 		final RecommendResponse response = new RecommendResponse();
 		response.setRecommendColumn(-1);
 		final Board board = request.getBoard();
@@ -61,7 +124,14 @@ public class GameHandler {
 		}
 
 		final Disc currentPlayer = request.getCurrentPlayer();
-		final int recommendedCol = this.trainer.recommend(board, currentPlayer);
+		final int recommendedCol;
+		if (request.isExplain()) {
+			final Recommendation recommendation = explain(board, currentPlayer);
+			response.setRecommendation(recommendation);
+			recommendedCol = recommendation.getColumn();
+		} else {
+			recommendedCol = recommend(board, currentPlayer);
+		}
 		response.setRecommendColumn(recommendedCol);
 		int recommendedRow;
 		try {
@@ -84,7 +154,91 @@ public class GameHandler {
 	}
 
 	/**
-	 * Plays the player's disc and also makes a move for the AI {@link Trainer} opponent.
+	 * Reviews every move of a game in one request, e.g. for a post-game review. The moves are replayed on one board and each position is
+	 * analysed once, the same way as a recommendation, without a request, board parse and whole-board win check per move.
+	 * @param request the player who moved first, the moves and optionally the board the game started from
+	 * @return a review of each move. If a move is illegal, or played after the game ended, the moves up to it and an exception.
+	 */
+	public GameAnalysisResponse analyseGame(final GameAnalysisRequest request) {
+		return AWSXRay.createSubsegment("analyseGame", (subsegment) -> {
+			final GameAnalysisResponse response = doAnalyseGame(request);
+			if (response.getException() != null) {
+				subsegment.addException(response.getException());
+			}
+			return response;
+		});
+	}
+
+	private GameAnalysisResponse doAnalyseGame(final GameAnalysisRequest request) {
+		final GameAnalysisResponse response = new GameAnalysisResponse();
+		Disc player = request.getCurrentPlayer();
+		response.setState(GameState.getTurnState(player));
+		final Board board = request.getBoard() == null ? new Board(7, 6) : request.getBoard();
+		if (BoardHelper.hasWinner(board) != null) {
+			response.setException(new GameException(ErrorCode.ALREADY_WON, "Cannot analyse the game, it starts already won."));
+			return response;
+		} else if (board.isFull()) {
+			response.setException(new GameException(ErrorCode.BOARD_FULL, "Cannot analyse the game, it starts with a full board."));
+			return response;
+		}
+
+		for (final int column : request.getMoves()) {
+			if (!GameState.getTurnState(player).equals(response.getState())) {
+				final ErrorCode errorCode = GameState.DRAW.equals(response.getState()) ? ErrorCode.BOARD_FULL : ErrorCode.ALREADY_WON;
+				response.setException(new GameException(errorCode, "Cannot analyse moves played after the game ended."));
+				return response;
+			}
+			final int row;
+			try {
+				board.putDisc(column, player); // check the move before analysing it
+				board.removeDisc(column);
+				response.getMoves().add(this.trainer.review(board, player, column));
+				row = board.putDisc(column, player);
+			} catch (final IllegalMoveException e) {
+				response.setException(e);
+				return response;
+			}
+
+			if (player.equals(BoardHelper.hasWinner(board, new Move(player, column, row)))) {
+				response.setState(GameState.getWinnerState(player));
+			} else if (board.isFull()) {
+				response.setState(GameState.DRAW);
+			} else {
+				player = Disc.getOpposite(player);
+				response.setState(GameState.getTurnState(player));
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Starts a game kept on the server. Later {@link #next(PlayRequest) moves} only need the session id and a column.
+	 * @param request the human's {@link Disc} and optionally the {@link Board} to start from, an empty board if there isn't one
+	 * @return the session id and state of the game. The boards are left out, the client already has them.
+	 */
+	public PlayResponse startSession(final RecommendRequest request) {
+		final PlayResponse response = new PlayResponse();
+		final Disc human = request.getCurrentPlayer();
+		response.setState(GameState.getTurnState(human));
+		if (this.sessions == null) {
+			response.setException(new GameException(ErrorCode.NO_SESSION, "Sessions are not enabled."));
+			return response;
+		}
+		final Board board = request.getBoard() == null ? new Board(7, 6) : request.getBoard();
+		if (BoardHelper.hasWinner(board) != null) {
+			response.setException(new GameException(ErrorCode.ALREADY_WON, "Cannot start a session, the game is already won."));
+			return response;
+		} else if (board.isFull()) {
+			response.setException(new GameException(ErrorCode.BOARD_FULL, "Cannot start a session, the board is full."));
+			return response;
+		}
+		response.setSessionId(this.sessions.create(board, human).getId());
+		return response;
+	}
+
+	/**
+	 * Plays the player's disc and also makes a move for the AI {@link Trainer} opponent. If the request has a session id the board and
+	 * player come from the session and the response leaves the boards out.
 	 * @param request the state of the game to play
 	 * @return the new game state including a move by the AI {@link Trainer}
 	 */
@@ -96,9 +250,11 @@ public class GameHandler {
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug("Inside next (inside X-Ray) at " + System.currentTimeMillis());
 			}
-			final PlayResponse response = doNext(request);
+			final PlayResponse response = request.getSessionId() == null ? doNext(request) : doSessionNext(request);
 			if (response.getException() != null) {
 				subsegment.addException(response.getException());
+			} else if (response.getAiBoard() != null && GameState.getTurnState(request.getCurrentPlayer()).equals(response.getState())) {
+				ponder(response.getAiBoard(), request.getCurrentPlayer());
 			}
 			return response;
 		});
@@ -111,8 +267,7 @@ public class GameHandler {
 		final Board board = request.getBoard();
 		response.setPlayerBoard(board);
 
-		Disc winner = BoardHelper.hasWinner(board);
-		if (winner != null) {
+		if (BoardHelper.hasWinner(board) != null) {
 			response.setException(new GameException(ErrorCode.ALREADY_WON, "Cannot recommend next move, the game is already won."));
 			return response;
 		} else if (board.isFull()) {
@@ -120,15 +275,58 @@ public class GameHandler {
 			return response;
 		}
 
+		play(board, currentPlayer, request.getColumn(), response);
+		return response;
+	}
+
+	/**
+	 * Plays a move on a session's board. The board is known to be valid and the game not over so the checks are only for the new discs.
+	 * The session is forgotten once its game is over.
+	 */
+	private PlayResponse doSessionNext(final PlayRequest request) {
+		final PlayResponse response = new PlayResponse();
+		response.setSessionId(request.getSessionId());
+		final GameSession session = this.sessions == null ? null : this.sessions.get(request.getSessionId());
+		if (session == null) {
+			response.setException(new GameException(ErrorCode.NO_SESSION, "Unknown or expired session, start a new one."));
+			return response;
+		}
+		synchronized (session) {
+			final Disc currentPlayer = session.getHuman();
+			request.setCurrentPlayer(currentPlayer); // for pondering
+			response.setState(session.getState());
+			if (!GameState.getTurnState(currentPlayer).equals(session.getState())) {
+				final ErrorCode errorCode = GameState.DRAW.equals(session.getState()) ? ErrorCode.BOARD_FULL : ErrorCode.ALREADY_WON;
+				response.setException(new GameException(errorCode, "Cannot play, the game is over."));
+				return response;
+			}
+			final Board board = new Board(session.getBoard());
+			response.setPlayerBoard(board);
+			play(board, currentPlayer, request.getColumn(), response);
+			if (response.getException() == null) {
+				session.update(response.getAiBoard() == null ? board : response.getAiBoard(), response.getState());
+				if (!GameState.getTurnState(currentPlayer).equals(response.getState())) {
+					this.sessions.remove(session.getId()); // game over
+				}
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Plays the player's move on a board which isn't won or full, then the AI's.
+	 * @param board the {@link Board} to play on. It's changed.
+	 */
+	private void play(final Board board, final Disc currentPlayer, final int column, final PlayResponse response) {
 		final int playerRow;
 		try {
-			playerRow = board.putDisc(request.getColumn(), currentPlayer);
+			playerRow = board.putDisc(column, currentPlayer);
 		} catch (final IllegalMoveException e) {
 			response.setException(e);
-			return response;
+			return;
 		}
 		response.setPlayerRow(playerRow);
-		winner = BoardHelper.hasWinner(board, new Move(currentPlayer, request.getColumn(), playerRow));
+		final Disc winner = BoardHelper.hasWinner(board, new Move(currentPlayer, column, playerRow));
 		if (currentPlayer.equals(winner)) {
 			response.setState(GameState.getWinnerState(currentPlayer));
 		} else if (board.isFull()) {
@@ -138,18 +336,17 @@ public class GameHandler {
 			response.setAiBoard(opponentBoard);
 			final Disc opponent = Disc.getOpposite(currentPlayer);
 			response.setState(GameState.getTurnState(opponent));
-			final int aiCol = this.trainer.recommend(opponentBoard, opponent);
+			final int aiCol = recommend(opponentBoard, opponent);
 			final int aiRow;
 			try {
 				aiRow = opponentBoard.putDisc(aiCol, opponent);
 			} catch (final IllegalMoveException e) {
 				response.setException(e);
-				return response;
+				return;
 			}
 			response.setAiCol(aiCol);
 			response.setAiRow(aiRow);
-			winner = BoardHelper.hasWinner(opponentBoard, new Move(opponent, aiCol, aiRow));
-			if (opponent.equals(winner)) {
+			if (opponent.equals(BoardHelper.hasWinner(opponentBoard, new Move(opponent, aiCol, aiRow)))) {
 				response.setState(GameState.getWinnerState(opponent));
 			} else if (opponentBoard.isFull()) {
 				response.setState(GameState.DRAW);
@@ -157,19 +354,90 @@ public class GameHandler {
 				response.setState(GameState.getTurnState(currentPlayer));
 			}
 		}
-		return response;
 	}
 
 	/**
-	 * Initialise everything, do a warmup.
+	 * Works out the AI's reply to each move the human could make next, so it's ready when the human's move arrives. Nothing is forwarded
+	 * until a reply is used, most of them never are.
+	 * @param board the board after the AI's move
+	 * @param human the human's {@link Disc}
+	 */
+	private void ponder(final Board board, final Disc human) {
+		if (this.ponderExecutor == null || this.coalescer == null) {
+			return;
+		}
+		final Disc opponent = Disc.getOpposite(human);
+		for (int col = 0; col < board.getNumCols(); col++) {
+			final Board reply = new Board(board);
+			final int row;
+			try {
+				row = reply.putDisc(col, human);
+			} catch (final IllegalMoveException e) {
+				continue; // column is full
+			}
+			if (BoardHelper.hasWinner(reply, new Move(human, col, row)) != null || reply.isFull()) {
+				continue; // the AI won't get to reply
+			}
+			try {
+				this.ponderExecutor.execute(() -> this.coalescer.ponder(reply, opponent, this.coalescedTrainer::explain));
+			} catch (final RejectedExecutionException e) {
+				return; // busy, the replies will be worked out when they're asked for
+			}
+		}
+	}
+
+	private int recommend(final Board board, final Disc currentPlayer) {
+		if (this.coalescer == null) {
+			return this.trainer.recommend(board, currentPlayer);
+		}
+		return explain(board, currentPlayer).getColumn(); // the coalescer remembers explanations for requests that want them
+	}
+
+	private Recommendation explain(final Board board, final Disc currentPlayer) {
+		if (this.coalescer == null) {
+			return this.trainer.explain(board, currentPlayer);
+		}
+		final Recommendation recommendation = this.coalescer.explain(board, currentPlayer, this.coalescedTrainer::explain);
+		// A copy, the forwarder normalises the board in place
+		this.forwarder.receive(new Board(board), currentPlayer, recommendation.getBestBoardAnalysis());
+		return recommendation;
+	}
+
+	/**
+	 * Initialise everything, do a warmup. The warm up corpus is replayed through a separate handler so its boards aren't forwarded.
+	 * @return how long each phase of the corpus replay took
 	 */
-	public void warmUp() {
-		AWSXRay.createSubsegment("warm", (subsegment) -> {
+	public WarmUp.Report warmUp() {
+		return warmUp(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Like {@link #warmUp()} but the corpus replay stops early if the time runs out, e.g. before a Lambda invocation times out.
+	 * @param maxMillis how long to replay the corpus for
+	 * @return how long each phase of the corpus replay took
+	 */
+	public WarmUp.Report warmUp(final long maxMillis) {
+		return AWSXRay.createSubsegment("warm", (subsegment) -> {
 			final long start = System.currentTimeMillis();
 			this.trainer.warmUp();
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug("Warm up completed in " + (System.currentTimeMillis() - start) + " ms.");
-			}
+			final WarmUp.Report report = new WarmUp(new GameHandler()).replayCorpus(maxMillis);
+			LOGGER.info("Warm up completed in " + (System.currentTimeMillis() - start) + " ms. Replayed " + report);
+			return report;
 		});
 	}
+
+	/**
+	 * Reseeds random number generators. Call after restoring from a snapshot.
+	 */
+	public void reseed() {
+		this.trainer.reseed();
+		this.coalescedTrainer.reseed();
+	}
+
+	/**
+	 * Sends any interesting boards which have been buffered. Call at the end of a Lambda invocation.
+	 */
+	public void flush() {
+		this.trainer.flush();
+	}
 }
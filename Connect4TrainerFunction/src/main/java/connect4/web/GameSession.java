@@ -0,0 +1,65 @@
+package connect4.web;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+
+/**
+ * A game kept on the server so the client only has to send its column each turn. Synchronise on the session while playing a move, a
+ * client may send its next move before the previous one has been answered.
+ */
+public class GameSession {
+
+	private final String id;
+	private final Disc human;
+	private Board board;
+	private GameState state;
+	private volatile long lastAccessNanos;
+
+	GameSession(final String id, final Board board, final Disc human) {
+		this.id = id;
+		this.board = board;
+		this.human = human;
+		this.state = GameState.getTurnState(human);
+		this.lastAccessNanos = System.nanoTime();
+	}
+
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return the {@link Disc} the human plays
+	 */
+	public Disc getHuman() {
+		return this.human;
+	}
+
+	/**
+	 * @return the {@link Board} after the last move. Copy it before playing on it.
+	 */
+	public Board getBoard() {
+		return this.board;
+	}
+
+	public GameState getState() {
+		return this.state;
+	}
+
+	/**
+	 * Records the result of a turn.
+	 * @param board the {@link Board} after the turn
+	 * @param state the {@link GameState} after the turn
+	 */
+	void update(final Board board, final GameState state) {
+		this.board = board;
+		this.state = state;
+	}
+
+	long getLastAccessNanos() {
+		return this.lastAccessNanos;
+	}
+
+	void touch() {
+		this.lastAccessNanos = System.nanoTime();
+	}
+}
@@ -0,0 +1,118 @@
+package connect4.web;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+
+/**
+ * <p>
+ * Keeps {@link GameSession}s in memory. A session is forgotten when it hasn't been used for {@value #DEFAULT_TTL_MS} ms (override with
+ * {@value #ENV_TTL_MS}), the client then has to start a new game or go back to sending the whole board.
+ * </p>
+ * <p>
+ * Sessions are kept in least recently used order, so expired sessions are swept out from the oldest end when sessions are created and
+ * the sweep stops at the first session still in use. If there are more than {@value #DEFAULT_MAX_SIZE} sessions (override with
+ * {@value #ENV_MAX_SIZE}) the least recently used is forgotten early.
+ * </p>
+ */
+public class GameSessionStore {
+
+	public static final String ENV_TTL_MS = "SESSION_TTL_MS";
+	public static final String ENV_MAX_SIZE = "SESSION_MAX_SIZE";
+
+	private static final int DEFAULT_TTL_MS = 30 * 60 * 1000;
+	private static final int DEFAULT_MAX_SIZE = 10000;
+
+	private final Map<String, GameSession> sessions;
+	private final long ttlNanos;
+
+	/**
+	 * Creates a store configured from the environment.
+	 */
+	public GameSessionStore() {
+		this(NumberUtils.toInt(System.getenv(ENV_TTL_MS), DEFAULT_TTL_MS),
+				NumberUtils.toInt(System.getenv(ENV_MAX_SIZE), DEFAULT_MAX_SIZE));
+	}
+
+	/**
+	 * @param ttlMillis how long a session is kept after it was last used
+	 * @param maxSize the maximum number of sessions
+	 */
+	public GameSessionStore(final long ttlMillis, final int maxSize) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.sessions = new LinkedHashMap<String, GameSession>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, GameSession> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Starts a session.
+	 * @param board the {@link Board} to start from. The session keeps it.
+	 * @param human the {@link Disc} the human plays, it's their turn
+	 * @return the new {@link GameSession}
+	 */
+	public synchronized GameSession create(final Board board, final Disc human) {
+		sweep(System.nanoTime());
+		final GameSession session = new GameSession(UUID.randomUUID().toString(), board, human);
+		this.sessions.put(session.getId(), session);
+		return session;
+	}
+
+	/**
+	 * @param id the id of the session
+	 * @return the {@link GameSession} or <code>null</code> if there's no such session or it's expired
+	 */
+	public synchronized GameSession get(final String id) {
+		final GameSession session = this.sessions.get(id);
+		if (session == null) {
+			return null;
+		}
+		if (isExpired(session, System.nanoTime())) {
+			this.sessions.remove(id);
+			return null;
+		}
+		session.touch();
+		return session;
+	}
+
+	/**
+	 * Forgets a session, e.g. when its game is over.
+	 * @param id the id of the session
+	 */
+	public synchronized void remove(final String id) {
+		this.sessions.remove(id);
+	}
+
+	/**
+	 * Removes expired sessions, least recently used first, up to the first one which hasn't expired.
+	 */
+	private void sweep(final long now) {
+		for (final Iterator<GameSession> it = this.sessions.values().iterator(); it.hasNext() && isExpired(it.next(), now);) {
+			it.remove();
+		}
+	}
+
+	private boolean isExpired(final GameSession session, final long now) {
+		return now - session.getLastAccessNanos() >= this.ttlNanos;
+	}
+
+	/**
+	 * @return the number of sessions, including expired ones which haven't been swept out yet
+	 */
+	synchronized int size() {
+		return this.sessions.size();
+	}
+}
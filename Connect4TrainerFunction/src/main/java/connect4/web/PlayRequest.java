@@ -5,6 +5,7 @@ public class PlayRequest extends RecommendRequest {
 	private static final long serialVersionUID = 1L;
 
 	private Integer column;
+	private String sessionId;
 
 	public Integer getColumn() {
 		return column;
@@ -13,4 +14,15 @@ public class PlayRequest extends RecommendRequest {
 	public void setColumn(final Integer column) {
 		this.column = column;
 	}
+
+	/**
+	 * @return the id of the {@link GameSession} to play in, when set the board and current player aren't needed
+	 */
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public void setSessionId(final String sessionId) {
+		this.sessionId = sessionId;
+	}
 }
@@ -16,6 +16,7 @@ public class PlayResponse implements Serializable {
 	private Integer aiRow;
 	private Board aiBoard;
 	private GameException exception;
+	private String sessionId;
 
 	public GameState getState() {
 		return state;
@@ -78,4 +79,15 @@ public class PlayResponse implements Serializable {
 	public void setException(final GameException exception) {
 		this.exception = exception;
 	}
+
+	/**
+	 * @return the id of the {@link GameSession} the game is played in or <code>null</code> if the client sends the whole board
+	 */
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public void setSessionId(final String sessionId) {
+		this.sessionId = sessionId;
+	}
 }
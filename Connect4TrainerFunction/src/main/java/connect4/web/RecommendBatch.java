@@ -0,0 +1,145 @@
+package connect4.web;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import connect4.rest.AnalysisLimiter;
+
+/**
+ * <p>
+ * Recommends moves for a stream of positions, e.g. for analytics jobs, without the overhead of a request per position. The positions are
+ * analysed in parallel on {@value #ENV_BATCH_THREADS} threads (default: the number of processors) and the responses are written in the
+ * same order as the requests, each as soon as it and those before it are done. Repeated positions share an analysis through the
+ * {@link GameHandler}'s {@link RecommendCoalescer}. With an {@link AnalysisLimiter} each position also waits its turn with the other
+ * requests, so batches don't add to the number of analyses running at once.
+ * </p>
+ * <p>
+ * Only a few positions per thread are read ahead so a batch of any size can be streamed through in constant memory.
+ * </p>
+ */
+public class RecommendBatch {
+
+	public static final String ENV_BATCH_THREADS = "BATCH_THREADS";
+
+	private static final int READ_AHEAD_PER_THREAD = 4;
+
+	/**
+	 * Supplies the requests of a batch.
+	 */
+	@FunctionalInterface
+	public interface RequestReader {
+
+		/**
+		 * @return the next request or <code>null</code> at the end of the batch
+		 * @throws IOException if the request can't be read
+		 */
+		RecommendRequest next() throws IOException;
+	}
+
+	/**
+	 * Receives the responses of a batch.
+	 */
+	@FunctionalInterface
+	public interface ResponseWriter {
+
+		/**
+		 * @param response the next response, in request order
+		 * @throws IOException if the response can't be written
+		 */
+		void write(RecommendResponse response) throws IOException;
+	}
+
+	private final GameHandler gameHandler;
+	private final AnalysisLimiter limiter;
+	private final ExecutorService executor;
+	private final int readAhead;
+
+	/**
+	 * Creates a batch recommender configured from the environment.
+	 * @param gameHandler makes the recommendations
+	 * @param limiter shared with the other requests which analyse boards or <code>null</code> to only be limited by the threads
+	 */
+	public RecommendBatch(final GameHandler gameHandler, final AnalysisLimiter limiter) {
+		this(gameHandler, limiter, NumberUtils.toInt(System.getenv(ENV_BATCH_THREADS), Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * @param gameHandler makes the recommendations
+	 * @param limiter shared with the other requests which analyse boards or <code>null</code> to only be limited by the threads
+	 * @param threads the most positions to analyse at once
+	 */
+	public RecommendBatch(final GameHandler gameHandler, final AnalysisLimiter limiter, final int threads) {
+		this.gameHandler = gameHandler;
+		this.limiter = limiter;
+		final AtomicInteger count = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+			final Thread thread = new Thread(runnable, "batch-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.readAhead = Math.max(1, threads) * READ_AHEAD_PER_THREAD;
+	}
+
+	/**
+	 * Recommends a move for every request. Returns once every response has been written.
+	 * @param reader supplies the requests
+	 * @param writer receives a response for each request, in the same order
+	 * @throws IOException if a request can't be read or a response written. The rest of the batch is abandoned.
+	 */
+	public void recommend(final RequestReader reader, final ResponseWriter writer) throws IOException {
+		final Deque<Future<RecommendResponse>> inFlight = new ArrayDeque<>();
+		try {
+			RecommendRequest request;
+			while ((request = reader.next()) != null) {
+				final RecommendRequest next = request;
+				inFlight.add(this.executor.submit(() -> recommend(next)));
+				if (inFlight.size() >= this.readAhead) {
+					writer.write(get(inFlight.remove()));
+				}
+				while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+					writer.write(get(inFlight.remove()));
+				}
+			}
+			while (!inFlight.isEmpty()) {
+				writer.write(get(inFlight.remove()));
+			}
+		} finally {
+			inFlight.forEach(future -> future.cancel(true));
+		}
+	}
+
+	private RecommendResponse recommend(final RecommendRequest request) throws InterruptedException {
+		if (this.limiter == null) {
+			return this.gameHandler.doRecommend(request);
+		}
+		this.limiter.waitForTurn();
+		try {
+			return this.gameHandler.doRecommend(request);
+		} finally {
+			this.limiter.release();
+		}
+	}
+
+	private static RecommendResponse get(final Future<RecommendResponse> future) throws IOException {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for a recommendation", e);
+		} catch (final ExecutionException | CancellationException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException("Could not recommend a move", e);
+		}
+	}
+}
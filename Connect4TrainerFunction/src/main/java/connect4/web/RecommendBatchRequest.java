@@ -0,0 +1,19 @@
+package connect4.web;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a request for many recommendations at once (action "recommendBatch"), see {@link RecommendBatch}.
+ */
+public class RecommendBatchRequest implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<RecommendRequest> requests = new ArrayList<>();
+
+	public List<RecommendRequest> getRequests() {
+		return this.requests;
+	}
+}
@@ -0,0 +1,208 @@
+package connect4.web;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToIntBiFunction;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.trainer.Recommendation;
+
+/**
+ * <p>
+ * Collapses concurrent recommendations for the same position into one analysis. The first caller for a position runs the analysis, callers
+ * arriving while it runs wait for its result, and the result is then remembered for {@value #DEFAULT_CACHE_MS} ms (override with
+ * {@value #ENV_CACHE_MS}) so a burst of players reaching the same position (e.g. the opening) costs one analysis.
+ * </p>
+ * <p>
+ * Positions are keyed the same way the store normalises boards: as if yellow is to play, with most discs on the left. Mirror images and
+ * colour swaps of a position share a result and the columns are mirrored back for the caller. At most {@value #DEFAULT_MAX_SIZE} results
+ * are remembered (override with {@value #ENV_MAX_SIZE}).
+ * </p>
+ * <p>
+ * {@link #ponder(Board, Disc, BiFunction)} analyses a position before anyone asks for it. Its result is remembered for
+ * {@value #DEFAULT_PONDER_CACHE_MS} ms (override with {@value #ENV_PONDER_CACHE_MS}), long enough for a human to think about their move.
+ * </p>
+ */
+public class RecommendCoalescer {
+
+	public static final String ENV_CACHE_MS = "RECOMMEND_CACHE_MS";
+	public static final String ENV_MAX_SIZE = "RECOMMEND_CACHE_SIZE";
+	public static final String ENV_PONDER_CACHE_MS = "PONDER_CACHE_MS";
+
+	private static final int DEFAULT_CACHE_MS = 1000;
+	private static final int DEFAULT_MAX_SIZE = 10000;
+	private static final int DEFAULT_PONDER_CACHE_MS = 120000;
+
+	private final Map<Board, Flight> flights = new ConcurrentHashMap<>();
+	private final long cacheNanos;
+	private final long ponderCacheNanos;
+	private final int maxSize;
+
+	/**
+	 * Creates a coalescer configured from the environment.
+	 */
+	public RecommendCoalescer() {
+		this(NumberUtils.toInt(System.getenv(ENV_CACHE_MS), DEFAULT_CACHE_MS),
+				NumberUtils.toInt(System.getenv(ENV_PONDER_CACHE_MS), DEFAULT_PONDER_CACHE_MS),
+				NumberUtils.toInt(System.getenv(ENV_MAX_SIZE), DEFAULT_MAX_SIZE));
+	}
+
+	/**
+	 * @param cacheMillis how long to remember a result once it's been computed. 0 only shares in-flight analyses.
+	 * @param maxSize the maximum number of results to remember
+	 */
+	public RecommendCoalescer(final long cacheMillis, final int maxSize) {
+		this(cacheMillis, cacheMillis, maxSize);
+	}
+
+	/**
+	 * @param cacheMillis how long to remember a result once it's been computed. 0 only shares in-flight analyses.
+	 * @param ponderCacheMillis how long to remember a result computed by {@link #ponder(Board, Disc, BiFunction)}
+	 * @param maxSize the maximum number of results to remember
+	 */
+	public RecommendCoalescer(final long cacheMillis, final long ponderCacheMillis, final int maxSize) {
+		this.cacheNanos = TimeUnit.MILLISECONDS.toNanos(cacheMillis);
+		this.ponderCacheNanos = TimeUnit.MILLISECONDS.toNanos(ponderCacheMillis);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * One analysis of a position, running or finished.
+	 */
+	private static class Flight {
+
+		private final CompletableFuture<Recommendation> recommendation = new CompletableFuture<>();
+		private final long cacheNanos;
+		private volatile long completedNanos;
+
+		private Flight(final long cacheNanos) {
+			this.cacheNanos = cacheNanos;
+		}
+
+		private boolean isExpired(final long now) {
+			return this.recommendation.isDone() && now - this.completedNanos >= this.cacheNanos;
+		}
+	}
+
+	/**
+	 * Recommends a column, sharing the analysis with other callers for the same position.
+	 * @param board the {@link Board} to analyse. It isn't changed.
+	 * @param currentPlayer the {@link Disc} of the current player
+	 * @param recommender does the analysis if no other caller has, e.g. {@link connect4.trainer.Trainer#recommend(Board, Disc)}
+	 * @return the recommended column (0-based)
+	 */
+	public int recommend(final Board board, final Disc currentPlayer, final ToIntBiFunction<Board, Disc> recommender) {
+		return explain(board, currentPlayer, (b, player) -> new Recommendation(recommender.applyAsInt(b, player))).getColumn();
+	}
+
+	/**
+	 * Recommends a column and explains why, sharing the analysis with other callers for the same position. Callers should use the same
+	 * explainer for every call, a result remembered from {@link #recommend(Board, Disc, ToIntBiFunction)} has no explanation.
+	 * @param board the {@link Board} to analyse. It isn't changed.
+	 * @param currentPlayer the {@link Disc} of the current player
+	 * @param explainer does the analysis if no other caller has, e.g. {@link connect4.trainer.Trainer#explain(Board, Disc)}
+	 * @return the {@link Recommendation}
+	 */
+	public Recommendation explain(final Board board, final Disc currentPlayer,
+			final BiFunction<Board, Disc, Recommendation> explainer) {
+		final Board key = Disc.YELLOW.equals(currentPlayer) ? new Board(board) : board.swap();
+		final boolean mirrored = key.reverseToLeft();
+		while (true) {
+			final Flight flight = this.flights.get(key);
+			if (flight == null) {
+				final Flight mine = new Flight(this.cacheNanos);
+				if (this.flights.putIfAbsent(key, mine) == null) {
+					return mirror(board, mirrored, fly(key, mine, board, currentPlayer, mirrored, explainer));
+				}
+			} else if (flight.isExpired(System.nanoTime())) {
+				this.flights.remove(key, flight);
+			} else {
+				try {
+					return mirror(board, mirrored, flight.recommendation.join());
+				} catch (final CompletionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Analyses a position nobody has asked about yet so the result is ready when they do. Does nothing if the position is already being
+	 * analysed or remembered. Failures are swallowed, a later {@link #explain(Board, Disc, BiFunction)} will try again.
+	 * @param board the {@link Board} to analyse. It isn't changed.
+	 * @param currentPlayer the {@link Disc} of the current player
+	 * @param explainer does the analysis
+	 * @return <code>true</code> if the position was analysed
+	 */
+	public boolean ponder(final Board board, final Disc currentPlayer, final BiFunction<Board, Disc, Recommendation> explainer) {
+		final Board key = Disc.YELLOW.equals(currentPlayer) ? new Board(board) : board.swap();
+		final boolean mirrored = key.reverseToLeft();
+		final Flight existing = this.flights.get(key);
+		if (existing != null && !existing.isExpired(System.nanoTime())) {
+			return false;
+		}
+		final Flight mine = new Flight(this.ponderCacheNanos);
+		if (existing == null ? this.flights.putIfAbsent(key, mine) != null : !this.flights.replace(key, existing, mine)) {
+			return false; // someone else got there first
+		}
+		try {
+			fly(key, mine, board, currentPlayer, mirrored, explainer);
+		} catch (final RuntimeException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the analysis for the callers waiting on the flight.
+	 * @return the {@link Recommendation} for the normalised position
+	 */
+	private Recommendation fly(final Board key, final Flight flight, final Board board, final Disc currentPlayer, final boolean mirrored,
+			final BiFunction<Board, Disc, Recommendation> explainer) {
+		final Recommendation recommendation;
+		try {
+			// Analyse the caller's own board rather than the key so results are exactly as they'd be without coalescing
+			recommendation = mirror(board, mirrored, explainer.apply(board, currentPlayer));
+		} catch (final RuntimeException | Error e) {
+			this.flights.remove(key, flight); // don't remember failures
+			flight.recommendation.completeExceptionally(e);
+			throw e;
+		}
+		flight.completedNanos = System.nanoTime();
+		flight.recommendation.complete(recommendation);
+		if (flight.cacheNanos <= 0) {
+			this.flights.remove(key, flight);
+		} else if (this.flights.size() > this.maxSize) {
+			final long now = System.nanoTime();
+			this.flights.values().removeIf(f -> f.isExpired(now));
+			if (this.flights.size() > this.maxSize) {
+				this.flights.remove(key, flight);
+			}
+		}
+		return recommendation;
+	}
+
+	/**
+	 * Converts between a {@link Recommendation} for the caller's board and the key's. Mirroring is its own inverse.
+	 */
+	private static Recommendation mirror(final Board board, final boolean mirrored, final Recommendation recommendation) {
+		return mirrored ? recommendation.mirror(board.getNumCols()) : recommendation;
+	}
+
+	/**
+	 * @return the number of positions being analysed or remembered
+	 */
+	int size() {
+		return this.flights.size();
+	}
+}
@@ -11,6 +11,7 @@ public class RecommendRequest implements Serializable {
 
 	private Disc currentPlayer;
 	private Board board;
+	private boolean explain;
 
 	public Disc getCurrentPlayer() {
 		return currentPlayer;
@@ -28,4 +29,15 @@ public class RecommendRequest implements Serializable {
 		this.board = board;
 	}
 
+	/**
+	 * @return <code>true</code> if the response should explain the recommendation, see {@link RecommendResponse#getRecommendation()}
+	 */
+	public boolean isExplain() {
+		return explain;
+	}
+
+	public void setExplain(final boolean explain) {
+		this.explain = explain;
+	}
+
 }
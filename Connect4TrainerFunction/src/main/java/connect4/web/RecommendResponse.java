@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import connect4.api.Board;
 import connect4.api.GameException;
+import connect4.trainer.Recommendation;
 
 public class RecommendResponse implements Serializable {
 
@@ -13,6 +14,7 @@ public class RecommendResponse implements Serializable {
 	private Board board;
 	private GameState state;
 	private GameException exception;
+	private Recommendation recommendation;
 
 	public int getRecommendColumn() {
 		return recommendColumn;
@@ -53,4 +55,16 @@ public class RecommendResponse implements Serializable {
 	public void setException(final GameException exception) {
 		this.exception = exception;
 	}
+
+	/**
+	 * @return every column ranked with its score and flags, and the forced line, if the request asked for an explanation (see
+	 *         {@link RecommendRequest#isExplain()}), else <code>null</code>
+	 */
+	public Recommendation getRecommendation() {
+		return recommendation;
+	}
+
+	public void setRecommendation(final Recommendation recommendation) {
+		this.recommendation = recommendation;
+	}
 }
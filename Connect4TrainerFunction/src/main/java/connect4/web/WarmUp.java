@@ -0,0 +1,326 @@
+package connect4.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullWriter;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.loader.BoardLoader;
+import connect4.rest.WebJsonStreamingObjectFactory;
+
+/**
+ * <p>
+ * Exercises the request path (parse the JSON request, recommend or play, serialise the JSON response) so classes are loaded and the hot
+ * methods are compiled before real requests arrive. Games are played with a fixed seed so every warm up does the same work.
+ * </p>
+ * <p>
+ * Random games rarely reach the positions the forced analysers care about so {@link #replayCorpus(int)} replays an embedded corpus of
+ * positions ({@value #CORPUS_RESOURCE}) which between them raise every {@link connect4.api.analysis.ColumnAnalysis} flag. Each position
+ * is recommended then played {@value #DEFAULT_ITERATIONS} times by default (override with {@value #ENV_WARM_UP_ITERATIONS}), enough
+ * for the JIT to compile the hot methods at its highest tier. A slow machine, like a small Lambda function, can stop replaying early
+ * after a time limit instead.
+ * </p>
+ */
+public class WarmUp {
+
+	public static final String ENV_WARM_UP_ITERATIONS = "WARM_UP_ITERATIONS";
+
+	static final String CORPUS_RESOURCE = "warmup_corpus.txt";
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final long SEED = 42;
+	private static final int DEFAULT_ITERATIONS = 200;
+
+	/**
+	 * The stages of handling a request, timed separately by {@link WarmUp#replayCorpus(int)}.
+	 */
+	public enum Phase {
+		DESERIALISE, RECOMMEND, PLAY, SERIALISE
+	}
+
+	/**
+	 * How long each {@link Phase} took during a warm up.
+	 */
+	public static class Report {
+
+		private final long[] nanos = new long[Phase.values().length];
+		private int iterations;
+		private int requests;
+		private long elapsedMillis;
+
+		/**
+		 * @return the number of times the corpus was replayed, fewer than asked for if the time ran out
+		 */
+		public int getIterations() {
+			return this.iterations;
+		}
+
+		public int getRequests() {
+			return this.requests;
+		}
+
+		public long getElapsedMillis() {
+			return this.elapsedMillis;
+		}
+
+		/**
+		 * @param phase the {@link Phase}
+		 * @return the total time spent in the phase in milliseconds
+		 */
+		public long getMillis(final Phase phase) {
+			return this.nanos[phase.ordinal()] / 1_000_000;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(this.iterations).append(" iterations, ").append(this.requests).append(" requests in ").append(this.elapsedMillis)
+					.append(" ms (");
+			for (final Phase phase : Phase.values()) {
+				sb.append(phase.ordinal() == 0 ? "" : ", ").append(phase.name().toLowerCase()).append(' ').append(getMillis(phase))
+						.append(" ms");
+			}
+			return sb.append(')').toString();
+		}
+	}
+
+	private final GameHandler handler;
+	private final WebJsonStreamingObjectFactory factory = WebJsonStreamingObjectFactory.getInstance();
+
+	/**
+	 * @param handler the {@link GameHandler} to warm up. Boards it finds interesting are forwarded as usual so use one with a
+	 *        {@link connect4.forwarder.SinkBoardForwader} unless that's wanted.
+	 */
+	public WarmUp(final GameHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Plays games where the "human" picks random columns, sending each move as a "next" request after recommending a move for the
+	 * same position. A game which fails is abandoned, the rest are still played.
+	 * @param games the number of games to play
+	 * @return the number of requests handled
+	 */
+	public int play(final int games) {
+		final long start = System.currentTimeMillis();
+		final Random random = new Random(SEED);
+		int requests = 0;
+		for (int game = 0; game < games; game++) {
+			Board board = new Board(7, 6);
+			final Disc player = random.nextBoolean() ? Disc.YELLOW : Disc.RED;
+			try {
+				while (true) {
+					final List<Integer> freeColumns = getFreeColumns(board);
+					final String recommendJson = toRequestJson("recommend", board, player, null);
+					handle(recommendJson);
+					requests++;
+					final String playJson = toRequestJson("next", board, player, freeColumns.get(random.nextInt(freeColumns.size())));
+					final PlayResponse response = (PlayResponse) handle(playJson);
+					requests++;
+					if (response.getException() != null || response.getAiBoard() == null
+							|| !GameState.getTurnState(player).equals(response.getState())) {
+						break; // game over
+					}
+					board = response.getAiBoard();
+				}
+			} catch (final RuntimeException e) {
+				// The trainer breaks ties randomly so this can't be relied on to happen, don't let it stop a snapshot being taken
+				LOGGER.warn("Warm up game " + game + " failed, carrying on with the next one", e);
+			}
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Warm up played " + games + " games (" + requests + " requests) in " + (System.currentTimeMillis() - start)
+					+ " ms.");
+		}
+		return requests;
+	}
+
+	/**
+	 * Replays the corpus with the number of iterations from the environment.
+	 * @return how long each {@link Phase} took
+	 */
+	public Report replayCorpus() {
+		return replayCorpus(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Replays the corpus with the number of iterations from the environment, or until the time runs out.
+	 * @param maxMillis how long to replay for. An iteration isn't started after this but the one running is finished.
+	 * @return how long each {@link Phase} took
+	 */
+	public Report replayCorpus(final long maxMillis) {
+		return replayCorpus(NumberUtils.toInt(System.getenv(ENV_WARM_UP_ITERATIONS), DEFAULT_ITERATIONS), maxMillis);
+	}
+
+	/**
+	 * Sends each position of the corpus as a "recommend" request then plays the recommended column as a "next" request, so forced win
+	 * lines are followed and the winning or blocking move is checked.
+	 * @param iterations how many times to replay the corpus
+	 * @return how long each {@link Phase} took
+	 */
+	public Report replayCorpus(final int iterations) {
+		return replayCorpus(iterations, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Like {@link #replayCorpus(int)} but stops early if the time runs out.
+	 * @param iterations how many times to replay the corpus
+	 * @param maxMillis how long to replay for. An iteration isn't started after this but the one running is finished.
+	 * @return how long each {@link Phase} took
+	 */
+	public Report replayCorpus(final int iterations, final long maxMillis) {
+		final long start = System.currentTimeMillis();
+		final Report report = new Report();
+		final List<RecommendRequest> corpus = loadCorpus();
+		final String[] recommendJson = new String[corpus.size()];
+		final String[] playJson = new String[corpus.size()];
+		for (int i = 0; i < corpus.size(); i++) {
+			recommendJson[i] = toRequestJson("recommend", corpus.get(i).getBoard(), corpus.get(i).getCurrentPlayer(), null);
+		}
+		for (; report.iterations < iterations && System.currentTimeMillis() - start < maxMillis; report.iterations++) {
+			for (int i = 0; i < corpus.size(); i++) {
+				final RecommendResponse response = (RecommendResponse) handle(recommendJson[i], report.nanos);
+				report.requests++;
+				if (playJson[i] == null && response.getException() == null) {
+					// Play what was recommended the first time. The trainer breaks ties randomly so it could differ later.
+					playJson[i] = toRequestJson("next", corpus.get(i).getBoard(), corpus.get(i).getCurrentPlayer(),
+							response.getRecommendColumn());
+				}
+				if (playJson[i] != null) {
+					handle(playJson[i], report.nanos);
+					report.requests++;
+				}
+			}
+		}
+		report.elapsedMillis = System.currentTimeMillis() - start;
+		return report;
+	}
+
+	/**
+	 * @return the positions in the warm up corpus
+	 */
+	public static List<RecommendRequest> loadCorpus() {
+		final String corpus;
+		try (InputStream input = WarmUp.class.getResourceAsStream(CORPUS_RESOURCE)) {
+			if (input == null) {
+				throw new IllegalStateException("Warm up corpus '" + CORPUS_RESOURCE + "' is missing");
+			}
+			corpus = IOUtils.toString(input, StandardCharsets.UTF_8).replace("\r", "");
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not read warm up corpus '" + CORPUS_RESOURCE + "'", e);
+		}
+		final List<RecommendRequest> positions = new ArrayList<>();
+		for (final String block : corpus.split("\n\\s*\n")) {
+			final List<String> lines = new ArrayList<>();
+			for (final String line : block.split("\n")) {
+				if (!line.isBlank() && line.trim().charAt(0) != BoardLoader.COMMENT_CHAR) {
+					lines.add(line.trim());
+				}
+			}
+			if (lines.isEmpty()) {
+				continue;
+			}
+			final RecommendRequest position = new RecommendRequest();
+			position.setCurrentPlayer(Disc.getDisc(lines.get(0).charAt(0)));
+			position.setBoard(BoardLoader.readBoard(String.join("\n", lines.subList(1, lines.size()))));
+			positions.add(position);
+		}
+		return positions;
+	}
+
+	/**
+	 * Handles a request the same way the Lambda handler does, discarding the response JSON.
+	 * @return the response
+	 */
+	private Serializable handle(final String json) {
+		return handle(json, null);
+	}
+
+	/**
+	 * @param nanos if not <code>null</code> the time spent in each {@link Phase} is added to it
+	 */
+	private Serializable handle(final String json, final long[] nanos) {
+		try {
+			long time = System.nanoTime();
+			final JsonParser parser = this.factory.getParser(json);
+			final Serializable request = this.factory.deserialiseGenericRequest(parser);
+			parser.close();
+			time = addTime(nanos, Phase.DESERIALISE, time);
+			final JsonGenerator g = this.factory.getGenerator(NullWriter.NULL_WRITER);
+			final Serializable response;
+			if (request instanceof PlayRequest) {
+				final PlayResponse playResponse = this.handler.next((PlayRequest) request);
+				time = addTime(nanos, Phase.PLAY, time);
+				this.factory.serialize(g, playResponse);
+				response = playResponse;
+			} else {
+				final RecommendResponse recommendResponse = this.handler.recommend((RecommendRequest) request);
+				time = addTime(nanos, Phase.RECOMMEND, time);
+				this.factory.serialize(g, recommendResponse);
+				response = recommendResponse;
+			}
+			g.close();
+			addTime(nanos, Phase.SERIALISE, time);
+			return response;
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not handle warm up request " + json, e);
+		}
+	}
+
+	private static long addTime(final long[] nanos, final Phase phase, final long start) {
+		final long now = System.nanoTime();
+		if (nanos != null) {
+			nanos[phase.ordinal()] += now - start;
+		}
+		return now;
+	}
+
+	private String toRequestJson(final String action, final Board board, final Disc currentPlayer, final Integer column) {
+		final Writer writer = new StringWriter();
+		try {
+			final JsonGenerator g = this.factory.getGenerator(writer);
+			g.writeStartObject();
+			g.writeStringField("action", action);
+			g.writeStringField("currentPlayer", "" + currentPlayer.getSymbol());
+			this.factory.serialize(g, board);
+			if (column != null) {
+				g.writeNumberField("column", column);
+			}
+			g.writeEndObject();
+			g.close();
+		} catch (final IOException e) {
+			throw new RuntimeException("Could not serialise warm up request", e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * @param board the {@link Board}
+	 * @return the columns (0-based) which aren't full, in column order
+	 */
+	public static List<Integer> getFreeColumns(final Board board) {
+		final List<Integer> freeColumns = new ArrayList<>();
+		for (int col = 0; col < board.getNumCols(); col++) {
+			if (board.getDisc(col, board.getNumRows() - 1) == null) {
+				freeColumns.add(col);
+			}
+		}
+		return freeColumns;
+	}
+}
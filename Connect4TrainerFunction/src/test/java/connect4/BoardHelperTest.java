@@ -9,6 +9,7 @@ import org.junit.Test;
 import connect4.api.Board;
 import connect4.api.BoardHelper;
 import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
 import connect4.api.Move;
 import connect4.loader.BoardLoader;
 
@@ -103,6 +104,26 @@ public class BoardHelperTest {
 		Assert.assertNull(BoardHelper.hasWinner(new Board(7, 6), new Move(Disc.RED, 5, 6)));
 	}
 
+	/**
+	 * Test winners on boards narrower than 7 columns, where scanning the whole board used to miss horizontal wins or fail on diagonals
+	 */
+	@Test
+	public void testHasWinnerNarrow() throws IllegalMoveException {
+		final Board board = new Board(4, 6);
+		for (int c = 0; c < 4; c++) {
+			board.putDisc(c, Disc.YELLOW);
+		}
+		Assert.assertEquals(Disc.YELLOW, BoardHelper.hasWinner(board));
+
+		final Board column = new Board(1, 16);
+		for (int r = 0; r < 3; r++) {
+			column.putDisc(0, Disc.RED);
+		}
+		Assert.assertNull(BoardHelper.hasWinner(column));
+		column.putDisc(0, Disc.RED);
+		Assert.assertEquals(Disc.RED, BoardHelper.hasWinner(column));
+	}
+
 	@Test
 	public void testGetMinColumnSpan() {
 		final Board board = new Board(7, 1);
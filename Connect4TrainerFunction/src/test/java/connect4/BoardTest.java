@@ -105,6 +105,30 @@ public class BoardTest {
 		Assert.assertEquals(".......\n.......\n.......\n......r\n......r\nr.....y\n", board.toString());
 	}
 
+	@Test
+	public void testRemoveDisc() throws IllegalMoveException {
+		final Board board = new Board(7, 6);
+		for (int r = 0; r < 6; r++) {
+			board.putDisc(6, r % 2 == 0 ? Disc.RED : Disc.YELLOW);
+		}
+		board.putDisc(0, Disc.YELLOW);
+		final Board before = new Board(board);
+
+		Assert.assertEquals(5, board.removeDisc(6));
+		Assert.assertEquals(null, board.getDisc(6, 5));
+		Assert.assertEquals(Disc.RED, board.getDisc(6, 4));
+		Assert.assertEquals(5, board.putDisc(6, Disc.YELLOW));
+		Assert.assertEquals(before, board);
+
+		Assert.assertEquals(0, board.removeDisc(0));
+		Assert.assertEquals(null, board.getDisc(0, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveDiscEmpty() {
+		new Board(7, 6).removeDisc(3);
+	}
+
 	@Test(expected = IllegalMoveException.class)
 	public void testPutBadDisk1() throws IllegalMoveException {
 		final Board board = new Board(7, 3);
@@ -0,0 +1,142 @@
+package connect4;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.api.Perft;
+import connect4.api.Perft.Result;
+
+public class PerftTest {
+
+	@Test
+	public void testReference() {
+		final Result result = new Perft(false).count(new Board(7, 6), Disc.RED, 8);
+		assertReference(result);
+		Assert.assertEquals(6634026, result.getNodes());
+		Assert.assertTrue(result.getNodesPerSecond() > 0);
+	}
+
+	@Test
+	public void testReferenceParallel() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertReference(new Perft(false).count(new Board(7, 6), Disc.RED, 8, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testVerify() {
+		assertReference(new Perft(true).count(new Board(7, 6), Disc.RED, 7));
+	}
+
+	@Test
+	public void testDoesNotChangeBoard() throws IllegalMoveException {
+		final Board board = new Board(7, 6);
+		board.putDisc(3, Disc.RED);
+		final Board copy = new Board(board);
+		new Perft(true).count(board, Disc.YELLOW, 4);
+		new Perft(true).count(board, Disc.YELLOW, 6, ForkJoinPool.commonPool());
+		Assert.assertEquals(copy, board);
+	}
+
+	/**
+	 * Small boards played to the end, so there are draws as well, and tall and wide boards.
+	 */
+	@Test
+	public void testAgainstNaive() {
+		final int[][] geometries = { { 4, 3, 12 }, { 4, 4, 10 }, { 5, 4, 8 }, { 1, 16, 16 }, { 8, 2, 7 }, { 7, 6, 6 } };
+		for (final int[] geometry : geometries) {
+			final Board board = new Board(geometry[0], geometry[1]);
+			final int depth = geometry[2];
+			final long[][] expected = new long[depth][3];
+			naive(new Disc[geometry[0]][geometry[1]], Disc.RED, 0, expected);
+			final Result result = new Perft(true).count(board, Disc.RED, depth);
+			final Result parallelResult = new Perft(false).count(board, Disc.RED, depth, ForkJoinPool.commonPool());
+			for (int ply = 1; ply <= depth; ply++) {
+				final String message = geometry[0] + "x" + geometry[1] + " ply " + ply;
+				Assert.assertEquals(message, expected[ply - 1][0], result.getPositions(ply));
+				Assert.assertEquals(message, expected[ply - 1][1], result.getWins(ply));
+				Assert.assertEquals(message, expected[ply - 1][2], result.getDraws(ply));
+				Assert.assertEquals(message, expected[ply - 1][0], parallelResult.getPositions(ply));
+				Assert.assertEquals(message, expected[ply - 1][1], parallelResult.getWins(ply));
+				Assert.assertEquals(message, expected[ply - 1][2], parallelResult.getDraws(ply));
+			}
+		}
+	}
+
+	private static void assertReference(final Result result) {
+		for (int ply = 1; ply <= result.getDepth(); ply++) {
+			Assert.assertArrayEquals("ply " + ply, Perft.REFERENCE_7X6[ply - 1],
+					new long[] { result.getPositions(ply), result.getWins(ply), result.getDraws(ply) });
+		}
+	}
+
+	/**
+	 * Counts like {@link Perft} but with a plain array and a scan of the whole grid for wins.
+	 */
+	private static void naive(final Disc[][] grid, final Disc player, final int ply, final long[][] counts) {
+		if (ply == counts.length) {
+			return;
+		}
+		for (int c = 0; c < grid.length; c++) {
+			int r = 0;
+			while (r < grid[c].length && grid[c][r] != null) {
+				r++;
+			}
+			if (r == grid[c].length) {
+				continue;
+			}
+			grid[c][r] = player;
+			counts[ply][0]++;
+			if (isWon(grid)) {
+				counts[ply][1]++;
+			} else if (isFull(grid)) {
+				counts[ply][2]++;
+			} else {
+				naive(grid, Disc.getOpposite(player), ply + 1, counts);
+			}
+			grid[c][r] = null;
+		}
+	}
+
+	private static boolean isWon(final Disc[][] grid) {
+		final int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+		for (int c = 0; c < grid.length; c++) {
+			for (int r = 0; r < grid[c].length; r++) {
+				if (grid[c][r] == null) {
+					continue;
+				}
+				for (final int[] d : directions) {
+					int n = 1;
+					while (n < 4 && inGrid(grid, c + n * d[0], r + n * d[1]) && grid[c + n * d[0]][r + n * d[1]] == grid[c][r]) {
+						n++;
+					}
+					if (n == 4) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean inGrid(final Disc[][] grid, final int c, final int r) {
+		return c >= 0 && c < grid.length && r >= 0 && r < grid[c].length;
+	}
+
+	private static boolean isFull(final Disc[][] grid) {
+		for (final Disc[] column : grid) {
+			if (column[column.length - 1] == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
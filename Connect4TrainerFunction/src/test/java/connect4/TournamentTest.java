@@ -0,0 +1,170 @@
+package connect4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.Tournament.Ending;
+import connect4.Tournament.Entrant;
+import connect4.Tournament.Game;
+import connect4.Tournament.Report;
+import connect4.Tournament.Standing;
+import connect4.api.Board;
+import connect4.api.BoardHelper;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.player.Player;
+import connect4.player.RandomComputerPlayer;
+
+public class TournamentTest {
+
+	private static final Entrant RANDOM = Tournament.parseEntrant("random");
+
+	@Test
+	public void testTrainerBeatsRandom() {
+		final Report report = new Tournament(Arrays.asList(Tournament.parseEntrant("trainer"), RANDOM), 20, 2, 1).run(2);
+		Assert.assertEquals(20, report.getGames().size());
+		final Standing trainer = report.getStandings().get(0);
+		final Standing random = report.getStandings().get(1);
+		Assert.assertEquals("trainer", trainer.getEntrant().getName());
+		Assert.assertEquals(20, trainer.getGames());
+		Assert.assertEquals(20, random.getGames());
+		Assert.assertEquals(trainer.getWins(), random.getLosses());
+		Assert.assertEquals(0, random.getIllegalMoves());
+		Assert.assertTrue(trainer.getScore() > 0.75);
+		Assert.assertTrue(trainer.getElo() > random.getElo());
+		Assert.assertEquals(2 * Tournament.MEAN_ELO, trainer.getElo() + random.getElo(), 0.001);
+		Assert.assertTrue(trainer.getLatency().getTotalCount() > 0);
+		Assert.assertTrue(report.getMovesPerSecond() > 0);
+		Assert.assertTrue(report.toString().contains("trainer"));
+	}
+
+	/**
+	 * Games are played in pairs from the same opening with the colours swapped.
+	 */
+	@Test
+	public void testOpenings() throws IllegalMoveException {
+		final Report report = new Tournament(Arrays.asList(RANDOM, new Entrant("other", RandomComputerPlayer::new)), 6, 3, 2).run(3);
+		Assert.assertEquals(6, report.getGames().size());
+		for (int i = 0; i < report.getGames().size(); i += 2) {
+			final Game game = report.getGames().get(i);
+			final Game swapped = report.getGames().get(i + 1);
+			Assert.assertEquals(i + 1, game.getNumber());
+			Assert.assertEquals(3, game.getOpening().length);
+			Assert.assertArrayEquals(game.getOpening(), swapped.getOpening());
+			Assert.assertSame(game.getEntrant(Disc.RED), swapped.getEntrant(Disc.YELLOW));
+			Assert.assertSame(game.getEntrant(Disc.YELLOW), swapped.getEntrant(Disc.RED));
+		}
+
+		Assert.assertArrayEquals(Tournament.randomOpening(new Random(3), 10), Tournament.randomOpening(new Random(3), 10));
+		for (int i = 0; i < 100; i++) {
+			final Board board = new Board(Main.DEFAULT_COLS, Main.DEFAULT_ROWS);
+			Disc disc = Disc.RED;
+			for (final int col : Tournament.randomOpening(new Random(i), 12)) {
+				Assert.assertNull(BoardHelper.hasWinner(board));
+				Assert.assertTrue(col >= 0 && col < Main.DEFAULT_COLS);
+				board.putDisc(col, disc);
+				disc = Disc.getOpposite(disc);
+			}
+			Assert.assertNull(BoardHelper.hasWinner(board));
+		}
+	}
+
+	@Test
+	public void testIllegalMove() {
+		final Entrant illegal = new Entrant("illegal", (name, disc) -> new Player(name, disc) {
+
+			@Override
+			public int nextMove(final Board board) {
+				return board.getNumCols();
+			}
+		});
+		final Report report = new Tournament(Arrays.asList(illegal, RANDOM), 4, 0, 3).run(1);
+		for (final Game game : report.getGames()) {
+			if (game.getEntrant(Disc.RED) == illegal) {
+				Assert.assertEquals(Ending.ILLEGAL_MOVE, game.getEnding());
+				Assert.assertEquals(Disc.YELLOW, game.getWinner());
+				Assert.assertNotNull(game.getError());
+			}
+		}
+		final Standing standing = report.getStandings().get(1);
+		Assert.assertSame(illegal, standing.getEntrant());
+		Assert.assertEquals(4, standing.getLosses());
+		Assert.assertEquals(4, standing.getIllegalMoves());
+	}
+
+	@Test
+	public void testException() {
+		final Entrant broken = new Entrant("broken", (name, disc) -> new Player(name, disc) {
+
+			@Override
+			public int nextMove(final Board board) {
+				throw new IllegalStateException("Broken");
+			}
+		});
+		final Game game = Tournament.play(1, RANDOM, broken, new int[0]);
+		Assert.assertEquals(Ending.EXCEPTION, game.getEnding());
+		Assert.assertEquals(Disc.RED, game.getWinner());
+		Assert.assertTrue(game.getError().contains("Broken"));
+		Assert.assertEquals(1, game.getMoves());
+	}
+
+	@Test
+	public void testFitElo() {
+		final double[] elos = Tournament.fitElo(new double[][] { { 0, 75 }, { 25, 0 } }, new int[][] { { 0, 100 }, { 100, 0 } });
+		Assert.assertEquals(400 * Math.log10(75.5 / 25.5), elos[0] - elos[1], 0.01);
+		Assert.assertEquals(Tournament.MEAN_ELO, (elos[0] + elos[1]) / 2, 0.01);
+
+		// a beats b as often as b beats c, and a always beats c
+		final double[] transitive = Tournament.fitElo(new double[][] { { 0, 30, 40 }, { 10, 0, 30 }, { 0, 10, 0 } },
+				new int[][] { { 0, 40, 40 }, { 40, 0, 40 }, { 40, 40, 0 } });
+		Assert.assertTrue(transitive[0] > transitive[1]);
+		Assert.assertTrue(transitive[1] > transitive[2]);
+		Assert.assertEquals(transitive[0] - transitive[1], transitive[1] - transitive[2], 1);
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		final Report report = new Tournament(Arrays.asList(RANDOM, new Entrant("random, seeded",
+				(name, disc) -> new RandomComputerPlayer(name, disc, new Random(4)))), 4, 2, 4).run(2);
+
+		final StringWriter standingsCsv = new StringWriter();
+		report.writeStandings(standingsCsv, false);
+		final String[] lines = standingsCsv.toString().split("\n");
+		Assert.assertEquals(3, lines.length);
+		Assert.assertTrue(lines[0].startsWith("entrant,elo,games,"));
+		Assert.assertTrue(standingsCsv.toString().contains("\"random, seeded\","));
+
+		final StringWriter gamesCsv = new StringWriter();
+		report.writeGames(gamesCsv, false);
+		Assert.assertEquals(5, gamesCsv.toString().split("\n").length);
+
+		final StringWriter standingsJson = new StringWriter();
+		report.writeStandings(standingsJson, true);
+		Assert.assertTrue(standingsJson.toString().startsWith("{\"games\":4,"));
+		Assert.assertTrue(standingsJson.toString().contains("\"entrant\":\"random, seeded\""));
+
+		final StringWriter gamesJson = new StringWriter();
+		report.writeGames(gamesJson, true);
+		Assert.assertEquals(4, gamesJson.toString().split("\"ending\"").length - 1);
+		Assert.assertTrue(gamesJson.toString().contains("\"opening\":["));
+	}
+
+	@Test
+	public void testParseEntrant() {
+		Assert.assertEquals("trainer", Tournament.parseEntrant("trainer").getName());
+		Assert.assertEquals("Trainer", Tournament.parseEntrant("connect4.trainer.Trainer").getName());
+		final Entrant entrant = Tournament.parseEntrant("connect4.player.RandomComputerPlayer");
+		Assert.assertEquals("RandomComputerPlayer", entrant.getName());
+		Assert.assertEquals(Disc.YELLOW, entrant.createPlayer(Disc.YELLOW).getDisc());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseEntrantBad() {
+		Tournament.parseEntrant("java.lang.String");
+	}
+}
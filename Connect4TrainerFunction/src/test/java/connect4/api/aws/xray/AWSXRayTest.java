@@ -0,0 +1,77 @@
+package connect4.api.aws.xray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AWSXRayTest {
+
+	private final List<String> traced = new ArrayList<>();
+	private final Tracer tracer = new Tracer() {
+
+		@Override
+		public <R> R trace(final String name, final Function<TraceSegment, R> function) {
+			AWSXRayTest.this.traced.add(name);
+			return function.apply((exception) -> AWSXRayTest.this.traced.add(name + " " + exception.getMessage()));
+		}
+	};
+
+	@After
+	public void tearDown() {
+		AWSXRay.setTracer(null, 1);
+	}
+
+	@Test
+	public void testDisabled() {
+		AWSXRay.setTracer(null, 1);
+		Assert.assertFalse(AWSXRay.isXRayEnabled());
+		Assert.assertEquals((Integer) 1, AWSXRay.createSubsegment("outer", (segment) -> {
+			Assert.assertSame(TraceSegment.NO_OP, segment);
+			segment.addException(new IllegalStateException());
+			return 1;
+		}));
+	}
+
+	@Test
+	public void testSampled() {
+		AWSXRay.setTracer(this.tracer, 1);
+		Assert.assertTrue(AWSXRay.isXRayEnabled());
+		AWSXRay.createSubsegment("outer", (segment) -> {
+			AWSXRay.createSubsegment("inner", (inner) -> {
+				inner.addException(new IllegalStateException("Broken"));
+			});
+		});
+		Assert.assertEquals(List.of("outer", "inner", "inner Broken"), this.traced);
+	}
+
+	@Test
+	public void testNotSampled() {
+		AWSXRay.setTracer(this.tracer, 0);
+		AWSXRay.createSubsegment("outer", (segment) -> {
+			Assert.assertSame(TraceSegment.NO_OP, segment);
+			// Subsegments inside an unsampled one aren't traced either
+			AWSXRay.createSubsegment("inner", (inner) -> {
+				Assert.assertSame(TraceSegment.NO_OP, inner);
+			});
+		});
+		Assert.assertTrue(this.traced.isEmpty());
+	}
+
+	@Test
+	public void testSampleRate() {
+		AWSXRay.setTracer(this.tracer, 0.25);
+		for (int i = 0; i < 4000; i++) {
+			AWSXRay.createSubsegment("request", (segment) -> {
+				AWSXRay.createSubsegment("nested", (nested) -> {
+				});
+			});
+		}
+		final long requests = this.traced.stream().filter("request"::equals).count();
+		Assert.assertTrue("Traced " + requests, requests > 800 && requests < 1200);
+		Assert.assertEquals(requests, this.traced.stream().filter("nested"::equals).count());
+	}
+}
@@ -0,0 +1,84 @@
+package connect4.aws;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs {@link LambdaRuntime} against a stub of the Lambda Runtime API.
+ */
+public class LambdaRuntimeTest {
+
+	private static final String REQUEST_ID = "8476a536-e9f4-11e8-9739-2dfe598c3fcd";
+
+	private final Map<String, String> posted = new ConcurrentHashMap<>();
+	private HttpServer server;
+	private LambdaRuntime runtime;
+
+	@Before
+	public void setup() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/2018-06-01/runtime/invocation/next", exchange -> {
+			exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", REQUEST_ID);
+			exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", "" + (System.currentTimeMillis() + 30000));
+			exchange.getResponseHeaders().add("Lambda-Runtime-Trace-Id", "Root=1-5bef4de7-ad49b0e87f6ef6c87fc2e700;Sampled=1");
+			respond(exchange, 200, "{\"action\":\"warm\"}");
+		});
+		this.server.createContext("/2018-06-01/runtime/invocation/" + REQUEST_ID, exchange -> {
+			final String errorType = exchange.getRequestHeaders().getFirst("Lambda-Runtime-Function-Error-Type");
+			this.posted.put(exchange.getRequestURI().getPath() + (errorType == null ? "" : " " + errorType),
+					IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+			respond(exchange, 202, "");
+		});
+		this.server.start();
+		this.runtime = new LambdaRuntime("localhost:" + this.server.getAddress().getPort());
+	}
+
+	@After
+	public void tearDown() {
+		this.server.stop(0);
+		System.clearProperty(LambdaRuntime.TRACE_HEADER_PROPERTY);
+	}
+
+	@Test
+	public void testResponse() throws IOException {
+		this.runtime.handleNext((input, output, context) -> {
+			Assert.assertEquals(REQUEST_ID, context.getAwsRequestId());
+			Assert.assertTrue(context.getRemainingTimeInMillis() > 0);
+			Assert.assertTrue(System.getProperty(LambdaRuntime.TRACE_HEADER_PROPERTY).startsWith("Root=1-5bef4de7"));
+			output.write(IOUtils.toString(input, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8));
+		});
+		Assert.assertEquals(Map.of("/2018-06-01/runtime/invocation/" + REQUEST_ID + "/response", "{\"ACTION\":\"WARM\"}"), this.posted);
+	}
+
+	@Test
+	public void testError() throws IOException {
+		this.runtime.handleNext((input, output, context) -> {
+			throw new IllegalStateException("Broken");
+		});
+		final String error = this.posted.get("/2018-06-01/runtime/invocation/" + REQUEST_ID + "/error Unhandled");
+		Assert.assertNotNull(error);
+		Assert.assertTrue(error,
+				error.startsWith("{\"errorMessage\":\"Broken\",\"errorType\":\"java.lang.IllegalStateException\",\"stackTrace\":["));
+	}
+
+	private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package connect4.forwarder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+public class AbstractBatchingBoardForwarderTest {
+
+	@Test
+	public void testBatchOnSize() throws IllegalMoveException, InterruptedException {
+		final CollectingBatchingBoardForwarder forwarder = new CollectingBatchingBoardForwarder(2, 60000, 100);
+		for (int i = 0; i < 5; i++) {
+			forwarder.receive(createBoard(i), Disc.YELLOW, createInterestingAnalysis());
+		}
+		// Background thread should send two full batches without waiting for the delay
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (forwarder.getBatchSizes().size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(List.of(2, 2), forwarder.getBatchSizes());
+
+		forwarder.flush();
+		Assert.assertEquals(List.of(2, 2, 1), forwarder.getBatchSizes());
+		Assert.assertEquals(List.of(1), forwarder.getFlushedBatchSizes()); // only the last batch was sent by the flush
+		Assert.assertEquals(5, forwarder.getBoards().size());
+	}
+
+	@Test
+	public void testBatchOnDelay() throws IllegalMoveException, InterruptedException {
+		final CollectingBatchingBoardForwarder forwarder = new CollectingBatchingBoardForwarder(10, 50, 100);
+		forwarder.receive(createBoard(0), Disc.YELLOW, createInterestingAnalysis());
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (forwarder.getBatchSizes().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(List.of(1), forwarder.getBatchSizes());
+	}
+
+	@Test
+	public void testFlushDue() throws IllegalMoveException, InterruptedException {
+		final CollectingBatchingBoardForwarder forwarder = new CollectingBatchingBoardForwarder(3, 60000, 100);
+		// Like three Lambda invocations, each forwarding a board and then sending what's due
+		for (int i = 0; i < 2; i++) {
+			forwarder.receive(createBoard(i), Disc.YELLOW, createInterestingAnalysis());
+			forwarder.flushDue();
+			Assert.assertTrue(forwarder.getBatchSizes().isEmpty());
+		}
+		forwarder.receive(createBoard(2), Disc.YELLOW, createInterestingAnalysis());
+		forwarder.flushDue();
+		// The full batch is sent by the flush, or by the background thread if it was quicker
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (forwarder.getBatchSizes().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(List.of(3), forwarder.getBatchSizes());
+		Assert.assertEquals(3, forwarder.getBoards().size());
+	}
+
+	@Test
+	public void testDropOldest() throws IllegalMoveException {
+		final CollectingBatchingBoardForwarder forwarder = new CollectingBatchingBoardForwarder(10, 60000, 3);
+		for (int i = 0; i < 5; i++) {
+			forwarder.receive(createBoard(i), Disc.YELLOW, createInterestingAnalysis());
+		}
+		Assert.assertEquals(2, forwarder.getDropped());
+		forwarder.flush();
+		Assert.assertEquals(List.of(3), forwarder.getBatchSizes());
+		Assert.assertEquals(createBoard(2), forwarder.getBoards().get(0).getBoard());
+		Assert.assertEquals(createBoard(4), forwarder.getBoards().get(2).getBoard());
+	}
+
+	/**
+	 * @return board with discs in column 0 which is different for each <code>n</code> (and doesn't get reversed when normalised)
+	 */
+	private Board createBoard(final int n) throws IllegalMoveException {
+		final Board board = new Board(7, 6);
+		for (int i = 0; i <= n; i++) {
+			board.putDisc(0, i % 2 == 0 ? Disc.YELLOW : Disc.RED);
+		}
+		return board;
+	}
+
+	private BoardAnalysis createInterestingAnalysis() {
+		final BoardAnalysis analysis = new BoardAnalysis();
+		for (int i = 0; i < 7; i++) {
+			final ColumnAnalysis columnAnalysis = new ColumnAnalysis(i);
+			if (i == 3) {
+				columnAnalysis.setFlags(ColumnAnalysis.FLAG_FORCED_WIN);
+			}
+			analysis.add(columnAnalysis);
+		}
+		return analysis;
+	}
+
+	private static class CollectingBatchingBoardForwarder extends AbstractBatchingBoardForwarder {
+
+		private final List<Integer> batchSizes = new ArrayList<>();
+		private final List<Integer> flushedBatchSizes = new ArrayList<>();
+		private final List<StoreBoardRequest> boards = new ArrayList<>();
+
+		private CollectingBatchingBoardForwarder(final int maxBatchSize, final long maxDelayMillis, final int maxQueueSize) {
+			super(null, maxBatchSize, maxDelayMillis, maxQueueSize);
+		}
+
+		@Override
+		protected synchronized void forwardBatch(final List<StoreBoardRequest> batch) {
+			this.batchSizes.add(batch.size());
+			this.boards.addAll(batch);
+		}
+
+		@Override
+		protected synchronized void forwardBatchNow(final List<StoreBoardRequest> batch) {
+			this.flushedBatchSizes.add(batch.size());
+			forwardBatch(batch);
+		}
+
+		private synchronized List<Integer> getFlushedBatchSizes() {
+			return new ArrayList<>(this.flushedBatchSizes);
+		}
+
+		private synchronized List<Integer> getBatchSizes() {
+			return new ArrayList<>(this.batchSizes);
+		}
+
+		private synchronized List<StoreBoardRequest> getBoards() {
+			return new ArrayList<>(this.boards);
+		}
+	}
+}
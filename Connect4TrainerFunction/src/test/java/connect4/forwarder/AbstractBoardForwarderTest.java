@@ -4,6 +4,8 @@ import static connect4.BoardHelperTest.RESOURCES_DIR;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -12,6 +14,7 @@ import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
 import connect4.loader.BoardLoader;
 
 public class AbstractBoardForwarderTest {
@@ -32,6 +35,30 @@ public class AbstractBoardForwarderTest {
 				BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardTest_reverse1d_input.txt")), createBoardAnalysis(0, 1, 2, 3, 4, 5, 6));
 	}
 
+	@Test
+	public void testDedup() throws IOException, InterruptedException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardTest_reverse1a_input.txt"));
+		final Board mirror = BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardTest_reverse1d_input.txt"));
+		final BoardAnalysis interesting = createBoardAnalysis(0, 0, 0, ColumnAnalysis.FLAG_FORCED_WIN, 0, 0, 0);
+		final CollectingBoardForwarder forwarder = new CollectingBoardForwarder(new BoardDedupFilter(10, 200));
+
+		Assert.assertTrue(forwarder.receive(new Board(board), Disc.YELLOW, interesting));
+		Assert.assertTrue(forwarder.receive(new Board(board), Disc.YELLOW, interesting));
+		// Same board once normalised so also suppressed
+		Assert.assertTrue(
+				forwarder.receive(new Board(mirror), Disc.RED, createBoardAnalysis(0, 0, 0, ColumnAnalysis.FLAG_FORCED_WIN, 0, 0, 0)));
+		Assert.assertEquals(1, forwarder.requests.size());
+		Assert.assertEquals(1, forwarder.requests.get(0).getSeenCount());
+
+		Thread.sleep(250);
+		Assert.assertTrue(forwarder.receive(new Board(board), Disc.YELLOW, interesting));
+		Assert.assertEquals(2, forwarder.requests.size());
+		Assert.assertEquals("Should include the suppressed sightings", 3, forwarder.requests.get(1).getSeenCount());
+
+		// Boring boards are still dropped
+		Assert.assertFalse(forwarder.receive(new Board(board), Disc.YELLOW, createBoardAnalysis(0, 0, 0, 0, 0, 0, 0)));
+	}
+
 	private void assertNormalise(final Disc expectedPlayer, final Board expectedBoard, final BoardAnalysis expectedBoardAnalysis,
 			final Disc player, final Board board, final BoardAnalysis boardAnalysis) {
 		final TestBoardForwarder forwarder = new TestBoardForwarder();
@@ -51,6 +78,20 @@ public class AbstractBoardForwarderTest {
 		return analysis;
 	}
 
+	private static class CollectingBoardForwarder extends AbstractBoardForwarder {
+
+		private final List<StoreBoardRequest> requests = new ArrayList<>();
+
+		private CollectingBoardForwarder(final BoardDedupFilter dedupFilter) {
+			super(dedupFilter);
+		}
+
+		@Override
+		protected void forward(final StoreBoardRequest request) {
+			this.requests.add(request);
+		}
+	}
+
 	/**
 	 * Exposes the {@link AbstractBoardForwarder#normalise(Disc, Board, BoardAnalysis)} method when
 	 * {@link #receive(Board, Disc, BoardAnalysis)} is called.
@@ -71,7 +112,7 @@ public class AbstractBoardForwarderTest {
 		}
 
 		@Override
-		protected void forward(final Disc currentPlayer, final Board board, final BoardAnalysis boardAnalysis) {
+		protected void forward(final StoreBoardRequest request) {
 		}
 
 		public Board getBoard() {
@@ -0,0 +1,33 @@
+package connect4.player;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+
+public class RandomComputerPlayerTest {
+
+	@Test
+	public void testPlaysFreeColumns() throws IllegalMoveException {
+		final Board board = new Board(7, 6);
+		for (int c = 0; c < 7; c++) {
+			if (c != 2 && c != 5) {
+				for (int r = 0; r < 6; r++) {
+					board.putDisc(c, r % 2 == 0 ? Disc.RED : Disc.YELLOW);
+				}
+			}
+		}
+		final RandomComputerPlayer player = new RandomComputerPlayer("Random", Disc.RED, new Random(1));
+		final boolean[] played = new boolean[7];
+		for (int i = 0; i < 100; i++) {
+			final int col = player.nextMove(board);
+			Assert.assertTrue("column " + col, col == 2 || col == 5);
+			played[col] = true;
+		}
+		Assert.assertTrue(played[2] && played[5]);
+	}
+}
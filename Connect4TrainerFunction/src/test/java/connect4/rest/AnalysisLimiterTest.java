@@ -0,0 +1,56 @@
+package connect4.rest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnalysisLimiterTest {
+
+	@Test
+	public void testTurnedAwayWhenQueueFull() throws Exception {
+		final AnalysisLimiter limiter = new AnalysisLimiter(1, 1);
+		Assert.assertTrue(limiter.acquire());
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final CountDownLatch started = new CountDownLatch(1);
+			final Future<Boolean> waiter = executor.submit(() -> {
+				started.countDown();
+				return limiter.acquire();
+			});
+			started.await();
+			Thread.sleep(200); // let it start waiting
+
+			Assert.assertFalse(limiter.acquire()); // one running, one waiting
+			limiter.release();
+			Assert.assertTrue(waiter.get(10, TimeUnit.SECONDS));
+			limiter.release();
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertTrue(limiter.acquire());
+	}
+
+	@Test
+	public void testWhenIdle() throws Exception {
+		final AnalysisLimiter limiter = new AnalysisLimiter(1, 1);
+		final AtomicInteger ran = new AtomicInteger();
+		final Executor idle = limiter.whenIdle(Runnable::run);
+
+		Assert.assertTrue(limiter.acquire());
+		idle.execute(ran::incrementAndGet);
+		Assert.assertEquals("Dropped while every turn is taken", 0, ran.get());
+
+		limiter.release();
+		idle.execute(ran::incrementAndGet);
+		Assert.assertEquals(1, ran.get());
+		Assert.assertTrue(limiter.tryAcquire()); // the turn was given back
+	}
+}
@@ -3,8 +3,11 @@ package connect4.rest;
 import static connect4.BoardHelperTest.RESOURCES_DIR;
 
 import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.io.StringWriter;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
@@ -12,6 +15,7 @@ import org.junit.Test;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 
 import connect4.api.Board;
 import connect4.api.Disc;
@@ -19,12 +23,16 @@ import connect4.api.IllegalMoveException;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.analysis.ColumnAnalysis;
 import connect4.api.json.GetRandomBoardRequest;
+import connect4.api.json.StoreBoardBatchRequest;
 import connect4.api.json.StoreBoardRequest;
 import connect4.api.json.WarmRequest;
 import connect4.loader.BoardLoader;
+import connect4.trainer.Trainer;
+import connect4.web.GameAnalysisRequest;
 import connect4.web.GameState;
 import connect4.web.PlayRequest;
 import connect4.web.PlayResponse;
+import connect4.web.RecommendBatchRequest;
 import connect4.web.RecommendRequest;
 import connect4.web.RecommendResponse;
 
@@ -138,6 +146,49 @@ public class JsonStreamingObjectFactoryTest {
 		Assert.assertEquals(FileUtils.readFileToString(new File(RESOURCES_DIR + "Rest_Store_Req_1.json"), "UTF-8"), writer.toString());
 	}
 
+	@Test
+	public void testStoreBoardRequestSeenCount() throws IOException {
+		final String json = FileUtils.readFileToString(new File(RESOURCES_DIR + "Rest_Store_Req_1.json"), "UTF-8");
+		final StoreBoardRequest request = INSTANCE.deserializeStoreRequest(INSTANCE.getParser(json));
+		Assert.assertEquals(1, request.getSeenCount()); // defaults to 1 when there's no "seen" field
+
+		request.setSeenCount(42);
+		final StringWriter writer = new StringWriter();
+		final JsonGenerator generator = INSTANCE.getGenerator(writer);
+		INSTANCE.serialize(generator, request);
+		generator.close();
+		final StoreBoardRequest deserialised = (StoreBoardRequest) INSTANCE
+				.deserializeAbstractBoardRequest(INSTANCE.getParser(writer.toString()));
+		Assert.assertEquals(42, deserialised.getSeenCount());
+		Assert.assertEquals(request.getBoard(), deserialised.getBoard());
+	}
+
+	@Test
+	public void testStoreBoardBatchRequest() throws IOException {
+		final String json = FileUtils.readFileToString(new File(RESOURCES_DIR + "Rest_Store_Req_1.json"), "UTF-8");
+		final StoreBoardRequest first = INSTANCE.deserializeStoreRequest(INSTANCE.getParser(json));
+		first.setSeenCount(3);
+		final StoreBoardRequest second = new StoreBoardRequest();
+		second.setCurrentPlayer(Disc.YELLOW);
+		second.setBoard(new Board(7, 6));
+		second.setBoardAnalysis(new BoardAnalysis()); // no opinions so an empty array is written
+		final StoreBoardBatchRequest batch = new StoreBoardBatchRequest(List.of(first, second, first));
+
+		final StringWriter writer = new StringWriter();
+		final JsonGenerator generator = INSTANCE.getGenerator(writer);
+		INSTANCE.serialize(generator, batch);
+		generator.close();
+		final StoreBoardBatchRequest deserialised = (StoreBoardBatchRequest) INSTANCE
+				.deserializeAbstractBoardRequest(INSTANCE.getParser(writer.toString()));
+		Assert.assertEquals(3, deserialised.getBoards().size());
+		Assert.assertEquals(first.getBoard(), deserialised.getBoards().get(0).getBoard());
+		Assert.assertEquals(first.getBoardAnalysis(), deserialised.getBoards().get(0).getBoardAnalysis());
+		Assert.assertEquals(3, deserialised.getBoards().get(0).getSeenCount());
+		Assert.assertEquals(second.getBoard(), deserialised.getBoards().get(1).getBoard());
+		Assert.assertEquals(1, deserialised.getBoards().get(1).getSeenCount());
+		Assert.assertEquals(first.getBoard(), deserialised.getBoards().get(2).getBoard());
+	}
+
 	@Test
 	public void testDeserialiseGenericRequest() throws IOException {
 		String json = FileUtils.readFileToString(new File(RESOURCES_DIR + "Rest_Play_Req_1.json"), "UTF-8");
@@ -147,6 +198,63 @@ public class JsonStreamingObjectFactoryTest {
 		Assert.assertEquals(RecommendRequest.class, INSTANCE.deserialiseGenericRequest(INSTANCE.getParser(json)).getClass());
 	}
 
+	@Test
+	public void testRecommendExplain() throws IOException {
+		final String board = "\"board\":{\"numCols\":2,\"numRows\":1,\"rows\":[[\"y\",\".\"]]}";
+		final RecommendRequest request = (RecommendRequest) INSTANCE.deserialiseGenericRequest(
+				INSTANCE.getParser("{\"action\":\"recommend\",\"currentPlayer\":\"y\",\"explain\":true," + board + "}"));
+		Assert.assertTrue(request.isExplain());
+
+		final RecommendResponse response = new RecommendResponse();
+		response.setState(GameState.PLAYER_R_TURN);
+		response.setRecommendColumn(1);
+		response.setBoard(request.getBoard());
+		response.setRecommendation(new Trainer().explain(request.getBoard(), Disc.YELLOW));
+		final StringWriter writer = new StringWriter();
+		final JsonGenerator generator = INSTANCE.getGenerator(writer);
+		INSTANCE.serialize(generator, response);
+		generator.close();
+		Assert.assertEquals("{\"gameState\":\"0\",\"recommendColumn\":1,\"recommendRow\":0,\"columns\":[1,0],\"scores\":[1,-2147483648],"
+				+ "\"flags\":[4096,2],\"forcedLine\":[]," + board + "}", writer.toString());
+	}
+
+	@Test
+	public void testAnalyseGameRequest() throws IOException {
+		final GameAnalysisRequest request = (GameAnalysisRequest) INSTANCE
+				.deserialiseGenericRequest(INSTANCE.getParser("{\"action\":\"analyseGame\",\"currentPlayer\":\"r\",\"moves\":[3,2,3]}"));
+		Assert.assertEquals(Disc.RED, request.getCurrentPlayer());
+		Assert.assertEquals(List.of(3, 2, 3), request.getMoves());
+		Assert.assertNull(request.getBoard());
+	}
+
+	@Test
+	public void testRecommendBatch() throws IOException {
+		final String request = "{\"currentPlayer\":\"y\",\"board\":{\"numCols\":2,\"numRows\":1,\"rows\":[[\"y\",\".\"]]}}";
+		final String redRequest = request.replace("\"currentPlayer\":\"y\"", "\"currentPlayer\":\"r\"");
+		final JsonParser parser = INSTANCE.getParser(request + "\n" + redRequest + "\n");
+		Assert.assertEquals(Disc.YELLOW, INSTANCE.deserializeNextRecommendRequest(parser).getCurrentPlayer());
+		final RecommendRequest second = INSTANCE.deserializeNextRecommendRequest(parser);
+		Assert.assertEquals(Disc.RED, second.getCurrentPlayer());
+		Assert.assertEquals(Disc.YELLOW, second.getBoard().getDisc(0, 0));
+		Assert.assertNull(INSTANCE.deserializeNextRecommendRequest(parser));
+
+		final RecommendBatchRequest batch = (RecommendBatchRequest) INSTANCE.deserialiseGenericRequest(
+				INSTANCE.getParser("{\"action\":\"recommendBatch\",\"requests\":[" + request + "," + request + "]}"));
+		Assert.assertEquals(2, batch.getRequests().size());
+
+		final RecommendResponse response = new RecommendResponse();
+		response.setState(GameState.PLAYER_R_TURN);
+		response.setBoard(second.getBoard());
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final JsonGenerator g = INSTANCE.getLineGenerator(output);
+		INSTANCE.serializeLine(g, response);
+		INSTANCE.serializeLine(g, response);
+		g.close();
+		final String line = "{\"gameState\":\"0\",\"recommendColumn\":0,\"recommendRow\":0,"
+				+ "\"board\":{\"numCols\":2,\"numRows\":1,\"rows\":[[\"y\",\".\"]]}}\n";
+		Assert.assertEquals(line + line, output.toString(StandardCharsets.UTF_8));
+	}
+
 	@Test
 	public void testDeserialiseAbstractBoardRequest() throws IOException {
 		String json = FileUtils.readFileToString(new File(RESOURCES_DIR + "Rest_Store_Req_1.json"), "UTF-8");
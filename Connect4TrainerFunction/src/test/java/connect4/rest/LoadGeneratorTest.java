@@ -0,0 +1,84 @@
+package connect4.rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Disc;
+import connect4.rest.LoadGenerator.Endpoint;
+import connect4.rest.LoadGenerator.InProcessTarget;
+import connect4.rest.LoadGenerator.Report;
+import connect4.web.GameHandler;
+import connect4.web.PlayRequest;
+import connect4.web.RecommendRequest;
+
+public class LoadGeneratorTest {
+
+	@Test
+	public void testParseMix() {
+		final Map<Endpoint, Integer> mix = LoadGenerator.parseMix("next=2, recommend=1");
+		Assert.assertEquals(2, mix.size());
+		Assert.assertEquals(Integer.valueOf(2), mix.get(Endpoint.NEXT));
+		Assert.assertEquals(Integer.valueOf(1), mix.get(Endpoint.RECOMMEND));
+		Assert.assertEquals(Endpoint.values().length, LoadGenerator.parseMix("").size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseMixBad() {
+		LoadGenerator.parseMix("next");
+	}
+
+	@Test
+	public void testSelfPlay() {
+		final LoadGenerator generator = new LoadGenerator(new InProcessTarget(new GameHandler()), LoadGenerator.parseMix(null), null);
+		final Report report = generator.run(2, 100, 1000);
+		long errors = 0;
+		for (final Endpoint endpoint : Endpoint.values()) {
+			Assert.assertTrue(endpoint.getPath(), report.getLatency(endpoint).getTotalCount() > 0);
+			errors += report.getErrors(endpoint);
+		}
+		Assert.assertTrue(report.getLatency().getTotalCount() > 10 * errors); // the forced analysis can still trip over a random game
+		Assert.assertTrue(report.getThroughput() > 0);
+		Assert.assertTrue(report.toString().contains("/board/recommend"));
+	}
+
+	@Test
+	public void testCorpus() throws IOException {
+		final File file = File.createTempFile("load", ".ndjson");
+		try {
+			FileUtils.writeStringToFile(file, String.join("\n",
+					"{\"action\":\"recommend\",\"currentPlayer\":\"y\",\"board\":{\"numCols\":7,\"numRows\":6,\"rows\":["
+							+ "[\"y\",\"r\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"]]}}",
+					"",
+					"{\"action\":\"next\",\"currentPlayer\":\"r\",\"board\":{\"numCols\":7,\"numRows\":6,\"rows\":["
+							+ "[\"y\",\"r\",\"y\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"]]},\"column\":3}",
+					"{\"action\":\"recommend\",\"currentPlayer\":\"r\",\"board\":{\"numCols\":7,\"numRows\":6,\"rows\":["
+							+ "[\"y\",\"y\",\"y\",\"y\",\".\",\".\",\".\"],[\"r\",\"r\",\"r\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],"
+							+ "[\".\",\".\",\".\",\".\",\".\",\".\",\".\"],[\".\",\".\",\".\",\".\",\".\",\".\",\".\"]]}}"),
+					StandardCharsets.UTF_8);
+			final List<RecommendRequest> corpus = LoadGenerator.loadCorpus(file);
+			Assert.assertEquals(2, corpus.size()); // the won board is left out
+			Assert.assertEquals(Disc.YELLOW, corpus.get(0).getCurrentPlayer());
+			Assert.assertEquals(Integer.valueOf(3), ((PlayRequest) corpus.get(1)).getColumn());
+
+			final Report report = new LoadGenerator(new InProcessTarget(new GameHandler()), LoadGenerator.parseMix("play=1,next=1"),
+					corpus).run(1, 0, 500);
+			Assert.assertEquals(0, report.getLatency(Endpoint.RECOMMEND).getTotalCount());
+			Assert.assertTrue(report.getLatency(Endpoint.NEXT).getTotalCount() > 0);
+			Assert.assertEquals(0, report.getErrors(Endpoint.NEXT));
+		} finally {
+			file.delete();
+		}
+	}
+}
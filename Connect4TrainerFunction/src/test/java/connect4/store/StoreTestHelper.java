@@ -0,0 +1,56 @@
+package connect4.store;
+
+import static connect4.BoardHelperTest.RESOURCES_DIR;
+
+import java.io.File;
+import java.io.IOException;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
+import connect4.loader.BoardLoader;
+
+/**
+ * Creates the {@link StoreBoardRequest}s the store tests put in and read back.
+ */
+public class StoreTestHelper {
+
+	private StoreTestHelper() {
+	}
+
+	/**
+	 * @param boardFile the board, in the test resources
+	 * @param column the column which is a forced win for yellow, the only interesting one
+	 * @return the request
+	 */
+	public static StoreBoardRequest createRequest(final String boardFile, final int column) throws IOException {
+		return createRequest(boardFile, Disc.YELLOW, column, ColumnAnalysis.FLAG_FORCED_WIN);
+	}
+
+	/**
+	 * @param boardFile the board, in the test resources
+	 * @param currentPlayer whose turn it is
+	 * @param column the only column with any flags
+	 * @param flags the column's {@link ColumnAnalysis} flags
+	 * @return the request
+	 */
+	public static StoreBoardRequest createRequest(final String boardFile, final Disc currentPlayer, final int column, final int flags)
+			throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + boardFile));
+		final BoardAnalysis boardAnalysis = new BoardAnalysis();
+		for (int c = 0; c < board.getNumCols(); c++) {
+			final ColumnAnalysis columnAnalysis = new ColumnAnalysis(c);
+			if (c == column) {
+				columnAnalysis.setFlags(flags);
+			}
+			boardAnalysis.add(columnAnalysis);
+		}
+		final StoreBoardRequest request = new StoreBoardRequest();
+		request.setBoard(board);
+		request.setBoardAnalysis(boardAnalysis);
+		request.setCurrentPlayer(currentPlayer);
+		return request;
+	}
+}
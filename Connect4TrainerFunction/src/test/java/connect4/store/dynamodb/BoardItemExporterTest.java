@@ -0,0 +1,137 @@
+package connect4.store.dynamodb;
+
+import static connect4.store.StoreTestHelper.createRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.analysis.BoardAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+public class BoardItemExporterTest {
+
+	private static final String[] BOARDS = { "BoardTest_reverse1a_input.txt", "BoardTest_reverse1b_input.txt",
+			"BoardTest_reverse1c_input.txt", "BoardTest_reverse1d_input.txt", "TrainerTest_ForceWin_1.txt", "TrainerTest_ForceWin_2.txt",
+			"TrainerTest_ForceWin_3.txt", "TrainerTest_Make3_1.txt" };
+
+	/**
+	 * In-memory stand-in for the table. Scans are split into segments by range key and return small pages. The first batch write leaves
+	 * one item unprocessed to exercise retries.
+	 */
+	private static class StubDynamoDb extends AbstractAmazonDynamoDB {
+
+		private static final int PAGE_SIZE = 2;
+		private final TreeMap<Integer, Map<String, AttributeValue>> items = new TreeMap<>();
+		private int batchWrites;
+
+		@Override
+		public synchronized BatchWriteItemResult batchWriteItem(final BatchWriteItemRequest request) {
+			final List<WriteRequest> writes = request.getRequestItems().get(BoardItemHelper.TABLE);
+			final Set<Integer> keys = new HashSet<>();
+			final List<WriteRequest> unprocessed = new ArrayList<>();
+			for (final WriteRequest write : writes) {
+				final Map<String, AttributeValue> item = write.getPutRequest().getItem();
+				final int boardHashCode = Integer.parseInt(item.get(BoardItemHelper.KEY_RANGE).getN());
+				Assert.assertTrue("Duplicate key in batch", keys.add(boardHashCode));
+				if (this.batchWrites == 0 && unprocessed.isEmpty()) {
+					unprocessed.add(write);
+				} else {
+					this.items.put(boardHashCode, item);
+				}
+			}
+			this.batchWrites++;
+			return new BatchWriteItemResult().withUnprocessedItems(
+					unprocessed.isEmpty() ? Collections.emptyMap() : Collections.singletonMap(BoardItemHelper.TABLE, unprocessed));
+		}
+
+		@Override
+		public synchronized ScanResult scan(final ScanRequest request) {
+			final int startAfter = request.getExclusiveStartKey() == null ? Integer.MIN_VALUE
+					: Integer.parseInt(request.getExclusiveStartKey().get(BoardItemHelper.KEY_RANGE).getN());
+			final List<Map<String, AttributeValue>> page = new ArrayList<>();
+			for (final Map.Entry<Integer, Map<String, AttributeValue>> entry : this.items.tailMap(startAfter, false).entrySet()) {
+				if (Math.floorMod(entry.getKey(), request.getTotalSegments()) == request.getSegment()) {
+					page.add(entry.getValue());
+					if (page.size() == PAGE_SIZE) {
+						final Map<String, AttributeValue> lastKey = new HashMap<>();
+						lastKey.put(BoardItemHelper.KEY_RANGE, entry.getValue().get(BoardItemHelper.KEY_RANGE));
+						return new ScanResult().withItems(page).withLastEvaluatedKey(lastKey);
+					}
+				}
+			}
+			return new ScanResult().withItems(page);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		final List<StoreBoardRequest> requests = new ArrayList<>();
+		final ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		for (int i = 0; i < BOARDS.length; i++) {
+			final StoreBoardRequest request = createRequest(BOARDS[i], i % 7);
+			requests.add(request);
+			ndjson.write(BoardItemFormat.NDJSON.encode(request));
+		}
+		ndjson.write("\n".getBytes(StandardCharsets.UTF_8)); // blank lines are ignored
+		ndjson.write(BoardItemFormat.NDJSON.encode(requests.get(0))); // duplicate
+
+		final StubDynamoDb source = new StubDynamoDb();
+		Assert.assertEquals(BOARDS.length + 1,
+				new BoardItemImporter(source).importBoards(new ByteArrayInputStream(ndjson.toByteArray()), BoardItemFormat.NDJSON));
+		Assert.assertEquals(BOARDS.length, source.items.size());
+
+		// Export to binary and import into a fresh table
+		final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		Assert.assertEquals(BOARDS.length, new BoardItemExporter(source, 3).export(binary, BoardItemFormat.BINARY));
+		final StubDynamoDb target = new StubDynamoDb();
+		Assert.assertEquals(BOARDS.length,
+				new BoardItemImporter(target).importBoards(new ByteArrayInputStream(binary.toByteArray()), BoardItemFormat.BINARY));
+		Assert.assertEquals(source.items, target.items);
+
+		// Export back to NDJSON and check every board made it
+		final ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		Assert.assertEquals(BOARDS.length, new BoardItemExporter(target, 1).export(exported, BoardItemFormat.NDJSON));
+		final ByteArrayInputStream in = new ByteArrayInputStream(exported.toByteArray());
+		final Map<Board, BoardAnalysis> actual = new HashMap<>();
+		StoreBoardRequest request;
+		while ((request = BoardItemFormat.NDJSON.read(in)) != null) {
+			Assert.assertEquals(Disc.YELLOW, request.getCurrentPlayer());
+			actual.put(request.getBoard(), request.getBoardAnalysis());
+		}
+		Assert.assertEquals(BOARDS.length, actual.size());
+		for (final StoreBoardRequest expected : requests) {
+			Assert.assertEquals(expected.getBoardAnalysis(), actual.get(expected.getBoard()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedBinary() throws IOException {
+		final byte[] record = BoardItemFormat.BINARY.encode(createRequest(BOARDS[0], 3));
+		final byte[] truncated = new byte[record.length - 1];
+		System.arraycopy(record, 0, truncated, 0, truncated.length);
+		BoardItemFormat.BINARY.read(new ByteArrayInputStream(truncated));
+	}
+}
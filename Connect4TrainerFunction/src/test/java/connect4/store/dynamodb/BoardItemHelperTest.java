@@ -56,4 +56,15 @@ public class BoardItemHelperTest {
 		boardAnalysis.add(6, new ColumnAnalysis(6));
 		Assert.assertEquals(boardAnalysis, BoardItemHelper.BOARD_ANALYSIS_CONVERTER.unconvert(boardAnalysisJson));
 	}
+
+	@Test(timeout = 10000)
+	public void testConvertBoardAnalysisNoOpinion() {
+		final BoardAnalysis boardAnalysis = new BoardAnalysis();
+		for (int c = 0; c < 7; c++) {
+			boardAnalysis.add(new ColumnAnalysis(c));
+		}
+		final String boardAnalysisJson = BoardItemHelper.BOARD_ANALYSIS_CONVERTER.convert(boardAnalysis);
+		Assert.assertEquals("{\"boardAnalysis\":[]}", boardAnalysisJson);
+		Assert.assertEquals(boardAnalysis, BoardItemHelper.BOARD_ANALYSIS_CONVERTER.unconvert(boardAnalysisJson));
+	}
 }
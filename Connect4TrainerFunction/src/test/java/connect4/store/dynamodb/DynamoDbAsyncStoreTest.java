@@ -0,0 +1,109 @@
+package connect4.store.dynamodb;
+
+import static connect4.store.StoreTestHelper.createRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.json.StoreBoardRequest;
+
+public class DynamoDbAsyncStoreTest {
+
+	/**
+	 * Just enough of DynamoDB to check the requests the store makes. Callbacks are completed inline.
+	 */
+	private static class StubDynamoDb extends AbstractAmazonDynamoDBAsync {
+
+		private final List<UpdateItemRequest> updates = new ArrayList<>();
+		private final Map<Map<String, AttributeValue>, Map<String, AttributeValue>> items = new HashMap<>();
+		private int queries;
+
+		@Override
+		public Future<UpdateItemResult> updateItemAsync(final UpdateItemRequest request,
+				final AsyncHandler<UpdateItemRequest, UpdateItemResult> asyncHandler) {
+			this.updates.add(request);
+			if (request.getUpdateExpression().startsWith("set")) {
+				final Map<String, AttributeValue> item = new HashMap<>(request.getKey());
+				item.put(BoardItemHelper.ATTR_BOARD, request.getExpressionAttributeValues().get(":val1"));
+				item.put(BoardItemHelper.ATTR_BOARD_ANALYSIS, request.getExpressionAttributeValues().get(":val2"));
+				this.items.put(request.getKey(), item);
+			}
+			final UpdateItemResult result = new UpdateItemResult();
+			asyncHandler.onSuccess(request, result);
+			return CompletableFuture.completedFuture(result);
+		}
+
+		@Override
+		public Future<GetItemResult> getItemAsync(final GetItemRequest request,
+				final AsyncHandler<GetItemRequest, GetItemResult> asyncHandler) {
+			final GetItemResult result = new GetItemResult().withItem(this.items.get(request.getKey()));
+			asyncHandler.onSuccess(request, result);
+			return CompletableFuture.completedFuture(result);
+		}
+
+		@Override
+		public Future<QueryResult> queryAsync(final QueryRequest request, final AsyncHandler<QueryRequest, QueryResult> asyncHandler) {
+			this.queries++;
+			final QueryResult result = new QueryResult().withItems(Collections.emptyList()).withCount(0);
+			asyncHandler.onSuccess(request, result);
+			return CompletableFuture.completedFuture(result);
+		}
+	}
+
+	@Test
+	public void testCreateOrUpdate() throws Exception {
+		final StubDynamoDb dynamoDb = new StubDynamoDb();
+		final DynamoDbAsyncStore store = new DynamoDbAsyncStore(dynamoDb);
+		final StoreBoardRequest request = createRequest("BoardTest_reverse1a_input.txt", 3);
+		final int boardHashCode = request.getBoard().hashCode();
+
+		final CompletableFuture<Void> first = store.createOrUpdate(request);
+		final CompletableFuture<Void> second = store.createOrUpdate(request);
+		CompletableFuture.allOf(first, second).get();
+		Assert.assertEquals("Board item should only be written once per flush interval", 1, dynamoDb.updates.size());
+		Assert.assertEquals("The first sighting is counted on the board item", "1",
+				dynamoDb.updates.get(0).getExpressionAttributeValues().get(":val3").getN());
+
+		final StoreBoardRequest stored = store.get(boardHashCode).get();
+		Assert.assertEquals(request.getBoard(), stored.getBoard());
+		Assert.assertEquals(request.getBoardAnalysis(), stored.getBoardAnalysis());
+		Assert.assertEquals(Disc.YELLOW, stored.getCurrentPlayer());
+		Assert.assertNull(store.get(42).get());
+
+		store.flush().get();
+		Assert.assertEquals(2, dynamoDb.updates.size());
+		final UpdateItemRequest counterUpdate = dynamoDb.updates.get(1);
+		Assert.assertEquals("1", counterUpdate.getExpressionAttributeValues().get(":val").getN());
+		final int stripe = Integer.parseInt(counterUpdate.getKey().get(BoardItemHelper.KEY_HASH).getN())
+				- BoardItemHelper.KEY_HASH_COUNTER_OFFSET;
+		Assert.assertTrue(stripe >= 0 && stripe < DynamoDbStore.DEFAULT_SEEN_STRIPES);
+		Assert.assertEquals(Integer.toString(boardHashCode), counterUpdate.getKey().get(BoardItemHelper.KEY_RANGE).getN());
+	}
+
+	@Test
+	public void testGetRandomEmpty() throws Exception {
+		final StubDynamoDb dynamoDb = new StubDynamoDb();
+		Assert.assertNull(new DynamoDbAsyncStore(dynamoDb).getRandom().get());
+		Assert.assertEquals("Should try both >= and <=", 2, dynamoDb.queries);
+	}
+}
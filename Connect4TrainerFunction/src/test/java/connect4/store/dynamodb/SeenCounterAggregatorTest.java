@@ -0,0 +1,54 @@
+package connect4.store.dynamodb;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeenCounterAggregatorTest {
+
+	@Test
+	public void testIncrement() {
+		final SeenCounterAggregator aggregator = new SeenCounterAggregator(10, 1000);
+		// First sightings are counted by writing the board item, not held
+		Assert.assertTrue(aggregator.increment(1, 1, 0));
+		Assert.assertFalse(aggregator.increment(1, 1, 10));
+		Assert.assertTrue(aggregator.increment(2, 1, 20));
+		Assert.assertEquals(1, aggregator.getPending(1));
+		Assert.assertEquals(0, aggregator.getPending(2));
+		Assert.assertEquals(0, aggregator.getPending(3));
+
+		final Map<Integer, Integer> drained = aggregator.drain();
+		Assert.assertEquals(1, drained.size());
+		Assert.assertEquals(Integer.valueOf(1), drained.get(1));
+		Assert.assertEquals(0, aggregator.getPending(1));
+		Assert.assertTrue(aggregator.drain().isEmpty());
+
+		// Still written in this interval after a drain
+		Assert.assertFalse(aggregator.increment(1, 5, 30));
+		Assert.assertEquals(5, aggregator.getPending(1));
+
+		// First sighting again in the next interval
+		Assert.assertTrue(aggregator.increment(1, 1, 1000));
+		Assert.assertFalse(aggregator.increment(1, 1, 1010));
+		Assert.assertEquals(6, aggregator.getPending(1));
+	}
+
+	@Test
+	public void testFlushDue() {
+		final SeenCounterAggregator aggregator = new SeenCounterAggregator(2, 1000);
+		Assert.assertFalse(aggregator.isFlushDue(5000)); // nothing pending
+		aggregator.increment(1, 1, 0);
+		Assert.assertFalse(aggregator.isFlushDue(5000)); // the board item counted it
+		aggregator.increment(1, 1, 100);
+		Assert.assertFalse(aggregator.isFlushDue(1099));
+		Assert.assertTrue(aggregator.isFlushDue(1100)); // too old
+		aggregator.drain();
+
+		aggregator.increment(2, 1, 1200);
+		aggregator.increment(2, 1, 1200);
+		aggregator.increment(3, 1, 1200);
+		aggregator.increment(3, 1, 1200);
+		Assert.assertTrue(aggregator.isFlushDue(1200)); // too many boards
+	}
+}
@@ -0,0 +1,173 @@
+package connect4.store.lambda;
+
+import static connect4.store.StoreTestHelper.createRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.JsonStreamingObjectFactory;
+import connect4.api.json.StoreBoardBatchRequest;
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.AsyncBoardStore;
+import connect4.store.BoardBatch;
+import connect4.store.local.LocalBoardStore;
+
+public class AwsLambdaStoreHandlerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testBatch() throws IOException {
+		// 1b is 1a swapped so once normalised they're the same board
+		final StoreBoardRequest request1 = createRequest("BoardTest_reverse1a_input.txt", Disc.YELLOW, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		final StoreBoardRequest request2 = createRequest("BoardTest_reverse1b_input.txt", Disc.RED, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		final StoreBoardRequest request3 = createRequest("BoardTest_reverse2_input.txt", Disc.YELLOW, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		request3.setSeenCount(3);
+		String json = serialize(new StoreBoardBatchRequest(List.of(request1, request2, request3)));
+		json = json.replace("\"boards\":[", "\"boards\":[{},"); // invalid board first
+
+		try (LocalBoardStore store = new LocalBoardStore(folder.newFile())) {
+			final String response = handle(new AwsLambdaStoreHandler(store), json);
+			Assert.assertEquals("{\"status\":\"received\",\"results\":[\"invalid\",\"stored\",\"merged\",\"stored\"]}", response);
+			Assert.assertEquals(2, store.size());
+			Assert.assertEquals(2, store.getSeenCount(getNormalisedHashCode("BoardTest_reverse1a_input.txt", Disc.YELLOW)));
+			Assert.assertEquals(3, store.getSeenCount(getNormalisedHashCode("BoardTest_reverse2_input.txt", Disc.YELLOW)));
+		}
+	}
+
+	@Test
+	public void testBatchAsyncFailure() throws IOException {
+		final StoreBoardRequest request1 = createRequest("BoardTest_reverse1a_input.txt", Disc.YELLOW, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		final StoreBoardRequest request2 = createRequest("BoardTest_reverse2_input.txt", Disc.YELLOW, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		final int failingHashCode = getNormalisedHashCode("BoardTest_reverse2_input.txt", Disc.YELLOW);
+		final List<StoreBoardRequest> stored = new ArrayList<>();
+		final AsyncBoardStore asyncStore = new AsyncBoardStore() {
+
+			@Override
+			public synchronized CompletableFuture<Void> createOrUpdate(final StoreBoardRequest request) {
+				if (request.getBoard().hashCode() == failingHashCode) {
+					return CompletableFuture.failedFuture(new RuntimeException("Throttled"));
+				}
+				stored.add(request);
+				return CompletableFuture.completedFuture(null);
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> get(final int boardHashCode) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> getRandom() {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		final BoardBatch batch = new BoardBatch();
+		batch.accept(request1);
+		batch.accept(request2);
+		Assert.assertEquals(List.of(BoardBatch.STATUS_STORED, BoardBatch.STATUS_FAILED),
+				new AwsLambdaStoreHandler(null, asyncStore).handle(batch));
+		Assert.assertEquals(1, stored.size());
+		Assert.assertEquals(Disc.YELLOW, stored.get(0).getCurrentPlayer());
+	}
+
+	@Test
+	public void testBatchFlushed() throws IOException {
+		final List<String> calls = new ArrayList<>();
+		final AsyncBoardStore asyncStore = new AsyncBoardStore() {
+
+			@Override
+			public CompletableFuture<Void> createOrUpdate(final StoreBoardRequest request) {
+				calls.add("store");
+				return CompletableFuture.completedFuture(null);
+			}
+
+			@Override
+			public CompletableFuture<Void> flush() {
+				calls.add("flush");
+				return CompletableFuture.completedFuture(null);
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> get(final int boardHashCode) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> getRandom() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		final StoreBoardRequest request = createRequest("BoardTest_reverse1a_input.txt", Disc.YELLOW, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		final String json = serialize(new StoreBoardBatchRequest(List.of(request)));
+		// Counters aggregated in an invocation are written before it returns, the container might not get another one
+		handle(new AwsLambdaStoreHandler(null, asyncStore), json);
+		Assert.assertEquals(List.of("store", "flush"), calls);
+	}
+
+	@Test
+	public void testAsyncCreateOrUpdateAll() {
+		final AsyncBoardStore asyncStore = new AsyncBoardStore() {
+
+			@Override
+			public CompletableFuture<Void> createOrUpdate(final StoreBoardRequest request) {
+				throw new IllegalArgumentException("Not YELLOW");
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> get(final int boardHashCode) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public CompletableFuture<StoreBoardRequest> getRandom() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		final StoreBoardRequest request = new StoreBoardRequest();
+		request.setBoard(new Board(7, 6));
+		final Map<Integer, Throwable> failures = asyncStore.createOrUpdateAll(List.of(request)).join();
+		Assert.assertEquals(1, failures.size());
+		Assert.assertTrue(failures.get(request.getBoard().hashCode()) instanceof IllegalArgumentException);
+	}
+
+	private String handle(final AwsLambdaStoreHandler handler, final String json) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		handler.handleRequest(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), output, null);
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+	private String serialize(final StoreBoardBatchRequest batch) throws IOException {
+		final JsonStreamingObjectFactory factory = JsonStreamingObjectFactory.getInstance();
+		final StringWriter writer = new StringWriter();
+		final JsonGenerator generator = factory.getGenerator(writer);
+		factory.serialize(generator, batch);
+		generator.close();
+		return writer.toString();
+	}
+
+	private int getNormalisedHashCode(final String boardFile, final Disc currentPlayer) throws IOException {
+		final StoreBoardRequest request = createRequest(boardFile, currentPlayer, 4, ColumnAnalysis.FLAG_FORCED_WIN);
+		request.normalise();
+		return request.getBoard().hashCode();
+	}
+}
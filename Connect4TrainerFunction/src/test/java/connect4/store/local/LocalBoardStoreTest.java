@@ -0,0 +1,88 @@
+package connect4.store.local;
+
+import static connect4.store.StoreTestHelper.createRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import connect4.api.Disc;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
+
+public class LocalBoardStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testCreateOrUpdate() throws IOException {
+		final File file = folder.newFile();
+		final StoreBoardRequest request1 = createRequest("BoardTest_reverse1a_input.txt", 3);
+		final StoreBoardRequest request2 = createRequest("TrainerTest_ForceWin_2.txt", Disc.YELLOW, 5,
+				ColumnAnalysis.FLAG_TRAP_MORE_THAN_ONE);
+		try (LocalBoardStore store = new LocalBoardStore(file)) {
+			Assert.assertNull(store.getRandom());
+			store.createOrUpdate(request1);
+			store.createOrUpdate(request2);
+			store.createOrUpdate(request1);
+			Assert.assertEquals(2, store.size());
+			Assert.assertEquals(2, store.getSeenCount(request1.getBoard().hashCode()));
+			request2.setSeenCount(4); // e.g. forwarder suppressed 3 sightings
+			store.createOrUpdate(request2);
+			request2.setSeenCount(1);
+			Assert.assertEquals(5, store.getSeenCount(request2.getBoard().hashCode()));
+			assertRequest(request1, store.get(request1.getBoard().hashCode()));
+			Assert.assertNull(store.get(42));
+		}
+
+		// Reopening replays the log
+		try (LocalBoardStore store = new LocalBoardStore(file)) {
+			Assert.assertEquals(2, store.size());
+			Assert.assertEquals(2, store.getSeenCount(request1.getBoard().hashCode()));
+			Assert.assertEquals(5, store.getSeenCount(request2.getBoard().hashCode()));
+			assertRequest(request2, store.get(request2.getBoard().hashCode()));
+			Assert.assertNotNull(store.getRandom());
+
+			final List<StoreBoardRequest> scanned = new ArrayList<>();
+			store.scan(scanned::add);
+			Assert.assertEquals(2, scanned.size());
+			assertRequest(request1, scanned.get(0));
+			assertRequest(request2, scanned.get(1));
+		}
+	}
+
+	@Test
+	public void testGrow() throws IOException {
+		final StoreBoardRequest request = createRequest("BoardTest_reverse1a_input.txt", 3);
+		try (LocalBoardStore store = new LocalBoardStore(folder.newFile())) {
+			for (int i = 0; i < 50000; i++) { // enough updates to grow past the initial mapping
+				store.createOrUpdate(request);
+			}
+			Assert.assertEquals(1, store.size());
+			Assert.assertEquals(50000, store.getSeenCount(request.getBoard().hashCode()));
+			assertRequest(request, store.getRandom());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotNormalised() throws IOException {
+		final StoreBoardRequest request = createRequest("BoardTest_reverse1a_input.txt", 3);
+		request.setCurrentPlayer(Disc.RED);
+		try (LocalBoardStore store = new LocalBoardStore(folder.newFile())) {
+			store.createOrUpdate(request);
+		}
+	}
+
+	private void assertRequest(final StoreBoardRequest expected, final StoreBoardRequest actual) {
+		Assert.assertEquals(expected.getBoard(), actual.getBoard());
+		Assert.assertEquals(expected.getBoardAnalysis(), actual.getBoardAnalysis());
+		Assert.assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+	}
+}
@@ -0,0 +1,93 @@
+package connect4.store.log;
+
+import static connect4.store.StoreTestHelper.createRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import connect4.api.binary.BinaryObjectFactory;
+import connect4.api.json.StoreBoardRequest;
+import connect4.store.local.LocalBoardStore;
+
+public class BoardLogTest {
+
+	private static final String[] BOARDS = { "BoardTest_reverse1a_input.txt", "BoardTest_reverse2_input.txt", "TrainerTest_ForceWin_1.txt",
+			"TrainerTest_ForceWin_2.txt", "TrainerTest_ForceWin_3.txt", "TrainerTest_Make3_1.txt" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReplay() throws IOException {
+		final File directory = folder.newFolder();
+		final List<StoreBoardRequest> requests = new ArrayList<>();
+		// Small segments so the log rolls over a few times
+		try (BoardLogWriter writer = new BoardLogWriter(directory, 128, 2, 60000)) {
+			for (int i = 0; i < BOARDS.length; i++) {
+				final StoreBoardRequest request = createRequest(BOARDS[i], i);
+				requests.add(request);
+				writer.append(request);
+			}
+			requests.get(0).setSeenCount(3);
+			writer.append(requests.get(0));
+		}
+		Assert.assertTrue(BoardLogWriter.listSegments(directory).length > 1);
+
+		final List<StoreBoardRequest> read = new ArrayList<>();
+		Assert.assertEquals(BOARDS.length + 1, new BoardLogReplayer(directory).read(read::add));
+		for (int i = 0; i < BOARDS.length; i++) {
+			Assert.assertEquals(requests.get(i).getBoard(), read.get(i).getBoard());
+			Assert.assertEquals(requests.get(i).getBoardAnalysis(), read.get(i).getBoardAnalysis());
+		}
+		Assert.assertEquals(3, read.get(BOARDS.length).getSeenCount());
+
+		try (LocalBoardStore store = new LocalBoardStore(folder.newFile())) {
+			Assert.assertEquals(BOARDS.length + 1, new BoardLogReplayer(directory).replay(store, 4, true));
+			Assert.assertEquals(BOARDS.length, store.size());
+			final StoreBoardRequest normalised = createRequest(BOARDS[0], 0);
+			normalised.normalise(); // the replayer normalises
+			Assert.assertEquals(4, store.getSeenCount(normalised.getBoard().hashCode()));
+		}
+		Assert.assertEquals(0, BoardLogWriter.listSegments(directory).length);
+	}
+
+	@Test
+	public void testCorruptRecord() throws IOException {
+		final File directory = folder.newFolder();
+		try (BoardLogWriter writer = new BoardLogWriter(directory, 4096, 1000, 60000)) {
+			writer.append(createRequest(BOARDS[0], 0));
+			writer.append(createRequest(BOARDS[1], 1));
+			writer.append(createRequest(BOARDS[2], 2));
+		}
+		// A new writer starts a new segment rather than appending to the old one
+		try (BoardLogWriter writer = new BoardLogWriter(directory, 4096, 1000, 60000)) {
+			writer.append(createRequest(BOARDS[3], 3));
+		}
+		final File[] segments = BoardLogWriter.listSegments(directory);
+		Assert.assertEquals(2, segments.length);
+
+		// Flip a byte in the body of the second record of the first segment
+		final int recordSize = BoardLogWriter.RECORD_HEADER_SIZE + 4
+				+ BinaryObjectFactory.getInstance().getSerializedSize(createRequest(BOARDS[0], 0));
+		try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+			final long offset = recordSize + BoardLogWriter.RECORD_HEADER_SIZE + 6;
+			file.seek(offset);
+			final int b = file.read();
+			file.seek(offset);
+			file.write(b ^ 0xff);
+		}
+
+		final List<StoreBoardRequest> read = new ArrayList<>();
+		Assert.assertEquals(2, new BoardLogReplayer(directory).read(read::add));
+		Assert.assertEquals(createRequest(BOARDS[0], 0).getBoard(), read.get(0).getBoard());
+		Assert.assertEquals(createRequest(BOARDS[3], 3).getBoard(), read.get(1).getBoard());
+	}
+}
@@ -15,6 +15,8 @@ import connect4.api.Disc;
 import connect4.api.analysis.BoardAnalysis;
 import connect4.api.analysis.ColumnAnalysis;
 import connect4.loader.BoardLoader;
+import connect4.web.RecommendRequest;
+import connect4.web.WarmUp;
 
 public class TrainerTest {
 
@@ -25,6 +27,20 @@ public class TrainerTest {
 		trainer = new Trainer();
 	}
 
+	@Test
+	public void testWarmUpCorpusRaisesEveryFlag() {
+		int flags = 0;
+		for (final RecommendRequest position : WarmUp.loadCorpus()) {
+			trainer.recommend(position.getBoard(), position.getCurrentPlayer());
+			for (final ColumnAnalysis analysis : trainer.getLastBoardAnalysis()) {
+				flags |= analysis.getFlags();
+			}
+		}
+		for (int flag = ColumnAnalysis.FLAG_WIN_1; flag <= ColumnAnalysis.FLAG_BOTTOM_CENTER_FREE; flag <<= 1) {
+			Assert.assertTrue("No position raises flag " + flag, (flags & flag) != 0);
+		}
+	}
+
 	@Test
 	public void testEmpty() {
 		final Board board = new Board(7, 6);
@@ -143,6 +159,44 @@ public class TrainerTest {
 		Assert.assertTrue(trainer.getLastBestBoardAnalysis().get(0).hasCondition(ColumnAnalysis.FLAG_FORCED_WIN));
 	}
 
+	@Test
+	public void testExplainForceTrapWin1() throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final Recommendation recommendation = new Trainer().explain(board, Disc.YELLOW);
+		Assert.assertEquals(3, recommendation.getColumn());
+
+		// Every column ranked, best first
+		Assert.assertEquals(board.getNumCols(), recommendation.getColumns().length);
+		Assert.assertEquals(3, recommendation.getColumns()[0]);
+		Assert.assertTrue((recommendation.getFlags()[0] & ColumnAnalysis.FLAG_FORCED_WIN) != 0);
+		for (int i = 1; i < recommendation.getScores().length; i++) {
+			Assert.assertTrue(recommendation.getScores()[i - 1] >= recommendation.getScores()[i]);
+		}
+
+		// Our move, the opponent's forced reply, ..., the winning move
+		final int[] line = recommendation.getForcedLine();
+		Assert.assertTrue(line.length >= 3);
+		Assert.assertEquals(1, line.length % 2);
+		Assert.assertEquals(3, line[0]);
+	}
+
+	@Test
+	public void testExplainNoForcedLine() throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_2.txt"));
+		final Recommendation recommendation = new Trainer().explain(board, Disc.YELLOW);
+		Assert.assertEquals(3, recommendation.getColumn());
+		Assert.assertEquals(0, recommendation.getForcedLine().length);
+
+		// Mirroring keeps columns that score the same in column order
+		final Recommendation mirrored = recommendation.mirror(board.getNumCols());
+		Assert.assertEquals(board.getNumCols() - 1 - 3, mirrored.getColumn());
+		for (int i = 1; i < mirrored.getColumns().length; i++) {
+			if (mirrored.getScores()[i - 1] == mirrored.getScores()[i]) {
+				Assert.assertTrue(mirrored.getColumns()[i - 1] < mirrored.getColumns()[i]);
+			}
+		}
+	}
+
 	@Test
 	public void testForceTrapWin2() throws IOException {
 		// No opinion. This is testing a bug
@@ -4,6 +4,8 @@ import static connect4.BoardHelperTest.RESOURCES_DIR;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -12,7 +14,14 @@ import connect4.api.Board;
 import connect4.api.Disc;
 import connect4.api.GameException;
 import connect4.api.IllegalMoveException;
+import connect4.api.analysis.ColumnAnalysis;
+import connect4.api.json.StoreBoardRequest;
+import connect4.forwarder.AbstractBoardForwarder;
+import connect4.forwarder.SinkBoardForwader;
 import connect4.loader.BoardLoader;
+import connect4.rest.AnalysisLimiter;
+import connect4.trainer.MoveReview;
+import connect4.trainer.Trainer;
 
 public class GameHandlerTest {
 
@@ -45,6 +54,54 @@ public class GameHandlerTest {
 		Assert.assertEquals(GameState.PLAYER_R_TURN, response.getState());
 	}
 
+	@Test
+	public void testRecommendExplain() throws IOException {
+		final RecommendRequest request = new RecommendRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt")));
+		Assert.assertNull(gameHandler.recommend(request).getRecommendation());
+
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt")));
+		request.setExplain(true);
+		final RecommendResponse response = gameHandler.recommend(request);
+		Assert.assertEquals(3, response.getRecommendColumn());
+		Assert.assertEquals(3, response.getRecommendation().getColumns()[0]);
+		Assert.assertEquals(3, response.getRecommendation().getForcedLine()[0]);
+	}
+
+	/**
+	 * Every recommendation forwards the board, including those the coalescer remembered, the same as the trainer would.
+	 */
+	@Test
+	public void testRecommendCoalescedForwarded() throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final CollectingBoardForwarder expected = new CollectingBoardForwarder();
+		new Trainer(expected).explain(new Board(board), Disc.YELLOW);
+		Assert.assertEquals(1, expected.requests.size());
+
+		final CollectingBoardForwarder forwarder = new CollectingBoardForwarder();
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final GameHandler handler = new GameHandler(forwarder, coalescer);
+		final RecommendRequest request = new RecommendRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setBoard(new Board(board));
+		handler.recommend(request);
+		request.setBoard(new Board(board));
+		request.setExplain(true);
+		handler.recommend(request);
+		request.setCurrentPlayer(Disc.RED);
+		request.setBoard(board.swap());
+		handler.recommend(request);
+
+		Assert.assertEquals(1, coalescer.size());
+		Assert.assertEquals(3, forwarder.requests.size());
+		for (final StoreBoardRequest forwarded : forwarder.requests) {
+			Assert.assertEquals(expected.requests.get(0).getCurrentPlayer(), forwarded.getCurrentPlayer());
+			Assert.assertEquals(expected.requests.get(0).getBoard(), forwarded.getBoard());
+			Assert.assertEquals(expected.requests.get(0).getBoardAnalysis(), forwarded.getBoardAnalysis());
+		}
+	}
+
 	@Test
 	public void testRecommendAlreadyWon() throws IOException, IllegalMoveException {
 		final RecommendRequest request = new RecommendRequest();
@@ -77,6 +134,177 @@ public class GameHandlerTest {
 		Assert.assertEquals(board, response.getAiBoard());
 	}
 
+	@Test
+	public void testPlayPonders() throws IOException, IllegalMoveException {
+		final PlayRequest request = new PlayRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setColumn(2);
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt")));
+		final List<Runnable> pondering = new ArrayList<>();
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final CollectingBoardForwarder forwarder = new CollectingBoardForwarder();
+		final GameHandler handler = new GameHandler(forwarder, coalescer, pondering::add);
+
+		final PlayResponse response = handler.next(request);
+		Assert.assertEquals(GameState.PLAYER_Y_TURN, response.getState());
+		Assert.assertFalse(pondering.isEmpty());
+		Assert.assertEquals(1, coalescer.size()); // the AI's move
+		final int forwarded = forwarder.requests.size();
+		pondering.forEach(Runnable::run);
+		Assert.assertTrue(coalescer.size() > 1); // some replies may be mirror images of each other
+		Assert.assertEquals("Replies nobody asked for aren't forwarded", forwarded, forwarder.requests.size());
+
+		// The reply is waiting for the human's move
+		final PlayRequest nextRequest = new PlayRequest();
+		nextRequest.setCurrentPlayer(Disc.YELLOW);
+		nextRequest.setColumn(6);
+		nextRequest.setBoard(new Board(response.getAiBoard()));
+		final int size = coalescer.size();
+		handler.next(nextRequest);
+		Assert.assertEquals(size, coalescer.size()); // no new analysis
+
+		// The reply that was used is forwarded, the same as without pondering
+		final CollectingBoardForwarder expected = new CollectingBoardForwarder();
+		final GameHandler unpondered = new GameHandler(expected, null);
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt")));
+		unpondered.next(request);
+		nextRequest.setBoard(new Board(response.getAiBoard()));
+		unpondered.next(nextRequest);
+		Assert.assertFalse(expected.requests.isEmpty());
+		Assert.assertEquals(expected.requests.size(), forwarder.requests.size());
+	}
+
+	@Test
+	public void testPlayPondersWhenIdle() throws IOException, InterruptedException {
+		final PlayRequest request = new PlayRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setColumn(2);
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt")));
+		final AnalysisLimiter limiter = new AnalysisLimiter(1, 1);
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final GameHandler handler = new GameHandler(SinkBoardForwader.INSTANCE, coalescer, limiter.whenIdle(Runnable::run));
+
+		// Every turn is taken by requests so there's nothing to spare for pondering
+		Assert.assertTrue(limiter.acquire());
+		handler.next(request);
+		Assert.assertEquals(1, coalescer.size()); // only the AI's move
+
+		limiter.release();
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt")));
+		request.setColumn(3);
+		handler.next(request);
+		Assert.assertTrue(coalescer.size() > 2); // the AI's move and the replies
+		Assert.assertTrue("Pondering gives its turn back", limiter.tryAcquire());
+	}
+
+	@Test
+	public void testAnalyseGame() {
+		final GameAnalysisRequest request = new GameAnalysisRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.getMoves().addAll(List.of(3, 0, 3, 0, 3, 6, 3)); // red doesn't block yellow's column and loses
+
+		final GameAnalysisResponse response = gameHandler.analyseGame(request);
+		Assert.assertNull(response.getException());
+		Assert.assertEquals(GameState.PLAYER_Y_WON, response.getState());
+		Assert.assertEquals(7, response.getMoves().size());
+		final MoveReview miss = response.getMoves().get(5);
+		Assert.assertEquals(Disc.RED, miss.getPlayer());
+		Assert.assertEquals(6, miss.getColumn());
+		Assert.assertArrayEquals(new int[] { 3 }, miss.getBestColumns());
+		Assert.assertTrue((miss.getBestFlags() & ColumnAnalysis.FLAG_BLOCK_LOSS_1) != 0);
+		Assert.assertTrue(miss.isBlunder());
+		final MoveReview win = response.getMoves().get(6);
+		Assert.assertTrue((win.getFlags() & ColumnAnalysis.FLAG_WIN_1) != 0);
+		Assert.assertFalse(win.isBlunder());
+
+		// Moves after the game ended
+		request.getMoves().add(4);
+		Assert.assertEquals(GameException.ErrorCode.ALREADY_WON, gameHandler.analyseGame(request).getException().getErrorCode());
+
+		// Illegal moves stop the analysis
+		request.getMoves().clear();
+		request.getMoves().addAll(List.of(3, 9));
+		final GameAnalysisResponse illegal = gameHandler.analyseGame(request);
+		Assert.assertEquals(GameException.ErrorCode.OUT_OF_BOUNDS, illegal.getException().getErrorCode());
+		Assert.assertEquals(1, illegal.getMoves().size());
+	}
+
+	@Test
+	public void testAnalyseGameForwarded() throws IOException, IllegalMoveException {
+		// Yellow has two traps on the right of the board, which the forwarder mirrors to the left
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_EnableTrapWin_3.txt"));
+		final GameAnalysisRequest request = new GameAnalysisRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setBoard(new Board(board));
+		request.getMoves().addAll(List.of(3, 2, 4));
+		final CollectingBoardForwarder forwarder = new CollectingBoardForwarder();
+		final GameAnalysisResponse response = new GameHandler(forwarder, null).analyseGame(request);
+		Assert.assertNull(response.getException());
+		Assert.assertFalse(forwarder.requests.isEmpty());
+
+		// The moves were replayed on the board as it was given
+		board.putDisc(3, Disc.YELLOW);
+		board.putDisc(2, Disc.RED);
+		board.putDisc(4, Disc.YELLOW);
+		Assert.assertEquals(board, request.getBoard());
+		Assert.assertArrayEquals(new int[] { 3, 4 }, response.getMoves().get(0).getBestColumns());
+
+		// The same review as without forwarding
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_EnableTrapWin_3.txt")));
+		final GameAnalysisResponse expected = this.gameHandler.analyseGame(request);
+		Assert.assertEquals(expected.getState(), response.getState());
+		for (int i = 0; i < expected.getMoves().size(); i++) {
+			Assert.assertEquals(expected.getMoves().get(i).getColumn(), response.getMoves().get(i).getColumn());
+			Assert.assertArrayEquals(expected.getMoves().get(i).getBestColumns(), response.getMoves().get(i).getBestColumns());
+		}
+	}
+
+	@Test
+	public void testSession() throws IOException, IllegalMoveException {
+		final GameHandler handler = new GameHandler(SinkBoardForwader.INSTANCE, null, null, new GameSessionStore(60000, 100));
+		final RecommendRequest startRequest = new RecommendRequest();
+		startRequest.setCurrentPlayer(Disc.YELLOW);
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt"));
+		startRequest.setBoard(new Board(board));
+		final PlayResponse start = handler.startSession(startRequest);
+		Assert.assertNull(start.getException());
+		Assert.assertEquals(GameState.PLAYER_Y_TURN, start.getState());
+		Assert.assertNotNull(start.getSessionId());
+
+		// Same as testPlayNormal but only the column is sent
+		final PlayRequest request = new PlayRequest();
+		request.setSessionId(start.getSessionId());
+		request.setColumn(2);
+		final PlayResponse response = handler.next(request);
+		Assert.assertNull(response.getException());
+		Assert.assertEquals(start.getSessionId(), response.getSessionId());
+		Assert.assertEquals(5, response.getPlayerRow().intValue());
+		Assert.assertEquals(GameState.PLAYER_Y_TURN, response.getState());
+		Assert.assertEquals(1, response.getAiCol().intValue());
+		board.putDisc(2, Disc.YELLOW);
+		board.putDisc(1, Disc.RED);
+		Assert.assertEquals(board, response.getAiBoard());
+
+		// Illegal moves leave the session as it was
+		request.setColumn(7);
+		Assert.assertEquals(GameException.ErrorCode.OUT_OF_BOUNDS, handler.next(request).getException().getErrorCode());
+
+		// The session carries on from the AI's move, which blocked column 1
+		request.setColumn(1);
+		Assert.assertEquals(GameException.ErrorCode.COLUMN_FULL, handler.next(request).getException().getErrorCode());
+
+		// Yellow wins in a new session, which is then forgotten
+		request.setSessionId(handler.startSession(startRequest).getSessionId());
+		final PlayResponse won = handler.next(request);
+		Assert.assertNull(won.getException());
+		Assert.assertEquals(GameState.PLAYER_Y_WON, won.getState());
+		Assert.assertEquals(GameException.ErrorCode.NO_SESSION, handler.next(request).getException().getErrorCode());
+
+		request.setSessionId("unknown");
+		Assert.assertEquals(GameException.ErrorCode.NO_SESSION, handler.next(request).getException().getErrorCode());
+		Assert.assertEquals(GameException.ErrorCode.NO_SESSION, this.gameHandler.startSession(startRequest).getException().getErrorCode());
+	}
+
 	@Test
 	public void testPlayAlreadyFull() throws IOException {
 		final PlayRequest request = new PlayRequest();
@@ -214,4 +442,39 @@ public class GameHandlerTest {
 		Assert.assertEquals((Integer) 6, response.getAiCol());
 		Assert.assertEquals((Integer) 5, response.getAiRow());
 	}
+
+	@Test
+	public void testWarmUp() {
+		// Nobody can win in fewer than 4 moves each and each move is a recommend and a play request
+		Assert.assertTrue(new WarmUp(gameHandler).play(3) >= 3 * 4 * 2);
+	}
+
+	@Test
+	public void testReplayCorpus() {
+		final int positions = WarmUp.loadCorpus().size();
+		final WarmUp.Report report = new WarmUp(gameHandler).replayCorpus(2);
+		// Every position is recommended and its recommendation played
+		Assert.assertEquals(2 * 2 * positions, report.getRequests());
+		Assert.assertEquals(2, report.getIterations());
+		Assert.assertTrue(report.getMillis(WarmUp.Phase.RECOMMEND) <= report.getElapsedMillis());
+
+		// Stops when the time runs out, after finishing the iteration
+		final WarmUp.Report limited = new WarmUp(gameHandler).replayCorpus(Integer.MAX_VALUE, 100);
+		Assert.assertTrue(limited.getIterations() >= 1 && limited.getIterations() < Integer.MAX_VALUE);
+		Assert.assertEquals(limited.getIterations() * 2 * positions, limited.getRequests());
+	}
+
+	private static class CollectingBoardForwarder extends AbstractBoardForwarder {
+
+		private final List<StoreBoardRequest> requests = new ArrayList<>();
+
+		private CollectingBoardForwarder() {
+			super(null); // forward every interesting board
+		}
+
+		@Override
+		protected void forward(final StoreBoardRequest request) {
+			this.requests.add(request);
+		}
+	}
 }
@@ -0,0 +1,82 @@
+package connect4.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+
+public class GameSessionStoreTest {
+
+	@Test
+	public void testCreateAndGet() {
+		final GameSessionStore store = new GameSessionStore(60000, 100);
+		final GameSession session = store.create(new Board(7, 6), Disc.RED);
+		Assert.assertSame(session, store.get(session.getId()));
+		Assert.assertEquals(Disc.RED, session.getHuman());
+		Assert.assertEquals(GameState.PLAYER_R_TURN, session.getState());
+		Assert.assertNull(store.get("unknown"));
+
+		store.remove(session.getId());
+		Assert.assertNull(store.get(session.getId()));
+	}
+
+	@Test
+	public void testExpired() {
+		final GameSessionStore store = new GameSessionStore(0, 100);
+		final GameSession session = store.create(new Board(7, 6), Disc.YELLOW);
+		Assert.assertNull(store.get(session.getId()));
+		Assert.assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testExpiredSweptOnCreate() {
+		final GameSessionStore store = new GameSessionStore(0, 100);
+		store.create(new Board(7, 6), Disc.YELLOW);
+		store.create(new Board(7, 6), Disc.YELLOW);
+		store.create(new Board(7, 6), Disc.YELLOW);
+		Assert.assertEquals(1, store.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedForgotten() {
+		final GameSessionStore store = new GameSessionStore(60000, 2);
+		final GameSession first = store.create(new Board(7, 6), Disc.YELLOW);
+		final GameSession second = store.create(new Board(7, 6), Disc.YELLOW);
+		store.get(first.getId());
+		final GameSession third = store.create(new Board(7, 6), Disc.YELLOW);
+		Assert.assertEquals(2, store.size());
+		Assert.assertNotNull(store.get(first.getId()));
+		Assert.assertNull(store.get(second.getId()));
+		Assert.assertNotNull(store.get(third.getId()));
+	}
+
+	@Test
+	public void testConcurrentCreate() throws Exception {
+		final int threads = 8;
+		final GameSessionStore store = new GameSessionStore(60000, 50);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 1000; i++) {
+						store.create(new Board(7, 6), Disc.YELLOW);
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(50, store.size());
+	}
+}
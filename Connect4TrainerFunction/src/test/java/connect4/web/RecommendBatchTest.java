@@ -0,0 +1,97 @@
+package connect4.web;
+
+import static connect4.BoardHelperTest.RESOURCES_DIR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.loader.BoardLoader;
+import connect4.rest.AnalysisLimiter;
+
+public class RecommendBatchTest {
+
+	private static final String[] BOARDS = { "TrainerTest_1.txt", "TrainerTest_ForceWin_1.txt", "BoardLoaderTest_1.txt",
+			"BoardTest_reverse1a_input.txt" };
+
+	@Test
+	public void testInRequestOrder() throws IOException {
+		final List<RecommendRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			final RecommendRequest request = new RecommendRequest();
+			request.setCurrentPlayer(Disc.YELLOW);
+			request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + BOARDS[i % BOARDS.length])));
+			requests.add(request);
+		}
+		final Iterator<RecommendRequest> iterator = requests.iterator();
+		final List<RecommendResponse> responses = new ArrayList<>();
+
+		new RecommendBatch(new GameHandler(), null, 3).recommend(() -> iterator.hasNext() ? iterator.next() : null, responses::add);
+
+		Assert.assertEquals(requests.size(), responses.size());
+		for (int i = 0; i < requests.size(); i++) {
+			Assert.assertSame(requests.get(i).getBoard(), responses.get(i).getBoard());
+		}
+		Assert.assertEquals(1, responses.get(0).getRecommendColumn()); // the win
+	}
+
+	@Test
+	public void testErrorsAnsweredInPlace() throws IOException {
+		final RecommendRequest won = new RecommendRequest();
+		won.setCurrentPlayer(Disc.YELLOW);
+		won.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardHelperTest_hasWinner1.txt")));
+		final RecommendRequest empty = new RecommendRequest();
+		empty.setCurrentPlayer(Disc.RED);
+		empty.setBoard(new Board(7, 6));
+		final Iterator<RecommendRequest> iterator = List.of(won, empty).iterator();
+		final List<RecommendResponse> responses = new ArrayList<>();
+
+		new RecommendBatch(new GameHandler(), null, 2).recommend(() -> iterator.hasNext() ? iterator.next() : null, responses::add);
+
+		Assert.assertEquals(2, responses.size());
+		Assert.assertNotNull(responses.get(0).getException());
+		Assert.assertNull(responses.get(1).getException());
+	}
+
+	/**
+	 * Batch positions wait for a turn with the limiter, however many are waiting, rather than being turned away.
+	 */
+	@Test
+	public void testWaitsForLimiter() throws Exception {
+		final AnalysisLimiter limiter = new AnalysisLimiter(1, 0);
+		Assert.assertTrue(limiter.acquire()); // another request is analysing
+		final RecommendRequest request = new RecommendRequest();
+		request.setCurrentPlayer(Disc.YELLOW);
+		request.setBoard(BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_1.txt")));
+		final Iterator<RecommendRequest> iterator = List.of(request).iterator();
+		final List<RecommendResponse> responses = new ArrayList<>();
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<?> done = executor.submit(() -> {
+				new RecommendBatch(new GameHandler(), limiter, 2).recommend(() -> iterator.hasNext() ? iterator.next() : null,
+						responses::add);
+				return null;
+			});
+			Thread.sleep(200);
+			Assert.assertFalse(done.isDone());
+			limiter.release();
+			done.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(1, responses.size());
+		Assert.assertTrue(limiter.acquire()); // the batch gave its turn back
+	}
+}
@@ -0,0 +1,143 @@
+package connect4.web;
+
+import static connect4.BoardHelperTest.RESOURCES_DIR;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import connect4.api.Board;
+import connect4.api.Disc;
+import connect4.api.IllegalMoveException;
+import connect4.loader.BoardLoader;
+import connect4.trainer.Recommendation;
+import connect4.trainer.Trainer;
+
+public class RecommendCoalescerTest {
+
+	private final AtomicInteger analyses = new AtomicInteger();
+
+	@Test
+	public void testConcurrent() throws Exception {
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final CountDownLatch release = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> coalescer.recommend(board, Disc.YELLOW, (b, player) -> {
+					this.analyses.incrementAndGet();
+					try {
+						release.await(); // hold the analysis until every caller has arrived
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return 3;
+				})));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (final Future<Integer> result : results) {
+				Assert.assertEquals((Integer) 3, result.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(1, this.analyses.get());
+
+		// Remembered after it finishes
+		Assert.assertEquals(3, coalescer.recommend(board, Disc.YELLOW, this::analyse));
+		Assert.assertEquals(1, this.analyses.get());
+	}
+
+	@Test
+	public void testMirroredAndSwapped() throws IOException {
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardTest_reverse1a_input.txt"));
+		final Board mirrored = BoardLoader.readBoard(new File(RESOURCES_DIR + "BoardTest_reverse1c_input.txt"));
+		Assert.assertEquals(1, coalescer.recommend(board, Disc.YELLOW, this::analyse));
+		Assert.assertEquals(5, coalescer.recommend(mirrored, Disc.YELLOW, this::analyse));
+		Assert.assertEquals(1, coalescer.recommend(board.swap(), Disc.RED, this::analyse));
+		Assert.assertEquals(1, this.analyses.get());
+		Assert.assertEquals(1, coalescer.size());
+	}
+
+	@Test
+	public void testNotRemembered() throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final RecommendCoalescer coalescer = new RecommendCoalescer(0, 100);
+		coalescer.recommend(board, Disc.YELLOW, this::analyse);
+		coalescer.recommend(board, Disc.YELLOW, this::analyse);
+		Assert.assertEquals(2, this.analyses.get());
+		Assert.assertEquals(0, coalescer.size());
+
+		// Failures aren't remembered either
+		final RecommendCoalescer failing = new RecommendCoalescer(60000, 100);
+		try {
+			failing.recommend(board, Disc.YELLOW, (b, player) -> {
+				throw new IllegalStateException("Broken");
+			});
+			Assert.fail();
+		} catch (final IllegalStateException e) {
+			Assert.assertEquals("Broken", e.getMessage());
+		}
+		Assert.assertEquals(0, failing.size());
+	}
+
+	@Test
+	public void testPonder() throws IOException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final RecommendCoalescer coalescer = new RecommendCoalescer(0, 60000, 100);
+		Assert.assertTrue(coalescer.ponder(board, Disc.YELLOW, this::explain));
+		Assert.assertFalse(coalescer.ponder(board, Disc.YELLOW, this::explain)); // already remembered
+		Assert.assertEquals(1, coalescer.recommend(board, Disc.YELLOW, this::analyse));
+		Assert.assertEquals(1, this.analyses.get());
+
+		// Failures are swallowed and not remembered
+		Assert.assertFalse(coalescer.ponder(board.swap(), Disc.YELLOW, (b, player) -> {
+			throw new IllegalStateException("Broken");
+		}));
+		Assert.assertEquals(1, coalescer.size());
+	}
+
+	@Test
+	public void testExplainMirrored() throws IOException, IllegalMoveException {
+		final Board board = BoardLoader.readBoard(new File(RESOURCES_DIR + "TrainerTest_ForceWin_1.txt"));
+		final Board mirrored = new Board(board.getNumCols(), board.getNumRows());
+		for (int c = 0; c < board.getNumCols(); c++) {
+			for (int r = 0; r < board.getNumRows() && board.getDisc(c, r) != null; r++) {
+				mirrored.putDisc(board.getNumCols() - 1 - c, board.getDisc(c, r));
+			}
+		}
+		final RecommendCoalescer coalescer = new RecommendCoalescer(60000, 100);
+		final Trainer trainer = new Trainer();
+		final Recommendation recommendation = coalescer.explain(board, Disc.YELLOW, trainer::explain);
+		final Recommendation reflected = coalescer.explain(mirrored, Disc.YELLOW, (b, player) -> {
+			throw new IllegalStateException("Should have been remembered");
+		});
+		Assert.assertEquals(6 - recommendation.getColumn(), reflected.getColumn());
+		Assert.assertArrayEquals(recommendation.getScores(), reflected.getScores());
+		Assert.assertEquals(6 - recommendation.getForcedLine()[0], reflected.getForcedLine()[0]);
+		Assert.assertEquals(recommendation.getColumn(), coalescer.recommend(board, Disc.YELLOW, trainer::recommend));
+	}
+
+	private Recommendation explain(final Board board, final Disc currentPlayer) {
+		return new Recommendation(analyse(board, currentPlayer));
+	}
+
+	private int analyse(final Board board, final Disc currentPlayer) {
+		this.analyses.incrementAndGet();
+		return 1;
+	}
+}